@@ -3,11 +3,18 @@ package com.rapidupload.backend.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.lambda.LambdaClient;
+import software.amazon.awssdk.services.lambda.LambdaAsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
@@ -17,6 +24,17 @@ public class AwsConfig {
     @Value("${aws.region}")
     private String awsRegion;
 
+    @Value("${aws.async.event-loop-threads:4}")
+    private int eventLoopThreads;
+
+    @Value("${aws.async.max-concurrency:1000}")
+    private int asyncMaxConcurrency;
+
+    @Bean
+    public AwsCredentialsProvider awsCredentialsProvider() {
+        return DefaultCredentialsProvider.create();
+    }
+
     @Bean
     public S3Client s3Client() {
         return S3Client.builder()
@@ -48,12 +66,52 @@ public class AwsConfig {
                 .build();
     }
 
+    /**
+     * Netty transport shared by all async clients: one small event loop group multiplexes every
+     * in-flight AWS call, so concurrency is bounded by connections rather than threads.
+     * The clients don't own it, so it is closed here when the context shuts down.
+     */
+    @Bean(destroyMethod = "close")
+    public SdkAsyncHttpClient sdkAsyncHttpClient() {
+        return NettyNioAsyncHttpClient.builder()
+                .eventLoopGroup(SdkEventLoopGroup.builder()
+                        .numberOfThreads(eventLoopThreads)
+                        .build())
+                .maxConcurrency(asyncMaxConcurrency)
+                .build();
+    }
+
     @Bean
-    public LambdaClient lambdaClient() {
-        return LambdaClient.builder()
+    public DynamoDbAsyncClient dynamoDbAsyncClient(SdkAsyncHttpClient sdkAsyncHttpClient) {
+        return DynamoDbAsyncClient.builder()
                 .region(Region.of(awsRegion))
                 .credentialsProvider(DefaultCredentialsProvider.create())
+                .httpClient(sdkAsyncHttpClient)
+                .build();
+    }
+
+    @Bean
+    public DynamoDbEnhancedAsyncClient dynamoDbEnhancedAsyncClient(DynamoDbAsyncClient dynamoDbAsyncClient) {
+        return DynamoDbEnhancedAsyncClient.builder()
+                .dynamoDbClient(dynamoDbAsyncClient)
                 .build();
     }
-}
 
+    @Bean
+    public S3AsyncClient s3AsyncClient(SdkAsyncHttpClient sdkAsyncHttpClient) {
+        return S3AsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .httpClient(sdkAsyncHttpClient)
+                .build();
+    }
+
+    @Bean
+    public LambdaAsyncClient lambdaAsyncClient(SdkAsyncHttpClient sdkAsyncHttpClient) {
+        return LambdaAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .httpClient(sdkAsyncHttpClient)
+                .build();
+    }
+}
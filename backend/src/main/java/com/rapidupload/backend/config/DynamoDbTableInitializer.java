@@ -1,5 +1,8 @@
 package com.rapidupload.backend.config;
 
+import com.rapidupload.backend.repositories.AnalysisRepository;
+import com.rapidupload.backend.repositories.PropertyRepository;
+import com.rapidupload.backend.repositories.ReportJobRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,6 +12,7 @@ import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class DynamoDbTableInitializer implements CommandLineRunner {
@@ -16,6 +20,8 @@ public class DynamoDbTableInitializer implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(DynamoDbTableInitializer.class);
 
     private final DynamoDbClient dynamoDbClient;
+    private final PropertyRepository propertyRepository;
+    private final AnalysisRepository analysisRepository;
 
     @Value("${aws.dynamodb.tables.properties}")
     private String propertiesTableName;
@@ -26,16 +32,30 @@ public class DynamoDbTableInitializer implements CommandLineRunner {
     @Value("${aws.dynamodb.tables.analysis:Analysis}")
     private String analysisTableName;
 
-    public DynamoDbTableInitializer(DynamoDbClient dynamoDbClient) {
+    @Value("${aws.dynamodb.tables.content-hashes:ContentHashes}")
+    private String contentHashesTableName;
+
+    @Value("${aws.dynamodb.tables.report-jobs:ReportJobs}")
+    private String reportJobsTableName;
+
+    public DynamoDbTableInitializer(DynamoDbClient dynamoDbClient, PropertyRepository propertyRepository,
+                                    AnalysisRepository analysisRepository) {
         this.dynamoDbClient = dynamoDbClient;
+        this.propertyRepository = propertyRepository;
+        this.analysisRepository = analysisRepository;
     }
 
     @Override
     public void run(String... args) {
         try {
             createPropertiesTable();
+            backfillPropertiesCreatedAtIndex();
+            backfillPropertiesDeletedAtIndex();
             createPhotosTable();
             createAnalysisTable();
+            backfillAnalysisPendingIndex();
+            createContentHashesTable();
+            createReportJobsTable();
             logger.info("DynamoDB tables initialized successfully");
         } catch (Exception e) {
             logger.error("Error initializing DynamoDB tables", e);
@@ -46,10 +66,11 @@ public class DynamoDbTableInitializer implements CommandLineRunner {
         try {
             // Check if table exists
             try {
-                dynamoDbClient.describeTable(DescribeTableRequest.builder()
+                DescribeTableResponse existing = dynamoDbClient.describeTable(DescribeTableRequest.builder()
                         .tableName(propertiesTableName)
                         .build());
                 logger.info("Properties table already exists: {}", propertiesTableName);
+                ensurePropertiesIndexes(existing.table());
                 return;
             } catch (ResourceNotFoundException e) {
                 // Table doesn't exist, create it
@@ -62,6 +83,22 @@ public class DynamoDbTableInitializer implements CommandLineRunner {
                             AttributeDefinition.builder()
                                     .attributeName("PropertyID")
                                     .attributeType(ScalarAttributeType.S)
+                                    .build(),
+                            AttributeDefinition.builder()
+                                    .attributeName(PropertyRepository.LIST_PARTITION_ATTRIBUTE)
+                                    .attributeType(ScalarAttributeType.S)
+                                    .build(),
+                            AttributeDefinition.builder()
+                                    .attributeName("CreatedAt")
+                                    .attributeType(ScalarAttributeType.S)
+                                    .build(),
+                            AttributeDefinition.builder()
+                                    .attributeName(PropertyRepository.DELETED_PARTITION_ATTRIBUTE)
+                                    .attributeType(ScalarAttributeType.S)
+                                    .build(),
+                            AttributeDefinition.builder()
+                                    .attributeName(PropertyRepository.DELETED_AT_ATTRIBUTE)
+                                    .attributeType(ScalarAttributeType.S)
                                     .build()
                     )
                     .keySchema(
@@ -70,10 +107,11 @@ public class DynamoDbTableInitializer implements CommandLineRunner {
                                     .keyType(KeyType.HASH)
                                     .build()
                     )
+                    .globalSecondaryIndexes(propertiesCreatedAtIndex(), propertiesDeletedAtIndex())
                     .build();
 
             dynamoDbClient.createTable(createTableRequest);
-            logger.info("Created Properties table: {}", propertiesTableName);
+            logger.info("Created Properties table with GSI: {}", propertiesTableName);
         } catch (ResourceInUseException e) {
             logger.info("Properties table already exists: {}", propertiesTableName);
         } catch (Exception e) {
@@ -81,6 +119,99 @@ public class DynamoDbTableInitializer implements CommandLineRunner {
         }
     }
 
+    private GlobalSecondaryIndex propertiesCreatedAtIndex() {
+        return GlobalSecondaryIndex.builder()
+                .indexName(PropertyRepository.CREATED_AT_INDEX)
+                .keySchema(
+                        KeySchemaElement.builder()
+                                .attributeName(PropertyRepository.LIST_PARTITION_ATTRIBUTE)
+                                .keyType(KeyType.HASH)
+                                .build(),
+                        KeySchemaElement.builder()
+                                .attributeName("CreatedAt")
+                                .keyType(KeyType.RANGE)
+                                .build()
+                )
+                .projection(Projection.builder()
+                        .projectionType(ProjectionType.ALL)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Tombstones by deletion time, for the purge sweep. Keys only: the sweep reads just PropertyID.
+     */
+    private GlobalSecondaryIndex propertiesDeletedAtIndex() {
+        return GlobalSecondaryIndex.builder()
+                .indexName(PropertyRepository.DELETED_AT_INDEX)
+                .keySchema(
+                        KeySchemaElement.builder()
+                                .attributeName(PropertyRepository.DELETED_PARTITION_ATTRIBUTE)
+                                .keyType(KeyType.HASH)
+                                .build(),
+                        KeySchemaElement.builder()
+                                .attributeName(PropertyRepository.DELETED_AT_ATTRIBUTE)
+                                .keyType(KeyType.RANGE)
+                                .build()
+                )
+                .projection(Projection.builder()
+                        .projectionType(ProjectionType.KEYS_ONLY)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Add the CreatedAt listing index and the DeletedAt index to a Properties table created before
+     * they existed. DynamoDB builds one index at a time online, so a missing second index is added
+     * on a later start; listings fall back to a scan and purge sweeps fail and are logged until
+     * their index is active.
+     */
+    private void ensurePropertiesIndexes(TableDescription table) {
+        if (!hasIndex(table, PropertyRepository.CREATED_AT_INDEX)) {
+            addIndex(propertiesTableName, propertiesCreatedAtIndex(), List.of(
+                    AttributeDefinition.builder()
+                            .attributeName(PropertyRepository.LIST_PARTITION_ATTRIBUTE)
+                            .attributeType(ScalarAttributeType.S)
+                            .build(),
+                    AttributeDefinition.builder()
+                            .attributeName("CreatedAt")
+                            .attributeType(ScalarAttributeType.S)
+                            .build()));
+        } else if (!hasIndex(table, PropertyRepository.DELETED_AT_INDEX)) {
+            addIndex(propertiesTableName, propertiesDeletedAtIndex(), List.of(
+                    AttributeDefinition.builder()
+                            .attributeName(PropertyRepository.DELETED_PARTITION_ATTRIBUTE)
+                            .attributeType(ScalarAttributeType.S)
+                            .build(),
+                    AttributeDefinition.builder()
+                            .attributeName(PropertyRepository.DELETED_AT_ATTRIBUTE)
+                            .attributeType(ScalarAttributeType.S)
+                            .build()));
+        }
+    }
+
+    /**
+     * Move tombstones from before the DeletedAt index into it, in the background like the CreatedAt backfill.
+     */
+    private void backfillPropertiesDeletedAtIndex() {
+        CompletableFuture.runAsync(propertyRepository::backfillDeletedAtIndex)
+                .exceptionally(error -> {
+                    logger.error("Error backfilling {}", PropertyRepository.DELETED_AT_INDEX, error);
+                    return null;
+                });
+    }
+
+    /**
+     * Move pre-index rows into the CreatedAt index in the background so startup isn't held up.
+     */
+    private void backfillPropertiesCreatedAtIndex() {
+        CompletableFuture.runAsync(propertyRepository::backfillCreatedAtIndex)
+                .exceptionally(error -> {
+                    logger.error("Error backfilling {}", PropertyRepository.CREATED_AT_INDEX, error);
+                    return null;
+                });
+    }
+
     private void createPhotosTable() {
         try {
             // Check if table exists
@@ -142,9 +273,10 @@ public class DynamoDbTableInitializer implements CommandLineRunner {
     private void createAnalysisTable() {
         try {
             try {
-                dynamoDbClient.describeTable(DescribeTableRequest.builder()
+                DescribeTableResponse existing = dynamoDbClient.describeTable(DescribeTableRequest.builder()
                         .tableName(analysisTableName).build());
                 logger.info("Analysis table already exists: {}", analysisTableName);
+                ensureAnalysisIndexes(existing.table());
                 return;
             } catch (ResourceNotFoundException e) {
                 // Table doesn't exist, create it
@@ -167,6 +299,18 @@ public class DynamoDbTableInitializer implements CommandLineRunner {
                             AttributeDefinition.builder()
                                     .attributeName("PropertyID")
                                     .attributeType(ScalarAttributeType.S)
+                                    .build(),
+                            AttributeDefinition.builder()
+                                    .attributeName(AnalysisRepository.PENDING_STATUS_ATTRIBUTE)
+                                    .attributeType(ScalarAttributeType.S)
+                                    .build(),
+                            AttributeDefinition.builder()
+                                    .attributeName("createdAt")
+                                    .attributeType(ScalarAttributeType.S)
+                                    .build(),
+                            AttributeDefinition.builder()
+                                    .attributeName("SourceAnalysisID")
+                                    .attributeType(ScalarAttributeType.S)
                                     .build()
                     )
                     .keySchema(
@@ -195,7 +339,9 @@ public class DynamoDbTableInitializer implements CommandLineRunner {
                                     .projection(Projection.builder()
                                             .projectionType(ProjectionType.ALL)
                                             .build())
-                                    .build()
+                                    .build(),
+                            analysisPendingIndex(),
+                            analysisSourceIndex()
                     )
                     .build();
 
@@ -207,5 +353,198 @@ public class DynamoDbTableInitializer implements CommandLineRunner {
             logger.error("Error creating Analysis table", e);
         }
     }
-}
 
+    /**
+     * Sparse index of pending analyses by creation time, for dispatch recovery. Only what recovery
+     * reads is projected.
+     */
+    private GlobalSecondaryIndex analysisPendingIndex() {
+        return GlobalSecondaryIndex.builder()
+                .indexName(AnalysisRepository.PENDING_INDEX)
+                .keySchema(
+                        KeySchemaElement.builder()
+                                .attributeName(AnalysisRepository.PENDING_STATUS_ATTRIBUTE)
+                                .keyType(KeyType.HASH)
+                                .build(),
+                        KeySchemaElement.builder()
+                                .attributeName("createdAt")
+                                .keyType(KeyType.RANGE)
+                                .build()
+                )
+                .projection(Projection.builder()
+                        .projectionType(ProjectionType.INCLUDE)
+                        .nonKeyAttributes("PhotoID", "PropertyID", "Status", "SourceAnalysisID", "DispatchedAt")
+                        .build())
+                .build();
+    }
+
+    /**
+     * Sparse index of follower analyses by the analysis of the same content they wait on; the
+     * Lambda queries it to fan a result out.
+     */
+    private GlobalSecondaryIndex analysisSourceIndex() {
+        return GlobalSecondaryIndex.builder()
+                .indexName(AnalysisRepository.SOURCE_INDEX)
+                .keySchema(KeySchemaElement.builder()
+                        .attributeName("SourceAnalysisID")
+                        .keyType(KeyType.HASH)
+                        .build())
+                .projection(Projection.builder()
+                        .projectionType(ProjectionType.KEYS_ONLY)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Add the Pending and SourceAnalysisID indexes to an Analysis table created before they existed.
+     * DynamoDB builds one index at a time online, so a missing second index is added on a later
+     * start; recovery passes and fan-outs relying on an index fail and are logged until it is active.
+     */
+    private void ensureAnalysisIndexes(TableDescription table) {
+        if (!hasIndex(table, AnalysisRepository.PENDING_INDEX)) {
+            addIndex(analysisTableName, analysisPendingIndex(), List.of(
+                    AttributeDefinition.builder()
+                            .attributeName(AnalysisRepository.PENDING_STATUS_ATTRIBUTE)
+                            .attributeType(ScalarAttributeType.S)
+                            .build(),
+                    AttributeDefinition.builder()
+                            .attributeName("createdAt")
+                            .attributeType(ScalarAttributeType.S)
+                            .build()));
+        } else if (!hasIndex(table, AnalysisRepository.SOURCE_INDEX)) {
+            addIndex(analysisTableName, analysisSourceIndex(), List.of(
+                    AttributeDefinition.builder()
+                            .attributeName("SourceAnalysisID")
+                            .attributeType(ScalarAttributeType.S)
+                            .build()));
+        }
+    }
+
+    private static boolean hasIndex(TableDescription table, String indexName) {
+        return table.hasGlobalSecondaryIndexes() && table.globalSecondaryIndexes().stream()
+                .anyMatch(index -> indexName.equals(index.indexName()));
+    }
+
+    private void addIndex(String tableName, GlobalSecondaryIndex index, List<AttributeDefinition> attributes) {
+        try {
+            dynamoDbClient.updateTable(UpdateTableRequest.builder()
+                    .tableName(tableName)
+                    .attributeDefinitions(attributes)
+                    .globalSecondaryIndexUpdates(GlobalSecondaryIndexUpdate.builder()
+                            .create(CreateGlobalSecondaryIndexAction.builder()
+                                    .indexName(index.indexName())
+                                    .keySchema(index.keySchema())
+                                    .projection(index.projection())
+                                    .build())
+                            .build())
+                    .build());
+            logger.info("Creating {} on table: {}", index.indexName(), tableName);
+        } catch (ResourceInUseException | LimitExceededException e) {
+            logger.info("Table {} is being updated, {} will be added on next start", tableName, index.indexName());
+        }
+    }
+
+    /**
+     * Move pending rows from before the index into it in the background so startup isn't held up.
+     */
+    private void backfillAnalysisPendingIndex() {
+        CompletableFuture.runAsync(analysisRepository::backfillPendingIndex)
+                .exceptionally(error -> {
+                    logger.error("Error backfilling {}", AnalysisRepository.PENDING_INDEX, error);
+                    return null;
+                });
+    }
+
+    private void createContentHashesTable() {
+        try {
+            try {
+                dynamoDbClient.describeTable(DescribeTableRequest.builder()
+                        .tableName(contentHashesTableName).build());
+                logger.info("ContentHashes table already exists: {}", contentHashesTableName);
+                return;
+            } catch (ResourceNotFoundException e) {
+                // Table doesn't exist, create it
+            }
+
+            CreateTableRequest createTableRequest = CreateTableRequest.builder()
+                    .tableName(contentHashesTableName)
+                    .billingMode(BillingMode.PAY_PER_REQUEST)
+                    .attributeDefinitions(
+                            AttributeDefinition.builder()
+                                    .attributeName("PropertyID")
+                                    .attributeType(ScalarAttributeType.S)
+                                    .build(),
+                            AttributeDefinition.builder()
+                                    .attributeName("ContentHash")
+                                    .attributeType(ScalarAttributeType.S)
+                                    .build()
+                    )
+                    .keySchema(
+                            KeySchemaElement.builder()
+                                    .attributeName("PropertyID")
+                                    .keyType(KeyType.HASH)
+                                    .build(),
+                            KeySchemaElement.builder()
+                                    .attributeName("ContentHash")
+                                    .keyType(KeyType.RANGE)
+                                    .build()
+                    )
+                    .build();
+
+            dynamoDbClient.createTable(createTableRequest);
+            logger.info("Created ContentHashes table: {}", contentHashesTableName);
+        } catch (ResourceInUseException e) {
+            logger.info("ContentHashes table already exists: {}", contentHashesTableName);
+        } catch (Exception e) {
+            logger.error("Error creating ContentHashes table", e);
+        }
+    }
+
+    private void createReportJobsTable() {
+        try {
+            try {
+                dynamoDbClient.describeTable(DescribeTableRequest.builder()
+                        .tableName(reportJobsTableName).build());
+                logger.info("ReportJobs table already exists: {}", reportJobsTableName);
+                return;
+            } catch (ResourceNotFoundException e) {
+                // Table doesn't exist, create it
+            }
+
+            CreateTableRequest createTableRequest = CreateTableRequest.builder()
+                    .tableName(reportJobsTableName)
+                    .billingMode(BillingMode.PAY_PER_REQUEST)
+                    .attributeDefinitions(
+                            AttributeDefinition.builder()
+                                    .attributeName("JobID")
+                                    .attributeType(ScalarAttributeType.S)
+                                    .build()
+                    )
+                    .keySchema(
+                            KeySchemaElement.builder()
+                                    .attributeName("JobID")
+                                    .keyType(KeyType.HASH)
+                                    .build()
+                    )
+                    .build();
+
+            dynamoDbClient.createTable(createTableRequest);
+            dynamoDbClient.waiter().waitUntilTableExists(DescribeTableRequest.builder()
+                    .tableName(reportJobsTableName).build());
+
+            // Finished jobs expire on their own
+            dynamoDbClient.updateTimeToLive(UpdateTimeToLiveRequest.builder()
+                    .tableName(reportJobsTableName)
+                    .timeToLiveSpecification(TimeToLiveSpecification.builder()
+                            .attributeName(ReportJobRepository.TTL_ATTRIBUTE)
+                            .enabled(true)
+                            .build())
+                    .build());
+            logger.info("Created ReportJobs table with TTL: {}", reportJobsTableName);
+        } catch (ResourceInUseException e) {
+            logger.info("ReportJobs table already exists: {}", reportJobsTableName);
+        } catch (Exception e) {
+            logger.error("Error creating ReportJobs table", e);
+        }
+    }
+}
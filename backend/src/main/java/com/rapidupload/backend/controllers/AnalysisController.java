@@ -28,7 +28,7 @@ public class AnalysisController {
             request.getPhotoIds().size(), request.getPropertyId());
 
         List<AnalysisResult> results = analysisService.triggerBatchAnalysis(
-            request.getPropertyId(), request.getPhotoIds());
+            request.getPropertyId(), request.getPhotoIds(), Boolean.TRUE.equals(request.getRepresentativesOnly()));
 
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Analysis triggered for " + results.size() + " photos");
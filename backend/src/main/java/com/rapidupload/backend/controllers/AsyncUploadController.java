@@ -0,0 +1,86 @@
+package com.rapidupload.backend.controllers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidupload.backend.dto.ConfirmUploadRequest;
+import com.rapidupload.backend.dto.ConfirmUploadResponse;
+import com.rapidupload.backend.dto.PagedPhotoResponse;
+import com.rapidupload.backend.dto.PresignedUrlRequest;
+import com.rapidupload.backend.dto.PresignedUrlResponse;
+import com.rapidupload.backend.services.AsyncUploadService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking variants of the upload endpoints. Handlers return a CompletableFuture, so the servlet
+ * thread is released while DynamoDB and S3 calls are in flight; errors reach GlobalExceptionHandler as usual.
+ */
+@RestController
+@RequestMapping("/api/async")
+public class AsyncUploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncUploadController.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AsyncUploadService asyncUploadService;
+
+    public AsyncUploadController(AsyncUploadService asyncUploadService) {
+        this.asyncUploadService = asyncUploadService;
+    }
+
+    @PostMapping("/photos/presigned-url")
+    public CompletableFuture<ResponseEntity<PresignedUrlResponse>> generatePresignedUrl(
+            @Valid @RequestBody PresignedUrlRequest request) {
+        logger.debug("Generating presigned URL for file: {} (size: {} bytes)",
+            request.getFilename(), request.getFileSize());
+        return asyncUploadService.generatePresignedUrl(request).thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("/photos/confirm-status")
+    public CompletableFuture<ResponseEntity<ConfirmUploadResponse>> confirmUploadStatus(
+            @Valid @RequestBody ConfirmUploadRequest request) {
+        logger.debug("Confirming upload status for photoId: {}", request.getPhotoId());
+
+        // Validate s3Key matches expected pattern and propertyId
+        String expectedPropertyId = extractPropertyIdFromS3Key(request.getS3Key());
+        if (!request.getPropertyId().equals(expectedPropertyId)) {
+            throw new IllegalArgumentException("Property ID in request does not match S3 key");
+        }
+
+        return asyncUploadService.confirmUploadStatus(request.getPhotoId(), request.getPropertyId(), request.getS3Key())
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/properties/{id}/photos")
+    public CompletableFuture<ResponseEntity<PagedPhotoResponse>> getPropertyPhotos(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String lastEvaluatedKey) {
+        // Parse lastEvaluatedKey from JSON string if provided
+        Map<String, String> exclusiveStartKey = null;
+        if (lastEvaluatedKey != null && !lastEvaluatedKey.isEmpty()) {
+            try {
+                exclusiveStartKey = objectMapper.readValue(lastEvaluatedKey, new TypeReference<Map<String, String>>() {});
+            } catch (Exception e) {
+                // If parsing fails, treat as null (start from beginning)
+                exclusiveStartKey = null;
+            }
+        }
+        return asyncUploadService.getPropertyPhotos(id, limit, exclusiveStartKey).thenApply(ResponseEntity::ok);
+    }
+
+    private String extractPropertyIdFromS3Key(String s3Key) {
+        // s3Key format: properties/{propertyId}/{photoId}-{filename}
+        String[] parts = s3Key.split("/");
+        if (parts.length >= 2 && "properties".equals(parts[0])) {
+            return parts[1];
+        }
+        throw new IllegalArgumentException("Invalid S3 key format: " + s3Key);
+    }
+}
@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -25,7 +26,7 @@ public class CleanupController {
 
     /**
      * DELETE /api/admin/cleanup
-     * Clears all data: S3 objects, DynamoDB photos, and DynamoDB properties
+     * Clears all data: S3 objects and every DynamoDB table (properties, photos, analyses, ...)
      * 
      * WARNING: This operation is irreversible!
      */
@@ -42,6 +43,9 @@ public class CleanupController {
             response.put("s3ObjectsDeleted", result.s3ObjectsDeleted);
             response.put("photosDeleted", result.photosDeleted);
             response.put("propertiesDeleted", result.propertiesDeleted);
+            response.put("analysesDeleted", result.analysesDeleted);
+            response.put("itemsDeleted", result.itemsDeleted);
+            response.put("itemsFailed", result.itemsFailed);
             
             if (result.success) {
                 return ResponseEntity.ok(response);
@@ -56,5 +60,13 @@ public class CleanupController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
-}
 
+    /**
+     * GET /api/admin/cleanup/progress
+     * Counts of the running cleanup, or of the last one
+     */
+    @GetMapping("/cleanup/progress")
+    public ResponseEntity<Map<String, Object>> getCleanupProgress() {
+        return ResponseEntity.ok(cleanupService.getProgress());
+    }
+}
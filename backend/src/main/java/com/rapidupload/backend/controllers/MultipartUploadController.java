@@ -0,0 +1,56 @@
+package com.rapidupload.backend.controllers;
+
+import com.rapidupload.backend.dto.CompleteMultipartUploadRequest;
+import com.rapidupload.backend.dto.ConfirmUploadResponse;
+import com.rapidupload.backend.dto.InitiateMultipartUploadRequest;
+import com.rapidupload.backend.dto.InitiateMultipartUploadResponse;
+import com.rapidupload.backend.dto.PresignPartsRequest;
+import com.rapidupload.backend.dto.PresignPartsResponse;
+import com.rapidupload.backend.services.MultipartUploadService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/photos/multipart")
+public class MultipartUploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultipartUploadController.class);
+
+    private final MultipartUploadService multipartUploadService;
+
+    public MultipartUploadController(MultipartUploadService multipartUploadService) {
+        this.multipartUploadService = multipartUploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<InitiateMultipartUploadResponse> initiate(@Valid @RequestBody InitiateMultipartUploadRequest request) {
+        logger.info("Initiating multipart upload for file: {} (size: {} bytes)", request.getFilename(), request.getFileSize());
+        return ResponseEntity.ok(multipartUploadService.initiate(request));
+    }
+
+    @PostMapping("/{photoId}/parts")
+    public ResponseEntity<PresignPartsResponse> presignParts(
+            @PathVariable String photoId,
+            @Valid @RequestBody PresignPartsRequest request) {
+        logger.debug("Presigning {} parts for photoId: {}", request.getPartNumbers().size(), photoId);
+        return ResponseEntity.ok(multipartUploadService.presignParts(photoId, request.getUploadId(), request.getPartNumbers()));
+    }
+
+    @PostMapping("/{photoId}/complete")
+    public ResponseEntity<ConfirmUploadResponse> complete(
+            @PathVariable String photoId,
+            @Valid @RequestBody CompleteMultipartUploadRequest request) {
+        logger.info("Completing multipart upload for photoId: {} ({} parts)", photoId, request.getParts().size());
+        return ResponseEntity.ok(multipartUploadService.complete(photoId, request));
+    }
+
+    @DeleteMapping("/{photoId}")
+    public ResponseEntity<Void> abort(@PathVariable String photoId, @RequestParam String uploadId) {
+        logger.info("Aborting multipart upload for photoId: {}", photoId);
+        multipartUploadService.abort(photoId, uploadId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -5,6 +5,8 @@ import com.rapidupload.backend.exceptions.PropertyNotFoundException;
 import com.rapidupload.backend.models.Photo;
 import com.rapidupload.backend.repositories.PhotoRepository;
 import com.rapidupload.backend.repositories.PropertyRepository;
+import com.rapidupload.backend.services.BatchPresignService;
+import com.rapidupload.backend.services.PhotoMetadataBackfillService;
 import com.rapidupload.backend.services.PhotoService;
 import com.rapidupload.backend.services.S3Service;
 import jakarta.validation.Valid;
@@ -17,7 +19,6 @@ import org.springframework.web.bind.annotation.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @RestController
@@ -28,15 +29,21 @@ public class PhotoController {
 
     private final S3Service s3Service;
     private final PhotoService photoService;
+    private final BatchPresignService batchPresignService;
     private final PhotoRepository photoRepository;
     private final PropertyRepository propertyRepository;
+    private final PhotoMetadataBackfillService metadataBackfillService;
 
     public PhotoController(S3Service s3Service, PhotoService photoService,
-                          PhotoRepository photoRepository, PropertyRepository propertyRepository) {
+                          BatchPresignService batchPresignService,
+                          PhotoRepository photoRepository, PropertyRepository propertyRepository,
+                          PhotoMetadataBackfillService metadataBackfillService) {
         this.s3Service = s3Service;
         this.photoService = photoService;
+        this.batchPresignService = batchPresignService;
         this.photoRepository = photoRepository;
         this.propertyRepository = propertyRepository;
+        this.metadataBackfillService = metadataBackfillService;
     }
 
     @PostMapping("/presigned-url")
@@ -136,6 +143,13 @@ public class PhotoController {
         ));
     }
 
+    @PostMapping("/metadata/backfill")
+    public ResponseEntity<Map<String, Object>> backfillMetadata() {
+        boolean started = metadataBackfillService.startSweep();
+        logger.info("Metadata backfill sweep {}", started ? "started" : "already running");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("started", started));
+    }
+
     @PostMapping("/confirm-status")
     public ResponseEntity<ConfirmUploadResponse> confirmUploadStatus(@Valid @RequestBody ConfirmUploadRequest request) {
         try {
@@ -171,51 +185,13 @@ public class PhotoController {
             // Verify property exists
             propertyRepository.getProperty(request.getPropertyId());
             
-            List<PresignedUrlResponse> responses = new ArrayList<>();
-            List<Photo> photosToCreate = new ArrayList<>();
-            
-            // Generate URLs and prepare photo records
-            for (BatchPresignedUrlRequest.FileMetadata file : request.getFiles()) {
-                // Validate file size
-                file.validateFileSize();
-                
-                // Generate UUID for photoId
-                String photoId = UUID.randomUUID().toString();
-                
-                // Generate presigned URL
-                PresignedUrlResponse response = s3Service.generatePresignedUrl(
-                        photoId,
-                        request.getPropertyId(),
-                        file.getFilename(),
-                        file.getContentType(),
-                        file.getFileSize()
-                );
-                responses.add(response);
-                
-                // Prepare photo record
-                Photo photo = new Photo();
-                photo.setPhotoId(photoId);
-                photo.setPropertyId(request.getPropertyId());
-                photo.setFilename(file.getFilename());
-                photo.setS3Key(response.getFields().get("key"));
-                photo.setS3Bucket(s3Service.getBucketName());
-                photo.setFileSize(file.getFileSize());
-                photo.setContentType(file.getContentType());
-                photo.setStatus("pending");
-                photo.setUploadedAt(java.time.Instant.now());
-                photosToCreate.add(photo);
-            }
-            
-            // Batch create all photo records in DynamoDB
-            photoRepository.batchCreatePhotos(photosToCreate);
+            // Sign on a worker pool (or once, in POST policy mode) and persist pending records in parallel 25-item chunks
+            BatchPresignedUrlResponse batchResponse = request.isPostPolicyMode()
+                    ? batchPresignService.presignBatchWithPolicy(request.getPropertyId(), request.getFiles())
+                    : batchPresignService.presignBatch(request.getPropertyId(), request.getFiles());
             
-            BatchPresignedUrlResponse batchResponse = new BatchPresignedUrlResponse(
-                    responses,
-                    request.getFiles().size(),
-                    responses.size()
-            );
-            
-            logger.info("Successfully generated {} presigned URLs", responses.size());
+            logger.info("Successfully generated {}/{} presigned URLs",
+                batchResponse.getTotalGenerated(), batchResponse.getTotalRequested());
             return ResponseEntity.ok(batchResponse);
             
         } catch (Exception e) {
@@ -224,6 +200,16 @@ public class PhotoController {
         }
     }
 
+    /**
+     * Presigned GET URLs for viewing many photos (or their renditions) in one round trip.
+     */
+    @PostMapping("/view-urls/batch")
+    public ResponseEntity<BatchViewUrlResponse> getBatchViewUrls(@Valid @RequestBody BatchViewUrlRequest request) {
+        BatchViewUrlResponse response = photoService.getViewUrls(request.getPhotoIds(), request.getRendition());
+        logger.debug("Issued {} view URLs ({} not found)", response.getUrls().size(), response.getNotFound().size());
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/confirm/batch")
     public ResponseEntity<BatchConfirmResponse> confirmBatchUpload(
             @Valid @RequestBody BatchConfirmRequest request) {
@@ -265,8 +251,8 @@ public class PhotoController {
                 if ("uploaded".equals(entry.getValue().getStatus())) {
                     successful.add(entry.getValue());
                 } else {
-                    failed.add(new BatchConfirmResponse.FailedConfirmation(
-                            entry.getKey(), "Confirmation failed"));
+                    String reason = entry.getValue().getReason() != null ? entry.getValue().getReason() : "Confirmation failed";
+                    failed.add(new BatchConfirmResponse.FailedConfirmation(entry.getKey(), reason));
                 }
             }
             
@@ -3,12 +3,17 @@ package com.rapidupload.backend.controllers;
 import com.rapidupload.backend.dto.CreatePropertyRequest;
 import com.rapidupload.backend.dto.PagedPhotoResponse;
 import com.rapidupload.backend.dto.PropertyResponse;
+import com.rapidupload.backend.services.PhotoExportService;
 import com.rapidupload.backend.services.PropertyService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -17,9 +22,11 @@ import java.util.Map;
 public class PropertyController {
 
     private final PropertyService propertyService;
+    private final PhotoExportService photoExportService;
 
-    public PropertyController(PropertyService propertyService) {
+    public PropertyController(PropertyService propertyService, PhotoExportService photoExportService) {
         this.propertyService = propertyService;
+        this.photoExportService = photoExportService;
     }
 
     @PostMapping
@@ -84,6 +91,29 @@ public class PropertyController {
         return ResponseEntity.ok(photos);
     }
 
+    /**
+     * Near-duplicate clusters among the property's photos (only clusters of two or more).
+     */
+    @GetMapping("/{id}/near-duplicates")
+    public ResponseEntity<Map<String, List<List<String>>>> getNearDuplicates(
+            @PathVariable String id,
+            @RequestParam(required = false) Integer maxDistance) {
+        return ResponseEntity.ok(Map.of("clusters", propertyService.findNearDuplicates(id, maxDistance)));
+    }
+
+    /**
+     * All uploaded photos of the property as a ZIP archive, streamed as it is built.
+     */
+    @GetMapping("/{id}/export")
+    public void exportPhotos(@PathVariable String id, HttpServletResponse response) throws IOException {
+        try (PhotoExportService.Export export = photoExportService.start(id)) {
+            response.setContentType("application/zip");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(export.getArchiveName()).build().toString());
+            export.writeTo(response.getOutputStream());
+        }
+    }
+
     @PostMapping("/{id}/recalculate-count")
     public ResponseEntity<PropertyResponse> recalculatePhotoCount(@PathVariable String id) {
         PropertyResponse property = propertyService.recalculatePhotoCount(id);
@@ -99,7 +129,8 @@ public class PropertyController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProperty(@PathVariable String id) {
         propertyService.deleteProperty(id);
-        return ResponseEntity.noContent().build();
+        // The property is gone from reads; its photos are still being purged
+        return ResponseEntity.accepted().build();
     }
 }
 
@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
 import java.util.List;
@@ -18,6 +19,10 @@ public class BatchPresignedUrlRequest {
     @Valid
     private List<FileMetadata> files;
 
+    // "put" (default): one presigned PUT URL per file. "post-policy": one shared POST policy plus a key per file
+    @Pattern(regexp = "put|post-policy", message = "Upload mode must be 'put' or 'post-policy'")
+    private String uploadMode;
+
     public String getPropertyId() {
         return propertyId;
     }
@@ -34,6 +39,18 @@ public class BatchPresignedUrlRequest {
         this.files = files;
     }
 
+    public String getUploadMode() {
+        return uploadMode;
+    }
+
+    public void setUploadMode(String uploadMode) {
+        this.uploadMode = uploadMode;
+    }
+
+    public boolean isPostPolicyMode() {
+        return "post-policy".equals(uploadMode);
+    }
+
     public static class FileMetadata {
         @NotBlank(message = "Filename is required")
         private String filename;
@@ -44,6 +61,10 @@ public class BatchPresignedUrlRequest {
         @NotNull(message = "File size is required")
         private Long fileSize;
 
+        // Optional SHA-256 of the file (hex); content the property already holds is not uploaded again
+        @Pattern(regexp = "^[0-9a-fA-F]{64}$", message = "SHA-256 must be 64 hex characters")
+        private String sha256;
+
         public String getFilename() {
             return filename;
         }
@@ -68,13 +89,21 @@ public class BatchPresignedUrlRequest {
             this.fileSize = fileSize;
         }
 
+        public String getSha256() {
+            return sha256;
+        }
+
+        public void setSha256(String sha256) {
+            this.sha256 = sha256;
+        }
+
         public void validateFileSize() {
             if (fileSize == null || fileSize <= 0) {
                 throw new IllegalArgumentException("File size must be greater than 0");
             }
             // Max 100MB
             if (fileSize > 100 * 1024 * 1024) {
-                throw new IllegalArgumentException("File size cannot exceed 100MB");
+                throw new IllegalArgumentException("File size cannot exceed 100MB; use /api/photos/multipart for larger files");
             }
         }
     }
@@ -1,19 +1,29 @@
 package com.rapidupload.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
 import java.util.List;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class BatchPresignedUrlResponse {
     private List<PresignedUrlResponse> urls;
+    private PostPolicyResponse postPolicy;
+    private List<UploadKey> keys;
     private int totalRequested;
     private int totalGenerated;
+    private int totalFailed;
+    private List<FailedPresign> failed;
 
     public BatchPresignedUrlResponse() {
+        this.failed = new ArrayList<>();
     }
 
     public BatchPresignedUrlResponse(List<PresignedUrlResponse> urls, int totalRequested, int totalGenerated) {
         this.urls = urls;
         this.totalRequested = totalRequested;
         this.totalGenerated = totalGenerated;
+        this.failed = new ArrayList<>();
     }
 
     public List<PresignedUrlResponse> getUrls() {
@@ -24,6 +34,22 @@ public class BatchPresignedUrlResponse {
         this.urls = urls;
     }
 
+    public PostPolicyResponse getPostPolicy() {
+        return postPolicy;
+    }
+
+    public void setPostPolicy(PostPolicyResponse postPolicy) {
+        this.postPolicy = postPolicy;
+    }
+
+    public List<UploadKey> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(List<UploadKey> keys) {
+        this.keys = keys;
+    }
+
     public int getTotalRequested() {
         return totalRequested;
     }
@@ -39,5 +65,91 @@ public class BatchPresignedUrlResponse {
     public void setTotalGenerated(int totalGenerated) {
         this.totalGenerated = totalGenerated;
     }
-}
 
+    public int getTotalFailed() {
+        return totalFailed;
+    }
+
+    public void setTotalFailed(int totalFailed) {
+        this.totalFailed = totalFailed;
+    }
+
+    public List<FailedPresign> getFailed() {
+        return failed;
+    }
+
+    public void setFailed(List<FailedPresign> failed) {
+        this.failed = failed;
+    }
+
+    public static class FailedPresign {
+        private int index;
+        private String filename;
+        private String reason;
+
+        public FailedPresign(int index, String filename, String reason) {
+            this.index = index;
+            this.filename = filename;
+            this.reason = reason;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public void setFilename(String filename) {
+            this.filename = filename;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public void setReason(String reason) {
+            this.reason = reason;
+        }
+    }
+
+    public static class UploadKey {
+        private String photoId;
+        private String key;
+        private Boolean deduplicated;
+
+        public UploadKey(String photoId, String key) {
+            this.photoId = photoId;
+            this.key = key;
+        }
+
+        public String getPhotoId() {
+            return photoId;
+        }
+
+        public void setPhotoId(String photoId) {
+            this.photoId = photoId;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public Boolean getDeduplicated() {
+            return deduplicated;
+        }
+
+        public void setDeduplicated(Boolean deduplicated) {
+            this.deduplicated = deduplicated;
+        }
+    }
+}
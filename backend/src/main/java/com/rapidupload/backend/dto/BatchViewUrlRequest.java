@@ -0,0 +1,34 @@
+package com.rapidupload.backend.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BatchViewUrlRequest {
+
+    @NotEmpty(message = "Photo IDs list cannot be empty")
+    @Size(max = 1000, message = "Cannot request more than 1000 view URLs at once")
+    private List<String> photoIds;
+
+    // Which object to sign per photo; photos without the rendition get their original
+    @Pattern(regexp = "original|preview|thumbnail", message = "Rendition must be 'original', 'preview' or 'thumbnail'")
+    private String rendition;
+
+    public List<String> getPhotoIds() {
+        return photoIds;
+    }
+
+    public void setPhotoIds(List<String> photoIds) {
+        this.photoIds = photoIds;
+    }
+
+    public String getRendition() {
+        return rendition;
+    }
+
+    public void setRendition(String rendition) {
+        this.rendition = rendition;
+    }
+}
@@ -0,0 +1,106 @@
+package com.rapidupload.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchViewUrlResponse {
+    private List<ViewUrl> urls;
+    private List<String> notFound;
+
+    public BatchViewUrlResponse() {
+        this.urls = new ArrayList<>();
+        this.notFound = new ArrayList<>();
+    }
+
+    public List<ViewUrl> getUrls() {
+        return urls;
+    }
+
+    public void setUrls(List<ViewUrl> urls) {
+        this.urls = urls;
+    }
+
+    public List<String> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<String> notFound) {
+        this.notFound = notFound;
+    }
+
+    public static class ViewUrl {
+        private String photoId;
+        // The rendition actually signed: "original" when the requested one doesn't exist yet
+        private String rendition;
+        private String url;
+
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+        private Instant expiresAt;
+
+        private Integer width;
+        private Integer height;
+
+        public ViewUrl() {
+        }
+
+        public ViewUrl(String photoId, String rendition, String url, Instant expiresAt, Integer width, Integer height) {
+            this.photoId = photoId;
+            this.rendition = rendition;
+            this.url = url;
+            this.expiresAt = expiresAt;
+            this.width = width;
+            this.height = height;
+        }
+
+        public String getPhotoId() {
+            return photoId;
+        }
+
+        public void setPhotoId(String photoId) {
+            this.photoId = photoId;
+        }
+
+        public String getRendition() {
+            return rendition;
+        }
+
+        public void setRendition(String rendition) {
+            this.rendition = rendition;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public Instant getExpiresAt() {
+            return expiresAt;
+        }
+
+        public void setExpiresAt(Instant expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        public Integer getWidth() {
+            return width;
+        }
+
+        public void setWidth(Integer width) {
+            this.width = width;
+        }
+
+        public Integer getHeight() {
+            return height;
+        }
+
+        public void setHeight(Integer height) {
+            this.height = height;
+        }
+    }
+}
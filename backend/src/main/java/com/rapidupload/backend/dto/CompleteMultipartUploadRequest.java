@@ -0,0 +1,70 @@
+package com.rapidupload.backend.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.util.List;
+
+public class CompleteMultipartUploadRequest {
+    @NotBlank(message = "Property ID is required")
+    private String propertyId;
+
+    @NotBlank(message = "Upload ID is required")
+    private String uploadId;
+
+    @NotEmpty(message = "Parts list cannot be empty")
+    @Valid
+    private List<UploadedPart> parts;
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public List<UploadedPart> getParts() {
+        return parts;
+    }
+
+    public void setParts(List<UploadedPart> parts) {
+        this.parts = parts;
+    }
+
+    public static class UploadedPart {
+        @NotNull(message = "Part number is required")
+        @Positive(message = "Part number must be positive")
+        private Integer partNumber;
+
+        @NotBlank(message = "ETag is required")
+        private String etag;
+
+        public Integer getPartNumber() {
+            return partNumber;
+        }
+
+        public void setPartNumber(Integer partNumber) {
+            this.partNumber = partNumber;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public void setEtag(String etag) {
+            this.etag = etag;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.rapidupload.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 public class ConfirmUploadResponse {
     private String photoId;
     private String photoUrl;
     private String status;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String reason;
 
     public ConfirmUploadResponse() {
     }
@@ -37,5 +41,12 @@ public class ConfirmUploadResponse {
     public void setStatus(String status) {
         this.status = status;
     }
-}
 
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,60 @@
+package com.rapidupload.backend.dto;
+
+public class InitiateMultipartUploadResponse {
+    private String photoId;
+    private String uploadId;
+    private String s3Key;
+    private long partSize;
+    private int partCount;
+
+    public InitiateMultipartUploadResponse() {
+    }
+
+    public InitiateMultipartUploadResponse(String photoId, String uploadId, String s3Key, long partSize, int partCount) {
+        this.photoId = photoId;
+        this.uploadId = uploadId;
+        this.s3Key = s3Key;
+        this.partSize = partSize;
+        this.partCount = partCount;
+    }
+
+    public String getPhotoId() {
+        return photoId;
+    }
+
+    public void setPhotoId(String photoId) {
+        this.photoId = photoId;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public String getS3Key() {
+        return s3Key;
+    }
+
+    public void setS3Key(String s3Key) {
+        this.s3Key = s3Key;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public void setPartSize(long partSize) {
+        this.partSize = partSize;
+    }
+
+    public int getPartCount() {
+        return partCount;
+    }
+
+    public void setPartCount(int partCount) {
+        this.partCount = partCount;
+    }
+}
@@ -16,6 +16,8 @@ public class PhotoResponse {
     private Long fileSize;
     private String status;
     private String contentType;
+    private RenditionInfo thumbnail;
+    private RenditionInfo preview;
 
     public PhotoResponse() {
     }
@@ -105,5 +107,87 @@ public class PhotoResponse {
     public void setContentType(String contentType) {
         this.contentType = contentType;
     }
+
+    /**
+     * Gallery-sized JPEG with a presigned URL; null until the rendition has been generated, in
+     * which case clients fall back to the original.
+     */
+    public RenditionInfo getThumbnail() {
+        return thumbnail;
+    }
+
+    public void setThumbnail(RenditionInfo thumbnail) {
+        this.thumbnail = thumbnail;
+    }
+
+    /**
+     * Screen-sized JPEG for the lightbox; null until generated, like the thumbnail.
+     */
+    public RenditionInfo getPreview() {
+        return preview;
+    }
+
+    public void setPreview(RenditionInfo preview) {
+        this.preview = preview;
+    }
+
+    public static class RenditionInfo {
+        private String s3Key;
+        private Integer width;
+        private Integer height;
+        private Long fileSize;
+        private String url;
+
+        public RenditionInfo() {
+        }
+
+        public RenditionInfo(String s3Key, Integer width, Integer height, Long fileSize, String url) {
+            this.s3Key = s3Key;
+            this.width = width;
+            this.height = height;
+            this.fileSize = fileSize;
+            this.url = url;
+        }
+
+        public String getS3Key() {
+            return s3Key;
+        }
+
+        public void setS3Key(String s3Key) {
+            this.s3Key = s3Key;
+        }
+
+        public Integer getWidth() {
+            return width;
+        }
+
+        public void setWidth(Integer width) {
+            this.width = width;
+        }
+
+        public Integer getHeight() {
+            return height;
+        }
+
+        public void setHeight(Integer height) {
+            this.height = height;
+        }
+
+        public Long getFileSize() {
+            return fileSize;
+        }
+
+        public void setFileSize(Long fileSize) {
+            this.fileSize = fileSize;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+    }
 }
 
@@ -0,0 +1,52 @@
+package com.rapidupload.backend.dto;
+
+import java.util.Map;
+
+public class PostPolicyResponse {
+    private String uploadUrl;
+    private Integer expiresIn;
+    private String keyPrefix;
+    private Map<String, String> fields;
+
+    public PostPolicyResponse() {
+    }
+
+    public PostPolicyResponse(String uploadUrl, Integer expiresIn, String keyPrefix, Map<String, String> fields) {
+        this.uploadUrl = uploadUrl;
+        this.expiresIn = expiresIn;
+        this.keyPrefix = keyPrefix;
+        this.fields = fields;
+    }
+
+    public String getUploadUrl() {
+        return uploadUrl;
+    }
+
+    public void setUploadUrl(String uploadUrl) {
+        this.uploadUrl = uploadUrl;
+    }
+
+    public Integer getExpiresIn() {
+        return expiresIn;
+    }
+
+    public void setExpiresIn(Integer expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public void setKeyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+    }
+
+    public Map<String, String> getFields() {
+        return fields;
+    }
+
+    public void setFields(Map<String, String> fields) {
+        this.fields = fields;
+    }
+}
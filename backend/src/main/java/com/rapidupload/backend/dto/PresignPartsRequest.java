@@ -0,0 +1,32 @@
+package com.rapidupload.backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class PresignPartsRequest {
+    @NotBlank(message = "Upload ID is required")
+    private String uploadId;
+
+    @NotEmpty(message = "Part numbers list cannot be empty")
+    @Size(max = 1000, message = "Cannot presign more than 1000 parts at once")
+    private List<Integer> partNumbers;
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public List<Integer> getPartNumbers() {
+        return partNumbers;
+    }
+
+    public void setPartNumbers(List<Integer> partNumbers) {
+        this.partNumbers = partNumbers;
+    }
+}
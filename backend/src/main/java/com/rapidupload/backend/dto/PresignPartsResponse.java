@@ -0,0 +1,78 @@
+package com.rapidupload.backend.dto;
+
+import java.util.List;
+
+public class PresignPartsResponse {
+    private String photoId;
+    private String uploadId;
+    private Integer expiresIn;
+    private List<PartUrl> parts;
+
+    public PresignPartsResponse() {
+    }
+
+    public PresignPartsResponse(String photoId, String uploadId, Integer expiresIn, List<PartUrl> parts) {
+        this.photoId = photoId;
+        this.uploadId = uploadId;
+        this.expiresIn = expiresIn;
+        this.parts = parts;
+    }
+
+    public String getPhotoId() {
+        return photoId;
+    }
+
+    public void setPhotoId(String photoId) {
+        this.photoId = photoId;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public Integer getExpiresIn() {
+        return expiresIn;
+    }
+
+    public void setExpiresIn(Integer expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+
+    public List<PartUrl> getParts() {
+        return parts;
+    }
+
+    public void setParts(List<PartUrl> parts) {
+        this.parts = parts;
+    }
+
+    public static class PartUrl {
+        private int partNumber;
+        private String uploadUrl;
+
+        public PartUrl(int partNumber, String uploadUrl) {
+            this.partNumber = partNumber;
+            this.uploadUrl = uploadUrl;
+        }
+
+        public int getPartNumber() {
+            return partNumber;
+        }
+
+        public void setPartNumber(int partNumber) {
+            this.partNumber = partNumber;
+        }
+
+        public String getUploadUrl() {
+            return uploadUrl;
+        }
+
+        public void setUploadUrl(String uploadUrl) {
+            this.uploadUrl = uploadUrl;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.rapidupload.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.Map;
 
 public class PresignedUrlResponse {
@@ -7,6 +9,9 @@ public class PresignedUrlResponse {
     private String uploadUrl;
     private Integer expiresIn;
     private Map<String, String> fields;
+    // True when the content was already stored; the photo exists as uploaded and nothing is sent to S3
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean deduplicated;
 
     public PresignedUrlResponse() {
     }
@@ -49,5 +54,12 @@ public class PresignedUrlResponse {
     public void setFields(Map<String, String> fields) {
         this.fields = fields;
     }
-}
 
+    public Boolean getDeduplicated() {
+        return deduplicated;
+    }
+
+    public void setDeduplicated(Boolean deduplicated) {
+        this.deduplicated = deduplicated;
+    }
+}
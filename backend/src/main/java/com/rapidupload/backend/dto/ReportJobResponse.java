@@ -0,0 +1,151 @@
+package com.rapidupload.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.Instant;
+
+public class ReportJobResponse {
+    private String jobId;
+    private String propertyId;
+    private String status;
+    // 1-based position among reports waiting for a slot; null once started
+    private Integer queuePosition;
+    private Integer photosTotal;
+    private Integer photosProcessed;
+    private Integer photosIncluded;
+    private String reportKey;
+    // True when an unchanged earlier report was returned instead of generating one
+    private boolean cached;
+    private String downloadUrl;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Instant downloadUrlExpiresAt;
+
+    private String error;
+    private String createdAt;
+    private String startedAt;
+    private String completedAt;
+
+    public ReportJobResponse() {
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getQueuePosition() {
+        return queuePosition;
+    }
+
+    public void setQueuePosition(Integer queuePosition) {
+        this.queuePosition = queuePosition;
+    }
+
+    public Integer getPhotosTotal() {
+        return photosTotal;
+    }
+
+    public void setPhotosTotal(Integer photosTotal) {
+        this.photosTotal = photosTotal;
+    }
+
+    public Integer getPhotosProcessed() {
+        return photosProcessed;
+    }
+
+    public void setPhotosProcessed(Integer photosProcessed) {
+        this.photosProcessed = photosProcessed;
+    }
+
+    public Integer getPhotosIncluded() {
+        return photosIncluded;
+    }
+
+    public void setPhotosIncluded(Integer photosIncluded) {
+        this.photosIncluded = photosIncluded;
+    }
+
+    public String getReportKey() {
+        return reportKey;
+    }
+
+    public void setReportKey(String reportKey) {
+        this.reportKey = reportKey;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    public String getDownloadUrl() {
+        return downloadUrl;
+    }
+
+    public void setDownloadUrl(String downloadUrl) {
+        this.downloadUrl = downloadUrl;
+    }
+
+    public Instant getDownloadUrlExpiresAt() {
+        return downloadUrlExpiresAt;
+    }
+
+    public void setDownloadUrlExpiresAt(Instant downloadUrlExpiresAt) {
+        this.downloadUrlExpiresAt = downloadUrlExpiresAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(String startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public String getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(String completedAt) {
+        this.completedAt = completedAt;
+    }
+}
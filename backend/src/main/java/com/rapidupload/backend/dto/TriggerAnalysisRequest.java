@@ -13,9 +13,15 @@ public class TriggerAnalysisRequest {
     @Size(max = 100, message = "Cannot analyze more than 100 photos at once")
     private List<String> photoIds;
 
+    // Analyze only the first photo of each near-duplicate cluster among photoIds
+    private Boolean representativesOnly;
+
     public String getPropertyId() { return propertyId; }
     public void setPropertyId(String propertyId) { this.propertyId = propertyId; }
 
     public List<String> getPhotoIds() { return photoIds; }
     public void setPhotoIds(List<String> photoIds) { this.photoIds = photoIds; }
+
+    public Boolean getRepresentativesOnly() { return representativesOnly; }
+    public void setRepresentativesOnly(Boolean representativesOnly) { this.representativesOnly = representativesOnly; }
 }
@@ -0,0 +1,25 @@
+package com.rapidupload.backend.exceptions;
+
+import java.util.List;
+
+/**
+ * Some items of a batch write were still unprocessed after every retry; all others were written.
+ */
+public class BatchWriteException extends RuntimeException {
+    private final String tableName;
+    private final List<String> failedKeys;
+
+    public BatchWriteException(String tableName, List<String> failedKeys) {
+        super(failedKeys.size() + " items of " + tableName + " could not be written");
+        this.tableName = tableName;
+        this.failedKeys = failedKeys;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<String> getFailedKeys() {
+        return failedKeys;
+    }
+}
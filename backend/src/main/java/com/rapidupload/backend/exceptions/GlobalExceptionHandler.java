@@ -118,6 +118,42 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(ReportJobNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleReportJobNotFound(ReportJobNotFoundException e) {
+        logger.error("Report job not found: {}", e.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Report job not found");
+        error.put("message", e.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(ReportQueueFullException.class)
+    public ResponseEntity<Map<String, String>> handleReportQueueFull(ReportQueueFullException e) {
+        logger.warn("Report queue full: {}", e.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service temporarily unavailable");
+        error.put("message", "Too many reports are being generated. Please try again later.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    @ExceptionHandler(TooManyExportsException.class)
+    public ResponseEntity<Map<String, String>> handleTooManyExports(TooManyExportsException e) {
+        logger.warn("Export rejected: {}", e.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service temporarily unavailable");
+        error.put("message", "Too many exports are running. Please try again later.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    @ExceptionHandler(BatchWriteException.class)
+    public ResponseEntity<Map<String, String>> handleBatchWrite(BatchWriteException e) {
+        logger.error("Batch write incomplete: {}", e.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service temporarily unavailable");
+        error.put("message", "Some items could not be saved due to throttling. Please try again.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, String>> handleIllegalArgument(IllegalArgumentException e) {
         logger.error("Illegal argument: {}", e.getMessage());
@@ -0,0 +1,7 @@
+package com.rapidupload.backend.exceptions;
+
+public class ReportJobNotFoundException extends RuntimeException {
+    public ReportJobNotFoundException(String jobId) {
+        super("Report job not found: " + jobId);
+    }
+}
@@ -0,0 +1,7 @@
+package com.rapidupload.backend.exceptions;
+
+public class ReportQueueFullException extends RuntimeException {
+    public ReportQueueFullException(int queued) {
+        super("Report queue is full (" + queued + " reports waiting)");
+    }
+}
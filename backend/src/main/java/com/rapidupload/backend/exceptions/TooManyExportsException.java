@@ -0,0 +1,7 @@
+package com.rapidupload.backend.exceptions;
+
+public class TooManyExportsException extends RuntimeException {
+    public TooManyExportsException() {
+        super("Too many photo exports are running");
+    }
+}
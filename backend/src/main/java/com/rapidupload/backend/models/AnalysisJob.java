@@ -0,0 +1,81 @@
+package com.rapidupload.backend.models;
+
+/**
+ * One pending photo analysis to hand to the analysis Lambda: the AnalysisResult row it reports
+ * into and the photo object it reads.
+ */
+public class AnalysisJob {
+    private final String analysisId;
+    private final String photoId;
+    private final String propertyId;
+    private final String s3Bucket;
+    private final String s3Key;
+    private final Long fileSize;
+    private final int attempts;
+
+    public AnalysisJob(String analysisId, String photoId, String propertyId, String s3Bucket, String s3Key, Long fileSize) {
+        this(analysisId, photoId, propertyId, s3Bucket, s3Key, fileSize, 0);
+    }
+
+    private AnalysisJob(String analysisId, String photoId, String propertyId, String s3Bucket, String s3Key,
+                        Long fileSize, int attempts) {
+        this.analysisId = analysisId;
+        this.photoId = photoId;
+        this.propertyId = propertyId;
+        this.s3Bucket = s3Bucket;
+        this.s3Key = s3Key;
+        this.fileSize = fileSize;
+        this.attempts = attempts;
+    }
+
+    /**
+     * Job for a photo, reading its analysis rendition when one has been generated and the original
+     * otherwise.
+     */
+    public static AnalysisJob forPhoto(String analysisId, Photo photo) {
+        if (photo.getAnalysisS3Key() != null) {
+            return new AnalysisJob(analysisId, photo.getPhotoId(), photo.getPropertyId(), photo.getS3Bucket(),
+                    photo.getAnalysisS3Key(), photo.getAnalysisFileSize());
+        }
+        return new AnalysisJob(analysisId, photo.getPhotoId(), photo.getPropertyId(), photo.getS3Bucket(),
+                photo.getS3Key(), photo.getFileSize());
+    }
+
+    /**
+     * The same job after one more failed dispatch attempt.
+     */
+    public AnalysisJob nextAttempt() {
+        return new AnalysisJob(analysisId, photoId, propertyId, s3Bucket, s3Key, fileSize, attempts + 1);
+    }
+
+    public String getAnalysisId() {
+        return analysisId;
+    }
+
+    public String getPhotoId() {
+        return photoId;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public String getS3Bucket() {
+        return s3Bucket;
+    }
+
+    public String getS3Key() {
+        return s3Key;
+    }
+
+    /**
+     * Photo size in bytes, if known; used for the per-invocation byte budget.
+     */
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
@@ -10,6 +10,8 @@ public class AnalysisResult {
     private String propertyId;
     private String status; // 'pending' | 'processing' | 'completed' | 'failed'
     private String createdAt;
+    private String sourceAnalysisId; // Analysis of the same content whose result this one takes over
+    private String pendingStatus; // "pending" while Status is, absent otherwise: keys the sparse Pending-index
     private String completedAt;
     private List<Detection> detections;
     private String claudeAnalysis; // JSON string of Claude's response
@@ -34,9 +36,20 @@ public class AnalysisResult {
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
 
+    @DynamoDbSecondarySortKey(indexNames = "Pending-index")
     public String getCreatedAt() { return createdAt; }
     public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
 
+    @DynamoDbSecondaryPartitionKey(indexNames = "SourceAnalysisID-index")
+    @DynamoDbAttribute("SourceAnalysisID")
+    public String getSourceAnalysisId() { return sourceAnalysisId; }
+    public void setSourceAnalysisId(String sourceAnalysisId) { this.sourceAnalysisId = sourceAnalysisId; }
+
+    @DynamoDbSecondaryPartitionKey(indexNames = "Pending-index")
+    @DynamoDbAttribute("PendingStatus")
+    public String getPendingStatus() { return pendingStatus; }
+    public void setPendingStatus(String pendingStatus) { this.pendingStatus = pendingStatus; }
+
     public String getCompletedAt() { return completedAt; }
     public void setCompletedAt(String completedAt) { this.completedAt = completedAt; }
 
@@ -0,0 +1,92 @@
+package com.rapidupload.backend.models;
+
+/**
+ * Content-hash index entry: the object holding a property's copy of some content (by SHA-256),
+ * the photo that uploaded it, and how many photos reference that object.
+ */
+public class ContentHash {
+    private String propertyId;
+    private String contentHash;
+    private String photoId;
+    private String s3Key;
+    private Long fileSize;
+    private String contentType;
+    private long refCount;
+    private String analysisPhotoId;
+
+    public ContentHash() {
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * The photo whose upload created the object.
+     */
+    public String getPhotoId() {
+        return photoId;
+    }
+
+    public void setPhotoId(String photoId) {
+        this.photoId = photoId;
+    }
+
+    public String getS3Key() {
+        return s3Key;
+    }
+
+    public void setS3Key(String s3Key) {
+        this.s3Key = s3Key;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * Number of photos pointing at the object; it is deleted from S3 when this drops to zero.
+     */
+    public long getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(long refCount) {
+        this.refCount = refCount;
+    }
+
+    /**
+     * The first photo with this content that was sent for analysis; its result is cloned for the others.
+     */
+    public String getAnalysisPhotoId() {
+        return analysisPhotoId;
+    }
+
+    public void setAnalysisPhotoId(String analysisPhotoId) {
+        this.analysisPhotoId = analysisPhotoId;
+    }
+}
@@ -18,6 +18,13 @@ public class Photo {
     private Long fileSize;
     private String status;
     private String contentType;
+    private String uploadId;
+    private String contentHash;
+    private String perceptualHash;
+    private String analysisS3Key;
+    private Long analysisFileSize;
+    private Rendition preview;
+    private Rendition thumbnail;
 
     public Photo() {
     }
@@ -102,5 +109,77 @@ public class Photo {
     public void setContentType(String contentType) {
         this.contentType = contentType;
     }
-}
 
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    /**
+     * Client-supplied SHA-256 of the content (lowercase hex), if known. Photos with the same hash in
+     * a property may share one S3 object; see ContentHashRepository.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * 64-bit dHash of the image (hex), set in the background after upload; see NearDuplicateService.
+     */
+    public String getPerceptualHash() {
+        return perceptualHash;
+    }
+
+    public void setPerceptualHash(String perceptualHash) {
+        this.perceptualHash = perceptualHash;
+    }
+
+    /**
+     * Downscaled JPEG sent to the analysis Lambda instead of the original, once RenditionService
+     * has generated it; null until then.
+     */
+    public String getAnalysisS3Key() {
+        return analysisS3Key;
+    }
+
+    public void setAnalysisS3Key(String analysisS3Key) {
+        this.analysisS3Key = analysisS3Key;
+    }
+
+    public Long getAnalysisFileSize() {
+        return analysisFileSize;
+    }
+
+    public void setAnalysisFileSize(Long analysisFileSize) {
+        this.analysisFileSize = analysisFileSize;
+    }
+
+    /**
+     * Screen-sized rendition for the photo viewer; null until generated.
+     */
+    public Rendition getPreview() {
+        return preview;
+    }
+
+    public void setPreview(Rendition preview) {
+        this.preview = preview;
+    }
+
+    /**
+     * Gallery-sized rendition; null until generated.
+     */
+    public Rendition getThumbnail() {
+        return thumbnail;
+    }
+
+    public void setThumbnail(Rendition thumbnail) {
+        this.thumbnail = thumbnail;
+    }
+}
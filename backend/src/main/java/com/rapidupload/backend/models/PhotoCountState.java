@@ -0,0 +1,40 @@
+package com.rapidupload.backend.models;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Write-behind bookkeeping on a property item (see PhotoCountAccumulator): the holders of deltas
+ * not yet flushed, and a version bumped whenever a holder is added. A recount may only overwrite
+ * PhotoCount if both are unchanged since it was read.
+ */
+public class PhotoCountState {
+
+    private String propertyId;
+    private Set<String> holders = new HashSet<>();
+    private long version;
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public Set<String> getHolders() {
+        return holders;
+    }
+
+    public void setHolders(Set<String> holders) {
+        this.holders = holders;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -11,11 +11,20 @@ public class Property {
     private String name;
     private String createdAt;
     private Integer photoCount;
+    private String deletedAt;
 
     public Property() {
         this.photoCount = 0;
     }
 
+    public Property(Property other) {
+        this.propertyId = other.propertyId;
+        this.name = other.name;
+        this.createdAt = other.createdAt;
+        this.photoCount = other.photoCount;
+        this.deletedAt = other.deletedAt;
+    }
+
     @DynamoDbPartitionKey
     public String getPropertyId() {
         return propertyId;
@@ -52,5 +61,16 @@ public class Property {
     public void setPhotoCount(Integer photoCount) {
         this.photoCount = photoCount;
     }
-}
 
+    /**
+     * When the property was deleted; set while its data is still being purged in the background.
+     * Tombstoned properties are hidden from every read.
+     */
+    public String getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(String deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
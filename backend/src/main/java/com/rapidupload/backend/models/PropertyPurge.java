@@ -0,0 +1,70 @@
+package com.rapidupload.backend.models;
+
+import java.util.Map;
+
+/**
+ * Checkpoint of the background purge of a deleted property, stored on its tombstone so a purge
+ * interrupted by a crash or redeploy resumes from the last completed page.
+ */
+public class PropertyPurge {
+
+    public static final String PHASE_PHOTOS = "photos";
+    public static final String PHASE_ANALYSES = "analyses";
+    public static final String PHASE_FINISH = "finish";
+
+    private String propertyId;
+    private String deletedAt;
+    private String phase;
+    // Last evaluated key of the current phase's listing; null to start from the beginning
+    private Map<String, String> cursor;
+    private long photosPurged;
+    private long analysesPurged;
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    public String getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(String deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public Map<String, String> getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(Map<String, String> cursor) {
+        this.cursor = cursor;
+    }
+
+    public long getPhotosPurged() {
+        return photosPurged;
+    }
+
+    public void setPhotosPurged(long photosPurged) {
+        this.photosPurged = photosPurged;
+    }
+
+    public long getAnalysesPurged() {
+        return analysesPurged;
+    }
+
+    public void setAnalysesPurged(long analysesPurged) {
+        this.analysesPurged = analysesPurged;
+    }
+}
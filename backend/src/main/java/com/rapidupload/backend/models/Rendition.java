@@ -0,0 +1,36 @@
+package com.rapidupload.backend.models;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+
+/**
+ * A downscaled JPEG copy of a photo, stored next to the original; see RenditionService.
+ */
+@DynamoDbBean
+public class Rendition {
+    private String s3Key;
+    private Integer width;   // pixels
+    private Integer height;  // pixels
+    private Long fileSize;   // bytes
+
+    public Rendition() {
+    }
+
+    public Rendition(String s3Key, Integer width, Integer height, Long fileSize) {
+        this.s3Key = s3Key;
+        this.width = width;
+        this.height = height;
+        this.fileSize = fileSize;
+    }
+
+    public String getS3Key() { return s3Key; }
+    public void setS3Key(String s3Key) { this.s3Key = s3Key; }
+
+    public Integer getWidth() { return width; }
+    public void setWidth(Integer width) { this.width = width; }
+
+    public Integer getHeight() { return height; }
+    public void setHeight(Integer height) { this.height = height; }
+
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+}
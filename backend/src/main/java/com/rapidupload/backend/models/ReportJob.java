@@ -0,0 +1,151 @@
+package com.rapidupload.backend.models;
+
+import java.util.List;
+
+/**
+ * A PDF report request. The backend creates it as queued and starts it when a report slot is
+ * free; the report Lambda then records progress and the outcome on the same item.
+ */
+public class ReportJob {
+    private String jobId;
+    private String propertyId;
+    private List<String> photoIds;
+    // Fingerprint of the property state the report covers; see ReportCacheService
+    private String fingerprint;
+    // True when an existing report was returned instead of generating one
+    private boolean cached;
+    private String status;
+    private Integer photosTotal;
+    private Integer photosProcessed;
+    private Integer photosIncluded;
+    private String reportKey;
+    private String error;
+    private String createdAt;
+    private String startedAt;
+    private String completedAt;
+
+    public ReportJob() {
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
+    /**
+     * Photos to include; empty means whatever the report Lambda defaults to.
+     */
+    public List<String> getPhotoIds() {
+        return photoIds;
+    }
+
+    public void setPhotoIds(List<String> photoIds) {
+        this.photoIds = photoIds;
+    }
+
+    /**
+     * queued, running, completed or failed.
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getPhotosTotal() {
+        return photosTotal;
+    }
+
+    public void setPhotosTotal(Integer photosTotal) {
+        this.photosTotal = photosTotal;
+    }
+
+    public Integer getPhotosProcessed() {
+        return photosProcessed;
+    }
+
+    public void setPhotosProcessed(Integer photosProcessed) {
+        this.photosProcessed = photosProcessed;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public boolean isCached() {
+        return cached;
+    }
+
+    public void setCached(boolean cached) {
+        this.cached = cached;
+    }
+
+    public Integer getPhotosIncluded() {
+        return photosIncluded;
+    }
+
+    public void setPhotosIncluded(Integer photosIncluded) {
+        this.photosIncluded = photosIncluded;
+    }
+
+    public String getReportKey() {
+        return reportKey;
+    }
+
+    public void setReportKey(String reportKey) {
+        this.reportKey = reportKey;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(String startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public String getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(String completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public boolean isFinished() {
+        return "completed".equals(status) || "failed".equals(status);
+    }
+}
@@ -1,46 +1,253 @@
 package com.rapidupload.backend.repositories;
 
+import com.rapidupload.backend.exceptions.BatchWriteException;
 import com.rapidupload.backend.models.AnalysisResult;
 import com.rapidupload.backend.models.PagedResponse;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.enhanced.dynamodb.*;
 import software.amazon.awssdk.enhanced.dynamodb.model.*;
 import software.amazon.awssdk.services.dynamodb.model.*;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @Repository
 public class AnalysisRepository {
     private static final Logger logger = LoggerFactory.getLogger(AnalysisRepository.class);
 
-    private final DynamoDbEnhancedClient enhancedClient;
+    // Sparse index of the rows still pending, sorted by createdAt, for dispatch recovery
+    public static final String PENDING_INDEX = "Pending-index";
+    public static final String PENDING_STATUS_ATTRIBUTE = "PendingStatus";
+    // Sparse index of follower analyses by the analysis whose result they take over
+    public static final String SOURCE_INDEX = "SourceAnalysisID-index";
+    private static final String PENDING = "pending";
+
+    private final DynamoDbClient dynamoDbClient;
     private final DynamoDbTable<AnalysisResult> analysisTable;
+    private final DynamoDbBatchWriter batchWriter;
+    private final DynamoDbRateLimiter rateLimiter;
+    private final String tableName;
+    private final ExecutorService lookupWorkers;
 
-    public AnalysisRepository(DynamoDbEnhancedClient enhancedClient,
-                              @Value("${aws.dynamodb.tables.analysis:Analysis}") String tableName) {
-        this.enhancedClient = enhancedClient;
+    public AnalysisRepository(DynamoDbClient dynamoDbClient,
+                              DynamoDbEnhancedClient enhancedClient,
+                              DynamoDbBatchWriter batchWriter,
+                              DynamoDbRateLimiter rateLimiter,
+                              @Value("${aws.dynamodb.tables.analysis:Analysis}") String tableName,
+                              @Value("${aws.dynamodb.analysis-lookup.threads:16}") int lookupThreads) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.batchWriter = batchWriter;
+        this.rateLimiter = rateLimiter;
+        this.tableName = tableName;
         this.analysisTable = enhancedClient.table(tableName, TableSchema.fromBean(AnalysisResult.class));
+        this.lookupWorkers = Executors.newFixedThreadPool(lookupThreads);
     }
 
     public AnalysisResult createAnalysis(String photoId, String propertyId) {
+        AnalysisResult analysis = newPendingAnalysis(photoId, propertyId);
+        syncPendingStatus(analysis);
+
+        rateLimiter.write(tableName, "createAnalysis", () -> {
+            analysisTable.putItem(analysis);
+            return null;
+        });
+        logger.info("Created analysis: {} for photo: {}", analysis.getAnalysisId(), photoId);
+        return analysis;
+    }
+
+    /**
+     * Build a pending analysis row without writing it; see batchCreateAnalyses.
+     */
+    public AnalysisResult newPendingAnalysis(String photoId, String propertyId) {
         AnalysisResult analysis = new AnalysisResult();
         analysis.setAnalysisId(UUID.randomUUID().toString());
         analysis.setPhotoId(photoId);
         analysis.setPropertyId(propertyId);
-        analysis.setStatus("pending");
+        analysis.setStatus(PENDING);
         analysis.setCreatedAt(Instant.now().toString());
-
-        analysisTable.putItem(analysis);
-        logger.info("Created analysis: {} for photo: {}", analysis.getAnalysisId(), photoId);
         return analysis;
     }
 
+    /**
+     * Batch write analysis rows, with chunks of 25 sent in parallel.
+     * @throws BatchWriteException with the IDs of the rows that could not be written
+     */
+    public void batchCreateAnalyses(List<AnalysisResult> analyses) {
+        List<WriteRequest> puts = new ArrayList<>();
+        for (AnalysisResult analysis : analyses) {
+            syncPendingStatus(analysis);
+            puts.add(DynamoDbBatchWriter.put(analysisTable.tableSchema().itemToMap(analysis, true)));
+        }
+        batchWriter.writeAll(tableName, puts, "AnalysisID");
+        logger.info("Batch created {} analysis results", analyses.size());
+    }
+
+    /**
+     * Mark a still-pending analysis as failed, e.g. when its Lambda invocation could not be made.
+     * Only Status and errorMessage are written; rows the Lambda already picked up are left alone.
+     */
+    public void markFailed(String analysisId, String errorMessage) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("AnalysisID", AttributeValue.builder().s(analysisId).build()))
+                .updateExpression("SET #status = :failed, errorMessage = :error REMOVE #pending")
+                .conditionExpression("#status = :pending")
+                .expressionAttributeNames(Map.of("#status", "Status", "#pending", PENDING_STATUS_ATTRIBUTE))
+                .expressionAttributeValues(Map.of(
+                        ":failed", AttributeValue.builder().s("failed").build(),
+                        ":error", AttributeValue.builder().s(errorMessage).build(),
+                        ":pending", AttributeValue.builder().s(PENDING).build()))
+                .build();
+        try {
+            rateLimiter.write(tableName, "markFailed", () -> dynamoDbClient.updateItem(request));
+            logger.info("Marked analysis {} failed: {}", analysisId, errorMessage);
+        } catch (ConditionalCheckFailedException e) {
+            logger.debug("Analysis {} is no longer pending, not marking failed", analysisId);
+        }
+    }
+
+    /**
+     * Complete a still-pending follower with a copy of its source's result, e.g. when the source
+     * finished before the follower was written and the Lambda could not fan the result out to it.
+     * @return false if the follower is no longer pending
+     */
+    public boolean completeFromSource(AnalysisResult follower, AnalysisResult source) {
+        follower.setStatus("completed");
+        follower.setCompletedAt(Instant.now().toString());
+        follower.setDetections(source.getDetections());
+        follower.setClaudeAnalysis(source.getClaudeAnalysis());
+        syncPendingStatus(follower);
+        try {
+            rateLimiter.write(tableName, "completeFromSource", () -> analysisTable.updateItem(UpdateItemEnhancedRequest.builder(AnalysisResult.class)
+                    .item(follower)
+                    .conditionExpression(Expression.builder()
+                            .expression("#status = :pending")
+                            .putExpressionName("#status", "Status")
+                            .putExpressionValue(":pending", AttributeValue.builder().s(PENDING).build())
+                            .build())
+                    .build()));
+            logger.info("Completed analysis {} from {}", follower.getAnalysisId(), source.getAnalysisId());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Claim a pending analysis for one invocation. Succeeds if nobody holds a lease on it, the lease
+     * was taken before {@code leaseExpiredBefore}, or the claimant already holds it (a retry).
+     * @return false if the row is no longer pending or another dispatcher holds a live lease
+     */
+    public boolean claimDispatch(String analysisId, String dispatcherId, Instant leaseExpiredBefore) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("AnalysisID", AttributeValue.builder().s(analysisId).build()))
+                .updateExpression("SET DispatchedBy = :me, DispatchedAt = :now")
+                .conditionExpression("#status = :pending AND (attribute_not_exists(DispatchedAt)"
+                        + " OR DispatchedAt < :expired OR DispatchedBy = :me)")
+                .expressionAttributeNames(Map.of("#status", "Status"))
+                .expressionAttributeValues(Map.of(
+                        ":me", AttributeValue.builder().s(dispatcherId).build(),
+                        ":now", AttributeValue.builder().s(Instant.now().toString()).build(),
+                        ":expired", AttributeValue.builder().s(leaseExpiredBefore.toString()).build(),
+                        ":pending", AttributeValue.builder().s(PENDING).build()))
+                .build();
+        try {
+            rateLimiter.write(tableName, "claimDispatch", () -> dynamoDbClient.updateItem(request));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Find analyses created before the cutoff that are still pending and whose dispatch lease, if
+     * any, was taken before it too. Queries the sparse Pending-index, which only holds pending rows.
+     */
+    public List<AnalysisResult> findStalePending(Instant cutoff) {
+        AttributeValue cutoffValue = AttributeValue.builder().s(cutoff.toString()).build();
+        List<AnalysisResult> results = new ArrayList<>();
+        Map<String, AttributeValue> startKey = null;
+        do {
+            QueryRequest.Builder builder = QueryRequest.builder()
+                    .tableName(tableName)
+                    .indexName(PENDING_INDEX)
+                    .keyConditionExpression("#pending = :pending AND createdAt < :cutoff")
+                    .filterExpression("attribute_not_exists(DispatchedAt) OR DispatchedAt < :cutoff")
+                    .expressionAttributeNames(Map.of("#pending", PENDING_STATUS_ATTRIBUTE))
+                    .expressionAttributeValues(Map.of(
+                            ":pending", AttributeValue.builder().s(PENDING).build(),
+                            ":cutoff", cutoffValue));
+            if (startKey != null) {
+                builder.exclusiveStartKey(startKey);
+            }
+            QueryResponse response = rateLimiter.read(tableName, "findStalePending", () -> dynamoDbClient.query(builder.build()));
+            for (Map<String, AttributeValue> item : response.items()) {
+                results.add(analysisTable.tableSchema().mapToItem(item));
+            }
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey() : null;
+        } while (startKey != null);
+        return results;
+    }
+
+    /**
+     * Put pending rows written before the Pending-index existed into it. Scans with a filter and
+     * updates conditionally, so it is safe to run while analyses are being dispatched and to re-run.
+     * @return number of analyses backfilled
+     */
+    public int backfillPendingIndex() {
+        int backfilled = 0;
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanRequest.Builder scanBuilder = ScanRequest.builder()
+                    .tableName(tableName)
+                    .projectionExpression("AnalysisID")
+                    .filterExpression("#status = :pending AND attribute_not_exists(#pending)")
+                    .expressionAttributeNames(Map.of("#status", "Status", "#pending", PENDING_STATUS_ATTRIBUTE))
+                    .expressionAttributeValues(Map.of(":pending", AttributeValue.builder().s(PENDING).build()))
+                    .limit(100);
+            if (startKey != null) {
+                scanBuilder.exclusiveStartKey(startKey);
+            }
+            ScanResponse response = rateLimiter.read(tableName, "backfillPendingIndex", () -> dynamoDbClient.scan(scanBuilder.build()));
+
+            for (Map<String, AttributeValue> item : response.items()) {
+                UpdateItemRequest request = UpdateItemRequest.builder()
+                        .tableName(tableName)
+                        .key(Map.of("AnalysisID", item.get("AnalysisID")))
+                        .updateExpression("SET #pending = :pending")
+                        .conditionExpression("#status = :pending")
+                        .expressionAttributeNames(Map.of("#status", "Status", "#pending", PENDING_STATUS_ATTRIBUTE))
+                        .expressionAttributeValues(Map.of(":pending", AttributeValue.builder().s(PENDING).build()))
+                        .build();
+                try {
+                    rateLimiter.write(tableName, "backfillPendingIndex", () -> dynamoDbClient.updateItem(request));
+                    backfilled++;
+                } catch (ConditionalCheckFailedException e) {
+                    // Picked up by the Lambda since the scan
+                }
+            }
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey() : null;
+        } while (startKey != null);
+
+        logger.info("Backfilled {} analyses into {}", backfilled, PENDING_INDEX);
+        return backfilled;
+    }
+
     public AnalysisResult getAnalysis(String analysisId) {
         Key key = Key.builder().partitionValue(analysisId).build();
-        return analysisTable.getItem(key);
+        return rateLimiter.read(tableName, "getAnalysis", () -> analysisTable.getItem(key));
     }
 
     public AnalysisResult getAnalysisByPhotoId(String photoId) {
@@ -50,31 +257,73 @@ public class AnalysisRepository {
                 .limit(1)
                 .build();
 
-        var results = index.query(request);
-        var iterator = results.iterator();
-        if (iterator.hasNext()) {
-            var page = iterator.next();
-            if (!page.items().isEmpty()) {
-                return page.items().get(0);
+        return rateLimiter.read(tableName, "getAnalysisByPhotoId", () -> {
+            var iterator = index.query(request).iterator();
+            if (iterator.hasNext()) {
+                var page = iterator.next();
+                if (!page.items().isEmpty()) {
+                    return page.items().get(0);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Every analysis of each of the given photos, looked up with one PhotoID-index query per photo,
+     * run in parallel. Within a photo, analyses keep the index's order.
+     * @return PhotoID to its analyses; photos without any are absent
+     */
+    public Map<String, List<AnalysisResult>> getAnalysesByPhotoIds(Collection<String> photoIds) {
+        DynamoDbIndex<AnalysisResult> index = analysisTable.index("PhotoID-index");
+        Map<String, CompletableFuture<List<AnalysisResult>>> lookups = new LinkedHashMap<>();
+        for (String photoId : new LinkedHashSet<>(photoIds)) {
+            lookups.put(photoId, CompletableFuture.supplyAsync(() -> rateLimiter.read(tableName, "getAnalysesByPhotoId", () -> {
+                List<AnalysisResult> analyses = new ArrayList<>();
+                index.query(QueryEnhancedRequest.builder()
+                                .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(photoId).build()))
+                                .build())
+                        .forEach(page -> analyses.addAll(page.items()));
+                return analyses;
+            }), lookupWorkers));
+        }
+
+        Map<String, List<AnalysisResult>> analysesByPhoto = new HashMap<>();
+        RuntimeException error = null;
+        for (Map.Entry<String, CompletableFuture<List<AnalysisResult>>> lookup : lookups.entrySet()) {
+            try {
+                List<AnalysisResult> analyses = lookup.getValue().join();
+                if (!analyses.isEmpty()) {
+                    analysesByPhoto.put(lookup.getKey(), analyses);
+                }
+            } catch (CompletionException e) {
+                // Keep waiting so no lookup is still running when the caller sees the error
+                if (error == null) {
+                    error = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
             }
         }
-        return null;
+        if (error != null) {
+            throw error;
+        }
+        return analysesByPhoto;
     }
 
     public void updateAnalysis(AnalysisResult analysis) {
-        analysisTable.updateItem(analysis);
+        syncPendingStatus(analysis);
+        rateLimiter.write(tableName, "updateAnalysis", () -> analysisTable.updateItem(analysis));
         logger.info("Updated analysis: {}", analysis.getAnalysisId());
     }
 
     public void deleteAnalysis(String analysisId) {
         Key key = Key.builder().partitionValue(analysisId).build();
-        analysisTable.deleteItem(key);
+        rateLimiter.write(tableName, "deleteAnalysis", () -> analysisTable.deleteItem(key));
         logger.info("Deleted analysis: {}", analysisId);
     }
 
     /**
-     * Batch delete analysis results by IDs.
-     * DynamoDB batch write supports up to 25 items per request.
+     * Batch delete analysis results by IDs, with chunks of 25 sent in parallel.
+     * @throws BatchWriteException with the IDs of the rows that could not be deleted
      */
     public void batchDeleteAnalysis(List<String> analysisIds) {
         if (analysisIds == null || analysisIds.isEmpty()) {
@@ -82,27 +331,11 @@ public class AnalysisRepository {
         }
 
         logger.info("Batch deleting {} analysis results", analysisIds.size());
-        int batchSize = 25;
-
-        for (int i = 0; i < analysisIds.size(); i += batchSize) {
-            int end = Math.min(i + batchSize, analysisIds.size());
-            List<String> batch = analysisIds.subList(i, end);
-
-            WriteBatch.Builder<AnalysisResult> writeBatchBuilder = WriteBatch.builder(AnalysisResult.class)
-                    .mappedTableResource(analysisTable);
-
-            for (String analysisId : batch) {
-                writeBatchBuilder.addDeleteItem(Key.builder().partitionValue(analysisId).build());
-            }
-
-            BatchWriteItemEnhancedRequest batchRequest = BatchWriteItemEnhancedRequest.builder()
-                    .writeBatches(writeBatchBuilder.build())
-                    .build();
-
-            enhancedClient.batchWriteItem(batchRequest);
-            logger.debug("Batch deleted {} analysis results", batch.size());
+        List<WriteRequest> deletes = new ArrayList<>();
+        for (String analysisId : analysisIds) {
+            deletes.add(DynamoDbBatchWriter.delete(Map.of("AnalysisID", AttributeValue.builder().s(analysisId).build())));
         }
-
+        batchWriter.writeAll(tableName, deletes, "AnalysisID");
         logger.info("Successfully batch deleted {} analysis results", analysisIds.size());
     }
 
@@ -137,12 +370,13 @@ public class AnalysisRepository {
             queryBuilder.exclusiveStartKey(startKeyMap);
         }
 
-        var result = index.query(queryBuilder.build());
+        Page<AnalysisResult> page = rateLimiter.read(tableName, "listAnalysisByProperty", () -> {
+            var pageIterator = index.query(queryBuilder.build()).iterator();
+            return pageIterator.hasNext() ? pageIterator.next() : null;
+        });
         List<AnalysisResult> items = new ArrayList<>();
-        var pageIterator = result.iterator();
 
-        if (pageIterator.hasNext()) {
-            var page = pageIterator.next();
+        if (page != null) {
             page.items().forEach(items::add);
 
             boolean hasMore = page.lastEvaluatedKey() != null && !page.lastEvaluatedKey().isEmpty();
@@ -159,4 +393,18 @@ public class AnalysisRepository {
 
         return new PagedResponse<>(items, null, false);
     }
+
+    @PreDestroy
+    public void shutdown() {
+        lookupWorkers.shutdownNow();
+        try {
+            lookupWorkers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void syncPendingStatus(AnalysisResult analysis) {
+        analysis.setPendingStatus(PENDING.equals(analysis.getStatus()) ? PENDING : null);
+    }
 }
@@ -0,0 +1,318 @@
+package com.rapidupload.backend.repositories;
+
+import com.rapidupload.backend.models.ContentHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchExecuteStatementRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchExecuteStatementResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchStatementError;
+import software.amazon.awssdk.services.dynamodb.model.BatchStatementErrorCodeEnum;
+import software.amazon.awssdk.services.dynamodb.model.BatchStatementRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Content-hash index: (PropertyID, ContentHash) items mapping a SHA-256 to the S3 object that holds
+ * that content for the property, with a reference count of the photos pointing at it. Scoped per
+ * property, so deleting a property never strands another property's photos.
+ */
+@Repository
+public class ContentHashRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentHashRepository.class);
+    private static final int BATCH_GET_SIZE = 100; // DynamoDB batch get limit
+    private static final int BATCH_STATEMENT_SIZE = 25; // BatchExecuteStatement limit
+    private static final int MAX_STATEMENT_ATTEMPTS = 3;
+    private static final long STATEMENT_RETRY_DELAY_MS = 100;
+    private static final Set<BatchStatementErrorCodeEnum> THROTTLED_STATEMENT_ERRORS = Set.of(
+            BatchStatementErrorCodeEnum.PROVISIONED_THROUGHPUT_EXCEEDED,
+            BatchStatementErrorCodeEnum.THROTTLING_ERROR,
+            BatchStatementErrorCodeEnum.REQUEST_LIMIT_EXCEEDED);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbBatchWriter batchWriter;
+    private final DynamoDbRateLimiter rateLimiter;
+    private final String tableName;
+    private final String setAnalysisPhotoStatement;
+
+    public ContentHashRepository(DynamoDbClient dynamoDbClient,
+                                 DynamoDbBatchWriter batchWriter,
+                                 DynamoDbRateLimiter rateLimiter,
+                                 @Value("${aws.dynamodb.tables.content-hashes:ContentHashes}") String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.batchWriter = batchWriter;
+        this.rateLimiter = rateLimiter;
+        this.tableName = tableName;
+        this.setAnalysisPhotoStatement = "UPDATE \"" + tableName + "\" SET \"AnalysisPhotoID\" = ? "
+                + "WHERE \"PropertyID\" = ? AND \"ContentHash\" = ? AND \"AnalysisPhotoID\" IS MISSING";
+    }
+
+    /**
+     * Look up several hashes of one property with BatchGetItem (chunked by 100 keys).
+     * @return ContentHash to its entry; unknown hashes are absent
+     */
+    public Map<String, ContentHash> batchGet(String propertyId, Collection<String> hashes) {
+        Map<String, ContentHash> entries = new HashMap<>();
+        List<Map<String, AttributeValue>> keys = hashes.stream().map(hash -> key(propertyId, hash)).toList();
+
+        for (int i = 0; i < keys.size(); i += BATCH_GET_SIZE) {
+            Map<String, KeysAndAttributes> requestItems = Map.of(tableName, KeysAndAttributes.builder()
+                    .keys(keys.subList(i, Math.min(i + BATCH_GET_SIZE, keys.size())))
+                    .build());
+
+            while (requestItems != null && !requestItems.isEmpty()) {
+                final Map<String, KeysAndAttributes> pendingItems = requestItems;
+                BatchGetItemResponse response = rateLimiter.execute(tableName, DynamoDbRateLimiter.Operation.READ,
+                        "batchGetContentHashes", pendingItems.get(tableName).keys().size(),
+                        () -> dynamoDbClient.batchGetItem(BatchGetItemRequest.builder().requestItems(pendingItems).build()));
+
+                for (Map<String, AttributeValue> item : response.responses().getOrDefault(tableName, List.of())) {
+                    ContentHash entry = fromItem(item);
+                    entries.put(entry.getContentHash(), entry);
+                }
+                requestItems = response.hasUnprocessedKeys() ? response.unprocessedKeys() : null;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Register a photo's upload as the holder of its content, with one reference. When
+     * {@code stalePhotoId} is given, an entry left by that photo (deleted, or an upload that never
+     * completed) is replaced; otherwise only a missing entry is created.
+     * @return false if another photo holds the entry
+     */
+    public boolean claim(ContentHash entry, String stalePhotoId) {
+        Map<String, AttributeValue> item = new HashMap<>(key(entry.getPropertyId(), entry.getContentHash()));
+        item.put("PhotoID", AttributeValue.builder().s(entry.getPhotoId()).build());
+        item.put("S3Key", AttributeValue.builder().s(entry.getS3Key()).build());
+        if (entry.getFileSize() != null) {
+            item.put("FileSize", AttributeValue.builder().n(entry.getFileSize().toString()).build());
+        }
+        if (entry.getContentType() != null) {
+            item.put("ContentType", AttributeValue.builder().s(entry.getContentType()).build());
+        }
+        item.put("RefCount", AttributeValue.builder().n("1").build());
+
+        PutItemRequest.Builder request = PutItemRequest.builder().tableName(tableName).item(item);
+        if (stalePhotoId == null) {
+            request.conditionExpression("attribute_not_exists(ContentHash)");
+        } else {
+            request.conditionExpression("attribute_not_exists(ContentHash) OR PhotoID = :stale")
+                    .expressionAttributeValues(Map.of(":stale", AttributeValue.builder().s(stalePhotoId).build()));
+        }
+
+        try {
+            rateLimiter.write(tableName, "claimContentHash", () -> dynamoDbClient.putItem(request.build()));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Add {@code count} references for new photos pointing at an existing object.
+     * @return false if the entry no longer exists (its object may be gone)
+     */
+    public boolean addReferences(String propertyId, String hash, int count) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(key(propertyId, hash))
+                .updateExpression("ADD RefCount :count")
+                .conditionExpression("attribute_exists(ContentHash)")
+                .expressionAttributeValues(Map.of(":count", AttributeValue.builder().n(Integer.toString(count)).build()))
+                .build();
+        try {
+            rateLimiter.write(tableName, "addContentHashReferences", () -> dynamoDbClient.updateItem(request));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Drop one reference to the object {@code s3Key} holds for this content, deleting the entry
+     * when it was the last one.
+     * @return references left, or -1 if no entry tracks that object (it is not shared)
+     */
+    public long release(String propertyId, String hash, String s3Key) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(key(propertyId, hash))
+                .updateExpression("ADD RefCount :minusOne")
+                .conditionExpression("S3Key = :key")
+                .expressionAttributeValues(Map.of(
+                        ":minusOne", AttributeValue.builder().n("-1").build(),
+                        ":key", AttributeValue.builder().s(s3Key).build()))
+                .returnValues(ReturnValue.UPDATED_NEW)
+                .build();
+
+        long remaining;
+        try {
+            UpdateItemResponse response = rateLimiter.write(tableName, "releaseContentHash", () -> dynamoDbClient.updateItem(request));
+            remaining = Long.parseLong(response.attributes().get("RefCount").n());
+        } catch (ConditionalCheckFailedException e) {
+            return -1;
+        }
+
+        if (remaining <= 0) {
+            try {
+                rateLimiter.write(tableName, "deleteContentHash", () -> dynamoDbClient.deleteItem(DeleteItemRequest.builder()
+                        .tableName(tableName)
+                        .key(key(propertyId, hash))
+                        .conditionExpression("RefCount <= :zero")
+                        .expressionAttributeValues(Map.of(":zero", AttributeValue.builder().n("0").build()))
+                        .build()));
+            } catch (ConditionalCheckFailedException e) {
+                // A new photo referenced the content in between; the entry stays
+                logger.debug("Content hash {} of property {} was referenced again before deletion", hash, propertyId);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Record, for each hash, the photo whose analysis serves that content, unless one is recorded
+     * already. Conditional PartiQL updates, 25 per BatchExecuteStatement call; throttled statements
+     * are retried, anything else is only logged since the record is a hint for later clones.
+     * @param photoByHash ContentHash to the photo being analyzed for it
+     */
+    public void setAnalysisPhotosIfAbsent(String propertyId, Map<String, String> photoByHash) {
+        List<Map.Entry<String, String>> all = new ArrayList<>(photoByHash.entrySet());
+        for (int i = 0; i < all.size(); i += BATCH_STATEMENT_SIZE) {
+            List<Map.Entry<String, String>> remaining = all.subList(i, Math.min(i + BATCH_STATEMENT_SIZE, all.size()));
+
+            for (int attempt = 0; !remaining.isEmpty(); attempt++) {
+                if (attempt > 0) {
+                    sleepBeforeRetry(STATEMENT_RETRY_DELAY_MS * (1L << (attempt - 1)));
+                }
+
+                List<BatchStatementRequest> statements = new ArrayList<>();
+                for (Map.Entry<String, String> entry : remaining) {
+                    statements.add(BatchStatementRequest.builder()
+                            .statement(setAnalysisPhotoStatement)
+                            .parameters(
+                                    AttributeValue.builder().s(entry.getValue()).build(),
+                                    AttributeValue.builder().s(propertyId).build(),
+                                    AttributeValue.builder().s(entry.getKey()).build())
+                            .build());
+                }
+
+                BatchExecuteStatementResponse response = rateLimiter.execute(tableName, DynamoDbRateLimiter.Operation.WRITE,
+                        "setAnalysisPhotos", statements.size(),
+                        () -> dynamoDbClient.batchExecuteStatement(BatchExecuteStatementRequest.builder().statements(statements).build()));
+
+                // Responses are returned in statement order
+                List<Map.Entry<String, String>> retry = new ArrayList<>();
+                boolean throttled = false;
+                for (int j = 0; j < remaining.size(); j++) {
+                    BatchStatementError error = response.responses().get(j).error();
+                    if (error == null || error.code() == BatchStatementErrorCodeEnum.CONDITIONAL_CHECK_FAILED) {
+                        // Recorded, or already recorded / entry gone
+                        continue;
+                    }
+                    if (THROTTLED_STATEMENT_ERRORS.contains(error.code())) {
+                        throttled = true;
+                        if (attempt + 1 < MAX_STATEMENT_ATTEMPTS) {
+                            retry.add(remaining.get(j));
+                            continue;
+                        }
+                    }
+                    logger.warn("Failed to record analysis photo of content hash {} in property {}: {} {}",
+                            remaining.get(j).getKey(), propertyId, error.codeAsString(), error.message());
+                }
+                if (throttled) {
+                    rateLimiter.onThrottle(tableName, DynamoDbRateLimiter.Operation.WRITE);
+                }
+                remaining = retry;
+            }
+        }
+    }
+
+    /**
+     * Delete every entry of a property, e.g. when the property itself is deleted.
+     */
+    public void deleteByProperty(String propertyId) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>();
+        Map<String, AttributeValue> lastKey = null;
+        do {
+            QueryRequest.Builder query = QueryRequest.builder()
+                    .tableName(tableName)
+                    .keyConditionExpression("PropertyID = :propertyId")
+                    .expressionAttributeValues(Map.of(":propertyId", AttributeValue.builder().s(propertyId).build()))
+                    .projectionExpression("PropertyID, ContentHash");
+            if (lastKey != null) {
+                query.exclusiveStartKey(lastKey);
+            }
+            QueryResponse response = rateLimiter.read(tableName, "queryContentHashes", () -> dynamoDbClient.query(query.build()));
+            keys.addAll(response.items());
+            lastKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey() : null;
+        } while (lastKey != null);
+
+        deleteKeys(keys);
+        logger.info("Deleted {} content hash entries for property {}", keys.size(), propertyId);
+    }
+
+    private void deleteKeys(List<Map<String, AttributeValue>> keys) {
+        batchWriter.writeAll(tableName, keys.stream().map(DynamoDbBatchWriter::delete).toList(), "ContentHash");
+    }
+
+    private static void sleepBeforeRetry(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Retry interrupted", e);
+        }
+    }
+
+    private static Map<String, AttributeValue> key(String propertyId, String hash) {
+        return Map.of(
+                "PropertyID", AttributeValue.builder().s(propertyId).build(),
+                "ContentHash", AttributeValue.builder().s(hash).build());
+    }
+
+    private static ContentHash fromItem(Map<String, AttributeValue> item) {
+        ContentHash entry = new ContentHash();
+        entry.setPropertyId(item.get("PropertyID").s());
+        entry.setContentHash(item.get("ContentHash").s());
+        entry.setPhotoId(stringValue(item, "PhotoID"));
+        entry.setS3Key(stringValue(item, "S3Key"));
+        entry.setContentType(stringValue(item, "ContentType"));
+        entry.setAnalysisPhotoId(stringValue(item, "AnalysisPhotoID"));
+        if (item.containsKey("FileSize")) {
+            entry.setFileSize(Long.parseLong(item.get("FileSize").n()));
+        }
+        if (item.containsKey("RefCount")) {
+            entry.setRefCount(Long.parseLong(item.get("RefCount").n()));
+        }
+        return entry;
+    }
+
+    private static String stringValue(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value != null ? value.s() : null;
+    }
+
+}
@@ -0,0 +1,338 @@
+package com.rapidupload.backend.repositories;
+
+import com.rapidupload.backend.exceptions.BatchWriteException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * BatchWriteItem for any number of items, shared by all repositories. Requests are cut into chunks
+ * of 25 that are sent in parallel; unprocessed items and throttled chunks are resubmitted with
+ * full-jitter exponential backoff, and whatever is still unprocessed after {@code max-attempts} is
+ * returned as failed instead of being dropped.
+ *
+ * Parallelism adapts per table (AIMD): each throttled response halves the number of chunks a table
+ * may have in flight, at most once per cooldown, and every window of clean responses raises it by
+ * one, up to {@code max-concurrency}. Every attempt also takes a write token per item from the
+ * table's DynamoDbRateLimiter bucket and reports throttling to it, so batch writes and single-item
+ * writes to the same table slow down together.
+ */
+@Component
+public class DynamoDbBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamoDbBatchWriter.class);
+    public static final int BATCH_WRITE_SIZE = 25; // DynamoDB batch write limit
+    private static final long DECREASE_COOLDOWN_MS = 200;
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final int maxConcurrency;
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final ExecutorService workers;
+    private final Map<String, ConcurrencyLimit> limits = new ConcurrentHashMap<>();
+
+    public DynamoDbBatchWriter(DynamoDbClient dynamoDbClient,
+                               DynamoDbRateLimiter rateLimiter,
+                               MeterRegistry meterRegistry,
+                               @Value("${aws.dynamodb.batch-write.threads:16}") int threads,
+                               @Value("${aws.dynamodb.batch-write.max-concurrency:8}") int maxConcurrency,
+                               @Value("${aws.dynamodb.batch-write.max-attempts:8}") int maxAttempts,
+                               @Value("${aws.dynamodb.batch-write.base-delay-ms:50}") long baseDelayMs,
+                               @Value("${aws.dynamodb.batch-write.max-delay-ms:5000}") long maxDelayMs) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.maxConcurrency = maxConcurrency;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.workers = Executors.newFixedThreadPool(threads);
+    }
+
+    public static WriteRequest put(Map<String, AttributeValue> item) {
+        return WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build();
+    }
+
+    public static WriteRequest delete(Map<String, AttributeValue> key) {
+        return WriteRequest.builder().deleteRequest(DeleteRequest.builder().key(key).build()).build();
+    }
+
+    /**
+     * Write all requests to one table, returning when every chunk is written or out of attempts.
+     */
+    public Outcome write(String tableName, List<WriteRequest> requests) {
+        if (requests.isEmpty()) {
+            return new Outcome(0, List.of());
+        }
+        ConcurrencyLimit limit = limits.computeIfAbsent(tableName, this::newLimit);
+
+        // A single chunk is sent from the calling thread
+        if (requests.size() <= BATCH_WRITE_SIZE) {
+            limit.acquire();
+            try {
+                List<WriteRequest> failed = writeChunk(tableName, requests, limit);
+                return new Outcome(requests.size() - failed.size(), failed);
+            } finally {
+                limit.release();
+            }
+        }
+
+        List<CompletableFuture<List<WriteRequest>>> chunks = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i += BATCH_WRITE_SIZE) {
+            List<WriteRequest> chunk = requests.subList(i, Math.min(i + BATCH_WRITE_SIZE, requests.size()));
+            limit.acquire();
+            try {
+                chunks.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return writeChunk(tableName, chunk, limit);
+                    } finally {
+                        limit.release();
+                    }
+                }, workers));
+            } catch (RuntimeException e) {
+                limit.release();
+                throw e;
+            }
+        }
+
+        List<WriteRequest> failed = new ArrayList<>();
+        RuntimeException error = null;
+        for (CompletableFuture<List<WriteRequest>> chunk : chunks) {
+            try {
+                failed.addAll(chunk.join());
+            } catch (CompletionException e) {
+                // Not throttling; keep waiting so no chunk is still writing when the caller sees the error
+                if (error == null) {
+                    error = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return new Outcome(requests.size() - failed.size(), failed);
+    }
+
+    /**
+     * Like {@link #write}, but fails if any request is left unwritten.
+     * @param keyAttribute Key attribute identifying the failed items in the exception, e.g. PhotoID
+     * @return number of items written
+     * @throws BatchWriteException listing the failed items; all others were written
+     */
+    public int writeAll(String tableName, List<WriteRequest> requests, String keyAttribute) {
+        Outcome outcome = write(tableName, requests);
+        if (!outcome.isComplete()) {
+            throw new BatchWriteException(tableName, outcome.failedKeys(keyAttribute));
+        }
+        return outcome.getWritten();
+    }
+
+    /**
+     * @return the requests still unprocessed after the last attempt
+     */
+    private List<WriteRequest> writeChunk(String tableName, List<WriteRequest> chunk, ConcurrencyLimit limit) {
+        List<WriteRequest> pending = chunk;
+        for (int attempt = 0; attempt < maxAttempts && !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                sleep(backoff(attempt));
+                limit.retries.increment();
+            }
+            try {
+                rateLimiter.acquire(tableName, DynamoDbRateLimiter.Operation.WRITE, "batchWriteItem", pending.size());
+            } catch (ProvisionedThroughputExceededException e) {
+                // No token within max-wait-ms: back off like a throttled chunk, but the limiter has
+                // already seen the throttling that emptied its bucket
+                limit.onThrottle();
+                continue;
+            }
+            try {
+                BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(Map.of(tableName, pending))
+                        .build());
+                List<WriteRequest> unprocessed = response.hasUnprocessedItems()
+                        ? response.unprocessedItems().getOrDefault(tableName, List.of())
+                        : List.of();
+                if (unprocessed.isEmpty()) {
+                    limit.onSuccess();
+                    rateLimiter.onSuccess(tableName, DynamoDbRateLimiter.Operation.WRITE);
+                } else {
+                    limit.onThrottle();
+                    rateLimiter.onThrottle(tableName, DynamoDbRateLimiter.Operation.WRITE);
+                }
+                pending = unprocessed;
+            } catch (ProvisionedThroughputExceededException | RequestLimitExceededException e) {
+                // Nothing was written; resend the whole chunk
+                limit.onThrottle();
+                rateLimiter.onThrottle(tableName, DynamoDbRateLimiter.Operation.WRITE);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            limit.failures.increment(pending.size());
+            logger.warn("{} items of {} still unprocessed after {} attempts", pending.size(), tableName, maxAttempts);
+        }
+        return pending;
+    }
+
+    private ConcurrencyLimit newLimit(String tableName) {
+        ConcurrencyLimit limit = new ConcurrencyLimit(maxConcurrency,
+                Counter.builder("dynamodb.batch-write.retries").tag("table", tableName).register(meterRegistry),
+                Counter.builder("dynamodb.batch-write.failed-items").tag("table", tableName).register(meterRegistry));
+        Gauge.builder("dynamodb.batch-write.concurrency", limit, ConcurrencyLimit::current)
+                .tag("table", tableName)
+                .register(meterRegistry);
+        return limit;
+    }
+
+    /**
+     * Full jitter: a random delay up to the exponential bound.
+     */
+    private long backoff(int attempt) {
+        long bound = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt, 16));
+        return ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch write interrupted", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Result of a batch write: how many items were written and which requests were not.
+     */
+    public static class Outcome {
+        private final int written;
+        private final List<WriteRequest> failed;
+
+        private Outcome(int written, List<WriteRequest> failed) {
+            this.written = written;
+            this.failed = failed;
+        }
+
+        public int getWritten() {
+            return written;
+        }
+
+        public List<WriteRequest> getFailed() {
+            return failed;
+        }
+
+        public boolean isComplete() {
+            return failed.isEmpty();
+        }
+
+        /**
+         * Values of one key attribute of the failed requests, e.g. their PhotoIDs.
+         */
+        public List<String> failedKeys(String keyAttribute) {
+            return failed.stream()
+                    .map(request -> request.putRequest() != null
+                            ? request.putRequest().item().get(keyAttribute)
+                            : request.deleteRequest().key().get(keyAttribute))
+                    .map(value -> value != null ? (value.s() != null ? value.s() : value.n()) : null)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * AIMD limit on a table's chunks in flight.
+     */
+    private static class ConcurrencyLimit {
+        private final int max;
+        private final Counter retries;
+        private final Counter failures;
+        private int limit;
+        private int inFlight;
+        private int successes;
+        private long lastDecrease;
+
+        private ConcurrencyLimit(int max, Counter retries, Counter failures) {
+            this.max = max;
+            this.limit = max;
+            this.retries = retries;
+            this.failures = failures;
+        }
+
+        private synchronized void acquire() {
+            while (inFlight >= limit) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Batch write interrupted", e);
+                }
+            }
+            inFlight++;
+        }
+
+        private synchronized void release() {
+            inFlight--;
+            notifyAll();
+        }
+
+        private synchronized void onSuccess() {
+            // One more chunk in flight per full window of clean responses
+            if (limit < max && ++successes >= limit) {
+                limit++;
+                successes = 0;
+                notifyAll();
+            }
+        }
+
+        private synchronized void onThrottle() {
+            long now = System.currentTimeMillis();
+            if (now - lastDecrease >= DECREASE_COOLDOWN_MS) {
+                limit = Math.max(1, limit / 2);
+                successes = 0;
+                lastDecrease = now;
+            }
+        }
+
+        private synchronized int current() {
+            return limit;
+        }
+    }
+}
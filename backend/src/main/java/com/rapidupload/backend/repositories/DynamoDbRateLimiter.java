@@ -0,0 +1,251 @@
+package com.rapidupload.backend.repositories;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Client-side rate limiter shared by every blocking DynamoDB call of this instance: one token bucket
+ * per table and operation type (read or write), each request taking a token per item it touches.
+ * Calls made through the async clients do not go through it, since waiting for a token sleeps the
+ * calling thread and their callbacks run on the SDK's event loop.
+ *
+ * Rates adapt AIMD-style. A throttled call cuts its bucket's rate to half of what was actually
+ * being sent, at most once per cooldown, so every caller of that table and operation slows down
+ * together instead of each sleeping on its own and retrying in lockstep. While calls succeed, the
+ * rate climbs back by {@code increase-per-second} each second, up to {@code max-rate}. Buckets start
+ * at {@code max-rate}, so the limiter only holds traffic back once DynamoDB has pushed back.
+ *
+ * A throttled call is retried through the bucket up to {@code max-attempts} times. A caller that
+ * would have to wait longer than {@code max-wait-ms} for a token fails fast with
+ * ProvisionedThroughputExceededException instead of holding its thread.
+ */
+@Component
+public class DynamoDbRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamoDbRateLimiter.class);
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final long DECREASE_COOLDOWN_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final long MEASURE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    public enum Operation {
+        READ, WRITE;
+
+        private String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final double maxRate;
+    private final double minRate;
+    private final double increasePerSecond;
+    private final int maxAttempts;
+    private final long maxWaitNanos;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public DynamoDbRateLimiter(MeterRegistry meterRegistry,
+                               @Value("${aws.dynamodb.rate-limit.max-rate:1000}") double maxRate,
+                               @Value("${aws.dynamodb.rate-limit.min-rate:5}") double minRate,
+                               @Value("${aws.dynamodb.rate-limit.increase-per-second:20}") double increasePerSecond,
+                               @Value("${aws.dynamodb.rate-limit.max-attempts:4}") int maxAttempts,
+                               @Value("${aws.dynamodb.rate-limit.max-wait-ms:5000}") long maxWaitMs) {
+        if (minRate <= 0 || minRate > maxRate) {
+            throw new IllegalArgumentException("aws.dynamodb.rate-limit.min-rate must be positive and at most max-rate");
+        }
+        this.meterRegistry = meterRegistry;
+        this.maxRate = maxRate;
+        this.minRate = minRate;
+        this.increasePerSecond = increasePerSecond;
+        this.maxAttempts = maxAttempts;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+    }
+
+    /**
+     * Run a read (GetItem, Query, Scan, BatchGetItem) against a table through its read bucket.
+     */
+    public <T> T read(String tableName, String operationName, Supplier<T> call) {
+        return execute(tableName, Operation.READ, operationName, 1, call);
+    }
+
+    /**
+     * Run a write (PutItem, UpdateItem, DeleteItem, ...) against a table through its write bucket.
+     */
+    public <T> T write(String tableName, String operationName, Supplier<T> call) {
+        return execute(tableName, Operation.WRITE, operationName, 1, call);
+    }
+
+    /**
+     * Run a call that takes {@code permits} tokens, retrying it through the bucket while it is throttled.
+     * @throws ProvisionedThroughputExceededException when still throttled after the last attempt, or
+     *         when a token is too far off
+     */
+    public <T> T execute(String tableName, Operation operation, String operationName, int permits, Supplier<T> call) {
+        Bucket bucket = bucket(tableName, operation);
+        for (int attempt = 1; ; attempt++) {
+            bucket.acquire(permits, operationName);
+            try {
+                T result = call.get();
+                bucket.onSuccess();
+                return result;
+            } catch (ProvisionedThroughputExceededException | RequestLimitExceededException e) {
+                bucket.onThrottle();
+                if (attempt >= maxAttempts) {
+                    logger.error("Throughput exceeded for {} on {} after {} attempts", operationName, tableName, attempt);
+                    throw e;
+                }
+                logger.warn("Throughput exceeded for {} on {}, retrying at {} req/s (attempt {}/{})",
+                        operationName, tableName, Math.round(bucket.rate()), attempt, maxAttempts);
+            }
+        }
+    }
+
+    /**
+     * Take tokens for a call whose outcome is reported separately, e.g. one BatchWriteItem attempt.
+     */
+    public void acquire(String tableName, Operation operation, String operationName, int permits) {
+        bucket(tableName, operation).acquire(permits, operationName);
+    }
+
+    /**
+     * Report a call that was throttled, wholly or for some of its items.
+     */
+    public void onThrottle(String tableName, Operation operation) {
+        bucket(tableName, operation).onThrottle();
+    }
+
+    /**
+     * Report a call that went through without throttling.
+     */
+    public void onSuccess(String tableName, Operation operation) {
+        bucket(tableName, operation).onSuccess();
+    }
+
+    private Bucket bucket(String tableName, Operation operation) {
+        return buckets.computeIfAbsent(tableName + "/" + operation.tag(), key -> newBucket(tableName, operation));
+    }
+
+    private Bucket newBucket(String tableName, Operation operation) {
+        Bucket bucket = new Bucket(
+                Counter.builder("dynamodb.rate-limit.throttles")
+                        .tag("table", tableName).tag("operation", operation.tag()).register(meterRegistry),
+                Counter.builder("dynamodb.rate-limit.rejections")
+                        .tag("table", tableName).tag("operation", operation.tag()).register(meterRegistry),
+                Timer.builder("dynamodb.rate-limit.wait")
+                        .tag("table", tableName).tag("operation", operation.tag()).register(meterRegistry));
+        Gauge.builder("dynamodb.rate-limit.rate", bucket, Bucket::rate)
+                .tag("table", tableName).tag("operation", operation.tag())
+                .description("Tokens per second the bucket currently allows")
+                .register(meterRegistry);
+        Gauge.builder("dynamodb.rate-limit.measured-rate", bucket, Bucket::measuredRate)
+                .tag("table", tableName).tag("operation", operation.tag())
+                .description("Tokens per second taken over the last window")
+                .register(meterRegistry);
+        return bucket;
+    }
+
+    private class Bucket {
+        private final Counter throttles;
+        private final Counter rejections;
+        private final Timer waits;
+        private double rate = maxRate;
+        // May go negative: tokens already promised to callers that are waiting for them
+        private double tokens = maxRate;
+        private long refilledAt = System.nanoTime();
+        private long lastDecrease;
+        private long lastIncrease = System.nanoTime();
+        private long windowStart = System.nanoTime();
+        private long windowTokens;
+        private double measuredRate;
+
+        private Bucket(Counter throttles, Counter rejections, Timer waits) {
+            this.throttles = throttles;
+            this.rejections = rejections;
+            this.waits = waits;
+        }
+
+        private void acquire(int permits, String operationName) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+                measure(now, permits);
+                waitNanos = tokens >= permits ? 0 : (long) ((permits - tokens) / rate * 1e9);
+                if (waitNanos > maxWaitNanos) {
+                    rejections.increment();
+                    throw ProvisionedThroughputExceededException.builder()
+                            .message("Client-side rate limit for " + operationName + " reached")
+                            .build();
+                }
+                // Reserve now, so later callers queue up behind this one
+                tokens -= permits;
+            }
+            if (waitNanos > 0) {
+                waits.record(waitNanos, TimeUnit.NANOSECONDS);
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted waiting for DynamoDB capacity", e);
+                }
+            }
+        }
+
+        private synchronized void onThrottle() {
+            throttles.increment();
+            long now = System.nanoTime();
+            if (now - lastDecrease < DECREASE_COOLDOWN_NANOS) {
+                return;
+            }
+            // Halve what was really sent, not a ceiling nobody was reaching
+            double sent = measuredRate > 0 ? Math.min(rate, measuredRate) : rate;
+            rate = Math.max(minRate, sent * DECREASE_FACTOR);
+            tokens = Math.min(tokens, 0);
+            lastDecrease = now;
+            lastIncrease = now;
+        }
+
+        private synchronized void onSuccess() {
+            long now = System.nanoTime();
+            if (rate < maxRate) {
+                rate = Math.min(maxRate, rate + increasePerSecond * (now - lastIncrease) / 1e9);
+            }
+            lastIncrease = now;
+        }
+
+        private void refill(long now) {
+            // At most one second's worth of tokens is banked for bursts
+            tokens = Math.min(rate, tokens + rate * (now - refilledAt) / 1e9);
+            refilledAt = now;
+        }
+
+        private void measure(long now, int permits) {
+            if (now - windowStart >= MEASURE_WINDOW_NANOS) {
+                measuredRate = windowTokens * 1e9 / (now - windowStart);
+                windowStart = now;
+                windowTokens = 0;
+            }
+            windowTokens += permits;
+        }
+
+        private synchronized double rate() {
+            return rate;
+        }
+
+        private synchronized double measuredRate() {
+            return measuredRate;
+        }
+    }
+}
@@ -1,50 +1,121 @@
 package com.rapidupload.backend.repositories;
 
+import com.rapidupload.backend.exceptions.BatchWriteException;
 import com.rapidupload.backend.exceptions.ConditionalCheckFailedException;
 import com.rapidupload.backend.exceptions.PhotoNotFoundException;
 import com.rapidupload.backend.models.PagedResponse;
 import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.models.Rendition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
-import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
-import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.BatchExecuteStatementRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchExecuteStatementResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchStatementError;
+import software.amazon.awssdk.services.dynamodb.model.BatchStatementErrorCodeEnum;
+import software.amazon.awssdk.services.dynamodb.model.BatchStatementRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchStatementResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
 import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
 import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
 public class PhotoRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(PhotoRepository.class);
-    private static final int MAX_RETRIES = 3;
-    private static final long BASE_DELAY_MS = 1000;
-    private static final int BATCH_WRITE_SIZE = 25; // DynamoDB batch write limit
+    private static final int MAX_STATEMENT_ATTEMPTS = 3;
+    private static final int BATCH_STATEMENT_SIZE = 25; // BatchExecuteStatement limit
+    private static final long STATEMENT_RETRY_DELAY_MS = 100;
+    private static final Set<BatchStatementErrorCodeEnum> RETRYABLE_STATEMENT_ERRORS = Set.of(
+            BatchStatementErrorCodeEnum.PROVISIONED_THROUGHPUT_EXCEEDED,
+            BatchStatementErrorCodeEnum.THROTTLING_ERROR,
+            BatchStatementErrorCodeEnum.REQUEST_LIMIT_EXCEEDED,
+            BatchStatementErrorCodeEnum.TRANSACTION_CONFLICT,
+            BatchStatementErrorCodeEnum.INTERNAL_SERVER_ERROR);
+    // Statement errors that also slow down the table's write bucket
+    private static final Set<BatchStatementErrorCodeEnum> THROTTLED_STATEMENT_ERRORS = Set.of(
+            BatchStatementErrorCodeEnum.PROVISIONED_THROUGHPUT_EXCEEDED,
+            BatchStatementErrorCodeEnum.THROTTLING_ERROR,
+            BatchStatementErrorCodeEnum.REQUEST_LIMIT_EXCEEDED);
+
+    /**
+     * Result of a conditional pending -> uploaded transition.
+     */
+    public enum ConfirmOutcome {
+        CONFIRMED,          // moved from pending to uploaded by this call
+        ALREADY_UPLOADED,   // was already uploaded (idempotent success)
+        NOT_PENDING,        // exists but is in some other state
+        PROPERTY_MISMATCH,  // belongs to a different property
+        NOT_FOUND,
+        FAILED;             // the write itself failed (after retries)
+
+        public boolean isUploaded() {
+            return this == CONFIRMED || this == ALREADY_UPLOADED;
+        }
+    }
 
     private final DynamoDbTable<Photo> photoTable;
     private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbAsyncTable<Photo> asyncPhotoTable;
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+    private final DynamoDbBatchWriter batchWriter;
+    private final DynamoDbRateLimiter rateLimiter;
+    private final String tableName;
+    private final String confirmStatement;
 
     public PhotoRepository(DynamoDbEnhancedClient enhancedClient,
+                           DynamoDbClient dynamoDbClient,
+                           DynamoDbEnhancedAsyncClient enhancedAsyncClient,
+                           DynamoDbAsyncClient dynamoDbAsyncClient,
+                           DynamoDbBatchWriter batchWriter,
+                           DynamoDbRateLimiter rateLimiter,
                            @Value("${aws.dynamodb.tables.photos}") String tableName) {
         this.enhancedClient = enhancedClient;
+        this.dynamoDbClient = dynamoDbClient;
+        this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+        this.batchWriter = batchWriter;
+        this.rateLimiter = rateLimiter;
+        this.tableName = tableName;
         this.photoTable = enhancedClient.table(tableName, TableSchema.fromBean(Photo.class));
+        this.asyncPhotoTable = enhancedAsyncClient.table(tableName, TableSchema.fromBean(Photo.class));
+        // The WHERE clause on non-key attributes acts as the condition of the update
+        this.confirmStatement = "UPDATE \"" + tableName + "\" SET \"Status\" = 'uploaded', \"S3Key\" = ?, \"UploadedAt\" = ? "
+                + "WHERE \"PhotoID\" = ? AND \"Status\" = 'pending' AND \"PropertyID\" = ?";
     }
 
     public Photo createPhoto(String photoId, String propertyId, String filename, String s3Key, String s3Bucket,
@@ -60,11 +131,25 @@ public class PhotoRepository {
         photo.setStatus("pending");
         photo.setContentType(contentType);
 
-        return executeWithRetry(() -> {
+        return createPhoto(photo);
+    }
+
+    public Photo createPhoto(Photo photo) {
+        return rateLimiter.write(tableName, "createPhoto", () -> {
             photoTable.putItem(photo);
             logger.info("Created photo: {}", photo.getPhotoId());
             return photo;
-        }, "createPhoto");
+        });
+    }
+
+    /**
+     * Non-blocking variant of {@link #createPhoto(Photo)}.
+     */
+    public CompletableFuture<Photo> createPhotoAsync(Photo photo) {
+        return asyncPhotoTable.putItem(photo).thenApply(ignored -> {
+            logger.info("Created photo: {}", photo.getPhotoId());
+            return photo;
+        });
     }
 
     public Photo getPhoto(String photoId) {
@@ -72,7 +157,7 @@ public class PhotoRepository {
             Key key = Key.builder()
                     .partitionValue(photoId)
                     .build();
-            Photo photo = photoTable.getItem(key);
+            Photo photo = rateLimiter.read(tableName, "getPhoto", () -> photoTable.getItem(key));
             if (photo == null) {
                 throw new PhotoNotFoundException(photoId);
             }
@@ -95,11 +180,11 @@ public class PhotoRepository {
 
     public void updatePhoto(Photo photo) {
         try {
-            executeWithRetry(() -> {
+            rateLimiter.write(tableName, "updatePhoto", () -> {
                 photoTable.updateItem(photo);
                 logger.info("Updated photo: {}", photo.getPhotoId());
                 return null;
-            }, "updatePhoto");
+            });
         } catch (software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException e) {
             logger.error("Conditional check failed updating photo: {}", photo.getPhotoId(), e);
             throw new ConditionalCheckFailedException("Conditional check failed when updating photo: " + photo.getPhotoId(), e);
@@ -109,6 +194,59 @@ public class PhotoRepository {
         }
     }
 
+    /**
+     * Store a photo's perceptual hash (hex). Skipped if the photo was deleted meanwhile.
+     */
+    public void updatePerceptualHash(String photoId, String perceptualHash) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("PhotoID", AttributeValue.builder().s(photoId).build()))
+                .updateExpression("SET perceptualHash = :hash")
+                .conditionExpression("attribute_exists(PhotoID)")
+                .expressionAttributeValues(Map.of(":hash", AttributeValue.builder().s(perceptualHash).build()))
+                .build();
+        try {
+            rateLimiter.write(tableName, "updatePerceptualHash", () -> dynamoDbClient.updateItem(request));
+        } catch (software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException e) {
+            logger.debug("Photo {} was deleted before its perceptual hash was stored", photoId);
+        }
+    }
+
+    /**
+     * Record the photo's renditions in one write. A photo deleted in the meantime is left alone.
+     */
+    public void updateRenditions(String photoId, Rendition analysis, Rendition preview, Rendition thumbnail) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("PhotoID", AttributeValue.builder().s(photoId).build()))
+                .updateExpression("SET analysisS3Key = :key, analysisFileSize = :size, preview = :preview, thumbnail = :thumbnail")
+                .conditionExpression("attribute_exists(PhotoID)")
+                .expressionAttributeValues(Map.of(
+                        ":key", AttributeValue.builder().s(analysis.getS3Key()).build(),
+                        ":size", AttributeValue.builder().n(String.valueOf(analysis.getFileSize())).build(),
+                        ":preview", toAttributeValue(preview),
+                        ":thumbnail", toAttributeValue(thumbnail)))
+                .build();
+        try {
+            rateLimiter.write(tableName, "updateRenditions", () -> dynamoDbClient.updateItem(request));
+        } catch (software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException e) {
+            logger.debug("Photo {} was deleted before its renditions were recorded", photoId);
+        }
+    }
+
+    private static AttributeValue toAttributeValue(Rendition rendition) {
+        Map<String, AttributeValue> fields = new HashMap<>();
+        fields.put("s3Key", AttributeValue.builder().s(rendition.getS3Key()).build());
+        if (rendition.getWidth() != null && rendition.getHeight() != null) {
+            fields.put("width", AttributeValue.builder().n(String.valueOf(rendition.getWidth())).build());
+            fields.put("height", AttributeValue.builder().n(String.valueOf(rendition.getHeight())).build());
+        }
+        if (rendition.getFileSize() != null) {
+            fields.put("fileSize", AttributeValue.builder().n(String.valueOf(rendition.getFileSize())).build());
+        }
+        return AttributeValue.builder().m(fields).build();
+    }
+
     public void updatePhotoStatus(String photoId, String status) {
         try {
             Photo photo = getPhoto(photoId);
@@ -124,15 +262,15 @@ public class PhotoRepository {
             Key key = Key.builder()
                     .partitionValue(photoId)
                     .build();
-            photoTable.deleteItem(key);
+            rateLimiter.write(tableName, "deletePhoto", () -> photoTable.deleteItem(key));
         } catch (DynamoDbException e) {
             throw new RuntimeException("Failed to delete photo: " + photoId, e);
         }
     }
 
     /**
-     * Batch delete photos by IDs.
-     * DynamoDB batch write supports up to 25 items per request.
+     * Batch delete photos by IDs, with chunks of 25 sent in parallel.
+     * @throws BatchWriteException with the IDs of the photos that could not be deleted
      */
     public void batchDeletePhotos(List<String> photoIds) {
         if (photoIds == null || photoIds.isEmpty()) {
@@ -140,31 +278,10 @@ public class PhotoRepository {
         }
 
         logger.info("Batch deleting {} photos", photoIds.size());
-
-        for (int i = 0; i < photoIds.size(); i += BATCH_WRITE_SIZE) {
-            int end = Math.min(i + BATCH_WRITE_SIZE, photoIds.size());
-            List<String> batch = photoIds.subList(i, end);
-            final int batchNumber = (i / BATCH_WRITE_SIZE) + 1;
-            final int totalBatches = (photoIds.size() + BATCH_WRITE_SIZE - 1) / BATCH_WRITE_SIZE;
-
-            executeWithRetry(() -> {
-                WriteBatch.Builder<Photo> writeBatchBuilder = WriteBatch.builder(Photo.class)
-                        .mappedTableResource(photoTable);
-
-                for (String photoId : batch) {
-                    writeBatchBuilder.addDeleteItem(Key.builder().partitionValue(photoId).build());
-                }
-
-                BatchWriteItemEnhancedRequest batchRequest = BatchWriteItemEnhancedRequest.builder()
-                        .writeBatches(writeBatchBuilder.build())
-                        .build();
-
-                enhancedClient.batchWriteItem(batchRequest);
-                logger.debug("Batch deleted {} photos (batch {}/{})", batch.size(), batchNumber, totalBatches);
-                return null;
-            }, "batchDeletePhotos");
-        }
-
+        List<WriteRequest> deletes = photoIds.stream()
+                .map(photoId -> DynamoDbBatchWriter.delete(Map.of("PhotoID", AttributeValue.builder().s(photoId).build())))
+                .collect(Collectors.toList());
+        batchWriter.writeAll(tableName, deletes, "PhotoID");
         logger.info("Successfully batch deleted {} photos", photoIds.size());
     }
 
@@ -198,13 +315,14 @@ public class PhotoRepository {
                 queryBuilder.exclusiveStartKey(startKeyMap);
             }
 
-            var result = gsi.query(queryBuilder.build());
+            // Fetch only the first page of results
+            Page<Photo> page = rateLimiter.read(tableName, "listPhotosByProperty", () -> {
+                var pageIterator = gsi.query(queryBuilder.build()).iterator();
+                return pageIterator.hasNext() ? pageIterator.next() : null;
+            });
             List<Photo> photos = new ArrayList<>();
             
-            // Process the first page of results
-            var pageIterator = result.iterator();
-            if (pageIterator.hasNext()) {
-                var page = pageIterator.next();
+            if (page != null) {
                 page.items().forEach(photos::add);
                 
                 // Check if there are more items
@@ -235,47 +353,331 @@ public class PhotoRepository {
     }
 
     /**
-     * Batch create photos in DynamoDB
-     * Automatically chunks into batches of 25 (DynamoDB limit)
+     * Conditionally move one photo from 'pending' to 'uploaded' in a single round trip. On a failed
+     * condition the old item comes back with the error, which tells the outcomes apart without a
+     * prior read.
      */
-    public List<Photo> batchCreatePhotos(List<Photo> photos) {
-        if (photos.isEmpty()) {
-            return new ArrayList<>();
+    public ConfirmOutcome confirmUpload(String photoId, String propertyId, String s3Key) {
+        UpdateItemRequest request = buildConfirmRequest(photoId, propertyId, s3Key);
+        try {
+            rateLimiter.write(tableName, "confirmUpload", () -> dynamoDbClient.updateItem(request));
+            return ConfirmOutcome.CONFIRMED;
+        } catch (software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException e) {
+            return classifyConditionFailure(propertyId, e.hasItem() ? e.item() : null);
         }
+    }
 
-        logger.info("Batch creating {} photos", photos.size());
-        List<Photo> createdPhotos = new ArrayList<>();
+    /**
+     * Non-blocking variant of {@link #confirmUpload}. Throttling is left to the SDK retry policy.
+     */
+    public CompletableFuture<ConfirmOutcome> confirmUploadAsync(String photoId, String propertyId, String s3Key) {
+        return dynamoDbAsyncClient.updateItem(buildConfirmRequest(photoId, propertyId, s3Key))
+                .handle((response, error) -> {
+                    if (error == null) {
+                        return ConfirmOutcome.CONFIRMED;
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException) {
+                        var e = (software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException) cause;
+                        return classifyConditionFailure(propertyId, e.hasItem() ? e.item() : null);
+                    }
+                    throw new CompletionException(cause);
+                });
+    }
+
+    private UpdateItemRequest buildConfirmRequest(String photoId, String propertyId, String s3Key) {
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("PhotoID", AttributeValue.builder().s(photoId).build()))
+                .updateExpression("SET #status = :uploaded, S3Key = :s3Key, UploadedAt = :uploadedAt")
+                .conditionExpression("#status = :pending AND PropertyID = :propertyId")
+                .expressionAttributeNames(Map.of("#status", "Status"))
+                .expressionAttributeValues(Map.of(
+                        ":uploaded", AttributeValue.builder().s("uploaded").build(),
+                        ":pending", AttributeValue.builder().s("pending").build(),
+                        ":s3Key", AttributeValue.builder().s(s3Key).build(),
+                        ":uploadedAt", AttributeValue.builder().s(Instant.now().toString()).build(),
+                        ":propertyId", AttributeValue.builder().s(propertyId).build()))
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build();
+    }
 
-        // Split into chunks of 25
-        for (int i = 0; i < photos.size(); i += BATCH_WRITE_SIZE) {
-            int end = Math.min(i + BATCH_WRITE_SIZE, photos.size());
-            List<Photo> batch = photos.subList(i, end);
-            final int batchNumber = (i / BATCH_WRITE_SIZE) + 1;
-            final int totalBatches = (photos.size() + BATCH_WRITE_SIZE - 1) / BATCH_WRITE_SIZE;
+    /**
+     * Confirm many uploads with conditional PartiQL updates, 25 per BatchExecuteStatement call.
+     * Throttled or conflicting statements are retried with backoff; other per-statement errors
+     * are reported as FAILED for that photo only.
+     * @param confirmations PhotoID to its confirmation; a photo appears at most once
+     * @return PhotoID to outcome, for every requested photo
+     */
+    public Map<String, ConfirmOutcome> batchConfirmUploads(Map<String, PendingConfirmation> confirmations) {
+        Map<String, ConfirmOutcome> outcomes = new HashMap<>();
+        List<PendingConfirmation> all = new ArrayList<>(confirmations.values());
+        String uploadedAt = Instant.now().toString();
 
-            executeWithRetry(() -> {
-                WriteBatch.Builder<Photo> writeBatchBuilder = WriteBatch.builder(Photo.class)
-                        .mappedTableResource(photoTable);
+        for (int i = 0; i < all.size(); i += BATCH_STATEMENT_SIZE) {
+            List<PendingConfirmation> remaining = all.subList(i, Math.min(i + BATCH_STATEMENT_SIZE, all.size()));
 
-                for (Photo photo : batch) {
-                    writeBatchBuilder.addPutItem(photo);
+            for (int attempt = 0; !remaining.isEmpty(); attempt++) {
+                if (attempt > 0) {
+                    sleepBeforeRetry(STATEMENT_RETRY_DELAY_MS * (1L << (attempt - 1)));
                 }
 
-                BatchWriteItemEnhancedRequest batchRequest = BatchWriteItemEnhancedRequest.builder()
-                        .writeBatches(writeBatchBuilder.build())
-                        .build();
+                List<BatchStatementRequest> statements = new ArrayList<>();
+                for (PendingConfirmation confirmation : remaining) {
+                    statements.add(BatchStatementRequest.builder()
+                            .statement(confirmStatement)
+                            .parameters(
+                                    AttributeValue.builder().s(confirmation.getS3Key()).build(),
+                                    AttributeValue.builder().s(uploadedAt).build(),
+                                    AttributeValue.builder().s(confirmation.getPhotoId()).build(),
+                                    AttributeValue.builder().s(confirmation.getPropertyId()).build())
+                            .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                            .build());
+                }
 
-                enhancedClient.batchWriteItem(batchRequest);
-                logger.debug("Batch wrote {} photos (batch {}/{})", 
-                    batch.size(), batchNumber, totalBatches);
-                return null;
-            }, "batchCreatePhotos");
+                BatchExecuteStatementResponse response = rateLimiter.execute(tableName, DynamoDbRateLimiter.Operation.WRITE,
+                        "batchConfirmUploads", statements.size(),
+                        () -> dynamoDbClient.batchExecuteStatement(BatchExecuteStatementRequest.builder().statements(statements).build()));
+
+                reportThrottledStatements(response);
+
+                // Responses are returned in statement order
+                List<PendingConfirmation> retry = new ArrayList<>();
+                List<BatchStatementResponse> responses = response.responses();
+                for (int j = 0; j < remaining.size(); j++) {
+                    PendingConfirmation confirmation = remaining.get(j);
+                    BatchStatementError error = responses.get(j).error();
+                    if (error == null) {
+                        outcomes.put(confirmation.getPhotoId(), ConfirmOutcome.CONFIRMED);
+                    } else if (error.code() == BatchStatementErrorCodeEnum.CONDITIONAL_CHECK_FAILED) {
+                        outcomes.put(confirmation.getPhotoId(),
+                                classifyConditionFailure(confirmation.getPropertyId(), error.hasItem() ? error.item() : null));
+                    } else if (RETRYABLE_STATEMENT_ERRORS.contains(error.code()) && attempt + 1 < MAX_STATEMENT_ATTEMPTS) {
+                        retry.add(confirmation);
+                    } else {
+                        logger.warn("Failed to confirm photo {}: {} {}", confirmation.getPhotoId(), error.codeAsString(), error.message());
+                        outcomes.put(confirmation.getPhotoId(), ConfirmOutcome.FAILED);
+                    }
+                }
+                remaining = retry;
+            }
+        }
+
+        logger.debug("Batch confirmed {} photos in {} statement batches", all.size(),
+                (all.size() + BATCH_STATEMENT_SIZE - 1) / BATCH_STATEMENT_SIZE);
+        return outcomes;
+    }
+
+    /**
+     * Write back metadata recovered from S3, 25 PartiQL updates per BatchExecuteStatement call.
+     * Each statement only fills attributes that are still missing, so a concurrent writer always wins.
+     * @return number of photos updated
+     */
+    public int batchUpdateMetadata(List<MetadataUpdate> updates) {
+        int updated = 0;
+        for (int i = 0; i < updates.size(); i += BATCH_STATEMENT_SIZE) {
+            List<MetadataUpdate> remaining = updates.subList(i, Math.min(i + BATCH_STATEMENT_SIZE, updates.size()));
+
+            for (int attempt = 0; !remaining.isEmpty(); attempt++) {
+                if (attempt > 0) {
+                    sleepBeforeRetry(STATEMENT_RETRY_DELAY_MS * (1L << (attempt - 1)));
+                }
+
+                List<BatchStatementRequest> statements = remaining.stream()
+                        .map(this::buildMetadataStatement)
+                        .collect(Collectors.toList());
+                BatchExecuteStatementResponse response = rateLimiter.execute(tableName, DynamoDbRateLimiter.Operation.WRITE,
+                        "batchUpdateMetadata", statements.size(),
+                        () -> dynamoDbClient.batchExecuteStatement(BatchExecuteStatementRequest.builder().statements(statements).build()));
+
+                reportThrottledStatements(response);
+
+                // Responses are returned in statement order
+                List<MetadataUpdate> retry = new ArrayList<>();
+                List<BatchStatementResponse> responses = response.responses();
+                for (int j = 0; j < remaining.size(); j++) {
+                    BatchStatementError error = responses.get(j).error();
+                    if (error == null) {
+                        updated++;
+                    } else if (RETRYABLE_STATEMENT_ERRORS.contains(error.code()) && attempt + 1 < MAX_STATEMENT_ATTEMPTS) {
+                        retry.add(remaining.get(j));
+                    } else if (error.code() != BatchStatementErrorCodeEnum.CONDITIONAL_CHECK_FAILED) {
+                        logger.warn("Failed to backfill metadata for photo {}: {} {}",
+                                remaining.get(j).getPhotoId(), error.codeAsString(), error.message());
+                    }
+                }
+                remaining = retry;
+            }
+        }
+        return updated;
+    }
+
+    private BatchStatementRequest buildMetadataStatement(MetadataUpdate update) {
+        StringBuilder set = new StringBuilder();
+        StringBuilder where = new StringBuilder(" WHERE \"PhotoID\" = ?");
+        List<AttributeValue> parameters = new ArrayList<>();
+        if (update.getFileSize() != null) {
+            set.append(" SET \"fileSize\" = ?");
+            where.append(" AND \"fileSize\" IS MISSING");
+            parameters.add(AttributeValue.builder().n(update.getFileSize().toString()).build());
+        }
+        if (update.getContentType() != null) {
+            set.append(" SET \"contentType\" = ?");
+            where.append(" AND \"contentType\" IS MISSING");
+            parameters.add(AttributeValue.builder().s(update.getContentType()).build());
+        }
+        if (update.getStatus() != null) {
+            set.append(" SET \"Status\" = ?");
+            where.append(" AND \"Status\" IS MISSING");
+            parameters.add(AttributeValue.builder().s(update.getStatus()).build());
+        }
+        parameters.add(AttributeValue.builder().s(update.getPhotoId()).build());
+
+        return BatchStatementRequest.builder()
+                .statement("UPDATE \"" + tableName + "\"" + set + where)
+                .parameters(parameters)
+                .build();
+    }
+
+    /**
+     * Scan for photos missing fileSize, contentType or Status (legacy uploads), one page of IDs at a time.
+     * @return number of photo IDs found
+     */
+    public int scanPhotoIdsMissingMetadata(Consumer<List<String>> pageConsumer) {
+        int found = 0;
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanRequest.Builder scanBuilder = ScanRequest.builder()
+                    .tableName(tableName)
+                    .projectionExpression("PhotoID")
+                    .filterExpression("attribute_not_exists(fileSize) OR attribute_not_exists(contentType) "
+                            + "OR attribute_not_exists(#status)")
+                    .expressionAttributeNames(Map.of("#status", "Status"));
+            if (startKey != null) {
+                scanBuilder.exclusiveStartKey(startKey);
+            }
+            ScanResponse response = rateLimiter.read(tableName, "scanPhotoIdsMissingMetadata", () -> dynamoDbClient.scan(scanBuilder.build()));
+
+            List<String> photoIds = response.items().stream()
+                    .map(item -> item.get("PhotoID").s())
+                    .collect(Collectors.toList());
+            if (!photoIds.isEmpty()) {
+                pageConsumer.accept(photoIds);
+                found += photoIds.size();
+            }
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey() : null;
+        } while (startKey != null);
+        return found;
+    }
+
+    private ConfirmOutcome classifyConditionFailure(String propertyId, Map<String, AttributeValue> oldItem) {
+        if (oldItem == null || oldItem.isEmpty()) {
+            return ConfirmOutcome.NOT_FOUND;
+        }
+        AttributeValue oldProperty = oldItem.get("PropertyID");
+        if (oldProperty == null || !propertyId.equals(oldProperty.s())) {
+            return ConfirmOutcome.PROPERTY_MISMATCH;
+        }
+        AttributeValue oldStatus = oldItem.get("Status");
+        if (oldStatus != null && "uploaded".equals(oldStatus.s())) {
+            return ConfirmOutcome.ALREADY_UPLOADED;
+        }
+        return ConfirmOutcome.NOT_PENDING;
+    }
 
-            createdPhotos.addAll(batch);
+    /**
+     * A call can succeed while some of its statements are throttled; those count as throttling too.
+     */
+    private void reportThrottledStatements(BatchExecuteStatementResponse response) {
+        boolean throttled = response.responses().stream()
+                .anyMatch(r -> r.error() != null && THROTTLED_STATEMENT_ERRORS.contains(r.error().code()));
+        if (throttled) {
+            rateLimiter.onThrottle(tableName, DynamoDbRateLimiter.Operation.WRITE);
+        }
+    }
+
+    private static void sleepBeforeRetry(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Retry interrupted", e);
+        }
+    }
+
+    /**
+     * Count the photos of a property that contribute to PhotoCount: status 'uploaded', or null for
+     * legacy uploads that predate the status attribute.
+     */
+    public int countUploadedPhotos(String propertyId) {
+        int count = 0;
+        Map<String, String> lastKey = null;
+        do {
+            PagedResponse<Photo> page = listPhotosByProperty(propertyId, 100, lastKey);
+            count += (int) page.getItems().stream()
+                    .filter(photo -> photo.getStatus() == null || "uploaded".equals(photo.getStatus()))
+                    .count();
+            lastKey = page.getLastEvaluatedKey();
+        } while (lastKey != null && !lastKey.isEmpty());
+        return count;
+    }
+
+    /**
+     * Non-blocking variant of {@link #listPhotosByProperty}: one GSI query page, same cursor format.
+     */
+    public CompletableFuture<PagedResponse<Photo>> listPhotosByPropertyAsync(String propertyId, Integer limit,
+                                                                            Map<String, String> exclusiveStartKey) {
+        int pageSize = limit != null ? Math.min(Math.max(limit, 1), 100) : 50;
+
+        QueryRequest.Builder queryBuilder = QueryRequest.builder()
+                .tableName(tableName)
+                .indexName("PropertyID-index")
+                .keyConditionExpression("PropertyID = :propertyId")
+                .expressionAttributeValues(Map.of(":propertyId", AttributeValue.builder().s(propertyId).build()))
+                .limit(pageSize);
+
+        if (exclusiveStartKey != null && !exclusiveStartKey.isEmpty() && exclusiveStartKey.containsKey("PhotoID")) {
+            queryBuilder.exclusiveStartKey(Map.of(
+                    "PropertyID", AttributeValue.builder().s(propertyId).build(),
+                    "PhotoID", AttributeValue.builder().s(exclusiveStartKey.get("PhotoID")).build()));
+        }
+
+        return dynamoDbAsyncClient.query(queryBuilder.build()).thenApply(response -> {
+            List<Photo> photos = response.items().stream()
+                    .map(item -> photoTable.tableSchema().mapToItem(item))
+                    .collect(Collectors.toList());
+
+            boolean hasMore = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty();
+            Map<String, String> lastKey = null;
+            if (hasMore) {
+                lastKey = new HashMap<>();
+                AttributeValue photoIdAttr = response.lastEvaluatedKey().get("PhotoID");
+                if (photoIdAttr != null && photoIdAttr.s() != null) {
+                    lastKey.put("PhotoID", photoIdAttr.s());
+                }
+            }
+            return new PagedResponse<>(photos, lastKey, hasMore);
+        });
+    }
+
+    /**
+     * Batch create photos in DynamoDB, with chunks of 25 (DynamoDB limit) sent in parallel.
+     * @throws BatchWriteException with the IDs of the photos that could not be written
+     */
+    public List<Photo> batchCreatePhotos(List<Photo> photos) {
+        if (photos.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        logger.info("Successfully batch created {} photos", createdPhotos.size());
-        return createdPhotos;
+        logger.info("Batch creating {} photos", photos.size());
+        List<WriteRequest> puts = photos.stream()
+                .map(photo -> DynamoDbBatchWriter.put(photoTable.tableSchema().itemToMap(photo, true)))
+                .collect(Collectors.toList());
+        batchWriter.writeAll(tableName, puts, "PhotoID");
+
+        logger.info("Successfully batch created {} photos", photos.size());
+        return new ArrayList<>(photos);
     }
 
     /**
@@ -307,10 +709,12 @@ public class PhotoRepository {
 
             requestBuilder.addReadBatch(readBatchBuilder.build());
 
-            var batchGetResult = enhancedClient.batchGetItem(requestBuilder.build());
-
-            batchGetResult.resultsForTable(photoTable).forEach(photo -> 
-                photos.put(photo.getPhotoId(), photo));
+            // Iterating the results follows unprocessed keys, so the whole batch runs under one acquisition
+            rateLimiter.execute(tableName, DynamoDbRateLimiter.Operation.READ, "batchGetPhotos", batch.size(), () -> {
+                enhancedClient.batchGetItem(requestBuilder.build()).resultsForTable(photoTable)
+                        .forEach(photo -> photos.put(photo.getPhotoId(), photo));
+                return null;
+            });
         }
 
         return photos;
@@ -321,40 +725,99 @@ public class PhotoRepository {
      */
     public List<Photo> getAllPhotosByProperty(String propertyId) {
         List<Photo> allPhotos = new ArrayList<>();
-        Map<String, String> lastKey = null;
-
-        do {
-            PagedResponse<Photo> page = listPhotosByProperty(propertyId, 100, lastKey);
-            allPhotos.addAll(page.getItems());
-            lastKey = page.getLastEvaluatedKey();
-        } while (lastKey != null && !lastKey.isEmpty());
-
+        iteratePhotosByProperty(propertyId).forEach(allPhotos::add);
         return allPhotos;
     }
 
-    private <T> T executeWithRetry(java.util.function.Supplier<T> operation, String operationName) {
-        int attempt = 0;
-        while (attempt < MAX_RETRIES) {
-            try {
-                return operation.get();
-            } catch (ProvisionedThroughputExceededException e) {
-                attempt++;
-                if (attempt >= MAX_RETRIES) {
-                    logger.error("Max retries exceeded for {} after {} attempts", operationName, MAX_RETRIES);
-                    throw e;
+    /**
+     * All photos of a property, read one page of 100 at a time as the iteration advances, so
+     * only the current page is held in memory. Each call to iterator() starts a new query.
+     */
+    public Iterable<Photo> iteratePhotosByProperty(String propertyId) {
+        return () -> new Iterator<>() {
+            private Iterator<Photo> page = Collections.emptyIterator();
+            private Map<String, String> lastKey;
+            private boolean lastPage;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && !lastPage) {
+                    PagedResponse<Photo> next = listPhotosByProperty(propertyId, 100, lastKey);
+                    page = next.getItems().iterator();
+                    lastKey = next.getLastEvaluatedKey();
+                    lastPage = lastKey == null || lastKey.isEmpty();
                 }
-                long delay = BASE_DELAY_MS * (long) Math.pow(2, attempt - 1);
-                logger.warn("Throughput exceeded for {}, retrying in {}ms (attempt {}/{})", 
-                        operationName, delay, attempt, MAX_RETRIES);
-                try {
-                    Thread.sleep(delay);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Retry interrupted", ie);
+                return page.hasNext();
+            }
+
+            @Override
+            public Photo next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
                 }
+                return page.next();
             }
+        };
+    }
+
+    public static class PendingConfirmation {
+        private final String photoId;
+        private final String propertyId;
+        private final String s3Key;
+
+        public PendingConfirmation(String photoId, String propertyId, String s3Key) {
+            this.photoId = photoId;
+            this.propertyId = propertyId;
+            this.s3Key = s3Key;
+        }
+
+        public String getPhotoId() {
+            return photoId;
+        }
+
+        public String getPropertyId() {
+            return propertyId;
+        }
+
+        public String getS3Key() {
+            return s3Key;
         }
-        throw new RuntimeException("Operation failed after retries: " + operationName);
     }
-}
 
+    /**
+     * Metadata recovered from S3 for one photo; null fields are left untouched.
+     */
+    public static class MetadataUpdate {
+        private final String photoId;
+        private final Long fileSize;
+        private final String contentType;
+        private final String status;
+
+        public MetadataUpdate(String photoId, Long fileSize, String contentType, String status) {
+            this.photoId = photoId;
+            this.fileSize = fileSize;
+            this.contentType = contentType;
+            this.status = status;
+        }
+
+        public String getPhotoId() {
+            return photoId;
+        }
+
+        public Long getFileSize() {
+            return fileSize;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public boolean isEmpty() {
+            return fileSize == null && contentType == null && status == null;
+        }
+    }
+}
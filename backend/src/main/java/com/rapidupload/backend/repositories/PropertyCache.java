@@ -0,0 +1,167 @@
+package com.rapidupload.backend.repositories;
+
+import com.rapidupload.backend.models.Property;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of properties with a TTL, in front of PropertyRepository.getProperty, plus a
+ * per-request memo so one HTTP request never reads the same property twice. Entries are copied in
+ * and out because callers mutate the Property they get back. Writes through PropertyRepository
+ * invalidate locally; the TTL bounds staleness from other instances.
+ */
+@Component
+public class PropertyCache {
+
+    private static final String MEMO_ATTRIBUTE = PropertyCache.class.getName() + ".memo";
+    private static final int VERSION_STRIPES = 64;
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    // Invalidation counters striped by PropertyID, so a load racing an invalidation isn't cached
+    private final AtomicLongArray invalidations = new AtomicLongArray(VERSION_STRIPES);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public PropertyCache(MeterRegistry meterRegistry,
+                         @Value("${property-cache.max-size:10000}") int maxSize,
+                         @Value("${property-cache.ttl-seconds:15}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > PropertyCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.hits = Counter.builder("cache.gets").tag("cache", "properties").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "properties").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "properties").register(meterRegistry);
+        Gauge.builder("cache.size", this, PropertyCache::size).tag("cache", "properties").register(meterRegistry);
+    }
+
+    /**
+     * Return the cached property, or load it with {@code loader} and cache it.
+     */
+    public Property get(String propertyId, Function<String, Property> loader) {
+        Map<String, Property> memo = requestMemo();
+        if (memo != null && memo.containsKey(propertyId)) {
+            hits.increment();
+            return new Property(memo.get(propertyId));
+        }
+
+        Property cached = getIfPresent(propertyId);
+        if (cached != null) {
+            remember(memo, cached);
+            return cached;
+        }
+
+        long version = version(propertyId);
+        Property loaded = loader.apply(propertyId);
+        put(loaded, version);
+        remember(memo, loaded);
+        return loaded;
+    }
+
+    /**
+     * Cached copy of the property, or null on a miss. Counts towards hit/miss metrics.
+     */
+    public Property getIfPresent(String propertyId) {
+        synchronized (entries) {
+            Entry entry = entries.get(propertyId);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.increment();
+                return new Property(entry.property);
+            }
+            if (entry != null) {
+                entries.remove(propertyId);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache a freshly loaded property, unless it was invalidated since {@code version} was read.
+     */
+    public void put(Property property, long version) {
+        synchronized (entries) {
+            if (version(property.getPropertyId()) != version) {
+                return;
+            }
+            entries.put(property.getPropertyId(), new Entry(new Property(property), System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    /**
+     * Current invalidation version of a property, to pass to {@link #put} after a load.
+     */
+    public long version(String propertyId) {
+        return invalidations.get(Math.floorMod(propertyId.hashCode(), VERSION_STRIPES));
+    }
+
+    public void invalidate(String propertyId) {
+        synchronized (entries) {
+            invalidations.incrementAndGet(Math.floorMod(propertyId.hashCode(), VERSION_STRIPES));
+            entries.remove(propertyId);
+        }
+        Map<String, Property> memo = requestMemo();
+        if (memo != null) {
+            memo.remove(propertyId);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static void remember(Map<String, Property> memo, Property property) {
+        if (memo != null) {
+            memo.put(property.getPropertyId(), new Property(property));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Property> requestMemo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, Property> memo = (Map<String, Property>) attributes.getAttribute(MEMO_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<>();
+            attributes.setAttribute(MEMO_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return memo;
+    }
+
+    private static class Entry {
+        private final Property property;
+        private final long expiresAt;
+
+        private Entry(Property property, long expiresAt) {
+            this.property = property;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,19 +1,38 @@
 package com.rapidupload.backend.repositories;
 
 import com.rapidupload.backend.exceptions.PropertyNotFoundException;
+import com.rapidupload.backend.models.PhotoCountState;
 import com.rapidupload.backend.models.Property;
+import com.rapidupload.backend.models.PropertyPurge;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
-import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.enhanced.dynamodb.model.UpdateItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
 import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
 
@@ -22,16 +41,35 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Repository
 public class PropertyRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(PropertyRepository.class);
-    private static final int MAX_RETRIES = 3;
-    private static final long BASE_DELAY_MS = 1000;
+
+    /**
+     * GSI ordering every property by CreatedAt under one constant partition, so listings are a
+     * Query in creation order instead of a scan plus sort. Property volume is far below the
+     * throughput limit of a single index partition.
+     */
+    public static final String CREATED_AT_INDEX = "ListPartition-CreatedAt-index";
+    public static final String LIST_PARTITION_ATTRIBUTE = "ListPartition";
+    public static final String LIST_PARTITION = "PROPERTY";
+    public static final String DELETED_AT_ATTRIBUTE = "DeletedAt";
+    /**
+     * Sparse GSI holding only tombstones, under one constant partition ordered by DeletedAt, so the
+     * purge sweep is a Query over the properties awaiting purge rather than a scan of the table.
+     * The partition attribute is set by markDeleted and goes away with the tombstone.
+     */
+    public static final String DELETED_AT_INDEX = "DeletedPartition-DeletedAt-index";
+    public static final String DELETED_PARTITION_ATTRIBUTE = "DeletedPartition";
+    public static final String DELETED_PARTITION = "DELETED";
 
     // Custom TableSchema to map propertyId to PropertyID
     private static final TableSchema<Property> PROPERTY_TABLE_SCHEMA =
@@ -46,17 +84,61 @@ public class PropertyRepository {
                             .setter(Property::setName))
                     .addAttribute(String.class, a -> a.name("CreatedAt")
                             .getter(Property::getCreatedAt)
-                            .setter(Property::setCreatedAt))
+                            .setter(Property::setCreatedAt)
+                            .tags(StaticAttributeTags.secondarySortKey(CREATED_AT_INDEX)))
+                    // Written on every put/update so each live property lands in the CreatedAt index;
+                    // tombstones drop out of the (sparse) index and with it out of listings
+                    .addAttribute(String.class, a -> a.name(LIST_PARTITION_ATTRIBUTE)
+                            .getter(p -> p.getDeletedAt() == null ? LIST_PARTITION : null)
+                            .setter((p, v) -> { })
+                            .tags(StaticAttributeTags.secondaryPartitionKey(CREATED_AT_INDEX)))
                     .addAttribute(Integer.class, a -> a.name("PhotoCount")
                             .getter(Property::getPhotoCount)
                             .setter(Property::setPhotoCount))
+                    .addAttribute(String.class, a -> a.name(DELETED_AT_ATTRIBUTE)
+                            .getter(Property::getDeletedAt)
+                            .setter(Property::setDeletedAt))
                     .build();
 
+    // Only live properties may be written through the mapped schema
+    private static final Expression NOT_DELETED = Expression.builder()
+            .expression("attribute_not_exists(" + DELETED_AT_ATTRIBUTE + ")")
+            .build();
+
+    // String set of write-behind count holders ("{instanceId}@{epochMillis}"), see PhotoCountAccumulator
+    private static final String COUNT_HOLDERS_ATTRIBUTE = "CountPendingHolders";
+    // Bumped with every holder added, so a recount notices windows that opened and closed meanwhile
+    private static final String COUNT_VERSION_ATTRIBUTE = "CountVersion";
+
+    // Purge checkpoint on a tombstone, see PropertyPurgeService
+    private static final String PURGE_OWNER_ATTRIBUTE = "PurgeOwner";
+    private static final String PURGE_LEASE_ATTRIBUTE = "PurgeLeaseUntil";
+    private static final String PURGE_PHASE_ATTRIBUTE = "PurgePhase";
+    private static final String PURGE_CURSOR_ATTRIBUTE = "PurgeCursor";
+    private static final String PURGED_PHOTOS_ATTRIBUTE = "PurgedPhotos";
+    private static final String PURGED_ANALYSES_ATTRIBUTE = "PurgedAnalyses";
+
     private final DynamoDbTable<Property> propertyTable;
+    private final DynamoDbIndex<Property> createdAtIndex;
+    private final DynamoDbAsyncTable<Property> asyncPropertyTable;
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbRateLimiter rateLimiter;
+    private final PropertyCache propertyCache;
+    private final String tableName;
 
     public PropertyRepository(DynamoDbEnhancedClient enhancedClient,
+                              DynamoDbClient dynamoDbClient,
+                              DynamoDbEnhancedAsyncClient enhancedAsyncClient,
+                              PropertyCache propertyCache,
+                              DynamoDbRateLimiter rateLimiter,
                               @Value("${aws.dynamodb.tables.properties}") String tableName) {
         this.propertyTable = enhancedClient.table(tableName, PROPERTY_TABLE_SCHEMA);
+        this.createdAtIndex = propertyTable.index(CREATED_AT_INDEX);
+        this.asyncPropertyTable = enhancedAsyncClient.table(tableName, PROPERTY_TABLE_SCHEMA);
+        this.dynamoDbClient = dynamoDbClient;
+        this.propertyCache = propertyCache;
+        this.rateLimiter = rateLimiter;
+        this.tableName = tableName;
     }
 
     public Property createProperty(String name) {
@@ -66,20 +148,33 @@ public class PropertyRepository {
         property.setCreatedAt(Instant.now());
         property.setPhotoCount(0);
 
-        return executeWithRetry(() -> {
+        return rateLimiter.write(tableName, "createProperty", () -> {
             propertyTable.putItem(property);
             logger.info("Created property: {}", property.getPropertyId());
             return property;
-        }, "createProperty");
+        });
     }
 
+    /**
+     * Get a property through the read-through cache (at most one read per request, TTL-bounded
+     * staleness across instances). Use {@link #getPropertyUncached} for read-modify-write paths.
+     * @throws PropertyNotFoundException if the property doesn't exist
+     */
     public Property getProperty(String propertyId) {
+        return propertyCache.get(propertyId, this::getPropertyUncached);
+    }
+
+    /**
+     * Get a property straight from DynamoDB, bypassing the cache.
+     * @throws PropertyNotFoundException if the property doesn't exist or is deleted
+     */
+    public Property getPropertyUncached(String propertyId) {
         try {
             Key key = Key.builder()
                     .partitionValue(propertyId)
                     .build();
-            Property property = propertyTable.getItem(key);
-            if (property == null) {
+            Property property = rateLimiter.read(tableName, "getProperty", () -> propertyTable.getItem(key));
+            if (property == null || property.getDeletedAt() != null) {
                 throw new PropertyNotFoundException(propertyId);
             }
             logger.debug("Retrieved property: {}", propertyId);
@@ -100,98 +195,268 @@ public class PropertyRepository {
     }
 
     /**
-     * List all properties (unpaginated). Use for small datasets or when pagination is not needed.
-     * For large datasets, consider using listPropertiesPaged instead.
+     * Non-blocking variant of {@link #getProperty}; completes exceptionally with
+     * PropertyNotFoundException if the property doesn't exist.
+     */
+    public CompletableFuture<Property> getPropertyAsync(String propertyId) {
+        Property cached = propertyCache.getIfPresent(propertyId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        long version = propertyCache.version(propertyId);
+        return asyncPropertyTable.getItem(Key.builder().partitionValue(propertyId).build())
+                .thenApply(property -> {
+                    if (property == null || property.getDeletedAt() != null) {
+                        throw new PropertyNotFoundException(propertyId);
+                    }
+                    propertyCache.put(property, version);
+                    return property;
+                });
+    }
+
+    /**
+     * List all properties, most recent first, by walking the CreatedAt index.
+     * For large datasets use listPropertiesPaged instead.
      */
     public List<Property> listProperties() {
-        return executeWithRetry(() -> {
-            ScanEnhancedRequest scanRequest = ScanEnhancedRequest.builder().build();
-            List<Property> properties = propertyTable.scan(scanRequest)
-                    .items()
-                    .stream()
-                    .collect(Collectors.toList());
-
-            // Sort by CreatedAt DESC (most recent first)
-            List<Property> sorted = properties.stream()
-                    .sorted(Comparator.comparing(Property::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
-                    .collect(Collectors.toList());
-            logger.debug("Listed {} properties", sorted.size());
-            return sorted;
-        }, "listProperties");
+        try {
+            return rateLimiter.read(tableName, "listProperties", () -> {
+                List<Property> properties = createdAtIndex.query(QueryEnhancedRequest.builder()
+                                .queryConditional(listPartitionConditional())
+                                .scanIndexForward(false)
+                                .build())
+                        .stream()
+                        .flatMap(page -> page.items().stream())
+                        .collect(Collectors.toList());
+                logger.debug("Listed {} properties", properties.size());
+                return properties;
+            });
+        } catch (DynamoDbException e) {
+            if (!isIndexUnavailable(e)) {
+                throw e;
+            }
+            logger.warn("CreatedAt index not available yet, falling back to scan: {}", e.getMessage());
+            return scanProperties();
+        }
     }
 
     /**
-     * List properties with pagination support.
-     * Note: DynamoDB scans don't support sorting, so results are sorted in-memory.
-     * For truly paginated sorted results at scale, consider using a GSI with sort key.
+     * List properties with pagination support, most recent first. Each page is one Query on the
+     * CreatedAt index, so ordering is global and cost is proportional to the page size.
      * 
      * @param limit Maximum number of items to return (1-100, default 50)
-     * @param exclusiveStartKey The last evaluated key from previous page
+     * @param exclusiveStartKey The last evaluated key from previous page (PropertyID, ListPartition, CreatedAt)
      * @return Paged response with properties and pagination token
      */
     public com.rapidupload.backend.models.PagedResponse<Property> listPropertiesPaged(
             Integer limit, 
             Map<String, String> exclusiveStartKey) {
-        try {
-            // Default page size is 50, maximum is 100
-            int pageSize = limit != null ? Math.min(Math.max(limit, 1), 100) : 50;
+        // Default page size is 50, maximum is 100
+        int pageSize = limit != null ? Math.min(Math.max(limit, 1), 100) : 50;
 
-            ScanEnhancedRequest.Builder scanBuilder = ScanEnhancedRequest.builder()
-                    .limit(pageSize);
+        QueryEnhancedRequest.Builder queryBuilder = QueryEnhancedRequest.builder()
+                .queryConditional(listPartitionConditional())
+                .scanIndexForward(false)
+                .limit(pageSize);
 
-            // Handle pagination cursor
-            if (exclusiveStartKey != null && !exclusiveStartKey.isEmpty() && exclusiveStartKey.containsKey("PropertyID")) {
-                Map<String, software.amazon.awssdk.services.dynamodb.model.AttributeValue> startKeyMap = new HashMap<>();
-                startKeyMap.put("PropertyID", software.amazon.awssdk.services.dynamodb.model.AttributeValue.builder()
-                        .s(exclusiveStartKey.get("PropertyID"))
-                        .build());
-                scanBuilder.exclusiveStartKey(startKeyMap);
-            }
+        // Handle pagination cursor; cursors from the old scan listing (PropertyID only) restart from the top
+        if (exclusiveStartKey != null && exclusiveStartKey.containsKey("PropertyID")
+                && exclusiveStartKey.containsKey("CreatedAt")) {
+            Map<String, AttributeValue> startKeyMap = new HashMap<>();
+            startKeyMap.put("PropertyID", AttributeValue.builder().s(exclusiveStartKey.get("PropertyID")).build());
+            startKeyMap.put("CreatedAt", AttributeValue.builder().s(exclusiveStartKey.get("CreatedAt")).build());
+            startKeyMap.put(LIST_PARTITION_ATTRIBUTE, AttributeValue.builder().s(LIST_PARTITION).build());
+            queryBuilder.exclusiveStartKey(startKeyMap);
+        }
 
-            var result = propertyTable.scan(scanBuilder.build());
-            List<Property> properties = new ArrayList<>();
-
-            // Process the first page of results
-            var pageIterator = result.iterator();
-            if (pageIterator.hasNext()) {
-                var page = pageIterator.next();
-                page.items().forEach(properties::add);
-
-                // Sort by CreatedAt DESC (most recent first)
-                properties.sort(Comparator.comparing(Property::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
-
-                // Check if there are more items
-                boolean hasMore = page.lastEvaluatedKey() != null && !page.lastEvaluatedKey().isEmpty();
-                Map<String, String> lastKey = null;
-                if (hasMore && page.lastEvaluatedKey() != null) {
-                    lastKey = new HashMap<>();
-                    software.amazon.awssdk.services.dynamodb.model.AttributeValue propertyIdAttr = page.lastEvaluatedKey().get("PropertyID");
-                    if (propertyIdAttr != null && propertyIdAttr.s() != null) {
-                        lastKey.put("PropertyID", propertyIdAttr.s());
+        try {
+            Page<Property> page = rateLimiter.read(tableName, "listPropertiesPaged",
+                    () -> createdAtIndex.query(queryBuilder.build()).iterator().next());
+
+            boolean hasMore = page.lastEvaluatedKey() != null && !page.lastEvaluatedKey().isEmpty();
+            Map<String, String> lastKey = null;
+            if (hasMore) {
+                lastKey = new HashMap<>();
+                for (String attribute : List.of("PropertyID", "CreatedAt")) {
+                    AttributeValue value = page.lastEvaluatedKey().get(attribute);
+                    if (value != null && value.s() != null) {
+                        lastKey.put(attribute, value.s());
                     }
                 }
-
-                logger.debug("Listed {} properties (paged)", properties.size());
-                return new com.rapidupload.backend.models.PagedResponse<>(properties, lastKey, hasMore);
             }
 
-            return new com.rapidupload.backend.models.PagedResponse<>(properties, null, false);
+            logger.debug("Listed {} properties (paged)", page.items().size());
+            return new com.rapidupload.backend.models.PagedResponse<>(page.items(), lastKey, hasMore);
         } catch (DynamoDbException e) {
+            if (isIndexUnavailable(e)) {
+                logger.warn("CreatedAt index not available yet, falling back to scan: {}", e.getMessage());
+                return scanPropertiesPaged(pageSize, exclusiveStartKey);
+            }
             logger.error("DynamoDB error listing properties: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to list properties", e);
         }
     }
 
+    private static QueryConditional listPartitionConditional() {
+        return QueryConditional.keyEqualTo(Key.builder().partitionValue(LIST_PARTITION).build());
+    }
+
+    /**
+     * True when the CreatedAt index doesn't exist or is still being built on an existing table.
+     */
+    private static boolean isIndexUnavailable(DynamoDbException e) {
+        return e.awsErrorDetails() != null
+                && "ValidationException".equals(e.awsErrorDetails().errorCode())
+                && e.getMessage() != null
+                && e.getMessage().contains("index");
+    }
+
+    /**
+     * Scan-based listing used until the CreatedAt index is active.
+     */
+    private List<Property> scanProperties() {
+        return rateLimiter.read(tableName, "scanProperties", () -> propertyTable.scan(ScanEnhancedRequest.builder().build())
+                .items()
+                .stream()
+                .filter(property -> property.getDeletedAt() == null)
+                .sorted(Comparator.comparing(Property::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                .collect(Collectors.toList()));
+    }
+
+    private com.rapidupload.backend.models.PagedResponse<Property> scanPropertiesPaged(
+            int pageSize, Map<String, String> exclusiveStartKey) {
+        ScanEnhancedRequest.Builder scanBuilder = ScanEnhancedRequest.builder().limit(pageSize);
+        if (exclusiveStartKey != null && exclusiveStartKey.containsKey("PropertyID")) {
+            scanBuilder.exclusiveStartKey(Map.of("PropertyID",
+                    AttributeValue.builder().s(exclusiveStartKey.get("PropertyID")).build()));
+        }
+
+        Page<Property> page = rateLimiter.read(tableName, "scanPropertiesPaged",
+                () -> propertyTable.scan(scanBuilder.build()).iterator().next());
+        List<Property> properties = page.items().stream()
+                .filter(property -> property.getDeletedAt() == null)
+                .collect(Collectors.toList());
+        properties.sort(Comparator.comparing(Property::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder())));
+
+        boolean hasMore = page.lastEvaluatedKey() != null && !page.lastEvaluatedKey().isEmpty();
+        Map<String, String> lastKey = null;
+        if (hasMore && page.lastEvaluatedKey().get("PropertyID") != null) {
+            lastKey = Map.of("PropertyID", page.lastEvaluatedKey().get("PropertyID").s());
+        }
+        return new com.rapidupload.backend.models.PagedResponse<>(properties, lastKey, hasMore);
+    }
+
+    /**
+     * Put rows written before the CreatedAt index existed into it: sets ListPartition (and an epoch
+     * CreatedAt where it was missing, so legacy rows sort last). Scans in pages with a filter and
+     * updates conditionally, so it is safe to run while the API is serving traffic and to re-run.
+     * @return number of properties backfilled
+     */
+    public int backfillCreatedAtIndex() {
+        int backfilled = 0;
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanRequest.Builder scanBuilder = ScanRequest.builder()
+                    .tableName(tableName)
+                    .projectionExpression("PropertyID")
+                    .filterExpression("attribute_not_exists(#partition) AND attribute_not_exists(#deleted)")
+                    .expressionAttributeNames(Map.of("#partition", LIST_PARTITION_ATTRIBUTE, "#deleted", DELETED_AT_ATTRIBUTE))
+                    .limit(100);
+            if (startKey != null) {
+                scanBuilder.exclusiveStartKey(startKey);
+            }
+            ScanResponse response = rateLimiter.read(tableName, "backfillCreatedAtIndex", () -> dynamoDbClient.scan(scanBuilder.build()));
+
+            for (Map<String, AttributeValue> item : response.items()) {
+                UpdateItemRequest request = UpdateItemRequest.builder()
+                        .tableName(tableName)
+                        .key(Map.of("PropertyID", item.get("PropertyID")))
+                        .updateExpression("SET #partition = :partition, CreatedAt = if_not_exists(CreatedAt, :epoch)")
+                        .conditionExpression("attribute_exists(PropertyID) AND attribute_not_exists(#deleted)")
+                        .expressionAttributeNames(Map.of("#partition", LIST_PARTITION_ATTRIBUTE, "#deleted", DELETED_AT_ATTRIBUTE))
+                        .expressionAttributeValues(Map.of(
+                                ":partition", AttributeValue.builder().s(LIST_PARTITION).build(),
+                                ":epoch", AttributeValue.builder().s(Instant.EPOCH.toString()).build()))
+                        .build();
+                try {
+                    rateLimiter.write(tableName, "backfillCreatedAtIndex", () -> dynamoDbClient.updateItem(request));
+                    propertyCache.invalidate(item.get("PropertyID").s());
+                    backfilled++;
+                } catch (ConditionalCheckFailedException e) {
+                    // Deleted or tombstoned since the scan
+                }
+            }
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey() : null;
+        } while (startKey != null);
+
+        logger.info("Backfilled {} properties into {}", backfilled, CREATED_AT_INDEX);
+        return backfilled;
+    }
+
+    /**
+     * Put tombstones written before the DeletedAt index existed into it. Scans in pages with a
+     * filter and updates conditionally, so it is safe to run while purges are in progress and to re-run.
+     * @return number of tombstones backfilled
+     */
+    public int backfillDeletedAtIndex() {
+        int backfilled = 0;
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanRequest.Builder scanBuilder = ScanRequest.builder()
+                    .tableName(tableName)
+                    .projectionExpression("PropertyID")
+                    .filterExpression("attribute_exists(#deleted) AND attribute_not_exists(#deletedPartition)")
+                    .expressionAttributeNames(Map.of("#deleted", DELETED_AT_ATTRIBUTE, "#deletedPartition", DELETED_PARTITION_ATTRIBUTE))
+                    .limit(100);
+            if (startKey != null) {
+                scanBuilder.exclusiveStartKey(startKey);
+            }
+            ScanResponse response = rateLimiter.read(tableName, "backfillDeletedAtIndex", () -> dynamoDbClient.scan(scanBuilder.build()));
+
+            for (Map<String, AttributeValue> item : response.items()) {
+                UpdateItemRequest request = UpdateItemRequest.builder()
+                        .tableName(tableName)
+                        .key(Map.of("PropertyID", item.get("PropertyID")))
+                        .updateExpression("SET #deletedPartition = :deletedPartition")
+                        .conditionExpression("attribute_exists(#deleted)")
+                        .expressionAttributeNames(Map.of("#deleted", DELETED_AT_ATTRIBUTE, "#deletedPartition", DELETED_PARTITION_ATTRIBUTE))
+                        .expressionAttributeValues(Map.of(":deletedPartition", AttributeValue.builder().s(DELETED_PARTITION).build()))
+                        .build();
+                try {
+                    rateLimiter.write(tableName, "backfillDeletedAtIndex", () -> dynamoDbClient.updateItem(request));
+                    backfilled++;
+                } catch (ConditionalCheckFailedException e) {
+                    // Purged since the scan
+                }
+            }
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey() : null;
+        } while (startKey != null);
+
+        logger.info("Backfilled {} tombstones into {}", backfilled, DELETED_AT_INDEX);
+        return backfilled;
+    }
+
     /**
      * Update a property's data
+     * @throws PropertyNotFoundException if the property was deleted in the meantime
      */
     public void updateProperty(Property property) {
         try {
-            executeWithRetry(() -> {
-                propertyTable.updateItem(property);
+            rateLimiter.write(tableName, "updateProperty", () -> {
+                propertyTable.updateItem(UpdateItemEnhancedRequest.builder(Property.class)
+                        .item(property)
+                        .conditionExpression(NOT_DELETED)
+                        .build());
                 logger.info("Updated property: {}", property.getPropertyId());
                 return null;
-            }, "updateProperty");
+            });
+            propertyCache.invalidate(property.getPropertyId());
+        } catch (ConditionalCheckFailedException e) {
+            propertyCache.invalidate(property.getPropertyId());
+            throw new PropertyNotFoundException(property.getPropertyId());
         } catch (Exception e) {
             logger.error("Failed to update property: {}", property.getPropertyId(), e);
             throw new RuntimeException("Failed to update property: " + property.getPropertyId(), e);
@@ -207,7 +472,8 @@ public class PropertyRepository {
             Key key = Key.builder()
                     .partitionValue(propertyId)
                     .build();
-            propertyTable.deleteItem(key);
+            rateLimiter.write(tableName, "deleteProperty", () -> propertyTable.deleteItem(key));
+            propertyCache.invalidate(propertyId);
             logger.info("Deleted property: {}", propertyId);
         } catch (DynamoDbException e) {
             logger.error("Failed to delete property: {}", propertyId, e);
@@ -216,71 +482,327 @@ public class PropertyRepository {
     }
 
     /**
-     * Atomically increment or decrement the photo count using DynamoDB's ADD expression.
-     * This prevents race conditions when multiple uploads complete simultaneously.
-     *
-     * @param propertyId The property to update
-     * @param increment The amount to add (can be negative to decrement)
-     * @throws PropertyNotFoundException if the property doesn't exist
+     * Tombstone a property: from now on it is hidden from every read and refuses new photos, while
+     * its data is purged in the background (see PropertyPurgeService).
+     * @throws PropertyNotFoundException if the property doesn't exist or is already deleted
      */
-    public void updatePhotoCount(String propertyId, int increment) {
+    public void markDeleted(String propertyId) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("PropertyID", AttributeValue.builder().s(propertyId).build()))
+                .updateExpression("SET #deleted = :now, #deletedPartition = :deletedPartition, #phase = :phase REMOVE #partition")
+                .conditionExpression("attribute_exists(PropertyID) AND attribute_not_exists(#deleted)")
+                .expressionAttributeNames(Map.of(
+                        "#deleted", DELETED_AT_ATTRIBUTE,
+                        "#deletedPartition", DELETED_PARTITION_ATTRIBUTE,
+                        "#phase", PURGE_PHASE_ATTRIBUTE,
+                        "#partition", LIST_PARTITION_ATTRIBUTE))
+                .expressionAttributeValues(Map.of(
+                        ":now", AttributeValue.builder().s(Instant.now().toString()).build(),
+                        ":deletedPartition", AttributeValue.builder().s(DELETED_PARTITION).build(),
+                        ":phase", AttributeValue.builder().s(PropertyPurge.PHASE_PHOTOS).build()))
+                .build();
         try {
-            // First verify property exists (this adds minimal overhead but catches errors early)
-            getProperty(propertyId);
-            
-            // Use atomic ADD operation to increment counter
-            // This is safe for concurrent updates and doesn't require read-modify-write
-            Key key = Key.builder()
-                    .partitionValue(propertyId)
-                    .build();
-            
-            // Get the current item to update it atomically
-            Property property = propertyTable.getItem(key);
-            if (property == null) {
-                throw new PropertyNotFoundException(propertyId);
+            rateLimiter.write(tableName, "markDeleted", () -> dynamoDbClient.updateItem(request));
+            logger.info("Marked property {} as deleted", propertyId);
+        } catch (ConditionalCheckFailedException e) {
+            throw new PropertyNotFoundException(propertyId);
+        } finally {
+            propertyCache.invalidate(propertyId);
+        }
+    }
+
+    /**
+     * IDs of all tombstoned properties whose purge hasn't finished, oldest deletion first.
+     */
+    public List<String> findDeletedPropertyIds() {
+        List<String> propertyIds = new ArrayList<>();
+        Map<String, AttributeValue> startKey = null;
+        do {
+            QueryRequest.Builder builder = QueryRequest.builder()
+                    .tableName(tableName)
+                    .indexName(DELETED_AT_INDEX)
+                    .keyConditionExpression("#deletedPartition = :deletedPartition")
+                    .expressionAttributeNames(Map.of("#deletedPartition", DELETED_PARTITION_ATTRIBUTE))
+                    .expressionAttributeValues(Map.of(":deletedPartition", AttributeValue.builder().s(DELETED_PARTITION).build()));
+            if (startKey != null) {
+                builder.exclusiveStartKey(startKey);
             }
-            
-            // Calculate new count ensuring non-negative
-            int currentCount = property.getPhotoCount() != null ? property.getPhotoCount() : 0;
-            int newCount = Math.max(0, currentCount + increment);
-            property.setPhotoCount(newCount);
-            
-            executeWithRetry(() -> {
-                propertyTable.updateItem(property);
-                logger.info("Updated photo count for property {}: {} -> {}", propertyId, currentCount, newCount);
-                return null;
-            }, "updatePhotoCount");
-        } catch (PropertyNotFoundException e) {
-            throw e;
-        } catch (Exception e) {
-            logger.error("Failed to update photo count for property: {}", propertyId, e);
-            throw new RuntimeException("Failed to update photo count for property: " + propertyId, e);
+            QueryResponse response = rateLimiter.read(tableName, "findDeletedPropertyIds", () -> dynamoDbClient.query(builder.build()));
+            for (Map<String, AttributeValue> item : response.items()) {
+                propertyIds.add(item.get("PropertyID").s());
+            }
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey() : null;
+        } while (startKey != null);
+        return propertyIds;
+    }
+
+    /**
+     * Take (or renew) the purge lease on a tombstone, so only one instance purges a property at a
+     * time. A lease whose holder died expires at {@code leaseUntil} and can then be taken over.
+     * @return The purge checkpoint, or null if the property is gone, not deleted, or leased to another owner
+     */
+    public PropertyPurge claimPurge(String propertyId, String owner, Instant leaseUntil) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("PropertyID", AttributeValue.builder().s(propertyId).build()))
+                .updateExpression("SET #owner = :owner, #lease = :lease")
+                .conditionExpression("attribute_exists(#deleted) AND "
+                        + "(attribute_not_exists(#lease) OR #lease < :now OR #owner = :owner)")
+                .expressionAttributeNames(Map.of(
+                        "#owner", PURGE_OWNER_ATTRIBUTE,
+                        "#lease", PURGE_LEASE_ATTRIBUTE,
+                        "#deleted", DELETED_AT_ATTRIBUTE))
+                .expressionAttributeValues(Map.of(
+                        ":owner", AttributeValue.builder().s(owner).build(),
+                        ":lease", AttributeValue.builder().n(Long.toString(leaseUntil.toEpochMilli())).build(),
+                        ":now", AttributeValue.builder().n(Long.toString(System.currentTimeMillis())).build()))
+                .returnValues(ReturnValue.ALL_NEW)
+                .build();
+        try {
+            Map<String, AttributeValue> item = rateLimiter.write(tableName, "claimPurge", () -> dynamoDbClient.updateItem(request)).attributes();
+            return toPropertyPurge(item);
+        } catch (ConditionalCheckFailedException e) {
+            return null;
         }
     }
 
-    private <T> T executeWithRetry(java.util.function.Supplier<T> operation, String operationName) {
-        int attempt = 0;
-        while (attempt < MAX_RETRIES) {
-            try {
-                return operation.get();
-            } catch (ProvisionedThroughputExceededException e) {
-                attempt++;
-                if (attempt >= MAX_RETRIES) {
-                    logger.error("Max retries exceeded for {} after {} attempts", operationName, MAX_RETRIES);
-                    throw e;
-                }
-                long delay = BASE_DELAY_MS * (long) Math.pow(2, attempt - 1);
-                logger.warn("Throughput exceeded for {}, retrying in {}ms (attempt {}/{})", 
-                        operationName, delay, attempt, MAX_RETRIES);
-                try {
-                    Thread.sleep(delay);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Retry interrupted", ie);
-                }
+    /**
+     * Record the progress of a purge and renew its lease.
+     * @return false if the lease was lost to another owner, who continues from the last checkpoint
+     */
+    public boolean savePurgeCheckpoint(PropertyPurge purge, String owner, Instant leaseUntil) {
+        Map<String, String> names = new HashMap<>();
+        names.put("#owner", PURGE_OWNER_ATTRIBUTE);
+        names.put("#lease", PURGE_LEASE_ATTRIBUTE);
+        names.put("#phase", PURGE_PHASE_ATTRIBUTE);
+        names.put("#cursor", PURGE_CURSOR_ATTRIBUTE);
+        names.put("#photos", PURGED_PHOTOS_ATTRIBUTE);
+        names.put("#analyses", PURGED_ANALYSES_ATTRIBUTE);
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":owner", AttributeValue.builder().s(owner).build());
+        values.put(":lease", AttributeValue.builder().n(Long.toString(leaseUntil.toEpochMilli())).build());
+        values.put(":phase", AttributeValue.builder().s(purge.getPhase()).build());
+        values.put(":photos", AttributeValue.builder().n(Long.toString(purge.getPhotosPurged())).build());
+        values.put(":analyses", AttributeValue.builder().n(Long.toString(purge.getAnalysesPurged())).build());
+
+        String update = "SET #lease = :lease, #phase = :phase, #photos = :photos, #analyses = :analyses";
+        if (purge.getCursor() != null && !purge.getCursor().isEmpty()) {
+            Map<String, AttributeValue> cursor = new HashMap<>();
+            purge.getCursor().forEach((attribute, value) -> cursor.put(attribute, AttributeValue.builder().s(value).build()));
+            values.put(":cursor", AttributeValue.builder().m(cursor).build());
+            update += ", #cursor = :cursor";
+        } else {
+            update += " REMOVE #cursor";
+        }
+
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("PropertyID", AttributeValue.builder().s(purge.getPropertyId()).build()))
+                .updateExpression(update)
+                .conditionExpression("#owner = :owner")
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .build();
+        try {
+            rateLimiter.write(tableName, "savePurgeCheckpoint", () -> dynamoDbClient.updateItem(request));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    private static PropertyPurge toPropertyPurge(Map<String, AttributeValue> item) {
+        PropertyPurge purge = new PropertyPurge();
+        purge.setPropertyId(item.get("PropertyID").s());
+        purge.setDeletedAt(item.get(DELETED_AT_ATTRIBUTE).s());
+        AttributeValue phase = item.get(PURGE_PHASE_ATTRIBUTE);
+        purge.setPhase(phase != null && phase.s() != null ? phase.s() : PropertyPurge.PHASE_PHOTOS);
+        AttributeValue cursor = item.get(PURGE_CURSOR_ATTRIBUTE);
+        if (cursor != null && cursor.hasM()) {
+            Map<String, String> lastKey = new HashMap<>();
+            cursor.m().forEach((attribute, value) -> lastKey.put(attribute, value.s()));
+            purge.setCursor(lastKey);
+        }
+        AttributeValue photos = item.get(PURGED_PHOTOS_ATTRIBUTE);
+        purge.setPhotosPurged(photos != null && photos.n() != null ? Long.parseLong(photos.n()) : 0);
+        AttributeValue analyses = item.get(PURGED_ANALYSES_ATTRIBUTE);
+        purge.setAnalysesPurged(analyses != null && analyses.n() != null ? Long.parseLong(analyses.n()) : 0);
+        return purge;
+    }
+
+    /**
+     * Register a count holder on the property before any photo write whose count delta is still
+     * held in memory, so a crash before the next flush leaves a durable trace for reconciliation.
+     * @throws PropertyNotFoundException if the property doesn't exist or is deleted
+     */
+    public void addCountHolder(String propertyId, String holder) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("PropertyID", AttributeValue.builder().s(propertyId).build()))
+                .updateExpression("ADD #holders :holder, #version :one")
+                .conditionExpression("attribute_exists(PropertyID) AND attribute_not_exists(#deleted)")
+                .expressionAttributeNames(Map.of(
+                        "#holders", COUNT_HOLDERS_ATTRIBUTE,
+                        "#version", COUNT_VERSION_ATTRIBUTE,
+                        "#deleted", DELETED_AT_ATTRIBUTE))
+                .expressionAttributeValues(Map.of(
+                        ":holder", AttributeValue.builder().ss(holder).build(),
+                        ":one", AttributeValue.builder().n("1").build()))
+                .build();
+        try {
+            rateLimiter.write(tableName, "addCountHolder", () -> dynamoDbClient.updateItem(request));
+        } catch (ConditionalCheckFailedException e) {
+            throw new PropertyNotFoundException(propertyId);
+        }
+    }
+
+    /**
+     * Apply a coalesced photo count delta with a single atomic ADD and release the given holders
+     * in the same write.
+     * @throws PropertyNotFoundException if the property doesn't exist
+     */
+    public void applyPhotoCountDelta(String propertyId, int delta, Set<String> releasedHolders) {
+        List<String> clauses = new ArrayList<>();
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        if (delta != 0) {
+            clauses.add("ADD PhotoCount :delta");
+            values.put(":delta", AttributeValue.builder().n(Integer.toString(delta)).build());
+        }
+        if (!releasedHolders.isEmpty()) {
+            clauses.add("DELETE #holders :holders");
+            names.put("#holders", COUNT_HOLDERS_ATTRIBUTE);
+            values.put(":holders", AttributeValue.builder().ss(releasedHolders).build());
+        }
+        if (clauses.isEmpty()) {
+            return;
+        }
+
+        UpdateItemRequest.Builder builder = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("PropertyID", AttributeValue.builder().s(propertyId).build()))
+                .updateExpression(String.join(" ", clauses))
+                .conditionExpression("attribute_exists(PropertyID)")
+                .expressionAttributeValues(values);
+        if (!names.isEmpty()) {
+            builder.expressionAttributeNames(names);
+        }
+
+        try {
+            rateLimiter.write(tableName, "applyPhotoCountDelta", () -> dynamoDbClient.updateItem(builder.build()));
+            propertyCache.invalidate(propertyId);
+            logger.debug("Applied photo count delta {} to property {}", delta, propertyId);
+        } catch (ConditionalCheckFailedException e) {
+            throw new PropertyNotFoundException(propertyId);
+        }
+    }
+
+    /**
+     * Read the count holders and version of a live property, strongly consistent.
+     * @throws PropertyNotFoundException if the property doesn't exist or is deleted
+     */
+    public PhotoCountState getPhotoCountState(String propertyId) {
+        GetItemRequest request = GetItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("PropertyID", AttributeValue.builder().s(propertyId).build()))
+                .projectionExpression("PropertyID, #holders, #version, #deleted")
+                .expressionAttributeNames(Map.of(
+                        "#holders", COUNT_HOLDERS_ATTRIBUTE,
+                        "#version", COUNT_VERSION_ATTRIBUTE,
+                        "#deleted", DELETED_AT_ATTRIBUTE))
+                .consistentRead(true)
+                .build();
+        Map<String, AttributeValue> item = rateLimiter.read(tableName, "getPhotoCountState",
+                () -> dynamoDbClient.getItem(request)).item();
+        if (item == null || item.isEmpty() || item.containsKey(DELETED_AT_ATTRIBUTE)) {
+            throw new PropertyNotFoundException(propertyId);
+        }
+        return toPhotoCountState(item);
+    }
+
+    /**
+     * Find all properties that still carry count holders.
+     */
+    public List<PhotoCountState> findPropertiesWithCountHolders() {
+        List<PhotoCountState> result = new ArrayList<>();
+        Map<String, AttributeValue> startKey = null;
+        do {
+            ScanRequest.Builder builder = ScanRequest.builder()
+                    .tableName(tableName)
+                    .filterExpression("attribute_exists(#holders)")
+                    .projectionExpression("PropertyID, #holders, #version")
+                    .expressionAttributeNames(Map.of("#holders", COUNT_HOLDERS_ATTRIBUTE, "#version", COUNT_VERSION_ATTRIBUTE))
+                    .consistentRead(true);
+            if (startKey != null) {
+                builder.exclusiveStartKey(startKey);
+            }
+            ScanResponse response = rateLimiter.read(tableName, "findPropertiesWithCountHolders", () -> dynamoDbClient.scan(builder.build()));
+            for (Map<String, AttributeValue> item : response.items()) {
+                result.add(toPhotoCountState(item));
             }
+            startKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty()
+                    ? response.lastEvaluatedKey() : null;
+        } while (startKey != null);
+        return result;
+    }
+
+    /**
+     * Overwrite PhotoCount with a recount and clear the holders, but only if the holders and the
+     * count version are still exactly what the recount was based on. Only PhotoCount and the
+     * holders are written, never the rest of the item.
+     * @return false if a holder came or went in the meantime (or the property is gone or deleted)
+     */
+    public boolean resetPhotoCount(PhotoCountState expected, int photoCount) {
+        String propertyId = expected.getPropertyId();
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":count", AttributeValue.builder().n(Integer.toString(photoCount)).build());
+        List<String> conditions = new ArrayList<>(List.of("attribute_exists(PropertyID)", "attribute_not_exists(#deleted)"));
+        if (expected.getHolders().isEmpty()) {
+            conditions.add("attribute_not_exists(#holders)");
+        } else {
+            conditions.add("#holders = :holders");
+            values.put(":holders", AttributeValue.builder().ss(expected.getHolders()).build());
+        }
+        if (expected.getVersion() == 0) {
+            conditions.add("attribute_not_exists(#version)");
+        } else {
+            conditions.add("#version = :version");
+            values.put(":version", AttributeValue.builder().n(Long.toString(expected.getVersion())).build());
+        }
+
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(Map.of("PropertyID", AttributeValue.builder().s(propertyId).build()))
+                .updateExpression("SET PhotoCount = :count REMOVE #holders")
+                .conditionExpression(String.join(" AND ", conditions))
+                .expressionAttributeNames(Map.of(
+                        "#holders", COUNT_HOLDERS_ATTRIBUTE,
+                        "#version", COUNT_VERSION_ATTRIBUTE,
+                        "#deleted", DELETED_AT_ATTRIBUTE))
+                .expressionAttributeValues(values)
+                .build();
+        try {
+            rateLimiter.write(tableName, "resetPhotoCount", () -> dynamoDbClient.updateItem(request));
+            propertyCache.invalidate(propertyId);
+            logger.info("Reset photo count for property {} to {}", propertyId, photoCount);
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
         }
-        throw new RuntimeException("Operation failed after retries: " + operationName);
     }
-}
 
+    private static PhotoCountState toPhotoCountState(Map<String, AttributeValue> item) {
+        PhotoCountState state = new PhotoCountState();
+        state.setPropertyId(item.get("PropertyID").s());
+        AttributeValue holders = item.get(COUNT_HOLDERS_ATTRIBUTE);
+        if (holders != null && holders.hasSs()) {
+            state.setHolders(new HashSet<>(holders.ss()));
+        }
+        AttributeValue version = item.get(COUNT_VERSION_ATTRIBUTE);
+        state.setVersion(version != null && version.n() != null ? Long.parseLong(version.n()) : 0);
+        return state;
+    }
+
+}
@@ -0,0 +1,262 @@
+package com.rapidupload.backend.repositories;
+
+import com.rapidupload.backend.models.ReportJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Report jobs, one item per JobID. Items carry an ExpiresAt epoch-seconds attribute, the table's
+ * TTL attribute, so finished jobs disappear after the retention period.
+ */
+@Repository
+public class ReportJobRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobRepository.class);
+    private static final int BATCH_GET_SIZE = 100; // DynamoDB batch get limit
+    public static final String TTL_ATTRIBUTE = "ExpiresAt";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbRateLimiter rateLimiter;
+    private final String tableName;
+    private final Duration retention;
+
+    public ReportJobRepository(DynamoDbClient dynamoDbClient,
+                               DynamoDbRateLimiter rateLimiter,
+                               @Value("${aws.dynamodb.tables.report-jobs:ReportJobs}") String tableName,
+                               @Value("${reports.job-retention-days:7}") long retentionDays) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.rateLimiter = rateLimiter;
+        this.tableName = tableName;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Store a new job: queued, or already completed when an existing report was reused.
+     */
+    public void create(ReportJob job) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("JobID", AttributeValue.builder().s(job.getJobId()).build());
+        item.put("PropertyID", AttributeValue.builder().s(job.getPropertyId()).build());
+        if (job.getPhotoIds() != null && !job.getPhotoIds().isEmpty()) {
+            item.put("PhotoIDs", AttributeValue.builder().l(job.getPhotoIds().stream()
+                    .map(photoId -> AttributeValue.builder().s(photoId).build())
+                    .collect(Collectors.toList())).build());
+        }
+        if (job.getFingerprint() != null) {
+            item.put("Fingerprint", AttributeValue.builder().s(job.getFingerprint()).build());
+        }
+        item.put("Cached", AttributeValue.builder().bool(job.isCached()).build());
+        item.put("Status", AttributeValue.builder().s(job.getStatus()).build());
+        if (job.getPhotosTotal() != null) {
+            item.put("PhotosTotal", AttributeValue.builder().n(job.getPhotosTotal().toString()).build());
+        }
+        if (job.getPhotosIncluded() != null) {
+            item.put("PhotosIncluded", AttributeValue.builder().n(job.getPhotosIncluded().toString()).build());
+        }
+        if (job.getReportKey() != null) {
+            item.put("ReportKey", AttributeValue.builder().s(job.getReportKey()).build());
+        }
+        item.put("CreatedAt", AttributeValue.builder().s(job.getCreatedAt()).build());
+        if (job.getCompletedAt() != null) {
+            item.put("CompletedAt", AttributeValue.builder().s(job.getCompletedAt()).build());
+        }
+        item.put(TTL_ATTRIBUTE, AttributeValue.builder()
+                .n(Long.toString(Instant.parse(job.getCreatedAt()).plus(retention).getEpochSecond())).build());
+
+        rateLimiter.write(tableName, "createReportJob", () -> dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(tableName)
+                .item(item)
+                .conditionExpression("attribute_not_exists(JobID)")
+                .build()));
+    }
+
+    /**
+     * @return the job, or null if it doesn't exist (or has expired)
+     */
+    public ReportJob get(String jobId) {
+        GetItemResponse response = rateLimiter.read(tableName, "getReportJob", () -> dynamoDbClient.getItem(GetItemRequest.builder()
+                .tableName(tableName)
+                .key(key(jobId))
+                .consistentRead(true)
+                .build()));
+        return response.hasItem() && !response.item().isEmpty() ? fromItem(response.item()) : null;
+    }
+
+    /**
+     * Read several jobs with BatchGetItem (chunked by 100 keys).
+     * @return JobID to job; missing jobs are absent
+     */
+    public Map<String, ReportJob> batchGet(Collection<String> jobIds) {
+        Map<String, ReportJob> jobs = new HashMap<>();
+        List<Map<String, AttributeValue>> keys = jobIds.stream().distinct().map(ReportJobRepository::key).toList();
+
+        for (int i = 0; i < keys.size(); i += BATCH_GET_SIZE) {
+            Map<String, KeysAndAttributes> requestItems = Map.of(tableName, KeysAndAttributes.builder()
+                    .keys(keys.subList(i, Math.min(i + BATCH_GET_SIZE, keys.size())))
+                    .consistentRead(true)
+                    .build());
+
+            while (requestItems != null && !requestItems.isEmpty()) {
+                final Map<String, KeysAndAttributes> pendingItems = requestItems;
+                BatchGetItemResponse response = rateLimiter.execute(tableName, DynamoDbRateLimiter.Operation.READ,
+                        "batchGetReportJobs", pendingItems.get(tableName).keys().size(),
+                        () -> dynamoDbClient.batchGetItem(BatchGetItemRequest.builder().requestItems(pendingItems).build()));
+
+                for (Map<String, AttributeValue> item : response.responses().getOrDefault(tableName, List.of())) {
+                    ReportJob job = fromItem(item);
+                    jobs.put(job.getJobId(), job);
+                }
+                requestItems = response.hasUnprocessedKeys() ? response.unprocessedKeys() : null;
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Move a queued job to running, recording the fingerprint of the report it generates if any.
+     * @return false if the job isn't queued any more
+     */
+    public boolean markRunning(String jobId, String fingerprint) {
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":running", AttributeValue.builder().s("running").build());
+        values.put(":queued", AttributeValue.builder().s("queued").build());
+        values.put(":now", AttributeValue.builder().s(Instant.now().toString()).build());
+        String update = "SET #status = :running, StartedAt = :now";
+        if (fingerprint != null) {
+            update += ", Fingerprint = :fingerprint";
+            values.put(":fingerprint", AttributeValue.builder().s(fingerprint).build());
+        }
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(key(jobId))
+                .updateExpression(update)
+                .conditionExpression("#status = :queued")
+                .expressionAttributeNames(Map.of("#status", "Status"))
+                .expressionAttributeValues(values)
+                .build();
+        try {
+            rateLimiter.write(tableName, "markReportJobRunning", () -> dynamoDbClient.updateItem(request));
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Complete a running job with a report that already exists, without generating it again.
+     */
+    public void markCompletedWithReport(String jobId, String reportKey, Integer photosTotal, Integer photosIncluded) {
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":completed", AttributeValue.builder().s("completed").build());
+        values.put(":running", AttributeValue.builder().s("running").build());
+        values.put(":cached", AttributeValue.builder().bool(true).build());
+        values.put(":reportKey", AttributeValue.builder().s(reportKey).build());
+        values.put(":now", AttributeValue.builder().s(Instant.now().toString()).build());
+        StringBuilder update = new StringBuilder("SET #status = :completed, Cached = :cached, ReportKey = :reportKey, CompletedAt = :now");
+        if (photosTotal != null) {
+            update.append(", PhotosTotal = :total");
+            values.put(":total", AttributeValue.builder().n(photosTotal.toString()).build());
+        }
+        if (photosIncluded != null) {
+            update.append(", PhotosIncluded = :included");
+            values.put(":included", AttributeValue.builder().n(photosIncluded.toString()).build());
+        }
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(key(jobId))
+                .updateExpression(update.toString())
+                .conditionExpression("#status = :running")
+                .expressionAttributeNames(Map.of("#status", "Status"))
+                .expressionAttributeValues(values)
+                .build();
+        try {
+            rateLimiter.write(tableName, "markReportJobCompleted", () -> dynamoDbClient.updateItem(request));
+        } catch (ConditionalCheckFailedException e) {
+            logger.debug("Report job {} is no longer running", jobId);
+        }
+    }
+
+    /**
+     * Fail a job that hasn't finished; a job the Lambda completed in the meantime stays completed.
+     */
+    public void markFailed(String jobId, String error) {
+        UpdateItemRequest request = UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(key(jobId))
+                .updateExpression("SET #status = :failed, #error = :error, CompletedAt = :now")
+                .conditionExpression("#status IN (:queued, :running)")
+                .expressionAttributeNames(Map.of("#status", "Status", "#error", "Error"))
+                .expressionAttributeValues(Map.of(
+                        ":failed", AttributeValue.builder().s("failed").build(),
+                        ":queued", AttributeValue.builder().s("queued").build(),
+                        ":running", AttributeValue.builder().s("running").build(),
+                        ":error", AttributeValue.builder().s(error).build(),
+                        ":now", AttributeValue.builder().s(Instant.now().toString()).build()))
+                .build();
+        try {
+            rateLimiter.write(tableName, "markReportJobFailed", () -> dynamoDbClient.updateItem(request));
+        } catch (ConditionalCheckFailedException e) {
+            logger.debug("Report job {} already finished", jobId);
+        }
+    }
+
+    private static Map<String, AttributeValue> key(String jobId) {
+        return Map.of("JobID", AttributeValue.builder().s(jobId).build());
+    }
+
+    private static ReportJob fromItem(Map<String, AttributeValue> item) {
+        ReportJob job = new ReportJob();
+        job.setJobId(item.get("JobID").s());
+        job.setPropertyId(stringValue(item, "PropertyID"));
+        if (item.containsKey("PhotoIDs")) {
+            job.setPhotoIds(item.get("PhotoIDs").l().stream().map(AttributeValue::s).collect(Collectors.toList()));
+        }
+        job.setFingerprint(stringValue(item, "Fingerprint"));
+        job.setCached(item.containsKey("Cached") && Boolean.TRUE.equals(item.get("Cached").bool()));
+        job.setStatus(stringValue(item, "Status"));
+        job.setPhotosTotal(intValue(item, "PhotosTotal"));
+        job.setPhotosProcessed(intValue(item, "PhotosProcessed"));
+        job.setPhotosIncluded(intValue(item, "PhotosIncluded"));
+        job.setReportKey(stringValue(item, "ReportKey"));
+        job.setError(stringValue(item, "Error"));
+        job.setCreatedAt(stringValue(item, "CreatedAt"));
+        job.setStartedAt(stringValue(item, "StartedAt"));
+        job.setCompletedAt(stringValue(item, "CompletedAt"));
+        return job;
+    }
+
+    private static String stringValue(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value != null ? value.s() : null;
+    }
+
+    private static Integer intValue(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value != null && value.n() != null ? Integer.valueOf(value.n()) : null;
+    }
+
+}
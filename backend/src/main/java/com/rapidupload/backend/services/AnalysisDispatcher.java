@@ -0,0 +1,304 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.models.AnalysisJob;
+import com.rapidupload.backend.models.AnalysisResult;
+import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.repositories.AnalysisRepository;
+import com.rapidupload.backend.repositories.PhotoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the AnalysisJobQueue into the analysis Lambda at the AI provider's quota: a token bucket
+ * paces photos ({@code rate-per-second}, {@code burst}) and a semaphore caps the invocations in
+ * flight. Batch jobs of one property are grouped into a single invocation, up to
+ * {@code group.max-photos} photos and {@code group.max-bytes} of image data. Failed invocations are
+ * retried with exponential backoff and the row is marked failed after {@code max-attempts}.
+ *
+ * The Analysis table is the durable record of every job. Before invoking, the dispatcher claims
+ * each row with a conditional DispatchedBy/DispatchedAt lease, so a row queued on several instances
+ * is still sent once. A periodic recovery pass re-enqueues rows pending for longer than
+ * {@code stale-after-minutes} whose lease is missing or as old: jobs lost on restart, or
+ * invocations the Lambda dropped. Followers of another analysis of the same content are only
+ * invoked once that analysis has failed.
+ */
+@Service
+public class AnalysisDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisDispatcher.class);
+
+    private final AnalysisJobQueue queue;
+    private final AnalysisInvoker analysisInvoker;
+    private final AnalysisRepository analysisRepository;
+    private final PhotoRepository photoRepository;
+    private final TokenBucket tokenBucket;
+    private final Semaphore inFlight;
+    private final int groupMaxPhotos;
+    private final long groupMaxBytes;
+    private final int maxAttempts;
+    private final long retryBaseDelayMs;
+    private final long retryMaxDelayMs;
+    private final Duration staleAfter;
+    private final String dispatcherId = UUID.randomUUID().toString();
+    private final Counter invoked;
+    private final Counter claimedElsewhere;
+    private final Counter retried;
+    private final Counter failed;
+    private final ExecutorService dispatchExecutor = Executors.newSingleThreadExecutor();
+    private final ScheduledExecutorService recoveryScheduler = Executors.newSingleThreadScheduledExecutor();
+
+    public AnalysisDispatcher(AnalysisJobQueue queue,
+                              AnalysisInvoker analysisInvoker,
+                              AnalysisRepository analysisRepository,
+                              PhotoRepository photoRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${aws.analysis.queue.rate-per-second:5}") double ratePerSecond,
+                              @Value("${aws.analysis.queue.burst:10}") int burst,
+                              @Value("${aws.analysis.max-concurrent-invocations:50}") int maxConcurrentInvocations,
+                              @Value("${aws.analysis.group.max-photos:8}") int groupMaxPhotos,
+                              @Value("${aws.analysis.group.max-bytes:52428800}") long groupMaxBytes,
+                              @Value("${aws.analysis.queue.max-attempts:5}") int maxAttempts,
+                              @Value("${aws.analysis.queue.retry-base-delay-ms:1000}") long retryBaseDelayMs,
+                              @Value("${aws.analysis.queue.retry-max-delay-ms:60000}") long retryMaxDelayMs,
+                              @Value("${aws.analysis.queue.recovery-interval-minutes:5}") long recoveryIntervalMinutes,
+                              @Value("${aws.analysis.queue.stale-after-minutes:15}") long staleAfterMinutes) {
+        this.queue = queue;
+        this.analysisInvoker = analysisInvoker;
+        this.analysisRepository = analysisRepository;
+        this.photoRepository = photoRepository;
+        this.tokenBucket = new TokenBucket(ratePerSecond, burst);
+        this.inFlight = new Semaphore(maxConcurrentInvocations);
+        this.groupMaxPhotos = groupMaxPhotos;
+        this.groupMaxBytes = groupMaxBytes;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseDelayMs = retryBaseDelayMs;
+        this.retryMaxDelayMs = retryMaxDelayMs;
+        this.staleAfter = Duration.ofMinutes(staleAfterMinutes);
+
+        this.invoked = Counter.builder("analysis.dispatch").tag("result", "invoked").register(meterRegistry);
+        this.retried = Counter.builder("analysis.dispatch").tag("result", "retried").register(meterRegistry);
+        this.failed = Counter.builder("analysis.dispatch").tag("result", "failed").register(meterRegistry);
+        this.claimedElsewhere = Counter.builder("analysis.dispatch").tag("result", "claimed-elsewhere").register(meterRegistry);
+        Gauge.builder("analysis.queue.depth", queue, AnalysisJobQueue::size).register(meterRegistry);
+        Gauge.builder("analysis.dispatch.in-flight", inFlight, permits -> maxConcurrentInvocations - permits.availablePermits())
+                .register(meterRegistry);
+
+        dispatchExecutor.execute(this::dispatchLoop);
+        recoveryScheduler.scheduleWithFixedDelay(this::recover, recoveryIntervalMinutes, recoveryIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Queue jobs for dispatch. Interactive jobs (a user analysing one photo) jump ahead of batches.
+     */
+    public void submit(List<AnalysisJob> jobs, boolean interactive) {
+        int queued = 0;
+        for (AnalysisJob job : jobs) {
+            if (queue.offer(job, interactive)) {
+                queued++;
+            }
+        }
+        logger.info("Queued {} analysis jobs ({}), queue depth {}", queued, interactive ? "interactive" : "batch", queue.size());
+    }
+
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<AnalysisJob> group = new ArrayList<>();
+            try {
+                AnalysisJob job = queue.take(1, TimeUnit.SECONDS);
+                if (job == null) {
+                    continue;
+                }
+                group.add(job);
+                long bytes = job.getFileSize() != null ? job.getFileSize() : 0;
+                group.addAll(queue.takeSameProperty(job.getPropertyId(), groupMaxPhotos - 1, Math.max(0, groupMaxBytes - bytes)));
+                group = claim(group);
+                if (group.isEmpty()) {
+                    continue;
+                }
+
+                // The provider quota is per photo, so the bucket pays for every photo in the group
+                for (int i = 0; i < group.size(); i++) {
+                    tokenBucket.acquire();
+                }
+                inFlight.acquire();
+                try {
+                    dispatch(group);
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // This is the only dispatch thread: requeue the group and keep draining
+                logger.error("Failed to dispatch {} analysis jobs", group.size(), e);
+                group.forEach(job -> handleFailure(job, e));
+            }
+        }
+    }
+
+    /**
+     * Keep the jobs whose rows this instance could lease; the rest are already finished or being
+     * invoked by another instance.
+     */
+    private List<AnalysisJob> claim(List<AnalysisJob> group) {
+        Instant leaseExpiredBefore = Instant.now().minus(staleAfter);
+        List<AnalysisJob> claimed = new ArrayList<>();
+        for (AnalysisJob job : group) {
+            try {
+                if (analysisRepository.claimDispatch(job.getAnalysisId(), dispatcherId, leaseExpiredBefore)) {
+                    claimed.add(job);
+                } else {
+                    logger.debug("Analysis {} is no longer pending or is leased elsewhere, skipping", job.getAnalysisId());
+                    claimedElsewhere.increment();
+                }
+            } catch (Exception e) {
+                handleFailure(job, e);
+            }
+        }
+        return claimed;
+    }
+
+    private void dispatch(List<AnalysisJob> group) {
+        analysisInvoker.invoke(group).whenComplete((ignored, error) -> {
+            inFlight.release();
+            if (error == null) {
+                invoked.increment(group.size());
+            } else {
+                // The invocation was rejected as a whole; each photo retries on its own schedule
+                group.forEach(job -> handleFailure(job, error));
+            }
+        });
+    }
+
+    private void handleFailure(AnalysisJob job, Throwable error) {
+        AnalysisJob next = job.nextAttempt();
+        if (next.getAttempts() < maxAttempts) {
+            long delay = Math.min(retryMaxDelayMs, retryBaseDelayMs * (1L << (next.getAttempts() - 1)));
+            logger.warn("Failed to invoke Lambda for analysis {} (attempt {}/{}), retrying in {}ms: {}",
+                    job.getAnalysisId(), next.getAttempts(), maxAttempts, delay, error.getMessage());
+            queue.offerDelayed(next, delay);
+            retried.increment();
+            return;
+        }
+
+        logger.error("Giving up on analysis {} after {} attempts: {}", job.getAnalysisId(), maxAttempts, error.getMessage());
+        failed.increment();
+        try {
+            analysisRepository.markFailed(job.getAnalysisId(), "Failed to invoke analysis Lambda");
+        } catch (Exception e) {
+            logger.error("Failed to mark analysis {} failed", job.getAnalysisId(), e);
+        }
+    }
+
+    /**
+     * Re-enqueue analyses that have been pending longer than stale-after, hold no live dispatch lease
+     * and are not queued here. Another instance may enqueue the same rows; the claim decides who
+     * invokes them.
+     */
+    public void recover() {
+        try {
+            Instant cutoff = Instant.now().minus(staleAfter);
+            List<AnalysisResult> stale = analysisRepository.findStalePending(cutoff).stream()
+                    .filter(analysis -> !queue.contains(analysis.getAnalysisId()))
+                    .filter(this::needsInvocation)
+                    .collect(Collectors.toList());
+            if (stale.isEmpty()) {
+                return;
+            }
+
+            Map<String, Photo> photos = photoRepository.batchGetPhotos(stale.stream()
+                    .map(AnalysisResult::getPhotoId)
+                    .distinct()
+                    .collect(Collectors.toList()));
+            List<AnalysisJob> jobs = stale.stream()
+                    .filter(analysis -> photos.containsKey(analysis.getPhotoId()))
+                    .map(analysis -> {
+                        Photo photo = photos.get(analysis.getPhotoId());
+                        return AnalysisJob.forPhoto(analysis.getAnalysisId(), photo);
+                    })
+                    .collect(Collectors.toList());
+
+            logger.info("Recovering {} stale pending analyses", jobs.size());
+            submit(jobs, false);
+        } catch (Exception e) {
+            logger.error("Error recovering pending analyses", e);
+        }
+    }
+
+    /**
+     * A follower (same content as its source analysis) normally gets its result from the Lambda when
+     * the source completes. One written just after that, or whose source failed or is gone, is
+     * completed from the source here or invoked on its own.
+     */
+    private boolean needsInvocation(AnalysisResult analysis) {
+        if (analysis.getSourceAnalysisId() == null) {
+            return true;
+        }
+        AnalysisResult source = analysisRepository.getAnalysis(analysis.getSourceAnalysisId());
+        if (source == null || "failed".equals(source.getStatus())) {
+            return true;
+        }
+        if ("completed".equals(source.getStatus())) {
+            analysisRepository.completeFromSource(analysis, source);
+        }
+        // Still pending or processing: the Lambda fans its result out
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recoveryScheduler.shutdown();
+        dispatchExecutor.shutdownNow();
+    }
+
+    /**
+     * Token bucket refilled continuously at {@code ratePerSecond} up to {@code capacity} tokens.
+     * Only the dispatch thread takes tokens.
+     */
+    static class TokenBucket {
+        private final double ratePerSecond;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double ratePerSecond, int capacity) {
+            this.ratePerSecond = ratePerSecond;
+            this.capacity = Math.max(1, capacity);
+            this.tokens = this.capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        void acquire() throws InterruptedException {
+            while (true) {
+                long now = System.nanoTime();
+                tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / 1e9 * ratePerSecond);
+                lastRefillNanos = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                TimeUnit.NANOSECONDS.sleep((long) ((1 - tokens) / ratePerSecond * 1e9));
+            }
+        }
+    }
+}
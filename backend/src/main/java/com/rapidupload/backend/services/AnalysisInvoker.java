@@ -0,0 +1,75 @@
+package com.rapidupload.backend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidupload.backend.models.AnalysisJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.lambda.LambdaAsyncClient;
+import software.amazon.awssdk.services.lambda.model.InvocationType;
+import software.amazon.awssdk.services.lambda.model.InvokeRequest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Makes the async EVENT invocation of the analysis Lambda for a group of jobs. A single job is sent
+ * in the original one-photo payload; a group is sent as {@code {"jobs": [...]}} and the Lambda writes
+ * each photo's result (or failure) to its own AnalysisResult row. Pacing, retries and failure
+ * handling belong to AnalysisDispatcher.
+ */
+@Service
+public class AnalysisInvoker {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisInvoker.class);
+
+    private final LambdaAsyncClient lambdaAsyncClient;
+    private final ObjectMapper objectMapper;
+    private final String lambdaFunctionName;
+
+    public AnalysisInvoker(LambdaAsyncClient lambdaAsyncClient,
+                           @Value("${aws.analysis.lambda-function-name}") String lambdaFunctionName) {
+        this.lambdaAsyncClient = lambdaAsyncClient;
+        this.lambdaFunctionName = lambdaFunctionName;
+        this.objectMapper = new ObjectMapper();
+    }
+
+    /**
+     * Invoke the Lambda once for all given jobs; completes exceptionally if the invocation wasn't accepted.
+     */
+    public CompletableFuture<Void> invoke(List<AnalysisJob> jobs) {
+        Object payload = jobs.size() == 1
+                ? toPayload(jobs.get(0))
+                : Map.of("jobs", jobs.stream().map(AnalysisInvoker::toPayload).collect(Collectors.toList()));
+
+        InvokeRequest request;
+        try {
+            request = InvokeRequest.builder()
+                    .functionName(lambdaFunctionName)
+                    .invocationType(InvocationType.EVENT) // Async invocation
+                    .payload(SdkBytes.fromUtf8String(objectMapper.writeValueAsString(payload)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return lambdaAsyncClient.invoke(request).thenAccept(response ->
+                logger.debug("Invoked Lambda for {} analyses of property {}", jobs.size(), jobs.get(0).getPropertyId()));
+    }
+
+    private static Map<String, String> toPayload(AnalysisJob job) {
+        Map<String, String> payload = new HashMap<>();
+        payload.put("analysisId", job.getAnalysisId());
+        payload.put("photoId", job.getPhotoId());
+        payload.put("propertyId", job.getPropertyId());
+        payload.put("s3Bucket", job.getS3Bucket());
+        payload.put("s3Key", job.getS3Key());
+        return payload;
+    }
+}
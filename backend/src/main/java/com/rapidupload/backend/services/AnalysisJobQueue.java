@@ -0,0 +1,44 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.models.AnalysisJob;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue of analysis jobs waiting for the rate-limited dispatcher. The pending AnalysisResult rows
+ * are the durable record of every job, so an implementation may keep jobs in memory; jobs lost on
+ * restart are re-enqueued by AnalysisDispatcher's recovery pass.
+ */
+public interface AnalysisJobQueue {
+
+    /**
+     * Add a job. Interactive jobs (single-photo requests) are taken before any batch job.
+     * @return false if the job is already queued
+     */
+    boolean offer(AnalysisJob job, boolean interactive);
+
+    /**
+     * Re-add a job after a failed dispatch, to become available once {@code delayMs} has passed.
+     */
+    void offerDelayed(AnalysisJob job, long delayMs);
+
+    /**
+     * Take the next job, waiting up to the given time for one to become available.
+     * @return the job, or null on timeout
+     */
+    AnalysisJob take(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Take further batch jobs of the same property without waiting, to share one invocation.
+     * Stops at {@code maxJobs} or before the summed file sizes would exceed {@code maxBytes}.
+     */
+    List<AnalysisJob> takeSameProperty(String propertyId, int maxJobs, long maxBytes);
+
+    boolean contains(String analysisId);
+
+    /**
+     * Jobs waiting, including delayed retries.
+     */
+    int size();
+}
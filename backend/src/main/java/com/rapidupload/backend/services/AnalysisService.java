@@ -1,21 +1,18 @@
 package com.rapidupload.backend.services;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rapidupload.backend.dto.AnalysisResponse;
 import com.rapidupload.backend.dto.PagedAnalysisResponse;
+import com.rapidupload.backend.models.AnalysisJob;
 import com.rapidupload.backend.models.AnalysisResult;
+import com.rapidupload.backend.models.ContentHash;
 import com.rapidupload.backend.models.PagedResponse;
 import com.rapidupload.backend.models.Photo;
 import com.rapidupload.backend.repositories.AnalysisRepository;
+import com.rapidupload.backend.repositories.ContentHashRepository;
 import com.rapidupload.backend.repositories.PhotoRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.core.SdkBytes;
-import software.amazon.awssdk.services.lambda.LambdaClient;
-import software.amazon.awssdk.services.lambda.model.InvokeRequest;
-import software.amazon.awssdk.services.lambda.model.InvocationType;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -26,81 +23,191 @@ public class AnalysisService {
 
     private final AnalysisRepository analysisRepository;
     private final PhotoRepository photoRepository;
-    private final LambdaClient lambdaClient;
-    private final ObjectMapper objectMapper;
-    private final String lambdaFunctionName;
+    private final ContentHashRepository contentHashRepository;
+    private final NearDuplicateService nearDuplicateService;
+    private final RenditionService renditionService;
+    private final AnalysisDispatcher analysisDispatcher;
 
     public AnalysisService(
             AnalysisRepository analysisRepository,
             PhotoRepository photoRepository,
-            LambdaClient lambdaClient,
-            @Value("${aws.analysis.lambda-function-name}") String lambdaFunctionName) {
+            ContentHashRepository contentHashRepository,
+            NearDuplicateService nearDuplicateService,
+            RenditionService renditionService,
+            AnalysisDispatcher analysisDispatcher) {
         this.analysisRepository = analysisRepository;
         this.photoRepository = photoRepository;
-        this.lambdaClient = lambdaClient;
-        this.lambdaFunctionName = lambdaFunctionName;
-        this.objectMapper = new ObjectMapper();
+        this.contentHashRepository = contentHashRepository;
+        this.nearDuplicateService = nearDuplicateService;
+        this.renditionService = renditionService;
+        this.analysisDispatcher = analysisDispatcher;
     }
 
+    /**
+     * Trigger analysis for a batch of photos in a few bulk steps: batch-get the photos, check
+     * existing analyses with parallel PhotoID-index lookups of just those photos, write the pending rows with BatchWriteItem and
+     * queue the jobs with AnalysisDispatcher. Returns once the pending rows are written; the Lambda
+     * calls are paced to the provider quota in the background. Photos whose content (by hash) was
+     * already analyzed in the property get a completed copy of that result instead of a model call.
+     * Photos whose content is still being analyzed, by an earlier request or earlier in this one, get
+     * a pending follower row (SourceAnalysisID) that the Lambda fills in when that analysis completes.
+     */
     public List<AnalysisResult> triggerBatchAnalysis(String propertyId, List<String> photoIds) {
+        return triggerBatchAnalysis(propertyId, photoIds, false);
+    }
+
+    /**
+     * @param representativesOnly analyze only the first photo of each near-duplicate cluster
+     *                            among {@code photoIds}; the rest are skipped
+     */
+    public List<AnalysisResult> triggerBatchAnalysis(String propertyId, List<String> photoIds, boolean representativesOnly) {
         logger.info("Triggering batch analysis for {} photos", photoIds.size());
 
-        List<AnalysisResult> results = new ArrayList<>();
+        List<String> uniquePhotoIds = new ArrayList<>(new LinkedHashSet<>(photoIds));
+        if (representativesOnly && uniquePhotoIds.size() > 1) {
+            List<List<String>> clusters = nearDuplicateService.findClusters(
+                    propertyId, uniquePhotoIds, nearDuplicateService.getDefaultMaxDistance());
+            logger.info("Analyzing {} cluster representatives of {} photos", clusters.size(), uniquePhotoIds.size());
+            uniquePhotoIds = clusters.stream().map(cluster -> cluster.get(0)).collect(Collectors.toList());
+        }
+        Map<String, Photo> photos = photoRepository.batchGetPhotos(uniquePhotoIds);
+
+        Map<String, ContentHash> contentHashes = contentHashRepository.batchGet(propertyId, photos.values().stream()
+                .filter(photo -> propertyId.equals(photo.getPropertyId()))
+                .map(Photo::getContentHash)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        // Only the requested photos and the photos their content may already be analyzed under
+        Set<String> lookupPhotoIds = new HashSet<>(photos.keySet());
+        for (ContentHash contentHash : contentHashes.values()) {
+            if (contentHash.getAnalysisPhotoId() != null) {
+                lookupPhotoIds.add(contentHash.getAnalysisPhotoId());
+            }
+            if (contentHash.getPhotoId() != null) {
+                lookupPhotoIds.add(contentHash.getPhotoId());
+            }
+        }
 
-        for (String photoId : photoIds) {
-            try {
-                // Get photo details
-                Photo photo = photoRepository.getPhoto(photoId);
-
-                // Check if analysis already exists
-                AnalysisResult existing = analysisRepository.getAnalysisByPhotoId(photoId);
-                if (existing != null && !"failed".equals(existing.getStatus())) {
-                    logger.info("Analysis already exists for photo {}: {}", photoId, existing.getAnalysisId());
-                    results.add(existing);
-                    continue;
+        // Latest usable analysis per photo; failed ones may be retried
+        Map<String, AnalysisResult> existingByPhoto = new HashMap<>();
+        for (List<AnalysisResult> analyses : analysisRepository.getAnalysesByPhotoIds(lookupPhotoIds).values()) {
+            for (AnalysisResult existing : analyses) {
+                if (!"failed".equals(existing.getStatus()) && propertyId.equals(existing.getPropertyId())) {
+                    existingByPhoto.put(existing.getPhotoId(), existing);
                 }
+            }
+        }
+
+        List<AnalysisResult> results = new ArrayList<>();
+        List<AnalysisResult> created = new ArrayList<>();
+        List<AnalysisJob> jobs = new ArrayList<>();
+        // ContentHash to the photo whose analysis will serve it, recorded once the rows are written
+        Map<String, String> analysisPhotoByHash = new HashMap<>();
+        // ContentHash to the analysis this request queued for it, so identical photos share one invocation
+        Map<String, AnalysisResult> queuedByHash = new HashMap<>();
+        int cloned = 0;
+        int followed = 0;
+        for (String photoId : uniquePhotoIds) {
+            Photo photo = photos.get(photoId);
+            if (photo == null) {
+                logger.error("Failed to trigger analysis for photo {}: photo not found", photoId);
+                continue;
+            }
+            if (!propertyId.equals(photo.getPropertyId())) {
+                logger.error("Failed to trigger analysis for photo {}: not in property {}", photoId, propertyId);
+                continue;
+            }
 
-                // Create analysis record
-                AnalysisResult analysis = analysisRepository.createAnalysis(photoId, propertyId);
-                results.add(analysis);
+            AnalysisResult existing = existingByPhoto.get(photoId);
+            if (existing != null) {
+                logger.info("Analysis already exists for photo {}: {}", photoId, existing.getAnalysisId());
+                results.add(existing);
+                continue;
+            }
 
-                // Invoke Lambda asynchronously
-                invokeLambdaAsync(analysis.getAnalysisId(), photoId, propertyId,
-                    photo.getS3Bucket(), photo.getS3Key());
+            String hash = photo.getContentHash();
+            ContentHash contentHash = hash != null ? contentHashes.get(hash) : null;
+            AnalysisResult source = contentHash != null ? findAnalysisOfContent(contentHash, existingByPhoto) : null;
+            if (source == null && hash != null) {
+                source = queuedByHash.get(hash);
+            }
+            if (source != null && "completed".equals(source.getStatus())) {
+                AnalysisResult copy = cloneAnalysis(source, photoId, propertyId);
+                created.add(copy);
+                results.add(copy);
+                cloned++;
+                continue;
+            }
+            if (source != null) {
+                // Same content still being analyzed: wait for that result instead of paying for another call
+                AnalysisResult follower = analysisRepository.newPendingAnalysis(photoId, propertyId);
+                follower.setSourceAnalysisId(source.getSourceAnalysisId() != null ? source.getSourceAnalysisId() : source.getAnalysisId());
+                created.add(follower);
+                results.add(follower);
+                followed++;
+                continue;
+            }
 
-            } catch (Exception e) {
-                logger.error("Failed to trigger analysis for photo {}: {}", photoId, e.getMessage());
+            AnalysisResult analysis = analysisRepository.newPendingAnalysis(photoId, propertyId);
+            created.add(analysis);
+            results.add(analysis);
+            if (contentHash != null && contentHash.getAnalysisPhotoId() == null) {
+                analysisPhotoByHash.put(contentHash.getContentHash(), photoId);
+                contentHash.setAnalysisPhotoId(photoId);
+            }
+            if (hash != null) {
+                queuedByHash.put(hash, analysis);
+            }
+            jobs.add(AnalysisJob.forPhoto(analysis.getAnalysisId(), photo));
+            if (photo.getAnalysisS3Key() == null) {
+                // Uploaded before renditions existed, or not rendered yet: analyzed from the original this time
+                renditionService.generate(photoId, photo.getS3Key());
             }
         }
 
+        analysisRepository.batchCreateAnalyses(created);
+        if (!analysisPhotoByHash.isEmpty()) {
+            contentHashRepository.setAnalysisPhotosIfAbsent(propertyId, analysisPhotoByHash);
+        }
+        // A single-photo request is a user waiting on the result; let it jump ahead of batches
+        analysisDispatcher.submit(jobs, uniquePhotoIds.size() == 1);
+
+        logger.info("Queued {} new analyses, cloned {}, {} waiting on the same content ({} already existed)",
+                jobs.size(), cloned, followed, results.size() - created.size());
         return results;
     }
 
-    private void invokeLambdaAsync(String analysisId, String photoId, String propertyId,
-                                    String s3Bucket, String s3Key) {
-        try {
-            Map<String, String> payload = new HashMap<>();
-            payload.put("analysisId", analysisId);
-            payload.put("photoId", photoId);
-            payload.put("propertyId", propertyId);
-            payload.put("s3Bucket", s3Bucket);
-            payload.put("s3Key", s3Key);
-
-            String payloadJson = objectMapper.writeValueAsString(payload);
-
-            InvokeRequest request = InvokeRequest.builder()
-                    .functionName(lambdaFunctionName)
-                    .invocationType(InvocationType.EVENT) // Async invocation
-                    .payload(SdkBytes.fromUtf8String(payloadJson))
-                    .build();
-
-            lambdaClient.invoke(request);
-            logger.info("Invoked Lambda for analysis {}", analysisId);
-
-        } catch (Exception e) {
-            logger.error("Failed to invoke Lambda for analysis {}: {}", analysisId, e.getMessage());
-            throw new RuntimeException("Failed to invoke analysis Lambda", e);
+    /**
+     * Analysis of the same content, looked up under the photo recorded as its analysis source, else
+     * the photo that uploaded it. A completed one is preferred; otherwise one still pending or
+     * processing, whose result the new analysis will take over.
+     */
+    private static AnalysisResult findAnalysisOfContent(ContentHash contentHash, Map<String, AnalysisResult> existingByPhoto) {
+        AnalysisResult inProgress = null;
+        for (String photoId : new String[] {contentHash.getAnalysisPhotoId(), contentHash.getPhotoId()}) {
+            AnalysisResult analysis = photoId != null ? existingByPhoto.get(photoId) : null;
+            if (analysis == null) {
+                continue;
+            }
+            if ("completed".equals(analysis.getStatus())) {
+                return analysis;
+            }
+            if (inProgress == null && ("pending".equals(analysis.getStatus()) || "processing".equals(analysis.getStatus()))) {
+                inProgress = analysis;
+            }
         }
+        return inProgress;
+    }
+
+    private AnalysisResult cloneAnalysis(AnalysisResult source, String photoId, String propertyId) {
+        AnalysisResult copy = analysisRepository.newPendingAnalysis(photoId, propertyId);
+        copy.setStatus("completed");
+        copy.setCompletedAt(copy.getCreatedAt());
+        copy.setDetections(source.getDetections());
+        copy.setClaudeAnalysis(source.getClaudeAnalysis());
+        logger.debug("Cloned analysis {} for photo {} from {}", copy.getAnalysisId(), photoId, source.getAnalysisId());
+        return copy;
     }
 
     public AnalysisResponse getAnalysis(String analysisId) {
@@ -0,0 +1,115 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.dto.ConfirmUploadResponse;
+import com.rapidupload.backend.dto.PagedPhotoResponse;
+import com.rapidupload.backend.dto.PhotoResponse;
+import com.rapidupload.backend.dto.PresignedUrlRequest;
+import com.rapidupload.backend.dto.PresignedUrlResponse;
+import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.repositories.PhotoRepository;
+import com.rapidupload.backend.repositories.PropertyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterparts of the presign, confirm-status and photo listing flows. Every AWS call
+ * goes through the async clients, so no request thread waits on network I/O; continuations run on
+ * the SDK's event loop and must stay short and non-blocking.
+ */
+@Service
+public class AsyncUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncUploadService.class);
+
+    private final S3Service s3Service;
+    private final PhotoRepository photoRepository;
+    private final PropertyRepository propertyRepository;
+    private final PhotoMetadataBackfillService metadataBackfillService;
+    private final NearDuplicateService nearDuplicateService;
+    private final RenditionService renditionService;
+
+    public AsyncUploadService(S3Service s3Service,
+                              PhotoRepository photoRepository,
+                              PropertyRepository propertyRepository,
+                              PhotoMetadataBackfillService metadataBackfillService,
+                              NearDuplicateService nearDuplicateService,
+                              RenditionService renditionService) {
+        this.s3Service = s3Service;
+        this.photoRepository = photoRepository;
+        this.propertyRepository = propertyRepository;
+        this.metadataBackfillService = metadataBackfillService;
+        this.nearDuplicateService = nearDuplicateService;
+        this.renditionService = renditionService;
+    }
+
+    /**
+     * Verify the property, sign a PUT URL (local computation) and write the pending photo record.
+     */
+    public CompletableFuture<PresignedUrlResponse> generatePresignedUrl(PresignedUrlRequest request) {
+        request.validateFileSize();
+
+        return propertyRepository.getPropertyAsync(request.getPropertyId()).thenCompose(property -> {
+            String photoId = UUID.randomUUID().toString();
+            PresignedUrlResponse response = s3Service.generatePresignedUrl(
+                    photoId,
+                    request.getPropertyId(),
+                    request.getFilename(),
+                    request.getContentType(),
+                    request.getFileSize());
+
+            Photo photo = new Photo();
+            photo.setPhotoId(photoId);
+            photo.setPropertyId(request.getPropertyId());
+            photo.setFilename(request.getFilename());
+            photo.setS3Key(response.getFields().get("key"));
+            photo.setS3Bucket(s3Service.getBucketName());
+            photo.setUploadedAt(Instant.now());
+            photo.setFileSize(request.getFileSize());
+            photo.setStatus("pending");
+            photo.setContentType(request.getContentType());
+
+            return photoRepository.createPhotoAsync(photo).thenApply(created -> response);
+        });
+    }
+
+    /**
+     * Async variant of {@link PhotoService#confirmUploadStatus}: one conditional update, no PhotoCount change.
+     */
+    public CompletableFuture<ConfirmUploadResponse> confirmUploadStatus(String photoId, String propertyId, String s3Key) {
+        return photoRepository.confirmUploadAsync(photoId, propertyId, s3Key).thenApply(outcome -> {
+            PhotoService.checkOutcome(photoId, propertyId, outcome);
+            if (outcome == PhotoRepository.ConfirmOutcome.CONFIRMED) {
+                nearDuplicateService.ingest(photoId, propertyId, s3Key);
+                renditionService.generate(photoId, s3Key);
+            }
+            logger.debug("Confirmed upload status for photoId: {}, propertyId: {} ({})", photoId, propertyId, outcome);
+            return new ConfirmUploadResponse(photoId, s3Service.getObjectUrl(s3Key), "uploaded");
+        });
+    }
+
+    /**
+     * Async variant of {@link PropertyService#getPropertyPhotos}. Legacy photos missing metadata or
+     * renditions are handed to the background backfills.
+     */
+    public CompletableFuture<PagedPhotoResponse> getPropertyPhotos(String propertyId, Integer limit,
+                                                                   Map<String, String> exclusiveStartKey) {
+        return propertyRepository.getPropertyAsync(propertyId)
+                .thenCompose(property -> photoRepository.listPhotosByPropertyAsync(propertyId, limit, exclusiveStartKey))
+                .thenApply(page -> {
+                    metadataBackfillService.enqueue(page.getItems());
+                    renditionService.backfill(page.getItems());
+                    List<PhotoResponse> photoResponses = page.getItems().stream()
+                            .map(photo -> PropertyService.toPhotoResponse(photo, renditionService))
+                            .collect(Collectors.toList());
+                    return new PagedPhotoResponse(photoResponses, page.getLastEvaluatedKey(), page.isHasMore());
+                });
+    }
+}
@@ -0,0 +1,304 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.dto.BatchPresignedUrlRequest;
+import com.rapidupload.backend.dto.BatchPresignedUrlResponse;
+import com.rapidupload.backend.dto.PostPolicyResponse;
+import com.rapidupload.backend.dto.PresignedUrlResponse;
+import com.rapidupload.backend.exceptions.BatchWriteException;
+import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.repositories.PhotoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Presign-and-persist pipeline for the batch presigned URL endpoint.
+ *
+ * Files are signed on a bounded worker pool. As signatures complete, the pending photo rows
+ * are collected into 25-item chunks and each full chunk is written with its own BatchWriteItem
+ * call while the remaining files are still being signed. The response keeps the request order:
+ * urls[i] belongs to files[i], and is null when that file failed (see {@code failed}).
+ *
+ * In POST policy mode nothing is signed per file: one policy scoped to the property prefix is
+ * shared by the whole batch and each file only gets a photo ID and key (keys[i] for files[i]).
+ *
+ * Files carrying a SHA-256 the property already holds are not uploaded in either mode: their entry
+ * is an already uploaded photo marked {@code deduplicated} (see ContentDeduplicationService).
+ */
+@Service
+public class BatchPresignService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchPresignService.class);
+    private static final int BATCH_WRITE_SIZE = 25; // DynamoDB batch write limit
+
+    private final S3Service s3Service;
+    private final PhotoRepository photoRepository;
+    private final ContentDeduplicationService deduplicationService;
+    private final ExecutorService signExecutor;
+    private final ExecutorService writeExecutor;
+
+    public BatchPresignService(S3Service s3Service,
+                               PhotoRepository photoRepository,
+                               ContentDeduplicationService deduplicationService,
+                               @Value("${upload.batch-presign.sign-threads:16}") int signThreads,
+                               @Value("${upload.batch-presign.write-threads:8}") int writeThreads) {
+        this.s3Service = s3Service;
+        this.photoRepository = photoRepository;
+        this.deduplicationService = deduplicationService;
+        this.signExecutor = Executors.newFixedThreadPool(signThreads);
+        this.writeExecutor = Executors.newFixedThreadPool(writeThreads);
+    }
+
+    public BatchPresignedUrlResponse presignBatch(String propertyId, List<BatchPresignedUrlRequest.FileMetadata> files) {
+        int total = files.size();
+        PresignedUrlResponse[] urls = new PresignedUrlResponse[total];
+        Map<Integer, String> failures = new ConcurrentHashMap<>();
+
+        ContentDeduplicationService.Resolution resolution = deduplicationService.resolveKnownContent(propertyId, files);
+        resolution.getDuplicates().forEach((index, photo) -> urls[index] = toDeduplicatedResponse(photo));
+
+        ExecutorCompletionService<SignedFile> completionService = new ExecutorCompletionService<>(signExecutor);
+        int submitted = 0;
+        for (int i = 0; i < total; i++) {
+            if (urls[i] != null) {
+                continue;
+            }
+            final int index = i;
+            final BatchPresignedUrlRequest.FileMetadata file = files.get(i);
+            completionService.submit(() -> signFile(index, propertyId, file));
+            submitted++;
+        }
+
+        // Consume signatures in completion order and flush a write as soon as a chunk fills up
+        Queue<Photo> persisted = new ConcurrentLinkedQueue<>();
+        Consumer<SignedFile> onPersisted = done -> {
+            urls[done.index] = done.response;
+            persisted.add(done.photo);
+        };
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        List<SignedFile> chunk = new ArrayList<>(BATCH_WRITE_SIZE);
+        try {
+            for (int i = 0; i < submitted; i++) {
+                SignedFile signed = completionService.take().get();
+                if (signed.error != null) {
+                    failures.put(signed.index, signed.error);
+                    continue;
+                }
+                chunk.add(signed);
+                if (chunk.size() == BATCH_WRITE_SIZE) {
+                    writes.add(persistChunk(chunk, onPersisted, failures));
+                    chunk = new ArrayList<>(BATCH_WRITE_SIZE);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while generating presigned URLs", e);
+        } catch (ExecutionException e) {
+            // signFile never throws, so this only happens if the task itself could not run
+            throw new RuntimeException("Failed to generate presigned URLs", e.getCause());
+        }
+        if (!chunk.isEmpty()) {
+            writes.add(persistChunk(chunk, onPersisted, failures));
+        }
+
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+        deduplicationService.claim(propertyId, persisted, resolution);
+
+        BatchPresignedUrlResponse response = new BatchPresignedUrlResponse(Arrays.asList(urls), total, 0);
+        applyFailures(response, propertyId, files, failures);
+        return response;
+    }
+
+    public BatchPresignedUrlResponse presignBatchWithPolicy(String propertyId, List<BatchPresignedUrlRequest.FileMetadata> files) {
+        int total = files.size();
+        BatchPresignedUrlResponse.UploadKey[] keys = new BatchPresignedUrlResponse.UploadKey[total];
+        Map<Integer, String> failures = new ConcurrentHashMap<>();
+
+        ContentDeduplicationService.Resolution resolution = deduplicationService.resolveKnownContent(propertyId, files);
+        resolution.getDuplicates().forEach((index, photo) -> {
+            keys[index] = toUploadKey(photo);
+            keys[index].setDeduplicated(true);
+        });
+
+        // Building rows is cheap, so this runs inline; only the writes go to the pool
+        long maxFileSize = 0;
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        List<SignedFile> chunk = new ArrayList<>(BATCH_WRITE_SIZE);
+        for (int i = 0; i < total; i++) {
+            if (keys[i] != null) {
+                continue;
+            }
+            BatchPresignedUrlRequest.FileMetadata file = files.get(i);
+            try {
+                file.validateFileSize();
+                if (file.getContentType() == null || !file.getContentType().startsWith("image/")) {
+                    throw new IllegalArgumentException("POST policy uploads only accept image content types");
+                }
+            } catch (IllegalArgumentException e) {
+                failures.put(i, e.getMessage());
+                continue;
+            }
+
+            String photoId = UUID.randomUUID().toString();
+            Photo photo = buildPendingPhoto(photoId, propertyId, file,
+                    s3Service.buildObjectKey(photoId, propertyId, file.getFilename()));
+            maxFileSize = Math.max(maxFileSize, file.getFileSize());
+
+            chunk.add(new SignedFile(i, null, photo, null));
+            if (chunk.size() == BATCH_WRITE_SIZE) {
+                writes.add(persistChunk(chunk, done -> keys[done.index] = toUploadKey(done.photo), failures));
+                chunk = new ArrayList<>(BATCH_WRITE_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writes.add(persistChunk(chunk, done -> keys[done.index] = toUploadKey(done.photo), failures));
+        }
+
+        // Signed once for the whole batch while the row writes are in flight
+        PostPolicyResponse postPolicy = maxFileSize > 0 ? s3Service.generatePostPolicy(propertyId, maxFileSize) : null;
+
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+
+        BatchPresignedUrlResponse response = new BatchPresignedUrlResponse(null, total, 0);
+        response.setPostPolicy(postPolicy);
+        response.setKeys(Arrays.asList(keys));
+        applyFailures(response, propertyId, files, failures);
+        return response;
+    }
+
+    private void applyFailures(BatchPresignedUrlResponse response, String propertyId,
+                               List<BatchPresignedUrlRequest.FileMetadata> files, Map<Integer, String> failures) {
+        List<BatchPresignedUrlResponse.FailedPresign> failed = new ArrayList<>();
+        failures.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> failed.add(new BatchPresignedUrlResponse.FailedPresign(
+                        entry.getKey(), files.get(entry.getKey()).getFilename(), entry.getValue())));
+
+        if (!failed.isEmpty()) {
+            logger.warn("Batch presign for property {}: {} of {} files failed", propertyId, failed.size(), files.size());
+        }
+
+        response.setTotalGenerated(files.size() - failed.size());
+        response.setFailed(failed);
+        response.setTotalFailed(failed.size());
+    }
+
+    private static BatchPresignedUrlResponse.UploadKey toUploadKey(Photo photo) {
+        return new BatchPresignedUrlResponse.UploadKey(photo.getPhotoId(), photo.getS3Key());
+    }
+
+    private static PresignedUrlResponse toDeduplicatedResponse(Photo photo) {
+        PresignedUrlResponse response = new PresignedUrlResponse(photo.getPhotoId(), null, null, Map.of("key", photo.getS3Key()));
+        response.setDeduplicated(true);
+        return response;
+    }
+
+    private SignedFile signFile(int index, String propertyId, BatchPresignedUrlRequest.FileMetadata file) {
+        try {
+            file.validateFileSize();
+
+            String photoId = UUID.randomUUID().toString();
+            String contentHash = ContentDeduplicationService.normalize(file.getSha256());
+            PresignedUrlResponse response = s3Service.generatePresignedUrl(
+                    photoId,
+                    propertyId,
+                    file.getFilename(),
+                    file.getContentType(),
+                    file.getFileSize(),
+                    contentHash
+            );
+
+            Photo photo = buildPendingPhoto(photoId, propertyId, file, response.getFields().get("key"));
+            // S3 verifies the signed checksum, so this upload is known to have the hash
+            photo.setContentHash(contentHash);
+            return new SignedFile(index, response, photo, null);
+        } catch (IllegalArgumentException e) {
+            return new SignedFile(index, null, null, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Failed to presign file {} ({})", index, file.getFilename(), e);
+            return new SignedFile(index, null, null, "Failed to generate upload URL");
+        }
+    }
+
+    private Photo buildPendingPhoto(String photoId, String propertyId, BatchPresignedUrlRequest.FileMetadata file, String s3Key) {
+        Photo photo = new Photo();
+        photo.setPhotoId(photoId);
+        photo.setPropertyId(propertyId);
+        photo.setFilename(file.getFilename());
+        photo.setS3Key(s3Key);
+        photo.setS3Bucket(s3Service.getBucketName());
+        photo.setFileSize(file.getFileSize());
+        photo.setContentType(file.getContentType());
+        photo.setStatus("pending");
+        photo.setUploadedAt(Instant.now());
+        return photo;
+    }
+
+    /**
+     * Writes one chunk of pending photo rows. A URL or key is only handed out once its row is
+     * durable, so every file whose row wasn't written (the whole chunk, unless the write reports
+     * exactly which rows failed) becomes a per-file failure.
+     */
+    private CompletableFuture<Void> persistChunk(List<SignedFile> chunk, Consumer<SignedFile> onPersisted,
+                                                 Map<Integer, String> failures) {
+        List<Photo> photos = chunk.stream().map(signed -> signed.photo).toList();
+        return CompletableFuture.runAsync(() -> photoRepository.batchCreatePhotos(photos), writeExecutor)
+                .handle((ignored, error) -> {
+                    Set<String> failedPhotoIds = error != null && error.getCause() instanceof BatchWriteException
+                            ? new HashSet<>(((BatchWriteException) error.getCause()).getFailedKeys())
+                            : null;
+                    for (SignedFile signed : chunk) {
+                        if (error == null || (failedPhotoIds != null && !failedPhotoIds.contains(signed.photo.getPhotoId()))) {
+                            onPersisted.accept(signed);
+                        } else {
+                            failures.put(signed.index, "Failed to create photo record");
+                        }
+                    }
+                    if (error != null) {
+                        logger.error("Failed to persist {} pending photo records",
+                                failedPhotoIds != null ? failedPhotoIds.size() : chunk.size(), error);
+                    }
+                    return null;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        signExecutor.shutdown();
+        writeExecutor.shutdown();
+    }
+
+    private static class SignedFile {
+        final int index;
+        final PresignedUrlResponse response;
+        final Photo photo;
+        final String error;
+
+        SignedFile(int index, PresignedUrlResponse response, Photo photo, String error) {
+            this.index = index;
+            this.response = response;
+            this.photo = photo;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.utils.PerceptualHash;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Burkhard-Keller tree over 64-bit perceptual hashes with Hamming distance. A radius query only
+ * visits children whose edge distance lies within radius of the query's distance to the node, so
+ * it touches a small part of the tree. Not thread-safe; NearDuplicateService synchronizes.
+ */
+class BkTree {
+
+    private Node root;
+
+    void add(long hash, String photoId) {
+        if (root == null) {
+            root = new Node(hash);
+            root.photoIds.add(photoId);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = PerceptualHash.distance(hash, node.hash);
+            if (distance == 0) {
+                node.photoIds.add(photoId);
+                return;
+            }
+            if (node.children == null) {
+                node.children = new Node[Long.SIZE + 1];
+            }
+            Node child = node.children[distance];
+            if (child == null) {
+                child = new Node(hash);
+                child.photoIds.add(photoId);
+                node.children[distance] = child;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Pass every photo within {@code radius} bits of {@code hash} to {@code matches}.
+     */
+    void search(long hash, int radius, Consumer<String> matches) {
+        if (root == null) {
+            return;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = PerceptualHash.distance(hash, node.hash);
+            if (distance <= radius) {
+                node.photoIds.forEach(matches);
+            }
+            if (node.children == null) {
+                continue;
+            }
+            int from = Math.max(1, distance - radius);
+            int to = Math.min(Long.SIZE, distance + radius);
+            for (int edge = from; edge <= to; edge++) {
+                if (node.children[edge] != null) {
+                    pending.push(node.children[edge]);
+                }
+            }
+        }
+    }
+
+    private static class Node {
+        private final long hash;
+        private final List<String> photoIds = new ArrayList<>(1);
+        // Indexed by edge distance 1..64, allocated on the first child
+        private Node[] children;
+
+        private Node(long hash) {
+            this.hash = hash;
+        }
+    }
+}
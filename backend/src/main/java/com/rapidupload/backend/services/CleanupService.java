@@ -1,231 +1,226 @@
 package com.rapidupload.backend.services;
 
-import com.rapidupload.backend.models.Photo;
-import com.rapidupload.backend.models.Property;
-import com.rapidupload.backend.repositories.PhotoRepository;
-import com.rapidupload.backend.repositories.PropertyRepository;
+import com.rapidupload.backend.repositories.DynamoDbBatchWriter;
+import com.rapidupload.backend.repositories.DynamoDbRateLimiter;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.Key;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags;
-import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
-import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 import software.amazon.awssdk.services.s3.model.S3Object;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+/**
+ * Wipes all data: every S3 object in the bucket and every item of the application's DynamoDB
+ * tables, all in parallel:
+ * - S3 keys are listed a page of 1000 at a time on the calling thread, and each page is deleted
+ *   with one DeleteObjects request on the S3 pool while the next page is listed
+ * - each table is read with a parallel scan of {@code scan-segments} segments on the scan pool,
+ *   projected to its key, and deleted through DynamoDbBatchWriter (see DynamoDbTableWiper)
+ *
+ * Only one cleanup runs at a time; {@link #getProgress()} reports the counts of the running (or
+ * last) cleanup while it goes.
+ */
 @Service
 public class CleanupService {
 
     private static final Logger logger = LoggerFactory.getLogger(CleanupService.class);
-    private static final int BATCH_DELETE_SIZE = 25; // DynamoDB batch delete limit
 
-    private final PropertyRepository propertyRepository;
-    private final PhotoRepository photoRepository;
+    private final S3Service s3Service;
     private final S3Client s3Client;
-    private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbTableWiper tableWiper;
     private final String bucketName;
     private final String photosTableName;
     private final String propertiesTableName;
+    private final String analysisTableName;
+    private final List<String> tableNames;
+    private final int scanSegments;
+    private final ExecutorService scanWorkers;
+    private final ExecutorService s3Workers;
+    // Pages of S3 keys listed but not yet deleted; bounds the listing's lead
+    private final Semaphore s3PagesInFlight;
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Null until the first cleanup
+    private volatile Progress progress;
 
     public CleanupService(
-            PropertyRepository propertyRepository,
-            PhotoRepository photoRepository,
+            S3Service s3Service,
             S3Client s3Client,
-            DynamoDbEnhancedClient enhancedClient,
+            DynamoDbClient dynamoDbClient,
+            DynamoDbBatchWriter batchWriter,
+            DynamoDbRateLimiter rateLimiter,
             @Value("${aws.s3.bucket-name}") String bucketName,
             @Value("${aws.dynamodb.tables.photos}") String photosTableName,
-            @Value("${aws.dynamodb.tables.properties}") String propertiesTableName) {
-        this.propertyRepository = propertyRepository;
-        this.photoRepository = photoRepository;
+            @Value("${aws.dynamodb.tables.properties}") String propertiesTableName,
+            @Value("${aws.dynamodb.tables.analysis:Analysis}") String analysisTableName,
+            @Value("${aws.dynamodb.tables.content-hashes:ContentHashes}") String contentHashesTableName,
+            @Value("${aws.dynamodb.tables.report-jobs:ReportJobs}") String reportJobsTableName,
+            @Value("${cleanup.scan-threads:16}") int scanThreads,
+            @Value("${cleanup.scan-segments:8}") int scanSegments,
+            @Value("${cleanup.s3-delete-threads:8}") int s3DeleteThreads) {
+        this.s3Service = s3Service;
         this.s3Client = s3Client;
-        this.enhancedClient = enhancedClient;
+        this.tableWiper = new DynamoDbTableWiper(dynamoDbClient, batchWriter, rateLimiter);
         this.bucketName = bucketName;
         this.photosTableName = photosTableName;
         this.propertiesTableName = propertiesTableName;
+        this.analysisTableName = analysisTableName;
+        this.tableNames = List.of(propertiesTableName, photosTableName, analysisTableName,
+                contentHashesTableName, reportJobsTableName);
+        this.scanSegments = scanSegments;
+        this.scanWorkers = Executors.newFixedThreadPool(scanThreads);
+        this.s3Workers = Executors.newFixedThreadPool(s3DeleteThreads);
+        this.s3PagesInFlight = new Semaphore(s3DeleteThreads * 2);
     }
 
     /**
-     * Clears all data: deletes all photos from S3, then deletes all items from DynamoDB tables
+     * Clears all data: deletes all objects from S3 and all items from the DynamoDB tables
      */
     public CleanupResult clearAllData() {
-        logger.warn("Starting complete data cleanup - this will delete ALL data");
-        
         CleanupResult result = new CleanupResult();
-        
+        if (!running.compareAndSet(false, true)) {
+            result.success = false;
+            result.message = "A cleanup is already running";
+            return result;
+        }
+
+        logger.warn("Starting complete data cleanup - this will delete ALL data");
+        Progress current = new Progress();
+        progress = current;
+        long start = System.currentTimeMillis();
+
         try {
-            // Step 1: Delete all S3 objects
-            result.s3ObjectsDeleted = deleteAllS3Objects();
-            
-            // Step 2: Delete all photos from DynamoDB
-            result.photosDeleted = deleteAllPhotos();
-            
-            // Step 3: Delete all properties from DynamoDB
-            result.propertiesDeleted = deleteAllProperties();
-            
-            logger.info("Data cleanup completed: {} S3 objects, {} photos, {} properties deleted",
-                    result.s3ObjectsDeleted, result.photosDeleted, result.propertiesDeleted);
-            
-            result.success = true;
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            for (String tableName : tableNames) {
+                AtomicLong deleted = current.itemsDeleted.get(tableName);
+                for (int segment = 0; segment < scanSegments; segment++) {
+                    int scanSegment = segment;
+                    tasks.add(CompletableFuture.runAsync(() -> tableWiper.wipeSegment(
+                            tableName, scanSegment, scanSegments, deleted, current.itemsFailed), scanWorkers));
+                }
+            }
+            deleteAllS3Objects(current);
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+
+            result.s3ObjectsDeleted = (int) current.s3ObjectsDeleted.get();
+            result.photosDeleted = (int) current.itemsDeleted.get(photosTableName).get();
+            result.propertiesDeleted = (int) current.itemsDeleted.get(propertiesTableName).get();
+            result.analysesDeleted = (int) current.itemsDeleted.get(analysisTableName).get();
+            result.itemsDeleted = current.itemsDeletedSnapshot();
+            result.itemsFailed = current.itemsFailed.get();
+            result.success = current.itemsFailed.get() == 0;
             result.message = String.format(
-                    "Successfully deleted %d S3 objects, %d photos, and %d properties",
-                    result.s3ObjectsDeleted, result.photosDeleted, result.propertiesDeleted);
-            
+                    "Deleted %d S3 objects, %d photos, %d properties and %d analyses in %d ms%s",
+                    result.s3ObjectsDeleted, result.photosDeleted, result.propertiesDeleted, result.analysesDeleted,
+                    System.currentTimeMillis() - start,
+                    result.itemsFailed > 0 ? "; " + result.itemsFailed + " items could not be deleted" : "");
+            logger.info("Data cleanup completed: {}", result.message);
         } catch (Exception e) {
             logger.error("Error during data cleanup", e);
             result.success = false;
-            result.message = "Error during cleanup: " + e.getMessage();
+            result.message = "Error during cleanup: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        } finally {
+            current.finishedAt = Instant.now().toString();
+            running.set(false);
         }
-        
+
         return result;
     }
 
-    private int deleteAllS3Objects() {
+    /**
+     * Counts of the running cleanup, or of the last one.
+     */
+    public Map<String, Object> getProgress() {
+        Progress current = progress;
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("running", running.get());
+        if (current == null) {
+            return snapshot;
+        }
+        snapshot.put("startedAt", current.startedAt);
+        snapshot.put("finishedAt", current.finishedAt);
+        snapshot.put("s3ObjectsDeleted", current.s3ObjectsDeleted.get());
+        snapshot.put("itemsDeleted", current.itemsDeletedSnapshot());
+        snapshot.put("itemsFailed", current.itemsFailed.get());
+        return snapshot;
+    }
+
+    /**
+     * List the bucket a page at a time and hand each page to a worker for one DeleteObjects call.
+     */
+    private void deleteAllS3Objects(Progress current) {
         logger.info("Deleting all objects from S3 bucket: {}", bucketName);
-        int deletedCount = 0;
-        
-        try {
-            String continuationToken = null;
-            do {
-                ListObjectsV2Request.Builder requestBuilder = ListObjectsV2Request.builder()
-                        .bucket(bucketName);
-                
-                if (continuationToken != null) {
-                    requestBuilder.continuationToken(continuationToken);
-                }
-                
-                var response = s3Client.listObjectsV2(requestBuilder.build());
-                
-                if (response.contents() != null && !response.contents().isEmpty()) {
-                    // Delete objects one by one
-                    for (S3Object s3Object : response.contents()) {
-                        try {
-                            DeleteObjectRequest deleteRequest = DeleteObjectRequest.builder()
-                                    .bucket(bucketName)
-                                    .key(s3Object.key())
-                                    .build();
-                            s3Client.deleteObject(deleteRequest);
-                            deletedCount++;
-                        } catch (Exception e) {
-                            logger.warn("Failed to delete S3 object: {}", s3Object.key(), e);
-                            // Continue with other objects
-                        }
-                    }
-                    logger.debug("Deleted {} objects from S3 (total: {})", response.contents().size(), deletedCount);
+        List<CompletableFuture<Void>> deletes = new ArrayList<>();
+        for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .build())) {
+            List<String> keys = page.contents().stream().map(S3Object::key).collect(Collectors.toList());
+            if (keys.isEmpty()) {
+                continue;
+            }
+            try {
+                s3PagesInFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("S3 cleanup interrupted", e);
+            }
+            deletes.add(CompletableFuture.runAsync(() -> {
+                try {
+                    current.s3ObjectsDeleted.addAndGet(s3Service.deleteObjects(keys));
+                } finally {
+                    s3PagesInFlight.release();
                 }
-                
-                continuationToken = response.nextContinuationToken();
-            } while (continuationToken != null);
-            
-            logger.info("Deleted {} objects from S3 bucket", deletedCount);
-        } catch (Exception e) {
-            logger.error("Error deleting S3 objects", e);
-            throw new RuntimeException("Failed to delete S3 objects", e);
+            }, s3Workers));
         }
-        
-        return deletedCount;
+        CompletableFuture.allOf(deletes.toArray(new CompletableFuture[0])).join();
+        logger.info("Deleted {} objects from S3 bucket", current.s3ObjectsDeleted.get());
     }
 
-    private int deleteAllPhotos() {
-        logger.info("Deleting all photos from DynamoDB table: {}", photosTableName);
-        int deletedCount = 0;
-        
+    @PreDestroy
+    public void shutdown() {
+        scanWorkers.shutdownNow();
+        s3Workers.shutdownNow();
         try {
-            DynamoDbTable<Photo> photoTable = enhancedClient.table(photosTableName, TableSchema.fromBean(Photo.class));
-            
-            // Scan and delete all photos
-            ScanEnhancedRequest scanRequest = ScanEnhancedRequest.builder().build();
-            var scanResult = photoTable.scan(scanRequest);
-            
-            // Process all pages
-            for (var page : scanResult) {
-                List<Photo> photos = page.items().stream().collect(Collectors.toList());
-                
-                if (!photos.isEmpty()) {
-                    // Delete photos one by one (DynamoDB batch delete would require WriteBatch)
-                    for (Photo photo : photos) {
-                        Key key = Key.builder()
-                                .partitionValue(photo.getPhotoId())
-                                .build();
-                        photoTable.deleteItem(key);
-                        deletedCount++;
-                    }
-                    logger.debug("Deleted {} photos (total: {})", photos.size(), deletedCount);
-                }
-            }
-            
-            logger.info("Deleted {} photos from DynamoDB", deletedCount);
-        } catch (Exception e) {
-            logger.error("Error deleting photos from DynamoDB", e);
-            throw new RuntimeException("Failed to delete photos", e);
+            scanWorkers.awaitTermination(5, TimeUnit.SECONDS);
+            s3Workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        
-        return deletedCount;
     }
 
-    private int deleteAllProperties() {
-        logger.info("Deleting all properties from DynamoDB table: {}", propertiesTableName);
-        int deletedCount = 0;
-        
-        try {
-            // Use the same table schema as PropertyRepository
-            TableSchema<Property> propertyTableSchema =
-                    StaticTableSchema.builder(Property.class)
-                            .newItemSupplier(Property::new)
-                            .addAttribute(String.class, a -> a.name("PropertyID")
-                                    .getter(Property::getPropertyId)
-                                    .setter(Property::setPropertyId)
-                                    .tags(StaticAttributeTags.primaryPartitionKey()))
-                            .addAttribute(String.class, a -> a.name("Name")
-                                    .getter(Property::getName)
-                                    .setter(Property::setName))
-                            .addAttribute(String.class, a -> a.name("CreatedAt")
-                                    .getter(Property::getCreatedAt)
-                                    .setter(Property::setCreatedAt))
-                            .addAttribute(Integer.class, a -> a.name("PhotoCount")
-                                    .getter(Property::getPhotoCount)
-                                    .setter(Property::setPhotoCount))
-                            .build();
-            
-            DynamoDbTable<Property> propertyTable = enhancedClient.table(propertiesTableName, propertyTableSchema);
-            
-            // Scan and delete all properties with pagination (handles all pages, not just first page)
-            ScanEnhancedRequest scanRequest = ScanEnhancedRequest.builder().build();
-            var scanResult = propertyTable.scan(scanRequest);
-            
-            // Process all pages
-            for (var page : scanResult) {
-                List<Property> properties = page.items().stream().collect(Collectors.toList());
-                
-                if (!properties.isEmpty()) {
-                    // Delete properties one by one
-                    for (Property property : properties) {
-                        Key key = Key.builder()
-                                .partitionValue(property.getPropertyId())
-                                .build();
-                        propertyTable.deleteItem(key);
-                        deletedCount++;
-                    }
-                    logger.debug("Deleted {} properties (total: {})", properties.size(), deletedCount);
-                }
-            }
-            
-            logger.info("Deleted {} properties from DynamoDB", deletedCount);
-        } catch (Exception e) {
-            logger.error("Error deleting properties from DynamoDB", e);
-            throw new RuntimeException("Failed to delete properties", e);
+    private class Progress {
+        private final String startedAt = Instant.now().toString();
+        private volatile String finishedAt;
+        private final AtomicLong s3ObjectsDeleted = new AtomicLong();
+        private final Map<String, AtomicLong> itemsDeleted = new LinkedHashMap<>();
+        private final AtomicLong itemsFailed = new AtomicLong();
+
+        private Progress() {
+            tableNames.forEach(tableName -> itemsDeleted.put(tableName, new AtomicLong()));
+        }
+
+        private Map<String, Long> itemsDeletedSnapshot() {
+            Map<String, Long> snapshot = new LinkedHashMap<>();
+            itemsDeleted.forEach((tableName, count) -> snapshot.put(tableName, count.get()));
+            return snapshot;
         }
-        
-        return deletedCount;
     }
 
     public static class CleanupResult {
@@ -234,6 +229,8 @@ public class CleanupService {
         public int s3ObjectsDeleted;
         public int photosDeleted;
         public int propertiesDeleted;
+        public int analysesDeleted;
+        public Map<String, Long> itemsDeleted;
+        public long itemsFailed;
     }
 }
-
@@ -0,0 +1,240 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.dto.BatchPresignedUrlRequest;
+import com.rapidupload.backend.exceptions.BatchWriteException;
+import com.rapidupload.backend.models.ContentHash;
+import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.repositories.ContentHashRepository;
+import com.rapidupload.backend.repositories.PhotoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Upload deduplication by client-supplied SHA-256. Files whose content the property already holds
+ * become logical photos pointing at the existing S3 object instead of being uploaded again; the
+ * object is shared by reference count and deleted with its last photo.
+ *
+ * Only presigned PUT uploads become the holder of a hash, because their URL signs the checksum and
+ * S3 verifies it; POST policy uploads can reuse known content but never register it.
+ */
+@Service
+public class ContentDeduplicationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentDeduplicationService.class);
+
+    private final ContentHashRepository contentHashRepository;
+    private final PhotoRepository photoRepository;
+    private final PhotoCountAccumulator photoCountAccumulator;
+    private final NearDuplicateService nearDuplicateService;
+    private final RenditionService renditionService;
+    private final String bucketName;
+    private final Duration claimTtl;
+
+    public ContentDeduplicationService(ContentHashRepository contentHashRepository,
+                                       PhotoRepository photoRepository,
+                                       PhotoCountAccumulator photoCountAccumulator,
+                                       NearDuplicateService nearDuplicateService,
+                                       RenditionService renditionService,
+                                       @Value("${aws.s3.bucket-name}") String bucketName,
+                                       @Value("${upload.dedup.claim-ttl-minutes:60}") long claimTtlMinutes) {
+        this.contentHashRepository = contentHashRepository;
+        this.photoRepository = photoRepository;
+        this.photoCountAccumulator = photoCountAccumulator;
+        this.nearDuplicateService = nearDuplicateService;
+        this.renditionService = renditionService;
+        this.bucketName = bucketName;
+        this.claimTtl = Duration.ofMinutes(claimTtlMinutes);
+    }
+
+    /**
+     * Create uploaded photos for the files whose content the property already holds, counted towards
+     * PhotoCount. Never throws: on error the files are simply uploaded as usual.
+     * @return which files were deduplicated, and which hash entries may be taken over by new uploads
+     */
+    public Resolution resolveKnownContent(String propertyId, List<BatchPresignedUrlRequest.FileMetadata> files) {
+        Resolution resolution = new Resolution();
+        Map<String, List<Integer>> indexesByHash = new LinkedHashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            String hash = normalize(files.get(i).getSha256());
+            if (hash != null) {
+                indexesByHash.computeIfAbsent(hash, h -> new ArrayList<>()).add(i);
+            }
+        }
+        if (indexesByHash.isEmpty()) {
+            return resolution;
+        }
+
+        try {
+            Map<String, ContentHash> entries = contentHashRepository.batchGet(propertyId, indexesByHash.keySet());
+            Map<String, Photo> holders = photoRepository.batchGetPhotos(entries.values().stream()
+                    .map(ContentHash::getPhotoId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .collect(Collectors.toList()));
+
+            List<Photo> duplicates = new ArrayList<>();
+            Map<Integer, Photo> byIndex = new HashMap<>();
+            Instant staleBefore = Instant.now().minus(claimTtl);
+            for (ContentHash entry : entries.values()) {
+                Photo holder = holders.get(entry.getPhotoId());
+                if (holder != null && "pending".equals(holder.getStatus())) {
+                    // Upload still in flight, or abandoned long enough ago that a new upload may take over
+                    if (holder.getUploadedAt() != null && Instant.parse(holder.getUploadedAt()).isBefore(staleBefore)) {
+                        resolution.staleHolders.put(entry.getContentHash(), holder.getPhotoId());
+                    }
+                    continue;
+                }
+                // A deleted holder leaves the object to the photos still referencing it
+                boolean stored = holder != null ? "uploaded".equals(holder.getStatus()) : entry.getRefCount() > 0;
+                if (!stored) {
+                    continue;
+                }
+
+                List<Integer> indexes = indexesByHash.get(entry.getContentHash());
+                if (!contentHashRepository.addReferences(propertyId, entry.getContentHash(), indexes.size())) {
+                    continue;
+                }
+                for (int index : indexes) {
+                    Photo photo = buildLogicalPhoto(propertyId, files.get(index), entry);
+                    duplicates.add(photo);
+                    byIndex.put(index, photo);
+                }
+            }
+
+            if (!duplicates.isEmpty()) {
+                Set<String> unwritten = photoCountAccumulator.track(Set.of(propertyId), () -> {
+                    try {
+                        photoRepository.batchCreatePhotos(duplicates);
+                        return Set.<String>of();
+                    } catch (BatchWriteException e) {
+                        return new HashSet<>(e.getFailedKeys());
+                    }
+                }, failed -> Map.of(propertyId, duplicates.size() - failed.size()));
+                // Files whose row couldn't be written are uploaded like any other
+                duplicates.removeIf(photo -> unwritten.contains(photo.getPhotoId()));
+                byIndex.values().removeIf(photo -> unwritten.contains(photo.getPhotoId()));
+                resolution.duplicates.putAll(byIndex);
+                nearDuplicateService.ingest(duplicates);
+                renditionService.generate(duplicates);
+                logger.info("Deduplicated {} of {} files for property {}", duplicates.size(), files.size(), propertyId);
+            }
+        } catch (Exception e) {
+            // References added for photos that weren't written only keep an object alive longer
+            logger.error("Content deduplication failed for property {}, uploading all files", propertyId, e);
+            resolution.duplicates.clear();
+        }
+        return resolution;
+    }
+
+    /**
+     * Register freshly presigned uploads as holders of their content: the first photo per hash that
+     * isn't held yet, or whose holder went stale.
+     */
+    public void claim(String propertyId, Collection<Photo> pendingPhotos, Resolution resolution) {
+        Set<String> claimed = new LinkedHashSet<>();
+        for (Photo photo : pendingPhotos) {
+            String hash = photo.getContentHash();
+            if (hash == null || !claimed.add(hash)) {
+                continue;
+            }
+            ContentHash entry = new ContentHash();
+            entry.setPropertyId(propertyId);
+            entry.setContentHash(hash);
+            entry.setPhotoId(photo.getPhotoId());
+            entry.setS3Key(photo.getS3Key());
+            entry.setFileSize(photo.getFileSize());
+            entry.setContentType(photo.getContentType());
+            try {
+                contentHashRepository.claim(entry, resolution.staleHolders.get(hash));
+            } catch (Exception e) {
+                logger.warn("Failed to register content hash for photo {}: {}", photo.getPhotoId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Drop the photos' references to shared objects.
+     * @return the S3 keys no other photo references any more, safe to delete
+     */
+    public List<String> releaseObjects(Collection<Photo> photos) {
+        Set<String> deletable = new LinkedHashSet<>();
+        Set<String> shared = new LinkedHashSet<>();
+        for (Photo photo : photos) {
+            if (photo.getS3Key() == null) {
+                continue;
+            }
+            if (photo.getContentHash() == null || photo.getPropertyId() == null) {
+                deletable.add(photo.getS3Key());
+                continue;
+            }
+            long remaining = contentHashRepository.release(photo.getPropertyId(), photo.getContentHash(), photo.getS3Key());
+            if (remaining > 0) {
+                shared.add(photo.getS3Key());
+            } else {
+                deletable.add(photo.getS3Key());
+            }
+        }
+        // Photos released in the same call may hold the same object; the last release decides
+        shared.removeAll(deletable);
+        if (!shared.isEmpty()) {
+            logger.info("Keeping {} S3 objects still referenced by other photos", shared.size());
+        }
+        return new ArrayList<>(deletable);
+    }
+
+    public void deleteProperty(String propertyId) {
+        contentHashRepository.deleteByProperty(propertyId);
+    }
+
+    /**
+     * Lowercase hex hash, or null when the file didn't carry one.
+     */
+    static String normalize(String sha256) {
+        return sha256 != null ? sha256.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private Photo buildLogicalPhoto(String propertyId, BatchPresignedUrlRequest.FileMetadata file, ContentHash entry) {
+        Photo photo = new Photo();
+        photo.setPhotoId(UUID.randomUUID().toString());
+        photo.setPropertyId(propertyId);
+        photo.setFilename(file.getFilename());
+        photo.setS3Key(entry.getS3Key());
+        photo.setS3Bucket(bucketName);
+        photo.setFileSize(entry.getFileSize() != null ? entry.getFileSize() : file.getFileSize());
+        photo.setContentType(entry.getContentType() != null ? entry.getContentType() : file.getContentType());
+        photo.setStatus("uploaded");
+        photo.setUploadedAt(Instant.now());
+        photo.setContentHash(entry.getContentHash());
+        return photo;
+    }
+
+    public static class Resolution {
+        private final Map<Integer, Photo> duplicates = new HashMap<>();
+        private final Map<String, String> staleHolders = new HashMap<>();
+
+        /**
+         * File index to the uploaded photo created for it.
+         */
+        public Map<Integer, Photo> getDuplicates() {
+            return duplicates;
+        }
+    }
+}
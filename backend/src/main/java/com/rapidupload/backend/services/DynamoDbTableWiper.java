@@ -0,0 +1,91 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.repositories.DynamoDbBatchWriter;
+import com.rapidupload.backend.repositories.DynamoDbRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes every item of a table, one parallel-scan segment per call. The scan reads only key
+ * attributes, and each page is handed to DynamoDbBatchWriter; items it still couldn't delete after
+ * its last attempt are counted as failed. Scans go through the table's DynamoDbRateLimiter read
+ * bucket, which paces them and retries them when throttled. Thread-safe; CleanupService runs segments in parallel.
+ */
+class DynamoDbTableWiper {
+
+    private static final Logger logger = LoggerFactory.getLogger(DynamoDbTableWiper.class);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbBatchWriter batchWriter;
+    private final DynamoDbRateLimiter rateLimiter;
+    private final Map<String, List<String>> keyAttributes = new ConcurrentHashMap<>();
+
+    DynamoDbTableWiper(DynamoDbClient dynamoDbClient, DynamoDbBatchWriter batchWriter, DynamoDbRateLimiter rateLimiter) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.batchWriter = batchWriter;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Delete the items of one scan segment of a table. A table that doesn't exist is skipped.
+     */
+    void wipeSegment(String tableName, int segment, int totalSegments, AtomicLong deleted, AtomicLong failed) {
+        List<String> keys;
+        try {
+            keys = keyAttributes.computeIfAbsent(tableName, this::describeKey);
+        } catch (ResourceNotFoundException e) {
+            logger.info("Table {} doesn't exist, nothing to delete", tableName);
+            return;
+        }
+
+        // Key names may be reserved words
+        Map<String, String> names = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            names.put("#k" + i, keys.get(i));
+        }
+
+        Map<String, AttributeValue> lastKey = null;
+        do {
+            ScanRequest.Builder scan = ScanRequest.builder()
+                    .tableName(tableName)
+                    .segment(segment)
+                    .totalSegments(totalSegments)
+                    .projectionExpression(String.join(", ", names.keySet()))
+                    .expressionAttributeNames(names);
+            if (lastKey != null) {
+                scan.exclusiveStartKey(lastKey);
+            }
+            ScanResponse page = rateLimiter.read(tableName, "scan", () -> dynamoDbClient.scan(scan.build()));
+
+            DynamoDbBatchWriter.Outcome outcome = batchWriter.write(tableName, page.items().stream()
+                    .map(DynamoDbBatchWriter::delete)
+                    .collect(Collectors.toList()));
+            deleted.addAndGet(outcome.getWritten());
+            failed.addAndGet(outcome.getFailed().size());
+            lastKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty() ? page.lastEvaluatedKey() : null;
+        } while (lastKey != null);
+
+        logger.debug("Wiped segment {}/{} of {}", segment + 1, totalSegments, tableName);
+    }
+
+    private List<String> describeKey(String tableName) {
+        return dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(tableName).build())
+                .table().keySchema().stream()
+                .map(KeySchemaElement::attributeName)
+                .collect(Collectors.toList());
+    }
+}
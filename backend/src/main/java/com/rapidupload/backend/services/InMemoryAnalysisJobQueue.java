@@ -0,0 +1,186 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.models.AnalysisJob;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedded AnalysisJobQueue. Interactive jobs go to a priority lane that is always served first;
+ * batch jobs are kept in one FIFO lane per property and served round-robin, so a property with a
+ * thousand queued photos gets the same dispatch share as one with ten. Delayed retries wait in a
+ * heap until they are due and then rejoin their property's lane.
+ */
+@Component
+public class InMemoryAnalysisJobQueue implements AnalysisJobQueue {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<AnalysisJob> interactive = new ArrayDeque<>();
+    private final Map<String, Deque<AnalysisJob>> lanes = new HashMap<>();
+    private final Deque<String> rotation = new ArrayDeque<>();
+    private final PriorityQueue<DelayedJob> delayed = new PriorityQueue<>((a, b) -> Long.compare(a.readyAt, b.readyAt));
+    private final Set<String> queuedIds = new HashSet<>();
+
+    @Override
+    public boolean offer(AnalysisJob job, boolean interactiveJob) {
+        lock.lock();
+        try {
+            if (!queuedIds.add(job.getAnalysisId())) {
+                return false;
+            }
+            if (interactiveJob) {
+                interactive.addLast(job);
+            } else {
+                addToLane(job);
+            }
+            available.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void offerDelayed(AnalysisJob job, long delayMs) {
+        lock.lock();
+        try {
+            queuedIds.add(job.getAnalysisId());
+            delayed.add(new DelayedJob(job, System.currentTimeMillis() + delayMs));
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public AnalysisJob take(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                promoteDueRetries();
+                AnalysisJob job = poll();
+                if (job != null) {
+                    queuedIds.remove(job.getAnalysisId());
+                    return job;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                if (!delayed.isEmpty()) {
+                    long untilDue = TimeUnit.MILLISECONDS.toNanos(Math.max(1, delayed.peek().readyAt - System.currentTimeMillis()));
+                    remaining = Math.min(remaining, untilDue);
+                }
+                available.awaitNanos(remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<AnalysisJob> takeSameProperty(String propertyId, int maxJobs, long maxBytes) {
+        lock.lock();
+        try {
+            List<AnalysisJob> jobs = new ArrayList<>();
+            Deque<AnalysisJob> lane = lanes.get(propertyId);
+            long bytes = 0;
+            while (lane != null && !lane.isEmpty() && jobs.size() < maxJobs) {
+                long size = lane.peekFirst().getFileSize() != null ? lane.peekFirst().getFileSize() : 0;
+                if (bytes + size > maxBytes) {
+                    break;
+                }
+                bytes += size;
+                AnalysisJob job = lane.pollFirst();
+                queuedIds.remove(job.getAnalysisId());
+                jobs.add(job);
+            }
+            if (lane != null && lane.isEmpty()) {
+                lanes.remove(propertyId);
+                rotation.remove(propertyId);
+            }
+            return jobs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(String analysisId) {
+        lock.lock();
+        try {
+            return queuedIds.contains(analysisId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return queuedIds.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private AnalysisJob poll() {
+        if (!interactive.isEmpty()) {
+            return interactive.pollFirst();
+        }
+        String propertyId = rotation.pollFirst();
+        if (propertyId == null) {
+            return null;
+        }
+        Deque<AnalysisJob> lane = lanes.get(propertyId);
+        AnalysisJob job = lane.pollFirst();
+        if (lane.isEmpty()) {
+            lanes.remove(propertyId);
+        } else {
+            rotation.addLast(propertyId);
+        }
+        return job;
+    }
+
+    private void promoteDueRetries() {
+        long now = System.currentTimeMillis();
+        while (!delayed.isEmpty() && delayed.peek().readyAt <= now) {
+            addToLane(delayed.poll().job);
+        }
+    }
+
+    private void addToLane(AnalysisJob job) {
+        Deque<AnalysisJob> lane = lanes.get(job.getPropertyId());
+        if (lane == null) {
+            lane = new ArrayDeque<>();
+            lanes.put(job.getPropertyId(), lane);
+            rotation.addLast(job.getPropertyId());
+        }
+        lane.addLast(job);
+    }
+
+    private static class DelayedJob {
+        private final AnalysisJob job;
+        private final long readyAt;
+
+        private DelayedJob(AnalysisJob job, long readyAt) {
+            this.job = job;
+            this.readyAt = readyAt;
+        }
+    }
+}
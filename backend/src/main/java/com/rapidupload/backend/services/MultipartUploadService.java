@@ -0,0 +1,178 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.dto.CompleteMultipartUploadRequest;
+import com.rapidupload.backend.dto.ConfirmUploadResponse;
+import com.rapidupload.backend.dto.InitiateMultipartUploadRequest;
+import com.rapidupload.backend.dto.InitiateMultipartUploadResponse;
+import com.rapidupload.backend.dto.PresignPartsResponse;
+import com.rapidupload.backend.exceptions.PhotoAlreadyConfirmedException;
+import com.rapidupload.backend.exceptions.S3UploadFailedException;
+import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.repositories.PhotoRepository;
+import com.rapidupload.backend.repositories.PropertyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Multipart upload sessions for large photos and video.
+ *
+ * The client initiates a session, asks for presigned URLs for any subset of parts (so failed
+ * parts can be retried on their own), uploads the parts in parallel and then completes the
+ * session with the part ETags. Completion hands off to the same pending -> uploaded transition
+ * as a single-shot upload via {@link PhotoService#confirmUploadStatus}.
+ */
+@Service
+public class MultipartUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultipartUploadService.class);
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024; // S3 minimum for all but the last part
+    private static final int MAX_PARTS = 10000; // S3 limit per upload
+
+    private final S3Service s3Service;
+    private final PhotoService photoService;
+    private final PhotoRepository photoRepository;
+    private final PropertyRepository propertyRepository;
+    private final long partSize;
+    private final long maxFileSize;
+    private final Duration partUrlExpiration;
+
+    public MultipartUploadService(S3Service s3Service,
+                                  PhotoService photoService,
+                                  PhotoRepository photoRepository,
+                                  PropertyRepository propertyRepository,
+                                  @Value("${upload.multipart.part-size:16777216}") long partSize,
+                                  @Value("${upload.multipart.max-file-size:5368709120}") long maxFileSize,
+                                  @Value("${upload.multipart.part-url-expiration-minutes:60}") int partUrlExpirationMinutes) {
+        this.s3Service = s3Service;
+        this.photoService = photoService;
+        this.photoRepository = photoRepository;
+        this.propertyRepository = propertyRepository;
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+        this.maxFileSize = maxFileSize;
+        this.partUrlExpiration = Duration.ofMinutes(partUrlExpirationMinutes);
+    }
+
+    public InitiateMultipartUploadResponse initiate(InitiateMultipartUploadRequest request) {
+        if (request.getFileSize() > maxFileSize) {
+            throw new IllegalArgumentException("File size cannot exceed " + (maxFileSize / (1024 * 1024)) + "MB");
+        }
+
+        // Verify property exists
+        propertyRepository.getProperty(request.getPropertyId());
+
+        // Grow the part size for very large files so the upload stays within the S3 part limit
+        long effectivePartSize = Math.max(partSize, (request.getFileSize() + MAX_PARTS - 1) / MAX_PARTS);
+        int partCount = (int) ((request.getFileSize() + effectivePartSize - 1) / effectivePartSize);
+
+        String photoId = UUID.randomUUID().toString();
+        String s3Key = s3Service.buildObjectKey(photoId, request.getPropertyId(), request.getFilename());
+        String uploadId = s3Service.createMultipartUpload(s3Key, request.getContentType());
+
+        Photo photo = new Photo();
+        photo.setPhotoId(photoId);
+        photo.setPropertyId(request.getPropertyId());
+        photo.setFilename(request.getFilename());
+        photo.setS3Key(s3Key);
+        photo.setS3Bucket(s3Service.getBucketName());
+        photo.setFileSize(request.getFileSize());
+        photo.setContentType(request.getContentType());
+        photo.setStatus("pending");
+        photo.setUploadedAt(Instant.now());
+        photo.setUploadId(uploadId);
+
+        try {
+            photoRepository.createPhoto(photo);
+        } catch (RuntimeException e) {
+            s3Service.abortMultipartUpload(s3Key, uploadId);
+            throw e;
+        }
+
+        logger.info("Initiated multipart upload for photoId: {} ({} parts of {} bytes)", photoId, partCount, effectivePartSize);
+        return new InitiateMultipartUploadResponse(photoId, uploadId, s3Key, effectivePartSize, partCount);
+    }
+
+    public PresignPartsResponse presignParts(String photoId, String uploadId, List<Integer> partNumbers) {
+        Photo photo = getPendingUpload(photoId, uploadId);
+
+        List<PresignPartsResponse.PartUrl> parts = new ArrayList<>();
+        for (Integer partNumber : partNumbers) {
+            if (partNumber == null || partNumber < 1 || partNumber > MAX_PARTS) {
+                throw new IllegalArgumentException("Part number must be between 1 and " + MAX_PARTS);
+            }
+            String url = s3Service.presignUploadPart(photo.getS3Key(), uploadId, partNumber, partUrlExpiration);
+            parts.add(new PresignPartsResponse.PartUrl(partNumber, url));
+        }
+
+        logger.debug("Presigned {} parts for photoId: {}", parts.size(), photoId);
+        return new PresignPartsResponse(photoId, uploadId, (int) partUrlExpiration.getSeconds(), parts);
+    }
+
+    public ConfirmUploadResponse complete(String photoId, CompleteMultipartUploadRequest request) {
+        Photo photo = photoRepository.getPhoto(photoId);
+
+        if (!request.getPropertyId().equals(photo.getPropertyId())) {
+            throw new IllegalArgumentException("Property ID mismatch: expected " + photo.getPropertyId() + ", got " + request.getPropertyId());
+        }
+
+        // A retried complete after a successful one is answered by the idempotent confirm path
+        if (!"uploaded".equals(photo.getStatus())) {
+            getPendingUpload(photo, request.getUploadId());
+
+            Map<Integer, String> partETags = new TreeMap<>();
+            for (CompleteMultipartUploadRequest.UploadedPart part : request.getParts()) {
+                if (partETags.put(part.getPartNumber(), part.getEtag()) != null) {
+                    throw new IllegalArgumentException("Duplicate part number: " + part.getPartNumber());
+                }
+            }
+
+            try {
+                s3Service.completeMultipartUpload(photo.getS3Key(), request.getUploadId(), partETags);
+            } catch (NoSuchUploadException e) {
+                throw new IllegalArgumentException("Multipart upload not found or already completed: " + request.getUploadId(), e);
+            } catch (S3Exception e) {
+                if (e.statusCode() == 400) {
+                    // InvalidPart, InvalidPartOrder, EntityTooSmall - the client can fix and retry
+                    throw new IllegalArgumentException("Invalid multipart upload parts: " + e.awsErrorDetails().errorMessage(), e);
+                }
+                throw new S3UploadFailedException("Failed to complete multipart upload: " + photoId, e);
+            }
+        }
+
+        return photoService.confirmUploadStatus(photoId, photo.getPropertyId(), photo.getS3Key());
+    }
+
+    public void abort(String photoId, String uploadId) {
+        Photo photo = getPendingUpload(photoId, uploadId);
+
+        s3Service.abortMultipartUpload(photo.getS3Key(), uploadId);
+        photoRepository.deletePhoto(photoId);
+
+        logger.info("Aborted multipart upload for photoId: {}", photoId);
+    }
+
+    private Photo getPendingUpload(String photoId, String uploadId) {
+        return getPendingUpload(photoRepository.getPhoto(photoId), uploadId);
+    }
+
+    private Photo getPendingUpload(Photo photo, String uploadId) {
+        if (!"pending".equals(photo.getStatus())) {
+            throw new PhotoAlreadyConfirmedException(photo.getPhotoId());
+        }
+        if (photo.getUploadId() == null || !photo.getUploadId().equals(uploadId)) {
+            throw new IllegalArgumentException("Upload ID does not match photo: " + photo.getPhotoId());
+        }
+        return photo;
+    }
+}
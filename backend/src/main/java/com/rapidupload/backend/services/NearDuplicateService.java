@@ -0,0 +1,251 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.repositories.PhotoRepository;
+import com.rapidupload.backend.utils.PerceptualHash;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Near-duplicate detection by perceptual hash. Confirmed photos are queued for a background step
+ * that streams the object from S3, computes a 64-bit dHash and stores it on the photo. Each
+ * property's hashes are held in memory in a BK-tree, loaded on first query and refreshed after
+ * {@code index-ttl-minutes}, so clustering a property's photos is a handful of tree lookups per
+ * photo and never touches DynamoDB or S3 on the query path.
+ *
+ * Photos whose hash isn't computed yet (or whose format ImageIO can't read) are treated as unique.
+ */
+@Service
+public class NearDuplicateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearDuplicateService.class);
+    // Stored instead of a hash when the image can't be decoded, so it isn't fetched again
+    private static final String UNHASHABLE = "none";
+
+    private final PhotoRepository photoRepository;
+    private final S3Service s3Service;
+    private final int defaultMaxDistance;
+    private final long indexTtlMillis;
+    private final int maxIndexedProperties;
+    private final ThreadPoolExecutor hashExecutor;
+    private final Set<String> hashing = ConcurrentHashMap.newKeySet();
+    private final Map<String, PropertyIndex> indexes;
+
+    public NearDuplicateService(PhotoRepository photoRepository,
+                                S3Service s3Service,
+                                @Value("${near-duplicates.max-distance:10}") int defaultMaxDistance,
+                                @Value("${near-duplicates.index-ttl-minutes:10}") long indexTtlMinutes,
+                                @Value("${near-duplicates.max-indexed-properties:1000}") int maxIndexedProperties,
+                                @Value("${near-duplicates.hash-threads:4}") int hashThreads,
+                                @Value("${near-duplicates.queue-capacity:10000}") int queueCapacity) {
+        this.photoRepository = photoRepository;
+        this.s3Service = s3Service;
+        this.defaultMaxDistance = defaultMaxDistance;
+        this.indexTtlMillis = TimeUnit.MINUTES.toMillis(indexTtlMinutes);
+        this.maxIndexedProperties = maxIndexedProperties;
+        this.hashExecutor = new ThreadPoolExecutor(hashThreads, hashThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity));
+        this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PropertyIndex> eldest) {
+                return size() > NearDuplicateService.this.maxIndexedProperties;
+            }
+        };
+    }
+
+    public int getDefaultMaxDistance() {
+        return defaultMaxDistance;
+    }
+
+    /**
+     * Queue a freshly uploaded photo for hashing. Never blocks.
+     */
+    public void ingest(String photoId, String propertyId, String s3Key) {
+        if (photoId == null || propertyId == null || s3Key == null || !hashing.add(photoId)) {
+            return;
+        }
+        try {
+            hashExecutor.execute(() -> {
+                try {
+                    hash(photoId, propertyId, s3Key);
+                } finally {
+                    hashing.remove(photoId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue full: skip; the next index load of the property queues the photo again
+            hashing.remove(photoId);
+            logger.debug("Perceptual hash queue full, skipping photo {}", photoId);
+        }
+    }
+
+    public void ingest(Collection<Photo> photos) {
+        photos.forEach(photo -> ingest(photo.getPhotoId(), photo.getPropertyId(), photo.getS3Key()));
+    }
+
+    /**
+     * Drop deleted photos from the in-memory indexes.
+     */
+    public void remove(Collection<Photo> photos) {
+        for (Photo photo : photos) {
+            PropertyIndex index = cachedIndex(photo.getPropertyId());
+            if (index != null) {
+                synchronized (index) {
+                    index.hashes.remove(photo.getPhotoId());
+                }
+            }
+        }
+    }
+
+    public void removeProperty(String propertyId) {
+        synchronized (indexes) {
+            indexes.remove(propertyId);
+        }
+    }
+
+    /**
+     * Group photos of a property into near-duplicate clusters: photos within {@code maxDistance}
+     * bits of each other end up together, transitively. Every photo is in exactly one cluster, in
+     * the order given; the first photo of a cluster is its representative.
+     * @param photoIds photos to cluster, or null for all indexed photos of the property
+     */
+    public List<List<String>> findClusters(String propertyId, Collection<String> photoIds, int maxDistance) {
+        PropertyIndex index = index(propertyId);
+        List<String> candidates;
+        Map<String, String> parent = new HashMap<>();
+        synchronized (index) {
+            candidates = photoIds != null ? new ArrayList<>(photoIds) : new ArrayList<>(index.hashes.keySet());
+            Set<String> wanted = photoIds != null ? Set.copyOf(photoIds) : index.hashes.keySet();
+            for (String photoId : candidates) {
+                Long hash = index.hashes.get(photoId);
+                if (hash == null) {
+                    continue;
+                }
+                index.tree.search(hash, maxDistance, match -> {
+                    if (!match.equals(photoId) && wanted.contains(match) && index.hashes.containsKey(match)) {
+                        union(parent, photoId, match);
+                    }
+                });
+            }
+        }
+
+        Map<String, List<String>> clusters = new LinkedHashMap<>();
+        for (String photoId : candidates) {
+            clusters.computeIfAbsent(find(parent, photoId), root -> new ArrayList<>()).add(photoId);
+        }
+        return new ArrayList<>(clusters.values());
+    }
+
+    private void hash(String photoId, String propertyId, String s3Key) {
+        try {
+            Long hash;
+            try (InputStream content = s3Service.getObject(s3Key)) {
+                hash = PerceptualHash.dHash(content);
+            }
+            if (hash == null) {
+                logger.debug("No image reader for photo {}, skipping perceptual hash", photoId);
+                photoRepository.updatePerceptualHash(photoId, UNHASHABLE);
+                return;
+            }
+            photoRepository.updatePerceptualHash(photoId, PerceptualHash.toHex(hash));
+
+            PropertyIndex index = cachedIndex(propertyId);
+            if (index != null) {
+                synchronized (index) {
+                    index.add(photoId, hash);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to compute perceptual hash for photo {}: {}", photoId, e.getMessage());
+        }
+    }
+
+    private PropertyIndex cachedIndex(String propertyId) {
+        synchronized (indexes) {
+            return indexes.get(propertyId);
+        }
+    }
+
+    /**
+     * The property's index, loading it from the Photos table when missing or expired. Uploaded
+     * photos without a hash are queued for hashing on the way.
+     */
+    private PropertyIndex index(String propertyId) {
+        PropertyIndex index = cachedIndex(propertyId);
+        if (index != null && index.loadedAt + indexTtlMillis > System.currentTimeMillis()) {
+            return index;
+        }
+
+        PropertyIndex loaded = new PropertyIndex();
+        List<Photo> missing = new ArrayList<>();
+        for (Photo photo : photoRepository.getAllPhotosByProperty(propertyId)) {
+            if (UNHASHABLE.equals(photo.getPerceptualHash())) {
+                continue;
+            }
+            if (photo.getPerceptualHash() != null) {
+                loaded.add(photo.getPhotoId(), PerceptualHash.fromHex(photo.getPerceptualHash()));
+            } else if (photo.getStatus() == null || "uploaded".equals(photo.getStatus())) {
+                missing.add(photo);
+            }
+        }
+        synchronized (indexes) {
+            indexes.put(propertyId, loaded);
+        }
+        if (!missing.isEmpty()) {
+            logger.info("Queueing {} photos of property {} for perceptual hashing", missing.size(), propertyId);
+            ingest(missing);
+        }
+        return loaded;
+    }
+
+    private static String find(Map<String, String> parent, String photoId) {
+        String root = photoId;
+        while (parent.containsKey(root)) {
+            root = parent.get(root);
+        }
+        return root;
+    }
+
+    private static void union(Map<String, String> parent, String a, String b) {
+        String rootA = find(parent, a);
+        String rootB = find(parent, b);
+        if (!rootA.equals(rootB)) {
+            parent.put(rootB, rootA);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashExecutor.shutdownNow();
+    }
+
+    private static class PropertyIndex {
+        private final BkTree tree = new BkTree();
+        // Live photos; the tree keeps deleted ones until the next load, so matches are checked here
+        private final Map<String, Long> hashes = new HashMap<>();
+        private final long loadedAt = System.currentTimeMillis();
+
+        private void add(String photoId, long hash) {
+            if (hashes.put(photoId, hash) == null) {
+                tree.add(hash, photoId);
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.exceptions.ConditionalCheckFailedException;
+import com.rapidupload.backend.exceptions.PropertyNotFoundException;
+import com.rapidupload.backend.models.PhotoCountState;
+import com.rapidupload.backend.repositories.PhotoRepository;
+import com.rapidupload.backend.repositories.PropertyRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind PhotoCount maintenance.
+ *
+ * Photo writes that change a property's count run through {@link #track}, which keeps the delta
+ * in memory and lets the photo write itself be a plain conditional update. A scheduler flushes
+ * the summed delta of each property with one atomic ADD per interval, and again on shutdown.
+ *
+ * Crash safety: before the first tracked write of a window, a holder token
+ * ("{instanceId}@{epochMillis}") is added to the property's CountPendingHolders set. The flush
+ * that applies the window's last delta removes the token in the same UpdateItem. Tokens that
+ * outlive the stale threshold belong to an instance that died with unflushed deltas; the
+ * reconciler recounts those properties from the Photos table and clears the tokens.
+ *
+ * Recounts never overwrite a count that live deltas still have to be added to: they only write
+ * PhotoCount when no live holder is on the property, conditioned on the holders and CountVersion
+ * they read, so a window that opened in the meantime makes the recount start over.
+ *
+ * Because the flush coalesces every write of an interval into one UpdateItem, a property item
+ * takes about one count write per instance per flush interval however many photos are confirmed,
+ * so the counter stays a single attribute on the property rather than being sharded.
+ */
+@Service
+public class PhotoCountAccumulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoCountAccumulator.class);
+
+    private final PropertyRepository propertyRepository;
+    private final PhotoRepository photoRepository;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Duration staleAfter;
+    private final long flushIntervalMs;
+    private final int recountAttempts;
+    private final ScheduledExecutorService scheduler;
+
+    public PhotoCountAccumulator(PropertyRepository propertyRepository,
+                                 PhotoRepository photoRepository,
+                                 @Value("${upload.photo-count.flush-interval-ms:1000}") long flushIntervalMs,
+                                 @Value("${upload.photo-count.reconcile-interval-minutes:5}") long reconcileIntervalMinutes,
+                                 @Value("${upload.photo-count.stale-after-minutes:10}") long staleAfterMinutes,
+                                 @Value("${upload.photo-count.recount-attempts:10}") int recountAttempts) {
+        this.propertyRepository = propertyRepository;
+        this.photoRepository = photoRepository;
+        this.staleAfter = Duration.ofMinutes(staleAfterMinutes);
+        this.flushIntervalMs = flushIntervalMs;
+        this.recountAttempts = recountAttempts;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+        this.scheduler.scheduleWithFixedDelay(this::flushAll, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        // First pass shortly after startup picks up holders left behind by a crashed instance
+        this.scheduler.scheduleWithFixedDelay(this::reconcile, 1, reconcileIntervalMinutes * 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Run a photo write and account its effect on PhotoCount.
+     * @param deltaOnSuccess Count change to apply if the operation completes without throwing
+     */
+    public <T> T track(String propertyId, int deltaOnSuccess, Supplier<T> operation) {
+        return track(Map.of(propertyId, deltaOnSuccess), operation);
+    }
+
+    /**
+     * Multi-property variant of {@link #track(String, int, Supplier)} for batch writes.
+     * @param deltasOnSuccess PropertyID to count change applied if the operation succeeds
+     */
+    public <T> T track(Map<String, Integer> deltasOnSuccess, Supplier<T> operation) {
+        return track(deltasOnSuccess.keySet(), operation, result -> deltasOnSuccess);
+    }
+
+    /**
+     * Variant for writes whose count effect is only known from their result, e.g. conditional
+     * confirmations where some photos turn out to be confirmed already.
+     * @param propertyIds Every property the operation may change the count of
+     * @param deltas Maps the operation's result to PropertyID -> count change
+     */
+    public <T> T track(Set<String> propertyIds, Supplier<T> operation, Function<T, Map<String, Integer>> deltas) {
+        Map<String, Pending> entered = new LinkedHashMap<>();
+        Map<String, Integer> applied = Map.of();
+        try {
+            for (String propertyId : propertyIds) {
+                entered.put(propertyId, begin(propertyId));
+            }
+            T result = operation.get();
+            applied = deltas.apply(result);
+            return result;
+        } finally {
+            for (Map.Entry<String, Pending> entry : entered.entrySet()) {
+                end(entry.getKey(), entry.getValue(), applied.getOrDefault(entry.getKey(), 0));
+            }
+        }
+    }
+
+    private Pending begin(String propertyId) {
+        Pending entry = pending.compute(propertyId, (id, existing) -> {
+            Pending current = existing != null ? existing : new Pending(newToken());
+            current.inflight++;
+            return current;
+        });
+
+        // The thread that opened the window registers the holder; the others wait for it
+        if (entry.markStarted.compareAndSet(false, true)) {
+            try {
+                propertyRepository.addCountHolder(propertyId, entry.token);
+                entry.marked.complete(null);
+            } catch (RuntimeException e) {
+                entry.marked.completeExceptionally(e);
+            }
+        }
+
+        try {
+            entry.marked.join();
+        } catch (RuntimeException e) {
+            end(propertyId, entry, 0);
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+        return entry;
+    }
+
+    private void end(String propertyId, Pending entry, int delta) {
+        pending.computeIfPresent(propertyId, (id, current) -> {
+            if (current != entry) {
+                return current;
+            }
+            current.delta += delta;
+            current.inflight--;
+            // A window whose holder never got registered has nothing to flush or release
+            if (current.inflight == 0 && current.marked.isCompletedExceptionally()) {
+                return null;
+            }
+            return current;
+        });
+    }
+
+    /**
+     * Flush the pending delta of one property now, e.g. before recounting it.
+     */
+    public synchronized void flush(String propertyId) {
+        Pending entry = pending.get(propertyId);
+        if (entry == null || !entry.marked.isDone() || entry.marked.isCompletedExceptionally()) {
+            return;
+        }
+
+        // A long-running window gets a fresh holder so it never looks abandoned to the reconciler
+        String rotatedToken = null;
+        if (entry.inflight > 0 && isOlderThan(entry.token, staleAfter.dividedBy(2))) {
+            String candidate = newToken();
+            try {
+                propertyRepository.addCountHolder(propertyId, candidate);
+                rotatedToken = candidate;
+            } catch (RuntimeException e) {
+                logger.warn("Failed to rotate count holder for property {}: {}", propertyId, e.getMessage());
+            }
+        }
+
+        final String newToken = rotatedToken;
+        int[] delta = new int[1];
+        Set<String> released = new HashSet<>();
+        pending.computeIfPresent(propertyId, (id, current) -> {
+            if (current != entry) {
+                return current;
+            }
+            delta[0] = current.delta;
+            current.delta = 0;
+            released.addAll(current.retired);
+            current.retired.clear();
+            if (current.inflight == 0) {
+                released.add(current.token);
+                return null;
+            }
+            if (newToken != null) {
+                released.add(current.token);
+                current.token = newToken;
+            }
+            return current;
+        });
+
+        if (delta[0] == 0 && released.isEmpty()) {
+            return;
+        }
+
+        try {
+            propertyRepository.applyPhotoCountDelta(propertyId, delta[0], released);
+        } catch (PropertyNotFoundException e) {
+            logger.debug("Dropping photo count delta {} for deleted property {}", delta[0], propertyId);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to flush photo count delta {} for property {}, will retry: {}",
+                    delta[0], propertyId, e.getMessage());
+            restore(propertyId, delta[0], released);
+        }
+    }
+
+    /**
+     * Put back a delta whose flush failed. The released holders are still on the property, so
+     * they are carried along and released by the next successful flush.
+     */
+    private void restore(String propertyId, int delta, Set<String> released) {
+        pending.compute(propertyId, (id, current) -> {
+            if (current == null) {
+                if (released.isEmpty()) {
+                    // Nothing on the property marks this delta, so it cannot be carried safely
+                    logger.error("Dropping photo count delta {} for property {}", delta, propertyId);
+                    return null;
+                }
+                List<String> holders = new ArrayList<>(released);
+                current = new Pending(holders.remove(0));
+                current.markStarted.set(true);
+                current.marked.complete(null);
+                current.retired.addAll(holders);
+            } else {
+                current.retired.addAll(released);
+            }
+            current.delta += delta;
+            return current;
+        });
+    }
+
+    public void flushAll() {
+        for (String propertyId : new ArrayList<>(pending.keySet())) {
+            try {
+                flush(propertyId);
+            } catch (Exception e) {
+                logger.error("Unexpected error flushing photo count for property {}", propertyId, e);
+            }
+        }
+    }
+
+    /**
+     * Recount properties whose holders are all stale and not owned by this instance.
+     */
+    public void reconcile() {
+        try {
+            int reconciled = 0;
+            for (PhotoCountState state : propertyRepository.findPropertiesWithCountHolders()) {
+                if (!state.getHolders().stream().allMatch(this::isAbandoned)) {
+                    continue;
+                }
+                int count = photoRepository.countUploadedPhotos(state.getPropertyId());
+                if (propertyRepository.resetPhotoCount(state, count)) {
+                    reconciled++;
+                }
+            }
+            if (reconciled > 0) {
+                logger.warn("Reconciled photo count for {} properties with abandoned count holders", reconciled);
+            }
+        } catch (Exception e) {
+            logger.error("Error reconciling photo counts", e);
+        }
+    }
+
+    /**
+     * Overwrite a property's PhotoCount with a recount of its photos. Flushes this instance's
+     * delta first, then waits while any other window is still live, and starts over whenever a
+     * holder comes or goes between reading the holders and writing the count.
+     * @return the new count
+     * @throws ConditionalCheckFailedException if the property kept taking writes for every attempt
+     */
+    public int recount(String propertyId) {
+        for (int attempt = 1; ; attempt++) {
+            flush(propertyId);
+            PhotoCountState state = propertyRepository.getPhotoCountState(propertyId);
+            if (state.getHolders().stream().allMatch(this::isAbandoned)) {
+                int count = photoRepository.countUploadedPhotos(propertyId);
+                if (propertyRepository.resetPhotoCount(state, count)) {
+                    return count;
+                }
+            }
+            if (attempt >= recountAttempts) {
+                throw new ConditionalCheckFailedException(
+                        "Photo count of property " + propertyId + " is still being updated, try again later");
+            }
+            try {
+                Thread.sleep(flushIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Recount interrupted", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+        if (!pending.isEmpty()) {
+            logger.warn("{} properties still had unflushed photo count deltas at shutdown", pending.size());
+        }
+    }
+
+    private String newToken() {
+        return instanceId + "@" + System.currentTimeMillis();
+    }
+
+    /**
+     * A holder of another instance that outlived the stale threshold, i.e. whose instance died.
+     */
+    private boolean isAbandoned(String token) {
+        return !token.startsWith(instanceId + "@") && isOlderThan(token, staleAfter);
+    }
+
+    private static boolean isOlderThan(String token, Duration age) {
+        try {
+            long createdAt = Long.parseLong(token.substring(token.lastIndexOf('@') + 1));
+            return System.currentTimeMillis() - createdAt > age.toMillis();
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static class Pending {
+        String token;
+        int delta;
+        int inflight;
+        final Set<String> retired = new HashSet<>();
+        final AtomicBoolean markStarted = new AtomicBoolean();
+        final CompletableFuture<Void> marked = new CompletableFuture<>();
+
+        Pending(String token) {
+            this.token = token;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.exceptions.TooManyExportsException;
+import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.models.Property;
+import com.rapidupload.backend.repositories.PhotoRepository;
+import com.rapidupload.backend.repositories.PropertyRepository;
+import com.rapidupload.backend.utils.FilenameSanitizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.exception.SdkException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams a property's photos as a ZIP archive. Photos are read from DynamoDB a page at a time,
+ * and while one entry is written the next ones are already downloading: up to
+ * {@code prefetch-count} photos, about {@code max-buffered-bytes} in total, held in memory. Photos too
+ * large for the buffer, or of unknown size, are streamed straight from S3 when their turn comes.
+ * Memory use therefore doesn't grow with the property.
+ *
+ * Photos are stored without compression; JPEG and PNG don't shrink further. Photos that can't be
+ * downloaded are left out and listed in a SKIPPED-PHOTOS.txt entry; a download that breaks after its
+ * entry was started aborts the archive rather than leave a truncated file in it.
+ */
+@Service
+public class PhotoExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoExportService.class);
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final String SKIPPED_MANIFEST = "SKIPPED-PHOTOS.txt";
+
+    private final PropertyRepository propertyRepository;
+    private final PhotoRepository photoRepository;
+    private final S3Service s3Service;
+    private final int prefetchCount;
+    private final long maxBufferedBytes;
+    // Each export holds a request thread for its whole duration
+    private final Semaphore exportSlots;
+
+    public PhotoExportService(PropertyRepository propertyRepository,
+                              PhotoRepository photoRepository,
+                              S3Service s3Service,
+                              @Value("${export.prefetch-count:16}") int prefetchCount,
+                              @Value("${export.max-buffered-bytes:67108864}") long maxBufferedBytes,
+                              @Value("${export.max-concurrent:4}") int maxConcurrent) {
+        this.propertyRepository = propertyRepository;
+        this.photoRepository = photoRepository;
+        this.s3Service = s3Service;
+        this.prefetchCount = prefetchCount;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.exportSlots = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Reserve an export slot for a property, before anything is written to the response, so a
+     * missing property or a full house can still be answered with an error.
+     * @throws TooManyExportsException when {@code max-concurrent} exports are already running
+     */
+    public Export start(String propertyId) {
+        Property property = propertyRepository.getProperty(propertyId);
+        if (!exportSlots.tryAcquire()) {
+            throw new TooManyExportsException();
+        }
+        String name = property.getName() != null && !property.getName().isBlank() ? property.getName() : propertyId;
+        return new Export(propertyId, FilenameSanitizer.sanitize(name + ".zip"));
+    }
+
+    private int writeZip(String propertyId, OutputStream output) throws IOException {
+        Iterator<Photo> photos = photoRepository.iteratePhotosByProperty(propertyId).iterator();
+        Deque<Entry> window = new ArrayDeque<>();
+        Set<String> names = new HashSet<>();
+        List<String> skipped = new ArrayList<>();
+        long[] bufferedBytes = {0};
+        int written = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(output, OUTPUT_BUFFER_SIZE));
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        try {
+            while (true) {
+                fill(window, photos, bufferedBytes);
+                Entry entry = window.poll();
+                if (entry == null) {
+                    break;
+                }
+                bufferedBytes[0] -= entry.bufferedSize;
+
+                // The entry header goes out only once the photo's content is available
+                boolean entryStarted = false;
+                try {
+                    if (entry.content != null) {
+                        byte[] content = entry.content.join();
+                        zip.putNextEntry(new ZipEntry(entryName(entry.photo, names)));
+                        entryStarted = true;
+                        zip.write(content);
+                    } else {
+                        try (InputStream stream = s3Service.getObject(entry.photo.getS3Key())) {
+                            zip.putNextEntry(new ZipEntry(entryName(entry.photo, names)));
+                            entryStarted = true;
+                            stream.transferTo(zip);
+                        }
+                    }
+                    zip.closeEntry();
+                    written++;
+                } catch (CompletionException | SdkException e) {
+                    String reason = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                    if (entryStarted) {
+                        // Part of the photo is already in the archive; it can't be skipped cleanly
+                        throw new IOException("Download of " + entry.photo.getS3Key() + " failed mid-entry: " + reason, e);
+                    }
+                    // A photo missing from S3 shouldn't abort the whole archive
+                    skipped.add(entry.photo.getS3Key() + "\t" + reason);
+                    logger.warn("Skipping photo {} in export of property {}: {}", entry.photo.getPhotoId(), propertyId, reason);
+                }
+            }
+            if (!skipped.isEmpty()) {
+                writeSkippedManifest(zip, skipped, names);
+            }
+            zip.finish();
+            zip.flush();
+        } catch (IOException | RuntimeException e) {
+            // Usually the client went away; don't leave downloads running
+            window.forEach(entry -> {
+                if (entry.content != null) {
+                    entry.content.cancel(true);
+                }
+            });
+            throw e;
+        }
+
+        logger.info("Exported {} photos of property {} ({} skipped)", written, propertyId, skipped.size());
+        return written;
+    }
+
+    /**
+     * List the photos left out of the archive, one S3 key and reason per line, so a partial export
+     * is recognisable as such.
+     */
+    private static void writeSkippedManifest(ZipOutputStream zip, List<String> skipped, Set<String> names) throws IOException {
+        String name = SKIPPED_MANIFEST;
+        for (int n = 2; !names.add(name); n++) {
+            name = "SKIPPED-PHOTOS-" + n + ".txt";
+        }
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write((String.join("\n", skipped) + "\n").getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * Start downloads for the next photos while the window and the byte budget allow.
+     */
+    private void fill(Deque<Entry> window, Iterator<Photo> photos, long[] bufferedBytes) {
+        while (window.size() < prefetchCount && bufferedBytes[0] < maxBufferedBytes && photos.hasNext()) {
+            Photo photo = photos.next();
+            boolean uploaded = photo.getStatus() == null || "uploaded".equals(photo.getStatus());
+            if (!uploaded || photo.getS3Key() == null) {
+                continue;
+            }
+
+            Long size = photo.getFileSize();
+            if (size == null || size > maxBufferedBytes) {
+                // Streamed when its turn comes
+                window.add(new Entry(photo, null, 0));
+                continue;
+            }
+            window.add(new Entry(photo, s3Service.getObjectBytesAsync(photo.getS3Key()), size));
+            bufferedBytes[0] += size;
+        }
+    }
+
+    /**
+     * The photo's sanitized filename, numbered when an earlier entry already has that name.
+     */
+    private static String entryName(Photo photo, Set<String> names) {
+        String filename = FilenameSanitizer.sanitize(photo.getFilename() != null ? photo.getFilename() : photo.getPhotoId());
+        int dot = filename.lastIndexOf('.');
+        String base = dot > 0 ? filename.substring(0, dot) : filename;
+        String extension = dot > 0 ? filename.substring(dot) : "";
+
+        String name = filename;
+        for (int n = 2; !names.add(name); n++) {
+            name = base + "-" + n + extension;
+        }
+        return name;
+    }
+
+    /**
+     * A reserved export; closing it frees the slot.
+     */
+    public class Export implements AutoCloseable {
+        private final String propertyId;
+        private final String archiveName;
+        private boolean closed;
+
+        private Export(String propertyId, String archiveName) {
+            this.propertyId = propertyId;
+            this.archiveName = archiveName;
+        }
+
+        public String getArchiveName() {
+            return archiveName;
+        }
+
+        /**
+         * Write all uploaded photos of the property to {@code output} as a ZIP archive.
+         * @return number of photos written
+         */
+        public int writeTo(OutputStream output) throws IOException {
+            return writeZip(propertyId, output);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                exportSlots.release();
+            }
+        }
+    }
+
+    private static class Entry {
+        private final Photo photo;
+        // Null when the photo is streamed instead of prefetched
+        private final CompletableFuture<byte[]> content;
+        private final long bufferedSize;
+
+        private Entry(Photo photo, CompletableFuture<byte[]> content, long bufferedSize) {
+            this.photo = photo;
+            this.content = content;
+            this.bufferedSize = bufferedSize;
+        }
+    }
+}
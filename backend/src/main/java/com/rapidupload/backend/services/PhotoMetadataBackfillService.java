@@ -0,0 +1,172 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.repositories.PhotoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Background backfill of fileSize, contentType and status for legacy photos. Listings enqueue the
+ * IDs of incomplete photos and return immediately; a drain loop reads them in batches, issues HEAD
+ * requests on the async S3 client with bounded concurrency and writes the results back in batches.
+ * A one-shot sweep scans the whole table for incomplete photos.
+ */
+@Service
+public class PhotoMetadataBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoMetadataBackfillService.class);
+
+    private final PhotoRepository photoRepository;
+    private final S3Service s3Service;
+    private final int batchSize;
+    private final int maxConcurrentHeads;
+    private final BlockingQueue<String> queue;
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService sweepExecutor = Executors.newSingleThreadExecutor();
+
+    public PhotoMetadataBackfillService(PhotoRepository photoRepository,
+                                        S3Service s3Service,
+                                        @Value("${upload.metadata-backfill.queue-capacity:10000}") int queueCapacity,
+                                        @Value("${upload.metadata-backfill.batch-size:100}") int batchSize,
+                                        @Value("${upload.metadata-backfill.max-concurrent-heads:32}") int maxConcurrentHeads,
+                                        @Value("${upload.metadata-backfill.drain-interval-ms:500}") long drainIntervalMs) {
+        this.photoRepository = photoRepository;
+        this.s3Service = s3Service;
+        this.batchSize = batchSize;
+        this.maxConcurrentHeads = maxConcurrentHeads;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        scheduler.scheduleWithFixedDelay(this::drain, drainIntervalMs, drainIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Check if a photo needs metadata backfill (missing fileSize, status, or contentType)
+     */
+    public static boolean needsBackfill(Photo photo) {
+        return photo.getFileSize() == null || photo.getStatus() == null || photo.getContentType() == null;
+    }
+
+    /**
+     * Queue the incomplete photos among {@code photos}. Never blocks; when the queue is full the
+     * photo is skipped and picked up by a later listing or a sweep.
+     */
+    public void enqueue(Collection<Photo> photos) {
+        for (Photo photo : photos) {
+            if (!needsBackfill(photo) || photo.getS3Key() == null || !queued.add(photo.getPhotoId())) {
+                continue;
+            }
+            if (!queue.offer(photo.getPhotoId())) {
+                queued.remove(photo.getPhotoId());
+                logger.debug("Metadata backfill queue full, skipping photo {}", photo.getPhotoId());
+            }
+        }
+    }
+
+    /**
+     * Start a one-shot sweep of the Photos table in the background.
+     * @return false if a sweep is already running
+     */
+    public boolean startSweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return false;
+        }
+        sweepExecutor.execute(() -> {
+            try {
+                int found = photoRepository.scanPhotoIdsMissingMetadata(this::backfill);
+                logger.info("Metadata backfill sweep finished: {} incomplete photos processed", found);
+            } catch (Exception e) {
+                logger.error("Metadata backfill sweep failed", e);
+            } finally {
+                sweeping.set(false);
+            }
+        });
+        return true;
+    }
+
+    private void drain() {
+        try {
+            List<String> photoIds = new ArrayList<>(batchSize);
+            while (queue.drainTo(photoIds, batchSize) > 0) {
+                try {
+                    backfill(photoIds);
+                } finally {
+                    queued.removeAll(photoIds);
+                }
+                photoIds.clear();
+            }
+        } catch (Exception e) {
+            logger.error("Error draining metadata backfill queue", e);
+        }
+    }
+
+    /**
+     * Re-read the photos, HEAD their objects in parallel and write back what was missing.
+     */
+    private void backfill(List<String> photoIds) {
+        for (int i = 0; i < photoIds.size(); i += batchSize) {
+            Map<String, Photo> photos = photoRepository.batchGetPhotos(photoIds.subList(i, Math.min(i + batchSize, photoIds.size())));
+
+            Semaphore permits = new Semaphore(maxConcurrentHeads);
+            List<CompletableFuture<PhotoRepository.MetadataUpdate>> heads = new ArrayList<>();
+            for (Photo photo : photos.values()) {
+                if (!needsBackfill(photo) || photo.getS3Key() == null) {
+                    continue;
+                }
+                permits.acquireUninterruptibly();
+                heads.add(s3Service.getObjectMetadataAsync(photo.getS3Key())
+                        .thenApply(s3Metadata -> toUpdate(photo, s3Metadata))
+                        .whenComplete((update, error) -> permits.release()));
+            }
+
+            List<PhotoRepository.MetadataUpdate> updates = heads.stream()
+                    .map(CompletableFuture::join)
+                    .filter(update -> update != null && !update.isEmpty())
+                    .collect(Collectors.toList());
+            if (!updates.isEmpty()) {
+                int updated = photoRepository.batchUpdateMetadata(updates);
+                logger.info("Backfilled metadata for {}/{} photos", updated, updates.size());
+            }
+        }
+    }
+
+    private static PhotoRepository.MetadataUpdate toUpdate(Photo photo, HeadObjectResponse s3Metadata) {
+        if (s3Metadata == null) {
+            logger.warn("Could not get S3 metadata for photo {}", photo.getPhotoId());
+            return null;
+        }
+        return new PhotoRepository.MetadataUpdate(
+                photo.getPhotoId(),
+                photo.getFileSize() == null ? s3Metadata.contentLength() : null,
+                photo.getContentType() == null ? s3Metadata.contentType() : null,
+                // If the file exists in S3, it's uploaded
+                photo.getStatus() == null ? "uploaded" : null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        sweepExecutor.shutdownNow();
+    }
+}
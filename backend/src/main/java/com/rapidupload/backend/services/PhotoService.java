@@ -1,31 +1,31 @@
 package com.rapidupload.backend.services;
 
+import com.rapidupload.backend.dto.BatchViewUrlResponse;
 import com.rapidupload.backend.dto.ConfirmUploadResponse;
-import com.rapidupload.backend.exceptions.ConditionalCheckFailedException;
+import com.rapidupload.backend.exceptions.BatchWriteException;
 import com.rapidupload.backend.exceptions.PhotoAlreadyConfirmedException;
 import com.rapidupload.backend.exceptions.PhotoNotFoundException;
 import com.rapidupload.backend.models.AnalysisResult;
 import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.models.Rendition;
 import com.rapidupload.backend.repositories.AnalysisRepository;
 import com.rapidupload.backend.repositories.PhotoRepository;
-import com.rapidupload.backend.repositories.PropertyRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
-import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
-import software.amazon.awssdk.services.dynamodb.model.Update;
-import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
-
-import java.time.Instant;
+
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
@@ -34,211 +34,117 @@ import java.util.stream.Collectors;
 public class PhotoService {
 
     private static final Logger logger = LoggerFactory.getLogger(PhotoService.class);
-    private static final int TRANSACTION_BATCH_SIZE = 25; // DynamoDB transaction limit
-    private static final int PARALLEL_THREADS = 10;
-    private static final int PHOTOS_PER_BATCH = 10; // Process 10 photos in parallel per property to balance speed and avoid transaction conflicts
+    private static final int CONFIRM_BATCH_SIZE = 25; // BatchExecuteStatement limit
 
     private final PhotoRepository photoRepository;
-    private final PropertyRepository propertyRepository;
     private final AnalysisRepository analysisRepository;
+    private final PhotoCountAccumulator photoCountAccumulator;
+    private final ContentDeduplicationService deduplicationService;
+    private final NearDuplicateService nearDuplicateService;
+    private final RenditionService renditionService;
+    private final PresignedUrlCache presignedUrlCache;
     private final S3Service s3Service;
-    private final DynamoDbClient dynamoDbClient;
     private final String bucketName;
     private final String region;
-    private final String photosTableName;
-    private final String propertiesTableName;
     private final ExecutorService executorService;
 
     public PhotoService(PhotoRepository photoRepository,
-                       PropertyRepository propertyRepository,
                        AnalysisRepository analysisRepository,
+                       PhotoCountAccumulator photoCountAccumulator,
+                       ContentDeduplicationService deduplicationService,
+                       NearDuplicateService nearDuplicateService,
+                       RenditionService renditionService,
+                       PresignedUrlCache presignedUrlCache,
                        S3Service s3Service,
-                       DynamoDbClient dynamoDbClient,
                        @Value("${aws.s3.bucket-name}") String bucketName,
                        @Value("${aws.region}") String region,
-                       @Value("${aws.dynamodb.tables.photos}") String photosTableName,
-                       @Value("${aws.dynamodb.tables.properties}") String propertiesTableName) {
+                       @Value("${upload.confirm.threads:32}") int confirmThreads) {
         this.photoRepository = photoRepository;
-        this.propertyRepository = propertyRepository;
         this.analysisRepository = analysisRepository;
+        this.photoCountAccumulator = photoCountAccumulator;
+        this.deduplicationService = deduplicationService;
+        this.nearDuplicateService = nearDuplicateService;
+        this.renditionService = renditionService;
+        this.presignedUrlCache = presignedUrlCache;
         this.s3Service = s3Service;
-        this.dynamoDbClient = dynamoDbClient;
         this.bucketName = bucketName;
         this.region = region;
-        this.photosTableName = photosTableName;
-        this.propertiesTableName = propertiesTableName;
-        this.executorService = Executors.newFixedThreadPool(PARALLEL_THREADS);
+        this.executorService = Executors.newFixedThreadPool(confirmThreads);
     }
 
     /**
      * Confirms upload status only (no PhotoCount increment) - allows parallel confirmations
-     * Updates photo status from 'pending' to 'uploaded' with conditional write
-     * This method is used for immediate confirmation after S3 upload to avoid transaction conflicts
+     * Updates photo status from 'pending' to 'uploaded' with one conditional write
+     * The count is brought up to date afterwards via the recalculate-count endpoint
      */
     public ConfirmUploadResponse confirmUploadStatus(String photoId, String propertyId, String s3Key) {
-        // First verify photo exists and get current state
-        Photo photo = photoRepository.getPhoto(photoId);
-        
-        // Verify propertyId matches
-        if (!propertyId.equals(photo.getPropertyId())) {
-            throw new IllegalArgumentException("Property ID mismatch: expected " + photo.getPropertyId() + ", got " + propertyId);
-        }
-
-        // If already uploaded, return success (idempotency)
-        if ("uploaded".equals(photo.getStatus())) {
-            logger.debug("Photo already confirmed (idempotent): photoId={}", photoId);
-            String photoUrl = String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, region, s3Key);
-            return new ConfirmUploadResponse(photoId, photoUrl, "uploaded");
-        }
+        PhotoRepository.ConfirmOutcome outcome = confirmOrThrow(photoId, propertyId, s3Key);
+        logger.debug("Confirmed upload status for photoId: {}, propertyId: {} ({})", photoId, propertyId, outcome);
+        return new ConfirmUploadResponse(photoId, buildPhotoUrl(s3Key), "uploaded");
+    }
 
-        // If not pending, throw error
-        if (!"pending".equals(photo.getStatus())) {
-            throw new PhotoAlreadyConfirmedException(photoId);
-        }
+    /**
+     * Confirms upload and counts it towards the property's PhotoCount.
+     * The photo update is a plain conditional write; the increment is coalesced per property by
+     * PhotoCountAccumulator and applied with one ADD per flush interval, so concurrent
+     * confirmations for the same property no longer conflict.
+     */
+    public ConfirmUploadResponse confirmUpload(String photoId, String propertyId, String s3Key) {
+        PhotoRepository.ConfirmOutcome outcome = photoCountAccumulator.track(
+                Set.of(propertyId),
+                () -> confirmOrThrow(photoId, propertyId, s3Key),
+                result -> Map.of(propertyId, result == PhotoRepository.ConfirmOutcome.CONFIRMED ? 1 : 0));
 
-        String uploadedAt = Instant.now().toString();
+        logger.info("Confirmed upload for photoId: {}, propertyId: {} ({})", photoId, propertyId, outcome);
+        return new ConfirmUploadResponse(photoId, buildPhotoUrl(s3Key), "uploaded");
+    }
 
+    /**
+     * Runs the conditional pending -> uploaded write and turns a failed outcome into the matching
+     * exception. Already-uploaded photos are an idempotent success.
+     */
+    private PhotoRepository.ConfirmOutcome confirmOrThrow(String photoId, String propertyId, String s3Key) {
+        PhotoRepository.ConfirmOutcome outcome;
         try {
-            // Update photo status only (no transaction, no PhotoCount increment)
-            Map<String, AttributeValue> photoKey = new HashMap<>();
-            photoKey.put("PhotoID", AttributeValue.builder().s(photoId).build());
-
-            Map<String, AttributeValue> photoExpressionValues = new HashMap<>();
-            photoExpressionValues.put(":uploaded", AttributeValue.builder().s("uploaded").build());
-            photoExpressionValues.put(":pending", AttributeValue.builder().s("pending").build());
-            photoExpressionValues.put(":s3Key", AttributeValue.builder().s(s3Key).build());
-            photoExpressionValues.put(":uploadedAt", AttributeValue.builder().s(uploadedAt).build());
-
-            UpdateItemRequest updateRequest = UpdateItemRequest.builder()
-                    .tableName(photosTableName)
-                    .key(photoKey)
-                    .updateExpression("SET #status = :uploaded, S3Key = :s3Key, UploadedAt = :uploadedAt")
-                    .conditionExpression("#status = :pending")
-                    .expressionAttributeNames(Map.of("#status", "Status"))
-                    .expressionAttributeValues(photoExpressionValues)
-                    .build();
-
-            dynamoDbClient.updateItem(updateRequest);
-
-            // Construct photo URL
-            String photoUrl = String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, region, s3Key);
-
-            logger.debug("Confirmed upload status for photoId: {}, propertyId: {}", photoId, propertyId);
-
-            return new ConfirmUploadResponse(photoId, photoUrl, "uploaded");
-
-        } catch (software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException e) {
-            // Conditional check failed - photo is no longer pending
-            logger.warn("Conditional check failed confirming photo {}: {}", photoId, e.getMessage());
-            throw new PhotoAlreadyConfirmedException(photoId);
+            outcome = photoRepository.confirmUpload(photoId, propertyId, s3Key);
         } catch (Exception e) {
             logger.error("Unexpected error confirming upload status for photoId {}: {}", photoId, e.getMessage(), e);
             throw new RuntimeException("Failed to confirm upload status: " + photoId, e);
         }
+        checkOutcome(photoId, propertyId, outcome);
+        if (outcome == PhotoRepository.ConfirmOutcome.CONFIRMED) {
+            nearDuplicateService.ingest(photoId, propertyId, s3Key);
+            renditionService.generate(photoId, s3Key);
+        }
+        return outcome;
     }
 
     /**
-     * Confirms upload using DynamoDB transaction to atomically:
-     * 1. Update photo status from 'pending' to 'uploaded' with conditional write
-     * 2. Atomically increment property photo count
-     * 
-     * This ensures idempotency and prevents race conditions.
-     * NOTE: This method causes transaction conflicts when used in parallel. Use confirmUploadStatus() instead.
+     * Pass through successful confirm outcomes and map the rest to the API's exceptions.
      */
-    public ConfirmUploadResponse confirmUpload(String photoId, String propertyId, String s3Key) {
-        // First verify photo exists and get current state
-        Photo photo = photoRepository.getPhoto(photoId);
-        
-        // Verify propertyId matches
-        if (!propertyId.equals(photo.getPropertyId())) {
-            throw new IllegalArgumentException("Property ID mismatch: expected " + photo.getPropertyId() + ", got " + propertyId);
-        }
-
-        // If already uploaded, return success (idempotency)
-        if ("uploaded".equals(photo.getStatus())) {
-            logger.info("Photo already confirmed (idempotent): photoId={}", photoId);
-            String photoUrl = String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, region, s3Key);
-            return new ConfirmUploadResponse(photoId, photoUrl, "uploaded");
-        }
-
-        // If not pending, throw error
-        if (!"pending".equals(photo.getStatus())) {
-            throw new PhotoAlreadyConfirmedException(photoId);
+    static PhotoRepository.ConfirmOutcome checkOutcome(String photoId, String propertyId, PhotoRepository.ConfirmOutcome outcome) {
+        switch (outcome) {
+            case CONFIRMED:
+            case ALREADY_UPLOADED:
+                return outcome;
+            case NOT_FOUND:
+                throw new PhotoNotFoundException(photoId);
+            case PROPERTY_MISMATCH:
+                throw new IllegalArgumentException("Property ID mismatch for photo " + photoId + ": got " + propertyId);
+            default:
+                logger.warn("Conditional check failed confirming photo {}: {}", photoId, outcome);
+                throw new PhotoAlreadyConfirmedException(photoId);
         }
+    }
 
-        String uploadedAt = Instant.now().toString();
-
-        try {
-            // Build transactional write with two operations:
-            // 1. Conditionally update photo (only if status is still 'pending')
-            Map<String, AttributeValue> photoKey = new HashMap<>();
-            photoKey.put("PhotoID", AttributeValue.builder().s(photoId).build());
-
-            Map<String, AttributeValue> photoExpressionValues = new HashMap<>();
-            photoExpressionValues.put(":uploaded", AttributeValue.builder().s("uploaded").build());
-            photoExpressionValues.put(":pending", AttributeValue.builder().s("pending").build());
-            photoExpressionValues.put(":s3Key", AttributeValue.builder().s(s3Key).build());
-            photoExpressionValues.put(":uploadedAt", AttributeValue.builder().s(uploadedAt).build());
-
-            Update photoUpdate = Update.builder()
-                    .tableName(photosTableName)
-                    .key(photoKey)
-                    .updateExpression("SET #status = :uploaded, S3Key = :s3Key, UploadedAt = :uploadedAt")
-                    .conditionExpression("#status = :pending")
-                    .expressionAttributeNames(Map.of("#status", "Status"))
-                    .expressionAttributeValues(photoExpressionValues)
-                    .build();
-
-            // 2. Atomically increment property photo count
-            Map<String, AttributeValue> propertyKey = new HashMap<>();
-            propertyKey.put("PropertyID", AttributeValue.builder().s(propertyId).build());
-
-            Map<String, AttributeValue> propertyExpressionValues = new HashMap<>();
-            propertyExpressionValues.put(":inc", AttributeValue.builder().n("1").build());
-
-            Update propertyUpdate = Update.builder()
-                    .tableName(propertiesTableName)
-                    .key(propertyKey)
-                    .updateExpression("ADD PhotoCount :inc")
-                    .conditionExpression("attribute_exists(PropertyID)")
-                    .expressionAttributeValues(propertyExpressionValues)
-                    .build();
-
-            // Execute transaction
-            TransactWriteItemsRequest request = TransactWriteItemsRequest.builder()
-                    .transactItems(
-                            TransactWriteItem.builder().update(photoUpdate).build(),
-                            TransactWriteItem.builder().update(propertyUpdate).build()
-                    )
-                    .build();
-
-            dynamoDbClient.transactWriteItems(request);
-
-            // Construct photo URL
-            String photoUrl = String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, region, s3Key);
-
-            logger.info("Confirmed upload (transactional) for photoId: {}, propertyId: {}", photoId, propertyId);
-
-            return new ConfirmUploadResponse(photoId, photoUrl, "uploaded");
-
-        } catch (software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException e) {
-            // Conditional check failed - photo is no longer pending
-            logger.warn("Conditional check failed confirming photo {}: {}", photoId, e.getMessage());
-            throw new PhotoAlreadyConfirmedException(photoId);
-        } catch (software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException e) {
-            // Transaction was canceled - check cancellation reasons
-            logger.error("Transaction canceled confirming photo {}: {}", photoId, e.getMessage());
-            throw new ConditionalCheckFailedException("Transaction failed when confirming upload: " + photoId, e);
-        } catch (Exception e) {
-            logger.error("Unexpected error confirming upload for photoId {}: {}", photoId, e.getMessage(), e);
-            throw new RuntimeException("Failed to confirm upload: " + photoId, e);
-        }
+    private String buildPhotoUrl(String s3Key) {
+        return String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, region, s3Key);
     }
 
     /**
-     * Batch confirm uploads with property-grouped processing to avoid transaction conflicts
-     * Groups photos by propertyId and processes each property in parallel batches to improve performance
-     * while still avoiding transaction conflicts when updating property PhotoCount
+     * Batch confirm uploads. Photos are confirmed with conditional PartiQL updates, 25 per
+     * BatchExecuteStatement call, with the chunks running in parallel on the worker pool; no
+     * photo is read first. PhotoCount increments are coalesced by PhotoCountAccumulator.
      */
     public Map<String, ConfirmUploadResponse> batchConfirmUpload(List<String> photoIds, List<String> propertyIds, List<String> s3Keys) {
         logger.info("Batch confirming {} uploads", photoIds.size());
@@ -247,56 +153,26 @@ public class PhotoService {
             throw new IllegalArgumentException("Arrays must be same length");
         }
 
-        Map<String, ConfirmUploadResponse> results = new HashMap<>();
-        
-        // Group photos by propertyId to avoid transaction conflicts
-        Map<String, List<Integer>> propertyGroups = new HashMap<>();
-        for (int i = 0; i < propertyIds.size(); i++) {
-            String propertyId = propertyIds.get(i);
-            propertyGroups.computeIfAbsent(propertyId, k -> new ArrayList<>()).add(i);
+        // A statement batch may not touch the same item twice; the first entry for a photo wins
+        Map<String, PhotoRepository.PendingConfirmation> confirmations = new LinkedHashMap<>();
+        for (int i = 0; i < photoIds.size(); i++) {
+            confirmations.putIfAbsent(photoIds.get(i),
+                    new PhotoRepository.PendingConfirmation(photoIds.get(i), propertyIds.get(i), s3Keys.get(i)));
         }
-        
-        logger.debug("Grouped {} photos into {} properties", photoIds.size(), propertyGroups.size());
-        
-        // Process each property's photos SEQUENTIALLY to avoid transaction conflicts
-        // Process different properties in parallel, but photos within each property sequentially
-        // This prevents TransactionConflict errors when multiple photos try to increment the same property's PhotoCount
-        List<CompletableFuture<Void>> propertyFutures = new ArrayList<>();
-        
-        for (Map.Entry<String, List<Integer>> entry : propertyGroups.entrySet()) {
-            String propertyId = entry.getKey();
-            List<Integer> indices = entry.getValue();
-            
-            CompletableFuture<Void> propertyFuture = CompletableFuture.runAsync(() -> {
-                // Process photos for this property SEQUENTIALLY (one at a time)
-                // This is necessary because each confirmation increments the property's PhotoCount
-                // and DynamoDB transactions can't handle concurrent updates to the same item
-                for (Integer index : indices) {
-                    String photoId = photoIds.get(index);
-                    String s3Key = s3Keys.get(index);
-                    
-                    try {
-                        ConfirmUploadResponse response = confirmUpload(photoId, propertyId, s3Key);
-                        synchronized (results) {
-                            results.put(photoId, response);
-                        }
-                    } catch (Exception e) {
-                        logger.error("Failed to confirm upload for photoId {}: {}", photoId, e.getMessage());
-                        synchronized (results) {
-                            ConfirmUploadResponse errorResponse = new ConfirmUploadResponse();
-                            errorResponse.setPhotoId(photoId);
-                            errorResponse.setStatus("failed");
-                            results.put(photoId, errorResponse);
-                        }
-                    }
-                }
-            }, executorService);
-            
-            propertyFutures.add(propertyFuture);
+
+        List<PhotoRepository.PendingConfirmation> all = new ArrayList<>(confirmations.values());
+        Map<String, ConfirmUploadResponse> results = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int i = 0; i < all.size(); i += CONFIRM_BATCH_SIZE) {
+            Map<String, PhotoRepository.PendingConfirmation> chunk = new LinkedHashMap<>();
+            all.subList(i, Math.min(i + CONFIRM_BATCH_SIZE, all.size()))
+                    .forEach(confirmation -> chunk.put(confirmation.getPhotoId(), confirmation));
+
+            futures.add(CompletableFuture.runAsync(() -> confirmChunk(chunk, results), executorService));
         }
-        
-        // Wait for all properties to complete
-        CompletableFuture.allOf(propertyFutures.toArray(new CompletableFuture[0])).join();
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
 
         long successCount = results.values().stream()
             .filter(r -> r != null && "uploaded".equals(r.getStatus()))
@@ -307,6 +183,62 @@ public class PhotoService {
         return results;
     }
 
+    private void confirmChunk(Map<String, PhotoRepository.PendingConfirmation> chunk, Map<String, ConfirmUploadResponse> results) {
+        Set<String> propertyIds = chunk.values().stream()
+                .map(PhotoRepository.PendingConfirmation::getPropertyId)
+                .collect(Collectors.toSet());
+
+        Map<String, PhotoRepository.ConfirmOutcome> outcomes;
+        try {
+            outcomes = photoCountAccumulator.track(propertyIds,
+                    () -> photoRepository.batchConfirmUploads(chunk),
+                    result -> {
+                        Map<String, Integer> deltas = new HashMap<>();
+                        result.forEach((photoId, outcome) -> {
+                            if (outcome == PhotoRepository.ConfirmOutcome.CONFIRMED) {
+                                deltas.merge(chunk.get(photoId).getPropertyId(), 1, Integer::sum);
+                            }
+                        });
+                        return deltas;
+                    });
+        } catch (Exception e) {
+            logger.error("Failed to confirm batch of {} uploads: {}", chunk.size(), e.getMessage());
+            outcomes = Map.of();
+        }
+
+        for (PhotoRepository.PendingConfirmation confirmation : chunk.values()) {
+            PhotoRepository.ConfirmOutcome outcome = outcomes.getOrDefault(
+                    confirmation.getPhotoId(), PhotoRepository.ConfirmOutcome.FAILED);
+            if (outcome == PhotoRepository.ConfirmOutcome.CONFIRMED) {
+                nearDuplicateService.ingest(confirmation.getPhotoId(), confirmation.getPropertyId(), confirmation.getS3Key());
+                renditionService.generate(confirmation.getPhotoId(), confirmation.getS3Key());
+            }
+            if (outcome.isUploaded()) {
+                results.put(confirmation.getPhotoId(), new ConfirmUploadResponse(
+                        confirmation.getPhotoId(), buildPhotoUrl(confirmation.getS3Key()), "uploaded"));
+            } else {
+                ConfirmUploadResponse errorResponse = new ConfirmUploadResponse();
+                errorResponse.setPhotoId(confirmation.getPhotoId());
+                errorResponse.setStatus("failed");
+                errorResponse.setReason(describeFailure(outcome));
+                results.put(confirmation.getPhotoId(), errorResponse);
+            }
+        }
+    }
+
+    private static String describeFailure(PhotoRepository.ConfirmOutcome outcome) {
+        switch (outcome) {
+            case NOT_FOUND:
+                return "Photo not found";
+            case PROPERTY_MISMATCH:
+                return "Photo belongs to a different property";
+            case NOT_PENDING:
+                return "Photo is not pending upload";
+            default:
+                return "Confirmation failed";
+        }
+    }
+
     /**
      * Delete a single photo and its associated data (S3 object, analysis results)
      */
@@ -315,9 +247,10 @@ public class PhotoService {
 
         logger.info("Deleting photo: {}", photoId);
 
-        // Delete S3 object
-        if (photo.getS3Key() != null) {
-            s3Service.deleteObject(photo.getS3Key());
+        // Delete S3 object and its renditions, unless other photos with the same content still reference it
+        List<String> s3Keys = deduplicationService.releaseObjects(List.of(photo));
+        if (!s3Keys.isEmpty()) {
+            s3Service.deleteObjects(RenditionService.withRenditions(s3Keys));
         }
 
         // Delete analysis result if exists
@@ -325,13 +258,16 @@ public class PhotoService {
         if (analysis != null) {
             analysisRepository.deleteAnalysis(analysis.getAnalysisId());
         }
+        nearDuplicateService.remove(List.of(photo));
 
-        // Delete photo record
-        photoRepository.deletePhoto(photoId);
-
-        // Decrement property photo count
+        // Delete photo record and decrement property photo count (only photos that were counted)
         if (photo.getPropertyId() != null) {
-            propertyRepository.updatePhotoCount(photo.getPropertyId(), -1);
+            photoCountAccumulator.track(photo.getPropertyId(), isCounted(photo) ? -1 : 0, () -> {
+                photoRepository.deletePhoto(photoId);
+                return null;
+            });
+        } else {
+            photoRepository.deletePhoto(photoId);
         }
 
         logger.info("Successfully deleted photo: {}", photoId);
@@ -351,15 +287,12 @@ public class PhotoService {
         // Fetch all photos to get S3 keys and property IDs
         Map<String, Photo> photos = photoRepository.batchGetPhotos(photoIds);
 
-        // Collect S3 keys for batch deletion
-        List<String> s3Keys = photos.values().stream()
-                .map(Photo::getS3Key)
-                .filter(key -> key != null)
-                .collect(Collectors.toList());
+        // Collect S3 keys for batch deletion; objects shared with remaining photos are kept
+        List<String> s3Keys = deduplicationService.releaseObjects(photos.values());
 
-        // Batch delete S3 objects
+        // Batch delete S3 objects and their renditions
         if (!s3Keys.isEmpty()) {
-            s3Service.deleteObjects(s3Keys);
+            s3Service.deleteObjects(RenditionService.withRenditions(s3Keys));
         }
 
         // Delete analysis results for each photo
@@ -373,27 +306,73 @@ public class PhotoService {
         if (!analysisIds.isEmpty()) {
             analysisRepository.batchDeleteAnalysis(analysisIds);
         }
-
-        // Batch delete photo records
-        photoRepository.batchDeletePhotos(photoIds);
-
-        // Update property photo counts (grouped by property)
-        Map<String, Integer> propertyDecrements = new HashMap<>();
-        for (Photo photo : photos.values()) {
-            if (photo.getPropertyId() != null) {
-                propertyDecrements.merge(photo.getPropertyId(), 1, Integer::sum);
+        nearDuplicateService.remove(photos.values());
+
+        // Batch delete photo records and decrement property photo counts (grouped by property);
+        // photos whose row is still there after the write's retries keep counting
+        Set<String> propertyIds = photos.values().stream()
+                .map(Photo::getPropertyId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> notDeleted = photoCountAccumulator.track(propertyIds, () -> {
+            try {
+                photoRepository.batchDeletePhotos(photoIds);
+                return Set.<String>of();
+            } catch (BatchWriteException e) {
+                return new HashSet<>(e.getFailedKeys());
+            }
+        }, failed -> {
+            Map<String, Integer> propertyDecrements = new HashMap<>();
+            for (Photo photo : photos.values()) {
+                if (photo.getPropertyId() != null && !failed.contains(photo.getPhotoId())) {
+                    propertyDecrements.merge(photo.getPropertyId(), isCounted(photo) ? -1 : 0, Integer::sum);
+                }
             }
+            return propertyDecrements;
+        });
+
+        if (!notDeleted.isEmpty()) {
+            logger.warn("{} of {} photos could not be deleted: {}", notDeleted.size(), photoIds.size(), notDeleted);
         }
-        for (Map.Entry<String, Integer> entry : propertyDecrements.entrySet()) {
-            try {
-                propertyRepository.updatePhotoCount(entry.getKey(), -entry.getValue());
-            } catch (Exception e) {
-                logger.error("Failed to update photo count for property {}: {}", entry.getKey(), e.getMessage());
+        logger.info("Successfully batch deleted {} photos", photoIds.size() - notDeleted.size());
+        return photoIds.size() - notDeleted.size();
+    }
+
+    /**
+     * Presigned GET URLs for viewing many photos at once, with one BatchGetItem per 100 photos and
+     * signatures reused from PresignedUrlCache. Photos that don't exist or aren't uploaded yet are
+     * reported as not found.
+     * @param rendition "thumbnail", "preview" or "original" (default); photos without the requested
+     *                  rendition get their original
+     */
+    public BatchViewUrlResponse getViewUrls(List<String> photoIds, String rendition) {
+        List<String> uniquePhotoIds = new ArrayList<>(new LinkedHashSet<>(photoIds));
+        Map<String, Photo> photos = photoRepository.batchGetPhotos(uniquePhotoIds);
+
+        BatchViewUrlResponse response = new BatchViewUrlResponse();
+        for (String photoId : uniquePhotoIds) {
+            Photo photo = photos.get(photoId);
+            if (photo == null || photo.getS3Key() == null || !isCounted(photo)) {
+                response.getNotFound().add(photoId);
+                continue;
             }
+            Rendition selected = RenditionService.THUMBNAIL.equals(rendition) ? photo.getThumbnail()
+                    : RenditionService.PREVIEW.equals(rendition) ? photo.getPreview()
+                    : null;
+            PresignedUrlCache.PresignedUrl url = presignedUrlCache.get(selected != null ? selected.getS3Key() : photo.getS3Key());
+            response.getUrls().add(selected != null
+                    ? new BatchViewUrlResponse.ViewUrl(photoId, rendition, url.getUrl(), url.getExpiresAt(),
+                            selected.getWidth(), selected.getHeight())
+                    : new BatchViewUrlResponse.ViewUrl(photoId, "original", url.getUrl(), url.getExpiresAt(), null, null));
         }
+        return response;
+    }
 
-        logger.info("Successfully batch deleted {} photos", photoIds.size());
-        return photoIds.size();
+    /**
+     * Whether a photo contributes to PhotoCount (same rule as recalculation: uploaded or legacy null status)
+     */
+    private static boolean isCounted(Photo photo) {
+        return photo.getStatus() == null || "uploaded".equals(photo.getStatus());
     }
 }
 
@@ -0,0 +1,116 @@
+package com.rapidupload.backend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of presigned GET URLs, keyed on the S3 key and the current expiry bucket.
+ * Time is cut into buckets of {@code ttl - min-remaining}; a URL is signed once per key and
+ * bucket, valid until {@code min-remaining} after the bucket ends, and reused for the whole
+ * bucket. Every URL handed out therefore has at least {@code min-remaining} left, and a gallery
+ * reopened within the bucket gets byte-identical URLs, which browsers can serve from their cache.
+ *
+ * A URL signed with temporary credentials also stops working when they expire, so the TTL should
+ * stay well below the credential lifetime.
+ */
+@Component
+public class PresignedUrlCache {
+
+    private final S3Service s3Service;
+    private final int maxSize;
+    private final long bucketMillis;
+    private final long minRemainingMillis;
+    private final Map<String, Entry> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public PresignedUrlCache(S3Service s3Service,
+                             MeterRegistry meterRegistry,
+                             @Value("${presigned-get.max-size:100000}") int maxSize,
+                             @Value("${presigned-get.ttl-minutes:60}") long ttlMinutes,
+                             @Value("${presigned-get.min-remaining-minutes:15}") long minRemainingMinutes) {
+        if (minRemainingMinutes >= ttlMinutes) {
+            throw new IllegalArgumentException("presigned-get.min-remaining-minutes must be below ttl-minutes");
+        }
+        this.s3Service = s3Service;
+        this.maxSize = maxSize;
+        this.bucketMillis = Duration.ofMinutes(ttlMinutes - minRemainingMinutes).toMillis();
+        this.minRemainingMillis = Duration.ofMinutes(minRemainingMinutes).toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > PresignedUrlCache.this.maxSize;
+            }
+        };
+        this.hits = Counter.builder("cache.gets").tag("cache", "presigned-get").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "presigned-get").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("cache.size", this, PresignedUrlCache::size).tag("cache", "presigned-get").register(meterRegistry);
+    }
+
+    /**
+     * Presigned GET URL for an object, reused while the current bucket lasts.
+     */
+    public PresignedUrl get(String s3Key) {
+        long now = System.currentTimeMillis();
+        long bucket = now / bucketMillis;
+        synchronized (entries) {
+            Entry entry = entries.get(s3Key);
+            if (entry != null && entry.bucket == bucket) {
+                hits.increment();
+                return entry.url;
+            }
+        }
+        misses.increment();
+
+        // Signing is local HMAC work; two threads racing on a miss just sign twice
+        Instant expiresAt = Instant.ofEpochMilli((bucket + 1) * bucketMillis + minRemainingMillis);
+        String url = s3Service.generatePresignedGetUrl(s3Key, Duration.between(Instant.ofEpochMilli(now), expiresAt));
+        PresignedUrl presigned = new PresignedUrl(url, expiresAt);
+        synchronized (entries) {
+            entries.put(s3Key, new Entry(bucket, presigned));
+        }
+        return presigned;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public static class PresignedUrl {
+        private final String url;
+        private final Instant expiresAt;
+
+        private PresignedUrl(String url, Instant expiresAt) {
+            this.url = url;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public Instant getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    private static class Entry {
+        private final long bucket;
+        private final PresignedUrl url;
+
+        private Entry(long bucket, PresignedUrl url) {
+            this.bucket = bucket;
+            this.url = url;
+        }
+    }
+}
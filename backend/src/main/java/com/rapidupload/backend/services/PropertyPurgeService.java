@@ -0,0 +1,225 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.models.AnalysisResult;
+import com.rapidupload.backend.models.PagedResponse;
+import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.models.PropertyPurge;
+import com.rapidupload.backend.repositories.AnalysisRepository;
+import com.rapidupload.backend.repositories.PhotoRepository;
+import com.rapidupload.backend.repositories.PropertyRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Purges the data of deleted properties in the background. Deleting a property only tombstones it
+ * (see PropertyRepository#markDeleted); the purge then walks its photos and analyses a page at a
+ * time, deleting each page's S3 objects and rows before moving on, so memory use doesn't grow with
+ * the property. After each page the position is checkpointed on the tombstone, which also carries a
+ * lease: a purge cut short by a crash or redeploy is picked up where it stopped, by this or another
+ * instance, once the lease runs out. The tombstone itself goes last.
+ *
+ * Tombstones are swept up at startup and every {@code poll-interval-seconds}; deletions made on this
+ * instance start purging right away.
+ */
+@Service
+public class PropertyPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PropertyPurgeService.class);
+
+    private final PropertyRepository propertyRepository;
+    private final PhotoRepository photoRepository;
+    private final AnalysisRepository analysisRepository;
+    private final S3Service s3Service;
+    private final ContentDeduplicationService deduplicationService;
+    private final NearDuplicateService nearDuplicateService;
+    private final int pageSize;
+    private final Duration lease;
+    private final String owner = UUID.randomUUID().toString();
+    // Properties being purged on this instance
+    private final Set<String> active = ConcurrentHashMap.newKeySet();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    public PropertyPurgeService(PropertyRepository propertyRepository,
+                                PhotoRepository photoRepository,
+                                AnalysisRepository analysisRepository,
+                                S3Service s3Service,
+                                ContentDeduplicationService deduplicationService,
+                                NearDuplicateService nearDuplicateService,
+                                @Value("${purge.page-size:100}") int pageSize,
+                                @Value("${purge.threads:2}") int threads,
+                                @Value("${purge.lease-minutes:5}") long leaseMinutes,
+                                @Value("${purge.poll-interval-seconds:60}") long pollIntervalSeconds) {
+        this.propertyRepository = propertyRepository;
+        this.photoRepository = photoRepository;
+        this.analysisRepository = analysisRepository;
+        this.s3Service = s3Service;
+        this.deduplicationService = deduplicationService;
+        this.nearDuplicateService = nearDuplicateService;
+        this.pageSize = pageSize;
+        this.lease = Duration.ofMinutes(leaseMinutes);
+        this.workers = Executors.newFixedThreadPool(threads);
+        // First sweep shortly after startup resumes purges cut short by a restart
+        this.scheduler.scheduleWithFixedDelay(this::sweep, 10, pollIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Start purging a tombstoned property on this instance, unless it already is.
+     */
+    public void schedule(String propertyId) {
+        if (!active.add(propertyId)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    purge(propertyId);
+                } catch (Exception e) {
+                    // The lease runs out and a later sweep resumes from the last checkpoint
+                    logger.error("Purge of property {} failed: {}", propertyId, e.getMessage(), e);
+                } finally {
+                    active.remove(propertyId);
+                }
+            });
+        } catch (RuntimeException e) {
+            active.remove(propertyId);
+            throw e;
+        }
+    }
+
+    private void sweep() {
+        try {
+            propertyRepository.findDeletedPropertyIds().forEach(this::schedule);
+        } catch (Exception e) {
+            logger.warn("Failed to look for deleted properties to purge: {}", e.getMessage());
+        }
+    }
+
+    private void purge(String propertyId) {
+        PropertyPurge purge = propertyRepository.claimPurge(propertyId, owner, leaseUntil());
+        if (purge == null) {
+            // Purged already, or another instance holds the lease
+            return;
+        }
+        logger.info("Purging deleted property {} from phase {}", propertyId, purge.getPhase());
+
+        while (!PropertyPurge.PHASE_FINISH.equals(purge.getPhase()) || !finish(purge)) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (PropertyPurge.PHASE_PHOTOS.equals(purge.getPhase())) {
+                purgePhotoPage(purge);
+            } else if (PropertyPurge.PHASE_ANALYSES.equals(purge.getPhase())) {
+                purgeAnalysisPage(purge);
+            }
+            if (!propertyRepository.savePurgeCheckpoint(purge, owner, leaseUntil())) {
+                logger.warn("Lost the purge lease on property {}; its new owner continues", propertyId);
+                return;
+            }
+        }
+
+        logger.info("Purged deleted property {}: {} photos and {} analyses",
+                propertyId, purge.getPhotosPurged(), purge.getAnalysesPurged());
+    }
+
+    /**
+     * Delete the next page of photos: their S3 objects with renditions first, then the rows, so a
+     * crash in between only leaves rows whose objects are deleted again on resume.
+     */
+    private void purgePhotoPage(PropertyPurge purge) {
+        PagedResponse<Photo> page = photoRepository.listPhotosByProperty(purge.getPropertyId(), pageSize, purge.getCursor());
+        List<Photo> photos = page.getItems();
+
+        // Deduplicated photos share an object
+        List<String> s3Keys = photos.stream()
+                .map(Photo::getS3Key)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (!s3Keys.isEmpty()) {
+            s3Service.deleteObjects(RenditionService.withRenditions(s3Keys));
+        }
+        photoRepository.batchDeletePhotos(photos.stream().map(Photo::getPhotoId).collect(Collectors.toList()));
+        purge.setPhotosPurged(purge.getPhotosPurged() + photos.size());
+
+        advance(purge, page, PropertyPurge.PHASE_ANALYSES);
+    }
+
+    private void purgeAnalysisPage(PropertyPurge purge) {
+        PagedResponse<AnalysisResult> page = analysisRepository.listAnalysisByProperty(
+                purge.getPropertyId(), pageSize, purge.getCursor());
+        List<AnalysisResult> analyses = page.getItems();
+
+        analysisRepository.batchDeleteAnalysis(analyses.stream().map(AnalysisResult::getAnalysisId).collect(Collectors.toList()));
+        purge.setAnalysesPurged(purge.getAnalysesPurged() + analyses.size());
+
+        advance(purge, page, PropertyPurge.PHASE_FINISH);
+    }
+
+    private static void advance(PropertyPurge purge, PagedResponse<?> page, String nextPhase) {
+        if (page.isHasMore() && page.getLastEvaluatedKey() != null && !page.getLastEvaluatedKey().isEmpty()) {
+            purge.setCursor(page.getLastEvaluatedKey());
+        } else {
+            purge.setPhase(nextPhase);
+            purge.setCursor(null);
+        }
+    }
+
+    /**
+     * Remove what is left once all photos and analyses are gone, ending with the tombstone.
+     * @return false if photos turned up since the photo phase, which is then run again
+     */
+    private boolean finish(PropertyPurge purge) {
+        String propertyId = purge.getPropertyId();
+
+        // An upload that registered before the tombstone may have written its photo afterwards
+        if (!photoRepository.listPhotosByProperty(propertyId, 1, null).getItems().isEmpty()) {
+            purge.setPhase(PropertyPurge.PHASE_PHOTOS);
+            purge.setCursor(null);
+            return false;
+        }
+
+        deduplicationService.deleteProperty(propertyId);
+        nearDuplicateService.removeProperty(propertyId);
+        List<String> reports = s3Service.listObjects("reports/" + propertyId + "/").stream()
+                .map(S3Object::key)
+                .collect(Collectors.toList());
+        if (!reports.isEmpty()) {
+            s3Service.deleteObjects(reports);
+        }
+        propertyRepository.deleteProperty(propertyId);
+        return true;
+    }
+
+    private Instant leaseUntil() {
+        return Instant.now().plus(lease);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -5,17 +5,15 @@ import com.rapidupload.backend.dto.PagedPhotoResponse;
 import com.rapidupload.backend.dto.PhotoResponse;
 import com.rapidupload.backend.dto.PropertyResponse;
 import com.rapidupload.backend.exceptions.PropertyNotFoundException;
-import com.rapidupload.backend.models.AnalysisResult;
 import com.rapidupload.backend.models.PagedResponse;
 import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.models.Rendition;
 import com.rapidupload.backend.models.Property;
-import com.rapidupload.backend.repositories.AnalysisRepository;
 import com.rapidupload.backend.repositories.PhotoRepository;
 import com.rapidupload.backend.repositories.PropertyRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,15 +27,25 @@ public class PropertyService {
 
     private final PropertyRepository propertyRepository;
     private final PhotoRepository photoRepository;
-    private final AnalysisRepository analysisRepository;
-    private final S3Service s3Service;
+    private final PhotoCountAccumulator photoCountAccumulator;
+    private final PhotoMetadataBackfillService metadataBackfillService;
+    private final NearDuplicateService nearDuplicateService;
+    private final RenditionService renditionService;
+    private final PropertyPurgeService propertyPurgeService;
 
     public PropertyService(PropertyRepository propertyRepository, PhotoRepository photoRepository,
-                          AnalysisRepository analysisRepository, S3Service s3Service) {
+                          PhotoCountAccumulator photoCountAccumulator,
+                          PhotoMetadataBackfillService metadataBackfillService,
+                          NearDuplicateService nearDuplicateService,
+                          RenditionService renditionService,
+                          PropertyPurgeService propertyPurgeService) {
         this.propertyRepository = propertyRepository;
         this.photoRepository = photoRepository;
-        this.analysisRepository = analysisRepository;
-        this.s3Service = s3Service;
+        this.photoCountAccumulator = photoCountAccumulator;
+        this.metadataBackfillService = metadataBackfillService;
+        this.nearDuplicateService = nearDuplicateService;
+        this.renditionService = renditionService;
+        this.propertyPurgeService = propertyPurgeService;
     }
 
     public PropertyResponse createProperty(CreatePropertyRequest request) {
@@ -51,50 +59,29 @@ public class PropertyService {
     }
 
     /**
-     * Delete a property and all associated data (photos, S3 objects, analysis results)
-     * Uses batch operations for performance.
+     * Delete a property and all associated data (photos, S3 objects, analysis results).
+     * The property disappears from reads immediately; its data is purged in the background.
+     * @throws PropertyNotFoundException if the property doesn't exist or is already deleted
      */
     public void deleteProperty(String propertyId) {
-        // Verify property exists
-        propertyRepository.getProperty(propertyId);
-
-        logger.info("Deleting property: {} and all associated data", propertyId);
-
-        // 1. Get all photos for the property
-        List<Photo> photos = photoRepository.getAllPhotosByProperty(propertyId);
-        logger.info("Found {} photos to delete for property: {}", photos.size(), propertyId);
-
-        // 2. Batch delete S3 objects
-        List<String> s3Keys = photos.stream()
-                .map(Photo::getS3Key)
-                .filter(key -> key != null)
-                .collect(Collectors.toList());
-        if (!s3Keys.isEmpty()) {
-            s3Service.deleteObjects(s3Keys);
-        }
+        propertyRepository.markDeleted(propertyId);
+        propertyPurgeService.schedule(propertyId);
+        logger.info("Deleted property {}; purging its data in the background", propertyId);
+    }
 
-        // 3. Batch delete photos from DynamoDB
-        List<String> photoIds = photos.stream()
-                .map(Photo::getPhotoId)
-                .collect(Collectors.toList());
-        if (!photoIds.isEmpty()) {
-            photoRepository.batchDeletePhotos(photoIds);
+    /**
+     * Clusters of near-identical photos in a property, from the in-memory perceptual hash index.
+     * @param maxDistance Hamming distance between dHashes; defaults to near-duplicates.max-distance
+     */
+    public List<List<String>> findNearDuplicates(String propertyId, Integer maxDistance) {
+        propertyRepository.getProperty(propertyId);
+        int distance = maxDistance != null ? maxDistance : nearDuplicateService.getDefaultMaxDistance();
+        if (distance < 0 || distance > 64) {
+            throw new IllegalArgumentException("maxDistance must be between 0 and 64");
         }
-
-        // 4. Get and batch delete all analysis results for the property
-        List<AnalysisResult> analysisResults = analysisRepository.getAllAnalysisByProperty(propertyId);
-        logger.info("Found {} analysis results to delete for property: {}", analysisResults.size(), propertyId);
-        List<String> analysisIds = analysisResults.stream()
-                .map(AnalysisResult::getAnalysisId)
+        return nearDuplicateService.findClusters(propertyId, null, distance).stream()
+                .filter(cluster -> cluster.size() > 1)
                 .collect(Collectors.toList());
-        if (!analysisIds.isEmpty()) {
-            analysisRepository.batchDeleteAnalysis(analysisIds);
-        }
-
-        // 5. Delete the property itself
-        propertyRepository.deleteProperty(propertyId);
-
-        logger.info("Successfully deleted property: {} and all associated data", propertyId);
     }
 
     public List<PropertyResponse> listProperties() {
@@ -128,15 +115,12 @@ public class PropertyService {
 
         PagedResponse<Photo> pagedPhotos = photoRepository.listPhotosByProperty(propertyId, limit, exclusiveStartKey);
 
-        // Backfill missing metadata from S3 for photos that don't have it
-        for (Photo photo : pagedPhotos.getItems()) {
-            if (needsMetadataBackfill(photo)) {
-                backfillPhotoMetadata(photo);
-            }
-        }
+        // Legacy photos missing metadata or renditions are filled in from S3 in the background
+        metadataBackfillService.enqueue(pagedPhotos.getItems());
+        renditionService.backfill(pagedPhotos.getItems());
 
         List<PhotoResponse> photoResponses = pagedPhotos.getItems().stream()
-                .map(this::toPhotoResponse)
+                .map(photo -> toPhotoResponse(photo, renditionService))
                 .collect(Collectors.toList());
 
         return new PagedPhotoResponse(
@@ -146,90 +130,17 @@ public class PropertyService {
         );
     }
 
-    /**
-     * Check if a photo needs metadata backfill (missing fileSize, status, or contentType)
-     */
-    private boolean needsMetadataBackfill(Photo photo) {
-        return photo.getFileSize() == null || photo.getStatus() == null || photo.getContentType() == null;
-    }
-
-    /**
-     * Backfill missing photo metadata from S3 and update the database
-     */
-    private void backfillPhotoMetadata(Photo photo) {
-        if (photo.getS3Key() == null) {
-            logger.warn("Cannot backfill metadata for photo {} - no S3 key", photo.getPhotoId());
-            return;
-        }
-
-        try {
-            HeadObjectResponse s3Metadata = s3Service.getObjectMetadata(photo.getS3Key());
-            if (s3Metadata == null) {
-                logger.warn("Could not get S3 metadata for photo {}", photo.getPhotoId());
-                return;
-            }
-
-            boolean updated = false;
-
-            // Backfill file size
-            if (photo.getFileSize() == null && s3Metadata.contentLength() != null) {
-                photo.setFileSize(s3Metadata.contentLength());
-                updated = true;
-            }
-
-            // Backfill content type
-            if (photo.getContentType() == null && s3Metadata.contentType() != null) {
-                photo.setContentType(s3Metadata.contentType());
-                updated = true;
-            }
-
-            // Backfill status - if file exists in S3, it's uploaded
-            if (photo.getStatus() == null) {
-                photo.setStatus("uploaded");
-                updated = true;
-            }
-
-            // Persist changes to database
-            if (updated) {
-                photoRepository.updatePhoto(photo);
-                logger.info("Backfilled metadata for photo {}: fileSize={}, contentType={}, status={}",
-                        photo.getPhotoId(), photo.getFileSize(), photo.getContentType(), photo.getStatus());
-            }
-        } catch (Exception e) {
-            logger.error("Error backfilling metadata for photo {}: {}", photo.getPhotoId(), e.getMessage());
-        }
-    }
-
     /**
      * Recalculates and updates the PhotoCount for a property by counting all photos
      * (including those with null status from legacy uploads, or status='uploaded')
      * This is called after batch uploads complete to ensure accurate count without transaction conflicts
      */
     public PropertyResponse recalculatePhotoCount(String propertyId) {
-        // Verify property exists
-        Property property = propertyRepository.getProperty(propertyId);
-
-        // Count all photos for this property (not just uploaded status)
-        // Photos with null status are likely valid legacy uploads
-        int totalCount = 0;
-        Map<String, String> lastKey = null;
-
-        do {
-            PagedResponse<Photo> page = photoRepository.listPhotosByProperty(propertyId, 100, lastKey);
-            // Count all photos - null status or 'uploaded' status are valid
-            long validCount = page.getItems().stream()
-                    .filter(photo -> photo.getStatus() == null || "uploaded".equals(photo.getStatus()))
-                    .count();
-            totalCount += (int) validCount;
-            lastKey = page.getLastEvaluatedKey();
-        } while (lastKey != null && !lastKey.isEmpty());
-
-        // Update property with new count
-        property.setPhotoCount(totalCount);
-        propertyRepository.updateProperty(property);
+        // Count all photos - null status or 'uploaded' status are valid (null = legacy uploads)
+        int totalCount = photoCountAccumulator.recount(propertyId);
 
         logger.info("Recalculated photo count for property {}: {}", propertyId, totalCount);
-        return toPropertyResponse(property);
+        return toPropertyResponse(propertyRepository.getPropertyUncached(propertyId));
     }
 
     /**
@@ -263,7 +174,25 @@ public class PropertyService {
         );
     }
 
-    private PhotoResponse toPhotoResponse(Photo photo) {
+    /**
+     * Listing entry for a photo, with presigned URLs for whichever renditions it has.
+     */
+    static PhotoResponse toPhotoResponse(Photo photo, RenditionService renditionService) {
+        PhotoResponse response = toPhotoResponse(photo);
+        Rendition thumbnail = photo.getThumbnail();
+        if (thumbnail != null) {
+            response.setThumbnail(new PhotoResponse.RenditionInfo(thumbnail.getS3Key(), thumbnail.getWidth(),
+                    thumbnail.getHeight(), thumbnail.getFileSize(), renditionService.presignedUrl(thumbnail)));
+        }
+        Rendition preview = photo.getPreview();
+        if (preview != null) {
+            response.setPreview(new PhotoResponse.RenditionInfo(preview.getS3Key(), preview.getWidth(),
+                    preview.getHeight(), preview.getFileSize(), renditionService.presignedUrl(preview)));
+        }
+        return response;
+    }
+
+    static PhotoResponse toPhotoResponse(Photo photo) {
         return new PhotoResponse(
                 photo.getPhotoId(),
                 photo.getPropertyId(),
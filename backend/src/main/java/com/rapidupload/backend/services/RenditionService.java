@@ -0,0 +1,215 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.models.Rendition;
+import com.rapidupload.backend.repositories.PhotoRepository;
+import com.rapidupload.backend.utils.ImageResizer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downscaled JPEG renditions of uploaded photos: one sized for the analysis model, a preview and
+ * a thumbnail. They are generated once per confirmed photo in the background, from a single
+ * subsampled decode of the original, and stored next to it as {@code <s3Key>.<rendition>.jpg}.
+ *
+ * The analysis rendition is written last; the photo then records all three (keys, dimensions,
+ * sizes) in one update, so listings can serve the thumbnail instead of the original. Photos sharing
+ * an object (content deduplication) share its renditions too.
+ */
+@Service
+public class RenditionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenditionService.class);
+    public static final String ANALYSIS = "analysis";
+    public static final String PREVIEW = "preview";
+    public static final String THUMBNAIL = "thumbnail";
+    private static final String JPEG = "image/jpeg";
+    private static final String WIDTH = "width";
+    private static final String HEIGHT = "height";
+
+    private final PhotoRepository photoRepository;
+    private final S3Service s3Service;
+    private final int analysisSize;
+    private final int previewSize;
+    private final int thumbnailSize;
+    private final float jpegQuality;
+    private final PresignedUrlCache presignedUrlCache;
+    private final ThreadPoolExecutor renditionExecutor;
+    private final Set<String> generating = ConcurrentHashMap.newKeySet();
+
+    public RenditionService(PhotoRepository photoRepository,
+                            S3Service s3Service,
+                            PresignedUrlCache presignedUrlCache,
+                            @Value("${renditions.analysis-size:1568}") int analysisSize,
+                            @Value("${renditions.preview-size:1024}") int previewSize,
+                            @Value("${renditions.thumbnail-size:256}") int thumbnailSize,
+                            @Value("${renditions.jpeg-quality:0.85}") float jpegQuality,
+                            @Value("${renditions.threads:2}") int threads,
+                            @Value("${renditions.queue-capacity:10000}") int queueCapacity) {
+        this.photoRepository = photoRepository;
+        this.s3Service = s3Service;
+        this.presignedUrlCache = presignedUrlCache;
+        this.analysisSize = analysisSize;
+        this.previewSize = previewSize;
+        this.thumbnailSize = thumbnailSize;
+        this.jpegQuality = jpegQuality;
+        this.renditionExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity));
+    }
+
+    /**
+     * Key of one of an object's renditions.
+     */
+    public static String renditionKey(String s3Key, String rendition) {
+        return s3Key + "." + rendition + ".jpg";
+    }
+
+    /**
+     * The given original keys plus all their rendition keys, for deleting objects together with
+     * their renditions. Deleting renditions that were never generated is harmless.
+     */
+    public static List<String> withRenditions(Collection<String> s3Keys) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String s3Key : s3Keys) {
+            keys.add(s3Key);
+            keys.add(renditionKey(s3Key, ANALYSIS));
+            keys.add(renditionKey(s3Key, PREVIEW));
+            keys.add(renditionKey(s3Key, THUMBNAIL));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Queue a freshly uploaded photo for rendition. Never blocks.
+     */
+    public void generate(String photoId, String s3Key) {
+        if (photoId == null || s3Key == null || !generating.add(photoId)) {
+            return;
+        }
+        try {
+            renditionExecutor.execute(() -> {
+                try {
+                    render(photoId, s3Key);
+                } finally {
+                    generating.remove(photoId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue full: the photo is analyzed from its original until it is queued again
+            generating.remove(photoId);
+            logger.debug("Rendition queue full, skipping photo {}", photoId);
+        }
+    }
+
+    public void generate(Collection<Photo> photos) {
+        photos.forEach(photo -> generate(photo.getPhotoId(), photo.getS3Key()));
+    }
+
+    /**
+     * Queue listed photos that were uploaded before renditions existed, or whose rendition was
+     * dropped. Only formats ImageIO can read are queued, so unreadable originals aren't fetched on
+     * every listing.
+     */
+    public void backfill(Collection<Photo> photos) {
+        for (Photo photo : photos) {
+            boolean uploaded = photo.getStatus() == null || "uploaded".equals(photo.getStatus());
+            if (uploaded && photo.getThumbnail() == null && photo.getContentType() != null
+                    && ImageIO.getImageReadersByMIMEType(photo.getContentType()).hasNext()) {
+                generate(photo.getPhotoId(), photo.getS3Key());
+            }
+        }
+    }
+
+    /**
+     * Presigned GET URL for a rendition, or null when there is none.
+     */
+    public String presignedUrl(Rendition rendition) {
+        return rendition != null ? presignedUrlCache.get(rendition.getS3Key()).getUrl() : null;
+    }
+
+    private void render(String photoId, String s3Key) {
+        String analysisKey = renditionKey(s3Key, ANALYSIS);
+        try {
+            // Shared or previously rendered object: only record it
+            HeadObjectResponse existing = s3Service.findObjectMetadata(analysisKey);
+            if (existing != null) {
+                Rendition preview = describe(renditionKey(s3Key, PREVIEW));
+                Rendition thumbnail = describe(renditionKey(s3Key, THUMBNAIL));
+                if (preview != null && thumbnail != null) {
+                    photoRepository.updateRenditions(photoId, describe(analysisKey, existing), preview, thumbnail);
+                    return;
+                }
+            }
+
+            BufferedImage decoded;
+            try (InputStream content = s3Service.getObject(s3Key)) {
+                decoded = ImageResizer.decode(content, analysisSize);
+            }
+            if (decoded == null) {
+                logger.debug("No image reader for photo {}, analyzing the original", photoId);
+                return;
+            }
+
+            BufferedImage analysisImage = ImageResizer.scaleToFit(decoded, analysisSize);
+            BufferedImage previewImage = ImageResizer.scaleToFit(analysisImage, previewSize);
+            BufferedImage thumbnailImage = ImageResizer.scaleToFit(previewImage, thumbnailSize);
+            Rendition thumbnail = store(renditionKey(s3Key, THUMBNAIL), thumbnailImage);
+            Rendition preview = store(renditionKey(s3Key, PREVIEW), previewImage);
+            Rendition analysis = store(analysisKey, analysisImage);
+
+            photoRepository.updateRenditions(photoId, analysis, preview, thumbnail);
+            logger.debug("Rendered photo {} at {}x{} ({} bytes for analysis, {} for the thumbnail)",
+                    photoId, analysis.getWidth(), analysis.getHeight(), analysis.getFileSize(), thumbnail.getFileSize());
+        } catch (Exception e) {
+            logger.warn("Failed to render photo {}: {}", photoId, e.getMessage());
+        }
+    }
+
+    private Rendition store(String s3Key, BufferedImage image) throws IOException {
+        byte[] jpeg = ImageResizer.toJpeg(image, jpegQuality);
+        // Dimensions travel as object metadata, so photos sharing the object can record them from a HEAD
+        s3Service.putObject(s3Key, jpeg, JPEG, Map.of(
+                WIDTH, String.valueOf(image.getWidth()),
+                HEIGHT, String.valueOf(image.getHeight())));
+        return new Rendition(s3Key, image.getWidth(), image.getHeight(), (long) jpeg.length);
+    }
+
+    private Rendition describe(String s3Key) {
+        HeadObjectResponse head = s3Service.findObjectMetadata(s3Key);
+        return head != null ? describe(s3Key, head) : null;
+    }
+
+    private static Rendition describe(String s3Key, HeadObjectResponse head) {
+        String width = head.metadata().get(WIDTH);
+        String height = head.metadata().get(HEIGHT);
+        return new Rendition(s3Key,
+                width != null ? Integer.valueOf(width) : null,
+                height != null ? Integer.valueOf(height) : null,
+                head.contentLength());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renditionExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,193 @@
+package com.rapidupload.backend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidupload.backend.models.AnalysisResult;
+import com.rapidupload.backend.models.Photo;
+import com.rapidupload.backend.repositories.AnalysisRepository;
+import com.rapidupload.backend.repositories.PhotoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Content-addressed PDF reports. A report is stored at {@code reports/<propertyId>/<fingerprint>.pdf},
+ * where the fingerprint is a SHA-256 over everything the PDF is built from: the property name, and
+ * for each selected photo its object key and status and the content of its analyses. An unchanged
+ * property and selection therefore maps to an existing object, found with one HEAD request; any
+ * upload, re-analysis or volume override produces a new key.
+ *
+ * Superseded reports are never looked up again, so each property keeps only its newest
+ * {@code max-per-property} reports, none older than {@code max-age-days}.
+ */
+@Service
+public class ReportCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportCacheService.class);
+    private static final String FINGERPRINT_VERSION = "v1";
+    public static final String PHOTOS_INCLUDED_METADATA = "photos-included";
+    // Above this many selected photos, one paged query over the property beats a query per photo
+    private static final int PER_PHOTO_QUERY_LIMIT = 100;
+
+    private final PhotoRepository photoRepository;
+    private final AnalysisRepository analysisRepository;
+    private final S3Service s3Service;
+    private final ObjectMapper objectMapper;
+    private final int maxPerProperty;
+    private final Duration maxAge;
+
+    public ReportCacheService(PhotoRepository photoRepository,
+                              AnalysisRepository analysisRepository,
+                              S3Service s3Service,
+                              @Value("${reports.cache.max-per-property:10}") int maxPerProperty,
+                              @Value("${reports.cache.max-age-days:30}") long maxAgeDays) {
+        this.photoRepository = photoRepository;
+        this.analysisRepository = analysisRepository;
+        this.s3Service = s3Service;
+        this.maxPerProperty = maxPerProperty;
+        this.maxAge = Duration.ofDays(maxAgeDays);
+        this.objectMapper = new ObjectMapper();
+    }
+
+    /**
+     * Fingerprint of a report over the given photos, independent of their order.
+     */
+    public String fingerprint(String propertyId, String propertyName, List<String> photoIds) {
+        List<String> sortedIds = new ArrayList<>(new TreeSet<>(photoIds));
+        Map<String, Photo> photos = photoRepository.batchGetPhotos(sortedIds);
+        Map<String, List<AnalysisResult>> analyses = analysesByPhoto(propertyId, sortedIds);
+
+        MessageDigest digest = sha256();
+        update(digest, FINGERPRINT_VERSION);
+        update(digest, propertyName);
+        for (String photoId : sortedIds) {
+            update(digest, photoId);
+            Photo photo = photos.get(photoId);
+            update(digest, photo != null ? photo.getS3Key() : null);
+            update(digest, photo != null ? photo.getStatus() : null);
+
+            List<AnalysisResult> photoAnalyses = new ArrayList<>(analyses.getOrDefault(photoId, List.of()));
+            photoAnalyses.sort(Comparator.comparing(AnalysisResult::getAnalysisId));
+            for (AnalysisResult analysis : photoAnalyses) {
+                update(digest, analysis.getAnalysisId());
+                update(digest, analysis.getStatus());
+                update(digest, analysis.getCompletedAt());
+                update(digest, analysis.getClaudeAnalysis());
+                try {
+                    // Volume overrides change detections in place, without any timestamp
+                    update(digest, objectMapper.writeValueAsString(analysis.getDetections()));
+                } catch (JsonProcessingException e) {
+                    throw new RuntimeException("Failed to fingerprint analysis " + analysis.getAnalysisId(), e);
+                }
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String reportKey(String propertyId, String fingerprint) {
+        return "reports/" + propertyId + "/" + fingerprint + ".pdf";
+    }
+
+    /**
+     * The stored report for a fingerprint, or null when it has to be generated.
+     */
+    public CachedReport find(String propertyId, String fingerprint) {
+        String reportKey = reportKey(propertyId, fingerprint);
+        HeadObjectResponse head = s3Service.findObjectMetadata(reportKey);
+        if (head == null) {
+            return null;
+        }
+        String photosIncluded = head.metadata().get(PHOTOS_INCLUDED_METADATA);
+        return new CachedReport(reportKey, photosIncluded != null ? Integer.valueOf(photosIncluded) : null);
+    }
+
+    /**
+     * Delete a property's reports beyond the newest {@code max-per-property} or older than
+     * {@code max-age-days}. Best effort.
+     */
+    public void evictStale(String propertyId) {
+        try {
+            List<S3Object> reports = s3Service.listObjects("reports/" + propertyId + "/");
+            reports.sort(Comparator.comparing(S3Object::lastModified).reversed());
+
+            Instant cutoff = Instant.now().minus(maxAge);
+            List<String> stale = new ArrayList<>();
+            for (int i = 0; i < reports.size(); i++) {
+                if (i >= maxPerProperty || reports.get(i).lastModified().isBefore(cutoff)) {
+                    stale.add(reports.get(i).key());
+                }
+            }
+            if (!stale.isEmpty()) {
+                s3Service.deleteObjects(stale);
+                logger.info("Evicted {} stale reports of property {}", stale.size(), propertyId);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to evict stale reports of property {}: {}", propertyId, e.getMessage());
+        }
+    }
+
+    private Map<String, List<AnalysisResult>> analysesByPhoto(String propertyId, List<String> photoIds) {
+        Map<String, List<AnalysisResult>> analyses = new HashMap<>();
+        if (photoIds.size() <= PER_PHOTO_QUERY_LIMIT) {
+            // The same PhotoID-index lookup the report Lambda makes, which reads the first analysis
+            analysisRepository.getAnalysesByPhotoIds(photoIds)
+                    .forEach((photoId, photoAnalyses) -> analyses.put(photoId, List.of(photoAnalyses.get(0))));
+        } else {
+            for (AnalysisResult analysis : analysisRepository.getAllAnalysisByProperty(propertyId)) {
+                analyses.computeIfAbsent(analysis.getPhotoId(), id -> new ArrayList<>()).add(analysis);
+            }
+        }
+        return analyses;
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        // Length-prefixed, so adjacent fields can't run into each other
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        digest.update((byte) (value != null ? 1 : 0));
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static class CachedReport {
+        private final String reportKey;
+        private final Integer photosIncluded;
+
+        private CachedReport(String reportKey, Integer photosIncluded) {
+            this.reportKey = reportKey;
+            this.photosIncluded = photosIncluded;
+        }
+
+        public String getReportKey() {
+            return reportKey;
+        }
+
+        public Integer getPhotosIncluded() {
+            return photosIncluded;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.rapidupload.backend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidupload.backend.dto.ReportJobResponse;
+import com.rapidupload.backend.exceptions.ReportJobNotFoundException;
+import com.rapidupload.backend.exceptions.ReportQueueFullException;
+import com.rapidupload.backend.models.Property;
+import com.rapidupload.backend.models.ReportJob;
+import com.rapidupload.backend.repositories.PropertyRepository;
+import com.rapidupload.backend.repositories.ReportJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.lambda.LambdaAsyncClient;
+import software.amazon.awssdk.services.lambda.model.InvocationType;
+import software.amazon.awssdk.services.lambda.model.InvokeRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs PDF reports as jobs. A request creates a queued ReportJob row and returns at once; a
+ * scheduler starts queued jobs with an async EVENT invocation of the report Lambda while fewer
+ * than {@code max-concurrent} are running, and the Lambda writes progress and the report key to
+ * the row. Clients poll the job; a completed job carries a presigned download URL.
+ *
+ * Reports are content-addressed (see ReportCacheService). The fingerprint is computed when a job
+ * starts, not on the request: a job whose fingerprint matches a stored report completes at once
+ * with that report, and one matching a report still being generated waits for that job's outcome.
+ *
+ * The waiting queue is bounded and in memory. Jobs that never finish (the Lambda timed out, or
+ * this instance restarted while they were waiting) are failed after {@code job-timeout-minutes}.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    private final ReportJobRepository reportJobRepository;
+    private final PropertyRepository propertyRepository;
+    private final PresignedUrlCache presignedUrlCache;
+    private final ReportCacheService reportCacheService;
+    private final LambdaAsyncClient lambdaAsyncClient;
+    private final ObjectMapper objectMapper;
+    private final String reportLambdaName;
+    private final int maxConcurrent;
+    private final Duration jobTimeout;
+    private final LinkedBlockingQueue<QueuedReport> queue;
+    // Started jobs by JobID, with the time they were started
+    private final Map<String, Long> running = new ConcurrentHashMap<>();
+    // Running jobs by the fingerprint of the report they generate
+    private final Map<String, String> inFlight = new ConcurrentHashMap<>();
+    // Running jobs to the jobs that asked for the same report meanwhile and wait for its outcome
+    private final Map<String, List<String>> waiters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    public ReportJobService(ReportJobRepository reportJobRepository,
+                            PropertyRepository propertyRepository,
+                            PresignedUrlCache presignedUrlCache,
+                            ReportCacheService reportCacheService,
+                            LambdaAsyncClient lambdaAsyncClient,
+                            @Value("${aws.analysis.report-lambda-name:rapidupload-report-generator}") String reportLambdaName,
+                            @Value("${reports.max-concurrent:2}") int maxConcurrent,
+                            @Value("${reports.queue-capacity:100}") int queueCapacity,
+                            @Value("${reports.poll-interval-seconds:5}") long pollIntervalSeconds,
+                            @Value("${reports.job-timeout-minutes:10}") long jobTimeoutMinutes) {
+        this.reportJobRepository = reportJobRepository;
+        this.propertyRepository = propertyRepository;
+        this.presignedUrlCache = presignedUrlCache;
+        this.reportCacheService = reportCacheService;
+        this.lambdaAsyncClient = lambdaAsyncClient;
+        this.reportLambdaName = reportLambdaName;
+        this.maxConcurrent = maxConcurrent;
+        this.jobTimeout = Duration.ofMinutes(jobTimeoutMinutes);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.objectMapper = new ObjectMapper();
+        this.scheduler.scheduleWithFixedDelay(this::tick, pollIntervalSeconds, pollIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queue a report for a property. Whether an identical report can be reused is worked out when
+     * the job starts, off the request thread.
+     * @throws ReportQueueFullException when too many reports are already waiting
+     */
+    public ReportJobResponse submit(String propertyId, List<String> photoIds) {
+        Property property = propertyRepository.getProperty(propertyId);
+
+        ReportJob job = new ReportJob();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setPropertyId(propertyId);
+        job.setPhotoIds(photoIds != null ? photoIds : List.of());
+        job.setCreatedAt(Instant.now().toString());
+        job.setStatus("queued");
+        reportJobRepository.create(job);
+
+        if (!queue.offer(new QueuedReport(job.getJobId(), propertyId, property.getName(), job.getPhotoIds()))) {
+            reportJobRepository.markFailed(job.getJobId(), "Report queue is full");
+            throw new ReportQueueFullException(queue.size());
+        }
+        logger.info("Queued report job {} for property {} ({} photos)", job.getJobId(), propertyId, job.getPhotoIds().size());
+
+        // Start it right away if a slot is free
+        scheduler.execute(this::tick);
+        return toResponse(job);
+    }
+
+    /**
+     * Current state of a job, with a download URL once it has completed.
+     */
+    public ReportJobResponse getJob(String jobId) {
+        ReportJob job = reportJobRepository.get(jobId);
+        if (job == null) {
+            throw new ReportJobNotFoundException(jobId);
+        }
+        if (!job.isFinished() && !isTracked(jobId) && isOverdue(job)) {
+            // Lost by a restart, or its Lambda died without recording the outcome
+            reportJobRepository.markFailed(jobId, "Report timed out");
+            job = reportJobRepository.get(jobId);
+        }
+        return toResponse(job);
+    }
+
+    /**
+     * Retire finished or timed-out jobs, then start queued jobs into the free slots.
+     */
+    private synchronized void tick() {
+        try {
+            if (!running.isEmpty()) {
+                Map<String, ReportJob> jobs = reportJobRepository.batchGet(new ArrayList<>(running.keySet()));
+                long now = System.currentTimeMillis();
+                for (Map.Entry<String, Long> entry : running.entrySet()) {
+                    ReportJob job = jobs.get(entry.getKey());
+                    if (job == null || job.isFinished()) {
+                        retire(entry.getKey(), job);
+                        if (job != null && "completed".equals(job.getStatus())) {
+                            // A new report usually supersedes an older one of the same property
+                            reportCacheService.evictStale(job.getPropertyId());
+                        }
+                    } else if (now - entry.getValue() > jobTimeout.toMillis()) {
+                        logger.warn("Report job {} timed out", entry.getKey());
+                        reportJobRepository.markFailed(entry.getKey(), "Report timed out");
+                        retire(entry.getKey(), null);
+                    }
+                }
+            }
+
+            while (running.size() < maxConcurrent) {
+                QueuedReport report = queue.poll();
+                if (report == null) {
+                    break;
+                }
+                start(report);
+            }
+        } catch (Exception e) {
+            logger.error("Error scheduling report jobs", e);
+        }
+    }
+
+    private void start(QueuedReport report) {
+        // Without photos the Lambda has nothing to render; let it report that as before
+        String fingerprint = null;
+        if (!report.photoIds.isEmpty()) {
+            try {
+                fingerprint = reportCacheService.fingerprint(report.propertyId, report.propertyName, report.photoIds);
+            } catch (Exception e) {
+                logger.warn("Failed to fingerprint report job {}, generating it uncached: {}", report.jobId, e.getMessage());
+            }
+        }
+
+        if (!reportJobRepository.markRunning(report.jobId, fingerprint)) {
+            // Failed or removed while it waited
+            retire(report.jobId, null);
+            return;
+        }
+
+        String reportKey = null;
+        if (fingerprint != null) {
+            ReportCacheService.CachedReport cached = reportCacheService.find(report.propertyId, fingerprint);
+            if (cached != null) {
+                reportJobRepository.markCompletedWithReport(report.jobId, cached.getReportKey(),
+                        report.photoIds.size(), cached.getPhotosIncluded());
+                logger.info("Reused report {} for property {} as job {}", cached.getReportKey(), report.propertyId, report.jobId);
+                return;
+            }
+
+            String generating = inFlight.putIfAbsent(fingerprint, report.jobId);
+            if (generating != null && running.containsKey(generating)) {
+                // Takes that job's outcome when it is retired, without a slot of its own
+                waiters.computeIfAbsent(generating, id -> new CopyOnWriteArrayList<>()).add(report.jobId);
+                logger.info("Report for property {} is already being generated by job {}, job {} waits for it",
+                        report.propertyId, generating, report.jobId);
+                return;
+            }
+            inFlight.put(fingerprint, report.jobId);
+            reportKey = ReportCacheService.reportKey(report.propertyId, fingerprint);
+        }
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("jobId", report.jobId);
+        payload.put("propertyId", report.propertyId);
+        payload.put("propertyName", report.propertyName);
+        if (!report.photoIds.isEmpty()) {
+            payload.put("photoIds", report.photoIds);
+        }
+        if (reportKey != null) {
+            payload.put("reportKey", reportKey);
+        }
+
+        InvokeRequest request;
+        try {
+            request = InvokeRequest.builder()
+                    .functionName(reportLambdaName)
+                    .invocationType(InvocationType.EVENT) // Async invocation
+                    .payload(SdkBytes.fromUtf8String(objectMapper.writeValueAsString(payload)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            reportJobRepository.markFailed(report.jobId, "Failed to build report request");
+            retire(report.jobId, null);
+            return;
+        }
+
+        running.put(report.jobId, System.currentTimeMillis());
+        lambdaAsyncClient.invoke(request).whenComplete((response, error) -> {
+            if (error != null) {
+                logger.error("Failed to invoke report Lambda for job {}: {}", report.jobId, error.getMessage());
+                // Off the SDK's event loop, and ordered with tick() attaching waiters to this job
+                scheduler.execute(() -> {
+                    reportJobRepository.markFailed(report.jobId, "Failed to start report generation");
+                    retire(report.jobId, null);
+                });
+            } else {
+                logger.info("Started report job {} for property {}", report.jobId, report.propertyId);
+            }
+        });
+    }
+
+    /**
+     * Forget a job that finished or will never run. Jobs waiting on its report complete with it if
+     * it completed, and fail otherwise.
+     * Holds the same monitor as tick(), so no job can attach as a waiter after the list is taken.
+     * @param finished the job as last read, or null if it was failed or lost
+     */
+    private synchronized void retire(String jobId, ReportJob finished) {
+        running.remove(jobId);
+        inFlight.values().remove(jobId);
+        List<String> waiting = waiters.remove(jobId);
+        if (waiting == null) {
+            return;
+        }
+        for (String waiter : waiting) {
+            if (finished != null && "completed".equals(finished.getStatus()) && finished.getReportKey() != null) {
+                reportJobRepository.markCompletedWithReport(waiter, finished.getReportKey(),
+                        finished.getPhotosTotal(), finished.getPhotosIncluded());
+            } else {
+                String error = finished != null && finished.getError() != null ? finished.getError() : "Report generation failed";
+                reportJobRepository.markFailed(waiter, error);
+            }
+        }
+    }
+
+    private boolean isTracked(String jobId) {
+        return running.containsKey(jobId)
+                || queue.stream().anyMatch(report -> report.jobId.equals(jobId))
+                || waiters.values().stream().anyMatch(waiting -> waiting.contains(jobId));
+    }
+
+    private boolean isOverdue(ReportJob job) {
+        String since = job.getStartedAt() != null ? job.getStartedAt() : job.getCreatedAt();
+        return since != null && Instant.parse(since).plus(jobTimeout).isBefore(Instant.now());
+    }
+
+    private Integer queuePosition(String jobId) {
+        int position = 1;
+        for (QueuedReport report : queue) {
+            if (report.jobId.equals(jobId)) {
+                return position;
+            }
+            position++;
+        }
+        return null;
+    }
+
+    private ReportJobResponse toResponse(ReportJob job) {
+        ReportJobResponse response = new ReportJobResponse();
+        response.setJobId(job.getJobId());
+        response.setPropertyId(job.getPropertyId());
+        response.setStatus(job.getStatus());
+        response.setPhotosTotal(job.getPhotosTotal());
+        response.setPhotosProcessed(job.getPhotosProcessed());
+        response.setPhotosIncluded(job.getPhotosIncluded());
+        response.setReportKey(job.getReportKey());
+        response.setCached(job.isCached());
+        response.setError(job.getError());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setStartedAt(job.getStartedAt());
+        response.setCompletedAt(job.getCompletedAt());
+        if ("queued".equals(job.getStatus())) {
+            response.setQueuePosition(queuePosition(job.getJobId()));
+        }
+        if ("completed".equals(job.getStatus()) && job.getReportKey() != null) {
+            PresignedUrlCache.PresignedUrl url = presignedUrlCache.get(job.getReportKey());
+            response.setDownloadUrl(url.getUrl());
+            response.setDownloadUrlExpiresAt(url.getExpiresAt());
+        }
+        return response;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static class QueuedReport {
+        private final String jobId;
+        private final String propertyId;
+        private final String propertyName;
+        private final List<String> photoIds;
+
+        private QueuedReport(String jobId, String propertyId, String propertyName, List<String> photoIds) {
+            this.jobId = jobId;
+            this.propertyId = propertyId;
+            this.propertyName = propertyName;
+            this.photoIds = photoIds;
+        }
+    }
+}
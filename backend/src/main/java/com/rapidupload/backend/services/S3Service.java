@@ -1,46 +1,99 @@
 package com.rapidupload.backend.services;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rapidupload.backend.dto.PostPolicyResponse;
 import com.rapidupload.backend.dto.PresignedUrlResponse;
 import com.rapidupload.backend.utils.FilenameSanitizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
 import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 @Service
 public class S3Service {
 
     private static final Logger logger = LoggerFactory.getLogger(S3Service.class);
     private static final int PRESIGNED_URL_EXPIRATION_MINUTES = 15;
+    private static final String SIGV4_ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final DateTimeFormatter AMZ_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter POLICY_EXPIRATION_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
 
     private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
     private final S3Presigner s3Presigner;
+    private final AwsCredentialsProvider credentialsProvider;
     private final String bucketName;
+    private final String region;
 
-    public S3Service(S3Client s3Client, S3Presigner s3Presigner, @Value("${aws.s3.bucket-name}") String bucketName) {
+    public S3Service(S3Client s3Client,
+                     S3AsyncClient s3AsyncClient,
+                     S3Presigner s3Presigner,
+                     AwsCredentialsProvider credentialsProvider,
+                     @Value("${aws.s3.bucket-name}") String bucketName,
+                     @Value("${aws.region}") String region) {
         this.s3Client = s3Client;
+        this.s3AsyncClient = s3AsyncClient;
         this.s3Presigner = s3Presigner;
+        this.credentialsProvider = credentialsProvider;
         this.bucketName = bucketName;
+        this.region = region;
     }
 
     public String getBucketName() {
@@ -67,6 +120,98 @@ public class S3Service {
         }
     }
 
+    /**
+     * Like {@link #getObjectMetadata}, for objects that are expected to be missing: a missing
+     * object isn't logged, other errors still throw.
+     */
+    public HeadObjectResponse findObjectMetadata(String s3Key) {
+        try {
+            return s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .build());
+        } catch (NoSuchKeyException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Open an object's content for streaming; the caller must close the stream.
+     */
+    public ResponseInputStream<GetObjectResponse> getObject(String s3Key) {
+        return s3Client.getObject(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .build());
+    }
+
+    /**
+     * Download an object's content into memory without blocking; only for objects known to be small.
+     */
+    public CompletableFuture<byte[]> getObjectBytesAsync(String s3Key) {
+        return s3AsyncClient.getObject(GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(s3Key)
+                        .build(),
+                AsyncResponseTransformer.toBytes())
+                .thenApply(ResponseBytes::asByteArrayUnsafe);
+    }
+
+    /**
+     * Store an object generated server-side, such as a rendition.
+     * @param metadata user metadata (x-amz-meta-*), returned by HEAD requests
+     */
+    public void putObject(String s3Key, byte[] content, String contentType, Map<String, String> metadata) {
+        s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(s3Key)
+                        .contentType(contentType)
+                        .metadata(metadata)
+                        .build(),
+                RequestBody.fromBytes(content));
+    }
+
+    /**
+     * Presign a GET for reading an object from the browser, valid for {@code expiration}.
+     */
+    public String generatePresignedGetUrl(String s3Key, Duration expiration) {
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(expiration)
+                .getObjectRequest(GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(s3Key)
+                        .build())
+                .build();
+        return s3Presigner.presignGetObject(presignRequest).url().toString();
+    }
+
+    /**
+     * Non-blocking variant of {@link #getObjectMetadata}; completes with null if the object doesn't exist
+     * or the request fails.
+     */
+    public CompletableFuture<HeadObjectResponse> getObjectMetadataAsync(String s3Key) {
+        HeadObjectRequest request = HeadObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .build();
+        return s3AsyncClient.headObject(request).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof NoSuchKeyException) {
+                logger.warn("Object not found in S3: {}", s3Key);
+            } else {
+                logger.error("Error getting object metadata for {}: {}", s3Key, cause.getMessage());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Public URL of an object in the upload bucket.
+     */
+    public String getObjectUrl(String s3Key) {
+        return String.format("https://%s.s3.%s.amazonaws.com/%s", bucketName, region, s3Key);
+    }
+
     /**
      * Get file size from S3 for a given key.
      * Returns null if the object doesn't exist or an error occurs.
@@ -76,13 +221,30 @@ public class S3Service {
         return response != null ? response.contentLength() : null;
     }
 
+    /**
+     * Build the object key for a photo: properties/{propertyId}/{photoId}-{sanitizedFilename}
+     */
+    public String buildObjectKey(String photoId, String propertyId, String filename) {
+        String sanitizedFilename = FilenameSanitizer.sanitize(filename);
+        return String.format("properties/%s/%s-%s", propertyId, photoId, sanitizedFilename);
+    }
+
     public PresignedUrlResponse generatePresignedUrl(String photoId, String propertyId, String filename, String contentType, Long fileSize) {
+        return generatePresignedUrl(photoId, propertyId, filename, contentType, fileSize, null);
+    }
 
-        // Sanitize filename
-        String sanitizedFilename = FilenameSanitizer.sanitize(filename);
+    /**
+     * Presign a PUT that, when {@code sha256Hex} is given, also signs the x-amz-checksum-sha256
+     * header: the client must send it (returned in {@code fields}) and S3 rejects a body that
+     * doesn't match, so the stored object is known to have that hash.
+     */
+    public PresignedUrlResponse generatePresignedUrl(String photoId, String propertyId, String filename, String contentType,
+                                                     Long fileSize, String sha256Hex) {
 
-        // Construct S3 key: properties/{propertyId}/{photoId}-{sanitizedFilename}
-        String s3Key = String.format("properties/%s/%s-%s", propertyId, photoId, sanitizedFilename);
+        String s3Key = buildObjectKey(photoId, propertyId, filename);
+        String checksum = sha256Hex != null
+                ? Base64.getEncoder().encodeToString(HexFormat.of().parseHex(sha256Hex))
+                : null;
 
         // Create PutObjectRequest
         PutObjectRequest putObjectRequest = PutObjectRequest.builder()
@@ -90,6 +252,7 @@ public class S3Service {
                 .key(s3Key)
                 .contentType(contentType)
                 .contentLength(fileSize)
+                .checksumSHA256(checksum)
                 .build();
 
         // Generate presigned URL with 15-minute expiration
@@ -104,6 +267,9 @@ public class S3Service {
         // Build fields map
         Map<String, String> fields = new HashMap<>();
         fields.put("key", s3Key);
+        if (checksum != null) {
+            fields.put("x-amz-checksum-sha256", checksum);
+        }
 
         logger.info("Generated presigned URL for photoId: {}, s3Key: {}", photoId, s3Key);
 
@@ -115,6 +281,177 @@ public class S3Service {
         );
     }
 
+    /**
+     * Generate a single SigV4 browser POST policy that covers every upload under
+     * properties/{propertyId}/. The policy restricts the key prefix, the object size and the
+     * content type; it does not pin individual keys, so callers must only treat objects whose
+     * key they handed out (and recorded on a pending photo) as uploads.
+     * @param maxFileSize Upper bound for content-length-range, in bytes
+     */
+    public PostPolicyResponse generatePostPolicy(String propertyId, long maxFileSize) {
+        String keyPrefix = String.format("properties/%s/", propertyId);
+
+        Instant now = Instant.now();
+        String amzDate = AMZ_DATE_FORMAT.format(now);
+        String dateStamp = amzDate.substring(0, 8);
+        String credentialScope = String.format("%s/%s/s3/aws4_request", dateStamp, region);
+
+        AwsCredentials credentials = credentialsProvider.resolveCredentials();
+        String credential = credentials.accessKeyId() + "/" + credentialScope;
+        String sessionToken = credentials instanceof AwsSessionCredentials
+                ? ((AwsSessionCredentials) credentials).sessionToken()
+                : null;
+
+        List<Object> conditions = new ArrayList<>();
+        conditions.add(Map.of("bucket", bucketName));
+        conditions.add(List.of("starts-with", "$key", keyPrefix));
+        conditions.add(List.of("starts-with", "$Content-Type", "image/"));
+        conditions.add(List.of("content-length-range", 1, maxFileSize));
+        conditions.add(Map.of("x-amz-algorithm", SIGV4_ALGORITHM));
+        conditions.add(Map.of("x-amz-credential", credential));
+        conditions.add(Map.of("x-amz-date", amzDate));
+        if (sessionToken != null) {
+            conditions.add(Map.of("x-amz-security-token", sessionToken));
+        }
+
+        Map<String, Object> policy = new LinkedHashMap<>();
+        policy.put("expiration", POLICY_EXPIRATION_FORMAT.format(
+                now.plus(Duration.ofMinutes(PRESIGNED_URL_EXPIRATION_MINUTES))));
+        policy.put("conditions", conditions);
+
+        String encodedPolicy;
+        try {
+            encodedPolicy = Base64.getEncoder().encodeToString(
+                    objectMapper.writeValueAsString(policy).getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize POST policy", e);
+        }
+
+        // The client adds key, Content-Type and file per upload; everything else is shared
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("policy", encodedPolicy);
+        fields.put("x-amz-algorithm", SIGV4_ALGORITHM);
+        fields.put("x-amz-credential", credential);
+        fields.put("x-amz-date", amzDate);
+        if (sessionToken != null) {
+            fields.put("x-amz-security-token", sessionToken);
+        }
+        fields.put("x-amz-signature", signPolicy(encodedPolicy, credentials.secretAccessKey(), dateStamp));
+
+        String uploadUrl = String.format("https://%s.s3.%s.amazonaws.com/", bucketName, region);
+        logger.info("Generated POST policy for property: {}, prefix: {}", propertyId, keyPrefix);
+
+        return new PostPolicyResponse(uploadUrl, PRESIGNED_URL_EXPIRATION_MINUTES * 60, keyPrefix, fields);
+    }
+
+    private String signPolicy(String encodedPolicy, String secretAccessKey, String dateStamp) {
+        try {
+            byte[] signingKey = hmacSha256(("AWS4" + secretAccessKey).getBytes(StandardCharsets.UTF_8), dateStamp);
+            signingKey = hmacSha256(signingKey, region);
+            signingKey = hmacSha256(signingKey, "s3");
+            signingKey = hmacSha256(signingKey, "aws4_request");
+            return HexFormat.of().formatHex(hmacSha256(signingKey, encodedPolicy));
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Failed to sign POST policy", e);
+        }
+    }
+
+    private static byte[] hmacSha256(byte[] key, String data) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Start a multipart upload for the given key.
+     * @return The S3 upload ID that identifies the session in later part/complete/abort calls
+     */
+    public String createMultipartUpload(String s3Key, String contentType) {
+        CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .contentType(contentType)
+                .build();
+        CreateMultipartUploadResponse response = s3Client.createMultipartUpload(request);
+        logger.info("Created multipart upload for s3Key: {}, uploadId: {}", s3Key, response.uploadId());
+        return response.uploadId();
+    }
+
+    /**
+     * Presign a PUT URL for a single part of a multipart upload.
+     */
+    public String presignUploadPart(String s3Key, String uploadId, int partNumber, Duration expiration) {
+        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .build();
+
+        UploadPartPresignRequest presignRequest = UploadPartPresignRequest.builder()
+                .signatureDuration(expiration)
+                .uploadPartRequest(uploadPartRequest)
+                .build();
+
+        return s3Presigner.presignUploadPart(presignRequest).url().toString();
+    }
+
+    /**
+     * Complete a multipart upload from the ETags the client collected for each part.
+     * @param partETags Part number to ETag; parts are sent to S3 in ascending order
+     */
+    public void completeMultipartUpload(String s3Key, String uploadId, Map<Integer, String> partETags) {
+        List<CompletedPart> parts = partETags.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> CompletedPart.builder()
+                        .partNumber(entry.getKey())
+                        .eTag(entry.getValue())
+                        .build())
+                .collect(Collectors.toList());
+
+        CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                .build();
+
+        s3Client.completeMultipartUpload(request);
+        logger.info("Completed multipart upload for s3Key: {} ({} parts)", s3Key, parts.size());
+    }
+
+    /**
+     * Abort a multipart upload so S3 discards the parts uploaded so far.
+     */
+    public void abortMultipartUpload(String s3Key, String uploadId) {
+        try {
+            AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .build();
+            s3Client.abortMultipartUpload(request);
+            logger.info("Aborted multipart upload for s3Key: {}", s3Key);
+        } catch (Exception e) {
+            logger.error("Error aborting multipart upload for {}: {}", s3Key, e.getMessage());
+            // Don't throw - abort should be best-effort, like deletion
+        }
+    }
+
+    /**
+     * All objects under a prefix, following continuation tokens.
+     */
+    public List<S3Object> listObjects(String prefix) {
+        List<S3Object> objects = new ArrayList<>();
+        s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                        .bucket(bucketName)
+                        .prefix(prefix)
+                        .build())
+                .contents()
+                .forEach(objects::add);
+        return objects;
+    }
+
     /**
      * Delete an object from S3.
      * @param s3Key The key of the object to delete
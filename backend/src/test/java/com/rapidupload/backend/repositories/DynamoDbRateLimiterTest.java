@@ -0,0 +1,145 @@
+package com.rapidupload.backend.repositories;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DynamoDbRateLimiterTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void rejectsMinRateAboveMaxRate() {
+        assertThrows(IllegalArgumentException.class, () -> new DynamoDbRateLimiter(registry, 10, 20, 1, 3, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new DynamoDbRateLimiter(registry, 10, 0, 1, 3, 1000));
+    }
+
+    @Test
+    void passesResultThroughWithoutWaiting() {
+        DynamoDbRateLimiter limiter = new DynamoDbRateLimiter(registry, 1000, 5, 20, 3, 1000);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            assertEquals("item", limiter.read("Photos", "GetItem", () -> "item"));
+        }
+
+        assertTrue(elapsedMs(start) < 500);
+        assertEquals(0.0, throttles("Photos", "read"), 0);
+    }
+
+    @Test
+    void retriesThrottledCallAndHalvesRate() {
+        DynamoDbRateLimiter limiter = new DynamoDbRateLimiter(registry, 100, 5, 0, 4, 5000);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = limiter.write("Photos", "PutItem", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw throttled();
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        assertEquals(2.0, throttles("Photos", "write"), 0);
+        // The second throttle lands inside the cooldown, so the rate is only cut once
+        assertEquals(50.0, rate("Photos", "write"), 0.01);
+    }
+
+    @Test
+    void rethrowsAfterLastAttempt() {
+        DynamoDbRateLimiter limiter = new DynamoDbRateLimiter(registry, 1000, 5, 0, 3, 5000);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(ProvisionedThroughputExceededException.class, () -> limiter.read("Photos", "Query", () -> {
+            calls.incrementAndGet();
+            throw throttled();
+        }));
+
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void failsFastWhenTokenIsTooFarOff() {
+        DynamoDbRateLimiter limiter = new DynamoDbRateLimiter(registry, 10, 5, 0, 3, 100);
+        AtomicInteger calls = new AtomicInteger();
+
+        long start = System.nanoTime();
+        assertThrows(ProvisionedThroughputExceededException.class, () -> limiter.execute(
+                "Photos", DynamoDbRateLimiter.Operation.READ, "BatchGetItem", 100, calls::incrementAndGet));
+
+        assertEquals(0, calls.get());
+        assertTrue(elapsedMs(start) < 100);
+        assertEquals(1.0, registry.get("dynamodb.rate-limit.rejections")
+                .tag("table", "Photos").tag("operation", "read").counter().count(), 0);
+    }
+
+    @Test
+    void pacesCallersAfterThrottle() {
+        DynamoDbRateLimiter limiter = new DynamoDbRateLimiter(registry, 40, 5, 0, 3, 5000);
+        limiter.onThrottle("Photos", DynamoDbRateLimiter.Operation.WRITE);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire("Photos", DynamoDbRateLimiter.Operation.WRITE, "BatchWriteItem", 1);
+        }
+
+        // The bucket was emptied and refills at 20/s: ten tokens take about half a second
+        long elapsed = elapsedMs(start);
+        assertTrue(elapsed >= 400, "took only " + elapsed + " ms");
+        assertTrue(elapsed < 2000, "took " + elapsed + " ms");
+    }
+
+    @Test
+    void bucketsAreSeparatePerTableAndOperation() {
+        DynamoDbRateLimiter limiter = new DynamoDbRateLimiter(registry, 100, 5, 0, 3, 5000);
+
+        limiter.onThrottle("Photos", DynamoDbRateLimiter.Operation.WRITE);
+
+        assertEquals(50.0, rate("Photos", "write"), 0.01);
+        limiter.read("Photos", "GetItem", () -> null);
+        limiter.write("Properties", "PutItem", () -> null);
+        assertEquals(100.0, rate("Photos", "read"), 0.01);
+        assertEquals(100.0, rate("Properties", "write"), 0.01);
+    }
+
+    @Test
+    void rateRecoversWhileCallsSucceed() throws InterruptedException {
+        DynamoDbRateLimiter limiter = new DynamoDbRateLimiter(registry, 100, 5, 200, 3, 5000);
+        limiter.onThrottle("Photos", DynamoDbRateLimiter.Operation.READ);
+        assertEquals(50.0, rate("Photos", "read"), 0.01);
+
+        Thread.sleep(100);
+        limiter.onSuccess("Photos", DynamoDbRateLimiter.Operation.READ);
+
+        double rate = rate("Photos", "read");
+        assertTrue(rate > 60 && rate <= 100, "rate " + rate);
+        Thread.sleep(300);
+        limiter.onSuccess("Photos", DynamoDbRateLimiter.Operation.READ);
+        assertEquals(100.0, rate("Photos", "read"), 0.01);
+    }
+
+    private double throttles(String table, String operation) {
+        return registry.get("dynamodb.rate-limit.throttles").tag("table", table).tag("operation", operation).counter().count();
+    }
+
+    private double rate(String table, String operation) {
+        return registry.get("dynamodb.rate-limit.rate").tag("table", table).tag("operation", operation).gauge().value();
+    }
+
+    private static ProvisionedThroughputExceededException throttled() {
+        return ProvisionedThroughputExceededException.builder().message("throttled").build();
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,81 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.utils.PerceptualHash;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BkTreeTest {
+
+    @Test
+    void emptyTreeFindsNothing() {
+        assertTrue(search(new BkTree(), 0L, 64).isEmpty());
+    }
+
+    @Test
+    void findsPhotosWithinRadius() {
+        BkTree tree = new BkTree();
+        tree.add(0b0000L, "zero");
+        tree.add(0b0001L, "one-bit");
+        tree.add(0b0111L, "three-bits");
+        tree.add(-1L, "all-bits");
+
+        assertEquals(Set.of("zero"), search(tree, 0L, 0));
+        assertEquals(Set.of("zero", "one-bit"), search(tree, 0L, 1));
+        assertEquals(Set.of("zero", "one-bit", "three-bits"), search(tree, 0L, 3));
+        assertEquals(Set.of("all-bits"), search(tree, -1L, 5));
+    }
+
+    @Test
+    void keepsEveryPhotoOfAnIdenticalHash() {
+        BkTree tree = new BkTree();
+        tree.add(42L, "a");
+        tree.add(42L, "b");
+        tree.add(43L, "c");
+
+        assertEquals(Set.of("a", "b"), search(tree, 42L, 0));
+    }
+
+    @Test
+    void matchesLinearScan() {
+        Random random = new Random(7);
+        long[] bases = new long[50];
+        for (int i = 0; i < bases.length; i++) {
+            bases[i] = random.nextLong();
+        }
+        // Cluster near a few bases so small radii have several matches
+        long[] hashes = new long[2000];
+        BkTree tree = new BkTree();
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = bases[random.nextInt(bases.length)];
+            for (int flips = random.nextInt(8); flips > 0; flips--) {
+                hashes[i] ^= 1L << random.nextInt(64);
+            }
+            tree.add(hashes[i], "p" + i);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            long query = hashes[random.nextInt(hashes.length)] ^ (1L << random.nextInt(64));
+            for (int radius : new int[]{0, 2, 6, 12}) {
+                Set<String> expected = new HashSet<>();
+                for (int i = 0; i < hashes.length; i++) {
+                    if (PerceptualHash.distance(query, hashes[i]) <= radius) {
+                        expected.add("p" + i);
+                    }
+                }
+                assertEquals(expected, search(tree, query, radius), "query " + q + " radius " + radius);
+            }
+        }
+    }
+
+    private static Set<String> search(BkTree tree, long hash, int radius) {
+        Set<String> matches = new HashSet<>();
+        tree.search(hash, radius, matches::add);
+        return matches;
+    }
+}
@@ -0,0 +1,133 @@
+package com.rapidupload.backend.services;
+
+import com.rapidupload.backend.models.AnalysisJob;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryAnalysisJobQueueTest {
+
+    private final InMemoryAnalysisJobQueue queue = new InMemoryAnalysisJobQueue();
+
+    @Test
+    void servesPropertiesRoundRobin() throws InterruptedException {
+        queue.offer(job("a1", "A", 10L), false);
+        queue.offer(job("a2", "A", 10L), false);
+        queue.offer(job("a3", "A", 10L), false);
+        queue.offer(job("b1", "B", 10L), false);
+        queue.offer(job("c1", "C", 10L), false);
+        queue.offer(job("b2", "B", 10L), false);
+
+        assertEquals(List.of("a1", "b1", "c1", "a2", "b2", "a3"), drain());
+    }
+
+    @Test
+    void servesInteractiveJobsFirst() throws InterruptedException {
+        queue.offer(job("a1", "A", 10L), false);
+        queue.offer(job("b1", "B", 10L), false);
+        queue.offer(job("i1", "B", 10L), true);
+        queue.offer(job("i2", "A", 10L), true);
+
+        assertEquals(List.of("i1", "i2", "a1", "b1"), drain());
+    }
+
+    @Test
+    void rejectsJobsAlreadyQueued() throws InterruptedException {
+        assertTrue(queue.offer(job("a1", "A", 10L), false));
+        assertFalse(queue.offer(job("a1", "A", 10L), true));
+        assertEquals(1, queue.size());
+
+        queue.take(0, TimeUnit.MILLISECONDS);
+        assertFalse(queue.contains("a1"));
+        assertTrue(queue.offer(job("a1", "A", 10L), false));
+    }
+
+    @Test
+    void promotesDelayedRetryOnceDue() throws InterruptedException {
+        queue.offerDelayed(job("a1", "A", 10L), 200);
+
+        assertTrue(queue.contains("a1"));
+        assertNull(queue.take(50, TimeUnit.MILLISECONDS));
+
+        AnalysisJob retried = queue.take(2, TimeUnit.SECONDS);
+        assertEquals("a1", retried.getAnalysisId());
+        assertFalse(queue.contains("a1"));
+    }
+
+    @Test
+    void delayedRetryRejoinsBehindQueuedJobs() throws InterruptedException {
+        queue.offerDelayed(job("a0", "A", 10L), 0);
+        queue.offer(job("b1", "B", 10L), false);
+        queue.offer(job("a1", "A", 10L), false);
+
+        assertEquals(List.of("b1", "a1", "a0"), drain());
+    }
+
+    @Test
+    void takeSamePropertyStopsAtJobLimit() {
+        for (int i = 0; i < 5; i++) {
+            queue.offer(job("a" + i, "A", 10L), false);
+        }
+        queue.offer(job("b1", "B", 10L), false);
+
+        List<AnalysisJob> taken = queue.takeSameProperty("A", 3, Long.MAX_VALUE);
+
+        assertEquals(List.of("a0", "a1", "a2"), ids(taken));
+        assertEquals(3, queue.size());
+        assertFalse(queue.contains("a0"));
+        assertTrue(queue.contains("a3"));
+    }
+
+    @Test
+    void takeSamePropertyStopsBeforeExceedingBytes() {
+        queue.offer(job("a1", "A", 40L), false);
+        queue.offer(job("a2", "A", 50L), false);
+        queue.offer(job("a3", "A", 20L), false);
+
+        List<AnalysisJob> taken = queue.takeSameProperty("A", 10, 100);
+
+        // a3 would fit on its own but is not taken out of order
+        assertEquals(List.of("a1", "a2"), ids(taken));
+        assertTrue(queue.contains("a3"));
+    }
+
+    @Test
+    void takeSamePropertyDropsDrainedLaneFromRotation() throws InterruptedException {
+        queue.offer(job("a1", "A", 10L), false);
+        queue.offer(job("b1", "B", 10L), false);
+
+        assertEquals(List.of("a1"), ids(queue.takeSameProperty("A", 10, 1000)));
+        assertTrue(queue.takeSameProperty("missing", 10, 1000).isEmpty());
+        queue.offer(job("a2", "A", 10L), false);
+
+        assertEquals(List.of("b1", "a2"), drain());
+    }
+
+    private List<String> drain() throws InterruptedException {
+        List<String> ids = new ArrayList<>();
+        AnalysisJob job;
+        while ((job = queue.take(0, TimeUnit.MILLISECONDS)) != null) {
+            ids.add(job.getAnalysisId());
+        }
+        return ids;
+    }
+
+    private static List<String> ids(List<AnalysisJob> jobs) {
+        List<String> ids = new ArrayList<>();
+        for (AnalysisJob job : jobs) {
+            ids.add(job.getAnalysisId());
+        }
+        return ids;
+    }
+
+    private static AnalysisJob job(String analysisId, String propertyId, Long fileSize) {
+        return new AnalysisJob(analysisId, "photo-" + analysisId, propertyId, "bucket", "key/" + analysisId, fileSize);
+    }
+}
@@ -0,0 +1,52 @@
+package com.rapidupload.backend.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void burstUpToCapacityDoesNotWait() throws InterruptedException {
+        AnalysisDispatcher.TokenBucket bucket = new AnalysisDispatcher.TokenBucket(1, 5);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            bucket.acquire();
+        }
+
+        assertTrue(elapsedMs(start) < 200, "a full bucket should hand out its capacity at once");
+    }
+
+    @Test
+    void pacesAtRateOnceEmpty() throws InterruptedException {
+        AnalysisDispatcher.TokenBucket bucket = new AnalysisDispatcher.TokenBucket(20, 1);
+        bucket.acquire();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            bucket.acquire();
+        }
+
+        // Ten tokens at 20/s take about half a second
+        long elapsed = elapsedMs(start);
+        assertTrue(elapsed >= 400, "took only " + elapsed + " ms");
+        assertTrue(elapsed < 2000, "took " + elapsed + " ms");
+    }
+
+    @Test
+    void capacityBelowOneStillHandsOutTokens() throws InterruptedException {
+        AnalysisDispatcher.TokenBucket bucket = new AnalysisDispatcher.TokenBucket(100, 0);
+
+        long start = System.nanoTime();
+        bucket.acquire();
+
+        assertTrue(elapsedMs(start) < 200);
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,90 @@
+package com.rapidupload.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ImageResizerTest {
+
+    private static final int WIDTH = 3;
+    private static final int HEIGHT = 2;
+
+    @Test
+    void leavesUprightAndUnknownOrientationsAlone() {
+        BufferedImage image = sample();
+
+        assertSame(image, ImageResizer.orient(image, 1));
+        assertSame(image, ImageResizer.orient(image, 0));
+        assertSame(image, ImageResizer.orient(image, 9));
+    }
+
+    @Test
+    void mirrorsHorizontally() {
+        assertMapped(2, WIDTH, HEIGHT, (x, y) -> new int[]{WIDTH - 1 - x, y});
+    }
+
+    @Test
+    void rotates180() {
+        assertMapped(3, WIDTH, HEIGHT, (x, y) -> new int[]{WIDTH - 1 - x, HEIGHT - 1 - y});
+    }
+
+    @Test
+    void mirrorsVertically() {
+        assertMapped(4, WIDTH, HEIGHT, (x, y) -> new int[]{x, HEIGHT - 1 - y});
+    }
+
+    @Test
+    void transposes() {
+        assertMapped(5, HEIGHT, WIDTH, (x, y) -> new int[]{y, x});
+    }
+
+    @Test
+    void rotatesClockwise() {
+        assertMapped(6, HEIGHT, WIDTH, (x, y) -> new int[]{HEIGHT - 1 - y, x});
+    }
+
+    @Test
+    void transverses() {
+        assertMapped(7, HEIGHT, WIDTH, (x, y) -> new int[]{HEIGHT - 1 - y, WIDTH - 1 - x});
+    }
+
+    @Test
+    void rotatesCounterClockwise() {
+        assertMapped(8, HEIGHT, WIDTH, (x, y) -> new int[]{y, WIDTH - 1 - x});
+    }
+
+    private interface Mapping {
+        int[] apply(int x, int y);
+    }
+
+    private static void assertMapped(int orientation, int width, int height, Mapping mapping) {
+        BufferedImage image = sample();
+        BufferedImage oriented = ImageResizer.orient(image, orientation);
+
+        assertEquals(width, oriented.getWidth());
+        assertEquals(height, oriented.getHeight());
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int[] target = mapping.apply(x, y);
+                assertEquals(image.getRGB(x, y), oriented.getRGB(target[0], target[1]),
+                        "orientation " + orientation + ", pixel " + x + "," + y);
+            }
+        }
+    }
+
+    /**
+     * A small image in which every pixel has its own colour.
+     */
+    private static BufferedImage sample() {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, ((x + 1) * 60 << 16) | ((y + 1) * 90 << 8) | 0x20);
+            }
+        }
+        return image;
+    }
+}
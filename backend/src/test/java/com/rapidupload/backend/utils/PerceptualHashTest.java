@@ -0,0 +1,111 @@
+package com.rapidupload.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PerceptualHashTest {
+
+    @Test
+    void hexRoundTripsAllBits() {
+        for (long hash : new long[]{0L, 1L, -1L, Long.MIN_VALUE, 0x0123456789abcdefL}) {
+            String hex = PerceptualHash.toHex(hash);
+            assertEquals(16, hex.length());
+            assertEquals(hash, PerceptualHash.fromHex(hex));
+        }
+        assertEquals("ffffffffffffffff", PerceptualHash.toHex(-1L));
+    }
+
+    @Test
+    void distanceCountsDifferingBits() {
+        assertEquals(0, PerceptualHash.distance(0x55L, 0x55L));
+        assertEquals(1, PerceptualHash.distance(0L, 8L));
+        assertEquals(64, PerceptualHash.distance(0L, -1L));
+    }
+
+    @Test
+    void gradientDirectionSetsBits() {
+        // Brightness falling to the right sets every bit; rising to the right sets none
+        assertEquals(-1L, PerceptualHash.dHash(gradient(Color.WHITE, Color.BLACK, 180, 120)));
+        assertEquals(0L, PerceptualHash.dHash(gradient(Color.BLACK, Color.WHITE, 180, 120)));
+    }
+
+    @Test
+    void rescaledImageHashesClose() {
+        BufferedImage original = scene(360, 240);
+        BufferedImage smaller = scene(120, 80);
+
+        int distance = PerceptualHash.distance(PerceptualHash.dHash(original), PerceptualHash.dHash(smaller));
+        assertTrue(distance <= 6, "distance " + distance);
+    }
+
+    @Test
+    void differentImagesHashFarApart() {
+        int distance = PerceptualHash.distance(PerceptualHash.dHash(scene(360, 240)),
+                PerceptualHash.dHash(gradient(Color.BLACK, Color.WHITE, 360, 240)));
+        assertTrue(distance > 10, "distance " + distance);
+    }
+
+    @Test
+    void streamMatchesDecodedImage() throws IOException {
+        BufferedImage image = scene(800, 600);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+
+        Long hash = PerceptualHash.dHash(new ByteArrayInputStream(png.toByteArray()));
+
+        assertNotNull(hash);
+        assertTrue(PerceptualHash.distance(hash, PerceptualHash.dHash(image)) <= 6);
+    }
+
+    @Test
+    void unknownFormatHashesToNull() throws IOException {
+        assertNull(PerceptualHash.dHash(new ByteArrayInputStream("not an image".getBytes())));
+    }
+
+    private static BufferedImage gradient(Color left, Color right, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setPaint(new GradientPaint(0, 0, left, width, 0, right));
+            graphics.fillRect(0, 0, width, height);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * A few blocks and a diagonal band, drawn proportionally so any size shows the same picture.
+     */
+    private static BufferedImage scene(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(new Color(200, 190, 170));
+            graphics.fillRect(0, 0, width, height);
+            graphics.setColor(new Color(40, 60, 90));
+            graphics.fillRect(width / 8, height / 6, width / 3, height / 2);
+            graphics.setColor(new Color(120, 30, 30));
+            graphics.fillOval(width / 2, height / 3, width / 3, height / 2);
+            graphics.setColor(new Color(20, 20, 20));
+            graphics.fillPolygon(new int[]{0, width / 4, width / 2},
+                    new int[]{height, height / 2, height}, 3);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+}
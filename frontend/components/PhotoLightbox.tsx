@@ -4,6 +4,7 @@ import { useEffect, useState, useRef } from 'react';
 import Image from 'next/image';
 import type { Photo } from '@/types/api';
 import { useAnalysisByPhoto, useTriggerAnalysis, useUpdateDetectionVolume } from '@/lib/hooks/useAnalysis';
+import { photoDisplayUrl } from '@/lib/photoDisplayUrl';
 import BoundingBoxOverlay from './BoundingBoxOverlay';
 import AnalysisResultsPanel from './AnalysisResultsPanel';
 import AnalysisStatusBadge from './AnalysisStatusBadge';
@@ -131,9 +132,7 @@ export default function PhotoLightbox({
   const currentPhoto = photos[currentIndex];
   // Note: We treat null/undefined status as 'uploaded' for backwards compatibility
   const isUploaded = currentPhoto.status === 'uploaded' || currentPhoto.status === null || currentPhoto.status === undefined;
-  const photoUrl = isUploaded
-    ? `https://${currentPhoto.s3Bucket}.s3.us-east-1.amazonaws.com/${currentPhoto.s3Key}`
-    : null;
+  const photoUrl = isUploaded ? photoDisplayUrl(currentPhoto, 'preview') : null;
 
   if (!photoUrl) return null;
 
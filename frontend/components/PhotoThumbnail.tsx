@@ -5,6 +5,7 @@ import Image from 'next/image';
 import type { Photo } from '@/types/api';
 import { useAnalysisByPhoto, useTriggerAnalysis } from '@/lib/hooks/useAnalysis';
 import { useDeletePhoto } from '@/lib/hooks/usePhotos';
+import { photoDisplayUrl } from '@/lib/photoDisplayUrl';
 import AnalysisStatusBadge from './AnalysisStatusBadge';
 import toast from 'react-hot-toast';
 
@@ -77,11 +78,9 @@ export default function PhotoThumbnail({
   const canAnalyze = !analysis || analysis.status === 'failed';
   const isAnalyzingStatus = analysis?.status === 'pending' || analysis?.status === 'processing';
 
-  // Construct S3 URL
+  // Gallery-sized rendition, or the original until it has been generated
   const isUploaded = photo.status === 'uploaded' || photo.status === null || photo.status === undefined;
-  const photoUrl = isUploaded
-    ? `https://${photo.s3Bucket}.s3.us-east-1.amazonaws.com/${photo.s3Key}`
-    : null;
+  const photoUrl = isUploaded ? photoDisplayUrl(photo, 'thumbnail') : null;
 
   // Format file size
   const formatFileSize = (bytes: number): string => {
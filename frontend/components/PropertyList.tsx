@@ -5,6 +5,7 @@ import Image from 'next/image';
 import { useProperties, usePropertyPhotos, useDeleteProperty } from '@/lib/hooks/useProperties';
 import { useRouter } from 'next/navigation';
 import type { Property } from '@/types/api';
+import { photoDisplayUrl } from '@/lib/photoDisplayUrl';
 import Card from '@/components/ui/Card';
 import EmptyState, { EmptyStateIcons } from '@/components/ui/EmptyState';
 import Button from '@/components/ui/Button';
@@ -53,7 +54,7 @@ function PropertyThumbnail({ propertyId, photoCount }: { propertyId: string; pho
     );
   }
 
-  const photoUrl = `https://${firstPhoto.s3Bucket}.s3.us-east-1.amazonaws.com/${firstPhoto.s3Key}`;
+  const photoUrl = photoDisplayUrl(firstPhoto, 'thumbnail');
 
   return (
     <div className="h-40 relative overflow-hidden bg-[var(--color-bg-tertiary)]">
@@ -1,6 +1,6 @@
 import { useQuery, useMutation, useQueryClient, useInfiniteQuery } from '@tanstack/react-query';
 import api from '../api';
-import type { AnalysisResult, PagedAnalysisResponse, TriggerAnalysisRequest, ReportResponse } from '@/types/api';
+import type { AnalysisResult, PagedAnalysisResponse, TriggerAnalysisRequest, ReportResponse, ReportJob } from '@/types/api';
 
 export const analysisKeys = {
   all: ['analysis'] as const,
@@ -84,14 +84,31 @@ export function useTriggerAnalysis() {
   });
 }
 
+const REPORT_POLL_INTERVAL_MS = 2000;
+
 export function useGenerateReport() {
   return useMutation<ReportResponse, Error, { propertyId: string; photoIds?: string[] }>({
     mutationFn: async ({ propertyId, photoIds }) => {
-      const response = await api.post<ReportResponse>(
+      const response = await api.post<ReportJob>(
         `/reports/generate/${propertyId}`,
         photoIds || []
       );
-      return response.data;
+
+      // Reports run as background jobs; poll until the job finishes
+      let job = response.data;
+      while (job.status === 'queued' || job.status === 'running') {
+        await new Promise((resolve) => setTimeout(resolve, REPORT_POLL_INTERVAL_MS));
+        job = (await api.get<ReportJob>(`/reports/jobs/${job.jobId}`)).data;
+      }
+
+      if (job.status !== 'completed' || !job.reportKey || !job.downloadUrl) {
+        throw new Error(job.error || 'Failed to generate report');
+      }
+      return {
+        reportKey: job.reportKey,
+        downloadUrl: job.downloadUrl,
+        photosIncluded: job.photosIncluded ?? 0,
+      };
     },
   });
 }
@@ -0,0 +1,9 @@
+import type { Photo } from '@/types/api';
+
+/**
+ * URL to display a photo at: the presigned URL of the requested rendition when it has been
+ * generated, otherwise the full-size original.
+ */
+export function photoDisplayUrl(photo: Photo, rendition: 'thumbnail' | 'preview'): string {
+  return photo[rendition]?.url || `https://${photo.s3Bucket}.s3.us-east-1.amazonaws.com/${photo.s3Key}`;
+}
@@ -15,6 +15,17 @@ export interface Photo {
   fileSize: number;
   status: 'pending' | 'uploaded' | 'failed';
   contentType: string;
+  // Generated in the background; missing until then
+  thumbnail?: Rendition | null;
+  preview?: Rendition | null;
+}
+
+export interface Rendition {
+  s3Key: string;
+  width?: number | null;
+  height?: number | null;
+  fileSize?: number | null;
+  url?: string | null;  // Presigned GET URL
 }
 
 export interface PagedPhotoResponse {
@@ -89,3 +100,21 @@ export interface ReportResponse {
   photosIncluded: number;
 }
 
+export interface ReportJob {
+  jobId: string;
+  propertyId: string;
+  status: 'queued' | 'running' | 'completed' | 'failed';
+  queuePosition?: number | null;
+  photosTotal?: number | null;
+  photosProcessed?: number | null;
+  photosIncluded?: number | null;
+  reportKey?: string | null;
+  cached?: boolean;
+  downloadUrl?: string | null;
+  downloadUrlExpiresAt?: string | null;
+  error?: string | null;
+  createdAt: string;
+  startedAt?: string | null;
+  completedAt?: string | null;
+}
+
@@ -2,6 +2,7 @@ import json
 import boto3
 import base64
 import os
+from concurrent.futures import ThreadPoolExecutor, as_completed
 from datetime import datetime
 from decimal import Decimal
 
@@ -13,10 +14,13 @@ _gemini_client = None
 
 # Configuration
 ANALYSIS_TABLE = os.environ.get('ANALYSIS_TABLE', 'Analysis')
+REPORT_JOBS_TABLE = os.environ.get('REPORT_JOBS_TABLE', 'ReportJobs')
 MIN_CONFIDENCE = float(os.environ.get('MIN_CONFIDENCE', '60.0'))
 OPENAI_MODEL = os.environ.get('OPENAI_MODEL', 'gpt-4o')
 AI_PROVIDER = os.environ.get('AI_PROVIDER', 'gemini')
 GEMINI_MODEL = 'gemini-2.5-flash'
+# Photos of a grouped invocation analyzed at the same time
+GROUP_CONCURRENCY = int(os.environ.get('GROUP_CONCURRENCY', '4'))
 
 
 def get_openai_client():
@@ -41,7 +45,7 @@ def handler(event, context):
     """
     Lambda handler for photo analysis.
 
-    Event format:
+    Event format (single photo):
     {
         "analysisId": "uuid",
         "photoId": "uuid",
@@ -49,22 +53,73 @@ def handler(event, context):
         "s3Bucket": "bucket-name",
         "s3Key": "path/to/image.jpg"
     }
+
+    Event format (group of photos from one property):
+    {
+        "jobs": [ { ...single photo fields... }, ... ]
+    }
     """
     print(f"Processing event: {json.dumps(event)}")
 
-    analysis_id = event['analysisId']
-    photo_id = event['photoId']
-    property_id = event['propertyId']
-    s3_bucket = event['s3Bucket']
-    s3_key = event['s3Key']
-
     table = dynamodb.Table(ANALYSIS_TABLE)
 
+    if 'jobs' in event:
+        return handle_group(table, event['jobs'])
+
+    detections_count = process_job(table, event)
+    return {
+        'statusCode': 200,
+        'body': json.dumps({
+            'analysisId': event['analysisId'],
+            'status': 'completed',
+            'detectionsCount': detections_count
+        })
+    }
+
+
+def handle_group(table, jobs):
+    """
+    Analyze a group of photos in one invocation, up to GROUP_CONCURRENCY at a time. Each photo
+    writes its own result row; a failing photo is marked failed on its own row and does not fail
+    the invocation, so async retries never re-run photos that already completed.
+    """
+    results = []
+    with ThreadPoolExecutor(max_workers=max(1, min(GROUP_CONCURRENCY, len(jobs)))) as executor:
+        futures = {executor.submit(process_job, table, job): job for job in jobs}
+        for future in as_completed(futures):
+            job = futures[future]
+            try:
+                results.append({
+                    'analysisId': job['analysisId'],
+                    'status': 'completed',
+                    'detectionsCount': future.result()
+                })
+            except Exception as e:
+                results.append({'analysisId': job['analysisId'], 'status': 'failed', 'error': str(e)})
+
+    failed = sum(1 for result in results if result['status'] == 'failed')
+    print(f"Processed group of {len(jobs)} photos, {failed} failed")
+    return {
+        'statusCode': 200,
+        'body': json.dumps({'results': results})
+    }
+
+
+def process_job(table, job):
+    """
+    Analyze one photo and write its results. On error the analysis is marked failed and the
+    exception re-raised. Returns the number of detections.
+    """
+    analysis_id = job['analysisId']
+    s3_bucket = job['s3Bucket']
+    s3_key = job['s3Key']
+
     try:
         # Update status to processing
         table.update_item(
             Key={'AnalysisID': analysis_id},
-            UpdateExpression='SET #status = :status',
+            # Leaving pending drops the row out of the backend's sparse Pending-index
+            UpdateExpression='SET #status = :status REMOVE PendingStatus',
             ExpressionAttributeNames={'#status': 'Status'},
             ExpressionAttributeValues={':status': 'processing'}
         )
@@ -112,15 +167,9 @@ def handler(event, context):
 
         # Update DynamoDB with results
         update_analysis_results(table, analysis_id, detections, gpt_analysis)
+        copy_to_followers(table, analysis_id, detections, gpt_analysis)
 
-        return {
-            'statusCode': 200,
-            'body': json.dumps({
-                'analysisId': analysis_id,
-                'status': 'completed',
-                'detectionsCount': len(detections)
-            })
-        }
+        return len(detections)
 
     except Exception as e:
         print(f"Error processing analysis {analysis_id}: {str(e)}")
@@ -128,13 +177,14 @@ def handler(event, context):
         # Update status to failed
         table.update_item(
             Key={'AnalysisID': analysis_id},
-            UpdateExpression='SET #status = :status, errorMessage = :error',
+            UpdateExpression='SET #status = :status, errorMessage = :error REMOVE PendingStatus',
             ExpressionAttributeNames={'#status': 'Status'},
             ExpressionAttributeValues={
                 ':status': 'failed',
                 ':error': str(e)
             }
         )
+        fail_followers(table, analysis_id, str(e))
 
         raise e
 
@@ -423,6 +473,7 @@ def update_analysis_results(table, analysis_id, detections, gpt_analysis):
                 completedAt = :completedAt,
                 detections = :detections,
                 claudeAnalysis = :gptAnalysis
+            REMOVE PendingStatus
         ''',
         ExpressionAttributeNames={'#status': 'Status'},
         ExpressionAttributeValues={
@@ -436,17 +487,89 @@ def update_analysis_results(table, analysis_id, detections, gpt_analysis):
     print(f"Updated analysis {analysis_id} with {len(detections)} detections")
 
 
+def copy_to_followers(table, analysis_id, detections, gpt_analysis):
+    """
+    Complete the pending analyses the backend created for photos of the same content while this
+    one was in progress (SourceAnalysisID), so they don't pay for a model call of their own.
+    """
+    update_followers(
+        table, analysis_id,
+        '''
+            SET #status = :status,
+                completedAt = :completedAt,
+                detections = :detections,
+                claudeAnalysis = :gptAnalysis
+            REMOVE PendingStatus
+        ''',
+        {
+            ':status': 'completed',
+            ':completedAt': datetime.utcnow().isoformat() + 'Z',
+            ':detections': detections,
+            ':gptAnalysis': gpt_analysis
+        }
+    )
+
+
+def fail_followers(table, analysis_id, error):
+    """Identical content fails identically: mark its followers failed too, so they can be retried."""
+    update_followers(
+        table, analysis_id,
+        'SET #status = :status, errorMessage = :error REMOVE PendingStatus',
+        {':status': 'failed', ':error': error}
+    )
+
+
+def update_followers(table, analysis_id, update_expression, values):
+    """
+    Apply an update to every still-pending follower of an analysis. Best effort: a follower missed
+    here is resolved by the backend's recovery pass.
+    """
+    try:
+        query = {
+            'IndexName': 'SourceAnalysisID-index',
+            'KeyConditionExpression': 'SourceAnalysisID = :source',
+            'ExpressionAttributeValues': {':source': analysis_id}
+        }
+        followers = 0
+        while True:
+            response = table.query(**query)
+            for item in response['Items']:
+                try:
+                    table.update_item(
+                        Key={'AnalysisID': item['AnalysisID']},
+                        UpdateExpression=update_expression,
+                        ConditionExpression='#status = :pending',
+                        ExpressionAttributeNames={'#status': 'Status'},
+                        ExpressionAttributeValues={**values, ':pending': 'pending'}
+                    )
+                    followers += 1
+                except dynamodb.meta.client.exceptions.ConditionalCheckFailedException:
+                    pass
+            if 'LastEvaluatedKey' not in response:
+                break
+            query['ExclusiveStartKey'] = response['LastEvaluatedKey']
+        if followers:
+            print(f"Updated {followers} followers of analysis {analysis_id}")
+    except Exception as e:
+        print(f"Error updating followers of analysis {analysis_id}: {str(e)}")
+
+
 def report_handler(event, context):
     """
     Lambda handler for generating PDF reports.
 
     Event format:
     {
+        "jobId": "uuid",              (optional, set by the backend's report queue)
         "propertyId": "uuid",
         "propertyName": "Property Name",
-        "photoIds": ["uuid1", "uuid2", ...]
+        "photoIds": ["uuid1", "uuid2", ...],
+        "reportKey": "reports/property-id/fingerprint.pdf"  (optional)
     }
 
+    With a reportKey the PDF is stored under that content-addressed key, so the backend can
+    reuse it for identical requests. With a jobId, progress and the outcome are written to the ReportJobs item as well.
+
     Returns:
     {
         "statusCode": 200,
@@ -455,10 +578,33 @@ def report_handler(event, context):
         }
     }
     """
-    from report_generator import generate_pdf_report
-
     print(f"Generating report for event: {json.dumps(event)}")
 
+    job_id = event.get('jobId')
+    jobs_table = dynamodb.Table(REPORT_JOBS_TABLE) if job_id else None
+
+    try:
+        result = generate_report(event, jobs_table, job_id)
+    except Exception as e:
+        print(f"Error generating report: {str(e)}")
+        if jobs_table:
+            finish_report_job(jobs_table, job_id, 'failed', Error=f"Report generation failed: {str(e)}")
+        raise
+
+    if jobs_table:
+        body = json.loads(result['body'])
+        if result['statusCode'] == 200:
+            finish_report_job(jobs_table, job_id, 'completed',
+                              ReportKey=body['reportKey'], PhotosIncluded=body['photosIncluded'])
+        else:
+            finish_report_job(jobs_table, job_id, 'failed', Error=body['error'])
+
+    return result
+
+
+def generate_report(event, jobs_table, job_id):
+    from report_generator import generate_pdf_report
+
     property_id = event['propertyId']
     property_name = event.get('propertyName', property_id)
     photo_ids = event.get('photoIds', [])
@@ -467,6 +613,15 @@ def report_handler(event, context):
     photos_table_name = os.environ.get('PHOTOS_TABLE', 'Photos')
     photos_table = dynamodb.Table(photos_table_name)
 
+    if jobs_table:
+        jobs_table.update_item(
+            Key={'JobID': job_id},
+            UpdateExpression='SET PhotosTotal = :total, PhotosProcessed = :zero',
+            ConditionExpression='#status = :running',
+            ExpressionAttributeNames={'#status': 'Status'},
+            ExpressionAttributeValues={':running': 'running', ':total': len(photo_ids), ':zero': 0}
+        )
+
     # Gather photo data
     photos_data = []
 
@@ -507,6 +662,9 @@ def report_handler(event, context):
         except Exception as e:
             print(f"Error processing photo {photo_id}: {str(e)}")
             continue
+        finally:
+            if jobs_table:
+                record_report_progress(jobs_table, job_id)
 
     if not photos_data:
         return {
@@ -518,13 +676,16 @@ def report_handler(event, context):
     pdf_bytes = generate_pdf_report(property_name, photos_data)
 
     # Upload to S3
-    report_key = f"reports/{property_id}/report-{datetime.utcnow().strftime('%Y%m%d-%H%M%S')}.pdf"
+    report_key = event.get('reportKey') or \
+        f"reports/{property_id}/report-{datetime.utcnow().strftime('%Y%m%d-%H%M%S')}.pdf"
 
     s3_client.put_object(
         Bucket=os.environ.get('PHOTOS_BUCKET', 'rapidupload-photos'),
         Key=report_key,
         Body=pdf_bytes,
-        ContentType='application/pdf'
+        ContentType='application/pdf',
+        # Read back by the backend when it reuses the report
+        Metadata={'photos-included': str(len(photos_data))}
     )
 
     print(f"Report uploaded to s3://{os.environ.get('PHOTOS_BUCKET')}/{report_key}")
@@ -536,3 +697,37 @@ def report_handler(event, context):
             'photosIncluded': len(photos_data)
         })
     }
+
+
+def record_report_progress(jobs_table, job_id):
+    """Count one more photo processed; progress is best effort."""
+    try:
+        jobs_table.update_item(
+            Key={'JobID': job_id},
+            UpdateExpression='ADD PhotosProcessed :one',
+            ExpressionAttributeValues={':one': 1}
+        )
+    except Exception as e:
+        print(f"Error recording progress for report job {job_id}: {str(e)}")
+
+
+def finish_report_job(jobs_table, job_id, status, **attributes):
+    """Record a job's outcome, unless the backend already failed it (e.g. timed out)."""
+    attributes['CompletedAt'] = datetime.utcnow().isoformat() + 'Z'
+    names = {'#status': 'Status'}
+    values = {':status': status, ':running': 'running'}
+    assignments = ['#status = :status']
+    for name, value in attributes.items():
+        names[f'#{name}'] = name
+        values[f':{name}'] = value
+        assignments.append(f'#{name} = :{name}')
+    try:
+        jobs_table.update_item(
+            Key={'JobID': job_id},
+            UpdateExpression='SET ' + ', '.join(assignments),
+            ConditionExpression='#status = :running',
+            ExpressionAttributeNames=names,
+            ExpressionAttributeValues=values
+        )
+    except Exception as e:
+        print(f"Error finishing report job {job_id}: {str(e)}")